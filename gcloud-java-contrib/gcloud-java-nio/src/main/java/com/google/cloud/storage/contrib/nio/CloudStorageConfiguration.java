@@ -59,6 +59,17 @@ public abstract class CloudStorageConfiguration {
    */
   public abstract int blockSize();
 
+  /**
+   * Returns the maximum number of object metadata entries kept in the client-side cache. A value
+   * of {@code 0} (the default) disables the cache.
+   */
+  public abstract int metadataCacheSize();
+
+  /**
+   * Returns the time (in milliseconds) a cached object metadata entry is considered fresh.
+   */
+  public abstract long metadataCacheTtlMillis();
+
   /**
    * Creates a new builder, initialized with the following settings:
    *
@@ -66,6 +77,7 @@ public abstract class CloudStorageConfiguration {
    * <li>Performing I/O on paths with extra slashes, e.g. {@code a//b} will throw an error.
    * <li>The prefix slash on absolute paths will be removed when converting to an object name.
    * <li>Pseudo-directories are enabled, so any path with a trailing slash is a fake directory.
+   * <li>Object metadata is not cached, so every attribute lookup talks to the server.
    * </ul>
    */
   public static Builder builder() {
@@ -82,6 +94,8 @@ public abstract class CloudStorageConfiguration {
     private boolean stripPrefixSlash = true;
     private boolean usePseudoDirectories = true;
     private int blockSize = CloudStorageFileSystem.BLOCK_SIZE_DEFAULT;
+    private int metadataCacheSize;
+    private long metadataCacheTtlMillis = CloudStorageFileSystem.METADATA_CACHE_TTL_MILLIS_DEFAULT;
 
     /**
      * Changes current working directory for new filesystem. This defaults to the root directory.
@@ -134,6 +148,36 @@ public abstract class CloudStorageConfiguration {
       return this;
     }
 
+    /**
+     * Sets the maximum number of object metadata entries the file system may cache. Cached
+     * metadata is used by attribute lookups, existence checks and when opening files for reading,
+     * and is populated by directory listings. Writes, copies and deletes made through the provider
+     * invalidate the affected entries, while changes made by other clients become visible only
+     * once the cached entry expires.
+     *
+     * <p>The default is {@code 0}, which disables the cache.
+     *
+     * @throws IllegalArgumentException if {@code value} is negative
+     */
+    public Builder metadataCacheSize(int value) {
+      checkArgument(value >= 0, "metadataCacheSize must be >= 0");
+      metadataCacheSize = value;
+      return this;
+    }
+
+    /**
+     * Sets the time in milliseconds a cached object metadata entry is considered fresh.
+     *
+     * <p>The default is {@value CloudStorageFileSystem#METADATA_CACHE_TTL_MILLIS_DEFAULT}.
+     *
+     * @throws IllegalArgumentException if {@code value} is not positive
+     */
+    public Builder metadataCacheTtlMillis(long value) {
+      checkArgument(value > 0, "metadataCacheTtlMillis must be > 0");
+      metadataCacheTtlMillis = value;
+      return this;
+    }
+
     /**
      * Creates new instance without destroying builder.
      */
@@ -143,7 +187,9 @@ public abstract class CloudStorageConfiguration {
           permitEmptyPathComponents,
           stripPrefixSlash,
           usePseudoDirectories,
-          blockSize);
+          blockSize,
+          metadataCacheSize,
+          metadataCacheTtlMillis);
     }
 
     Builder() {}
@@ -168,6 +214,12 @@ public abstract class CloudStorageConfiguration {
         case "blockSize":
           builder.blockSize((Integer) entry.getValue());
           break;
+        case "metadataCacheSize":
+          builder.metadataCacheSize((Integer) entry.getValue());
+          break;
+        case "metadataCacheTtlMillis":
+          builder.metadataCacheTtlMillis(((Number) entry.getValue()).longValue());
+          break;
         default:
           throw new IllegalArgumentException(entry.getKey());
       }
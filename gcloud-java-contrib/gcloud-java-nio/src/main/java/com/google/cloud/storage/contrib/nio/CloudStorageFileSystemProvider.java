@@ -86,6 +86,7 @@ import javax.inject.Singleton;
 public final class CloudStorageFileSystemProvider extends FileSystemProvider {
 
   private final Storage storage;
+  private final CloudStorageMetadataCache metadataCache = new CloudStorageMetadataCache();
 
   // used only when we create a new instance of CloudStorageFileSystemProvider.
   private static StorageOptions storageOptions;
@@ -94,18 +95,22 @@ public final class CloudStorageFileSystemProvider extends FileSystemProvider {
     private final Iterator<Blob> blobIterator;
     private final Filter<? super Path> filter;
     private final CloudStorageFileSystem fileSystem;
+    private final CloudStorageMetadataCache metadataCache;
 
     LazyPathIterator(CloudStorageFileSystem fileSystem, Iterator<Blob> blobIterator,
-                     Filter<? super Path> filter) {
+                     Filter<? super Path> filter, CloudStorageMetadataCache metadataCache) {
       this.blobIterator = blobIterator;
       this.filter = filter;
       this.fileSystem = fileSystem;
+      this.metadataCache = metadataCache;
     }
 
     @Override
     protected Path computeNext() {
       while (blobIterator.hasNext()) {
-        Path path = fileSystem.getPath(blobIterator.next().name());
+        Blob blob = blobIterator.next();
+        metadataCache.put(fileSystem.config(), blob);
+        Path path = fileSystem.getPath(blob.name());
         try {
           if (filter.accept(path)) {
             return path;
@@ -239,7 +244,15 @@ public final class CloudStorageFileSystemProvider extends FileSystemProvider {
     if (cloudPath.seemsLikeADirectoryAndUsePseudoDirectories()) {
       throw new CloudStoragePseudoDirectoryException(cloudPath);
     }
-    return CloudStorageReadChannel.create(storage, cloudPath.getBlobId(), 0);
+    BlobId file = cloudPath.getBlobId();
+    if (!CloudStorageMetadataCache.isEnabled(cloudPath.getFileSystem().config())) {
+      return CloudStorageReadChannel.create(storage, file, 0);
+    }
+    BlobInfo blobInfo = getBlobInfo(cloudPath);
+    if (blobInfo == null || blobInfo.size() == null) {
+      throw new NoSuchFileException(String.format("gs://%s/%s", file.bucket(), file.name()));
+    }
+    return CloudStorageReadChannel.create(storage, file, 0, blobInfo.size());
   }
 
   private SeekableByteChannel newWriteChannel(Path path, Set<? extends OpenOption> options)
@@ -308,9 +321,11 @@ public final class CloudStorageFileSystemProvider extends FileSystemProvider {
     }
 
     try {
+      metadataCache.invalidate(file);
       return new CloudStorageWriteChannel(
           storage.writer(infoBuilder.build(),
-              writeOptions.toArray(new Storage.BlobWriteOption[writeOptions.size()])));
+              writeOptions.toArray(new Storage.BlobWriteOption[writeOptions.size()])),
+          metadataCache, file);
     } catch (StorageException oops) {
       throw asIoException(oops);
     }
@@ -335,7 +350,9 @@ public final class CloudStorageFileSystemProvider extends FileSystemProvider {
     if (cloudPath.seemsLikeADirectoryAndUsePseudoDirectories()) {
       throw new CloudStoragePseudoDirectoryException(cloudPath);
     }
-    return storage.delete(cloudPath.getBlobId());
+    boolean deleted = storage.delete(cloudPath.getBlobId());
+    metadataCache.invalidate(cloudPath.getBlobId());
+    return deleted;
   }
 
   @Override
@@ -441,7 +458,7 @@ public final class CloudStorageFileSystemProvider extends FileSystemProvider {
 
     try {
       if (wantCopyAttributes) {
-        BlobInfo blobInfo = storage.get(fromPath.getBlobId());
+        BlobInfo blobInfo = getBlobInfo(fromPath);
         if (null == blobInfo) {
           throw new NoSuchFileException(fromPath.toString());
         }
@@ -471,6 +488,7 @@ public final class CloudStorageFileSystemProvider extends FileSystemProvider {
       }
       CopyWriter copyWriter = storage.copy(copyReqBuilder.build());
       copyWriter.result();
+      metadataCache.invalidate(toPath.getBlobId());
     } catch (StorageException oops) {
       throw asIoException(oops);
     }
@@ -506,8 +524,14 @@ public final class CloudStorageFileSystemProvider extends FileSystemProvider {
     if (cloudPath.seemsLikeADirectoryAndUsePseudoDirectories()) {
       return;
     }
-    if (storage.get(cloudPath.getBlobId(), Storage.BlobGetOption.fields(Storage.BlobField.ID))
-        == null) {
+    BlobInfo blobInfo;
+    if (CloudStorageMetadataCache.isEnabled(cloudPath.getFileSystem().config())) {
+      blobInfo = getBlobInfo(cloudPath);
+    } else {
+      blobInfo =
+          storage.get(cloudPath.getBlobId(), Storage.BlobGetOption.fields(Storage.BlobField.ID));
+    }
+    if (blobInfo == null) {
       throw new NoSuchFileException(path.toString());
     }
   }
@@ -526,7 +550,7 @@ public final class CloudStorageFileSystemProvider extends FileSystemProvider {
       A result = (A) new CloudStoragePseudoDirectoryAttributes(cloudPath);
       return result;
     }
-    BlobInfo blobInfo = storage.get(cloudPath.getBlobId());
+    BlobInfo blobInfo = getBlobInfo(cloudPath);
     // null size indicate a file that we haven't closed yet, so GCS treats it as not there yet.
     if (null == blobInfo || blobInfo.size() == null) {
       throw new NoSuchFileException(
@@ -575,13 +599,19 @@ public final class CloudStorageFileSystemProvider extends FileSystemProvider {
     final CloudStoragePath cloudPath = CloudStorageUtil.checkPath(dir);
     checkNotNull(filter);
     String prefix = cloudPath.toString();
+    List<Storage.BlobListOption> listOptions = new ArrayList<>();
+    listOptions.add(Storage.BlobListOption.prefix(prefix));
+    listOptions.add(Storage.BlobListOption.currentDirectory());
+    if (!CloudStorageMetadataCache.isEnabled(cloudPath.getFileSystem().config())) {
+      // Full metadata is only requested when it can be used to populate the cache.
+      listOptions.add(Storage.BlobListOption.fields());
+    }
     final Iterator<Blob> blobIterator = storage.list(cloudPath.bucket(),
-        Storage.BlobListOption.prefix(prefix), Storage.BlobListOption.currentDirectory(),
-        Storage.BlobListOption.fields()).iterateAll();
+        listOptions.toArray(new Storage.BlobListOption[listOptions.size()])).iterateAll();
     return new DirectoryStream<Path>() {
       @Override
       public Iterator<Path> iterator() {
-        return new LazyPathIterator(cloudPath.getFileSystem(), blobIterator, filter);
+        return new LazyPathIterator(cloudPath.getFileSystem(), blobIterator, filter, metadataCache);
       }
 
       @Override
@@ -624,6 +654,23 @@ public final class CloudStorageFileSystemProvider extends FileSystemProvider {
     return MoreObjects.toStringHelper(this).add("storage", storage).toString();
   }
 
+  /**
+   * Returns the metadata of the object at {@code path} or {@code null} if it doesn't exist. If the
+   * path's file system caches metadata, a fresh cached entry is used instead of a request.
+   */
+  @Nullable
+  private BlobInfo getBlobInfo(CloudStoragePath path) {
+    CloudStorageConfiguration config = path.getFileSystem().config();
+    BlobInfo blobInfo = metadataCache.get(config, path.getBlobId());
+    if (blobInfo == null) {
+      blobInfo = storage.get(path.getBlobId());
+      if (blobInfo != null) {
+        metadataCache.put(config, blobInfo);
+      }
+    }
+    return blobInfo;
+  }
+
   private IOException asIoException(StorageException oops) {
     // RPC API can only throw StorageException, but CloudStorageFileSystemProvider
     // can only throw IOException. Square peg, round hole.
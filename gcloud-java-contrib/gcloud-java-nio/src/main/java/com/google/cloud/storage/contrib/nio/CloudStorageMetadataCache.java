@@ -0,0 +1,111 @@
+/*
+ * Copyright 2016 Google Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.storage.contrib.nio;
+
+import com.google.cloud.storage.BlobId;
+import com.google.cloud.storage.BlobInfo;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableList;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * Client-side cache of object metadata, shared by all file systems of a provider.
+ *
+ * <p>File systems whose configuration enables caching (see
+ * {@link CloudStorageConfiguration#metadataCacheSize()}) get a bounded cache with the configured
+ * time to live; file systems with identical cache settings share the same entries. Invalidation
+ * always applies to every cache, so that writes made through one file system are never hidden by
+ * stale entries of another one.
+ */
+@ThreadSafe
+final class CloudStorageMetadataCache {
+
+  private final ConcurrentMap<List<Long>, Cache<BlobId, BlobInfo>> caches =
+      new ConcurrentHashMap<>();
+
+  /**
+   * Returns {@code true} if file systems with the provided configuration cache object metadata.
+   */
+  static boolean isEnabled(CloudStorageConfiguration config) {
+    return config.metadataCacheSize() > 0;
+  }
+
+  /**
+   * Returns the cached metadata for {@code blobId} or {@code null} if the cache for
+   * {@code config} is disabled or has no fresh entry for it.
+   */
+  @Nullable
+  BlobInfo get(CloudStorageConfiguration config, BlobId blobId) {
+    Cache<BlobId, BlobInfo> cache = cache(config);
+    return cache != null ? cache.getIfPresent(key(blobId)) : null;
+  }
+
+  /**
+   * Caches {@code blobInfo} if the cache for {@code config} is enabled. Metadata of pseudo
+   * directories and of objects that are still being written (i.e. with no size) is ignored.
+   */
+  void put(CloudStorageConfiguration config, BlobInfo blobInfo) {
+    Cache<BlobId, BlobInfo> cache = cache(config);
+    if (cache != null && !blobInfo.isDirectory() && blobInfo.size() != null) {
+      cache.put(key(blobInfo.blobId()), blobInfo);
+    }
+  }
+
+  /**
+   * Discards the cached metadata for {@code blobId}, if any.
+   */
+  void invalidate(BlobId blobId) {
+    BlobId key = key(blobId);
+    for (Cache<BlobId, BlobInfo> cache : caches.values()) {
+      cache.invalidate(key);
+    }
+  }
+
+  @Nullable
+  private Cache<BlobId, BlobInfo> cache(CloudStorageConfiguration config) {
+    if (!isEnabled(config)) {
+      return null;
+    }
+    List<Long> settings =
+        ImmutableList.of((long) config.metadataCacheSize(), config.metadataCacheTtlMillis());
+    Cache<BlobId, BlobInfo> cache = caches.get(settings);
+    if (cache == null) {
+      cache = CacheBuilder.newBuilder()
+          .maximumSize(config.metadataCacheSize())
+          .expireAfterWrite(config.metadataCacheTtlMillis(), TimeUnit.MILLISECONDS)
+          .build();
+      Cache<BlobId, BlobInfo> existing = caches.putIfAbsent(settings, cache);
+      if (existing != null) {
+        cache = existing;
+      }
+    }
+    return cache;
+  }
+
+  private static BlobId key(BlobId blobId) {
+    // Listed and fetched metadata carries a generation, paths never do.
+    return blobId.generation() == null ? blobId : BlobId.of(blobId.bucket(), blobId.name());
+  }
+}
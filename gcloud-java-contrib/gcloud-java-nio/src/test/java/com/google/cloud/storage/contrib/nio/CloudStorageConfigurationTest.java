@@ -43,12 +43,16 @@ public class CloudStorageConfigurationTest {
             .stripPrefixSlash(false)
             .usePseudoDirectories(false)
             .blockSize(666)
+            .metadataCacheSize(42)
+            .metadataCacheTtlMillis(1000)
             .build();
     assertThat(config.workingDirectory()).isEqualTo("/omg");
     assertThat(config.permitEmptyPathComponents()).isTrue();
     assertThat(config.stripPrefixSlash()).isFalse();
     assertThat(config.usePseudoDirectories()).isFalse();
     assertThat(config.blockSize()).isEqualTo(666);
+    assertThat(config.metadataCacheSize()).isEqualTo(42);
+    assertThat(config.metadataCacheTtlMillis()).isEqualTo(1000);
   }
 
   @Test
@@ -61,12 +65,29 @@ public class CloudStorageConfigurationTest {
                 .put("stripPrefixSlash", false)
                 .put("usePseudoDirectories", false)
                 .put("blockSize", 666)
+                .put("metadataCacheSize", 42)
+                .put("metadataCacheTtlMillis", 1000)
                 .build());
     assertThat(config.workingDirectory()).isEqualTo("/omg");
     assertThat(config.permitEmptyPathComponents()).isTrue();
     assertThat(config.stripPrefixSlash()).isFalse();
     assertThat(config.usePseudoDirectories()).isFalse();
     assertThat(config.blockSize()).isEqualTo(666);
+    assertThat(config.metadataCacheSize()).isEqualTo(42);
+    assertThat(config.metadataCacheTtlMillis()).isEqualTo(1000);
+  }
+
+  @Test
+  public void testDefault_metadataCacheDisabled() {
+    assertThat(CloudStorageConfiguration.DEFAULT.metadataCacheSize()).isEqualTo(0);
+    assertThat(CloudStorageConfiguration.DEFAULT.metadataCacheTtlMillis())
+        .isEqualTo(CloudStorageFileSystem.METADATA_CACHE_TTL_MILLIS_DEFAULT);
+  }
+
+  @Test
+  public void testBuilder_negativeMetadataCacheSize_throwsIae() {
+    thrown.expect(IllegalArgumentException.class);
+    CloudStorageConfiguration.builder().metadataCacheSize(-1);
   }
 
   @Test
@@ -27,6 +27,9 @@ import static java.nio.file.StandardOpenOption.CREATE_NEW;
 import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
 import static java.nio.file.StandardOpenOption.WRITE;
 
+import com.google.cloud.storage.BlobId;
+import com.google.cloud.storage.Storage;
+import com.google.cloud.storage.StorageOptions;
 import com.google.common.collect.ImmutableList;
 import com.google.common.testing.NullPointerTester;
 
@@ -46,6 +49,7 @@ import java.nio.channels.ReadableByteChannel;
 import java.nio.channels.SeekableByteChannel;
 import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.CopyOption;
+import java.nio.file.DirectoryStream;
 import java.nio.file.FileAlreadyExistsException;
 import java.nio.file.FileSystem;
 import java.nio.file.FileSystems;
@@ -87,9 +91,13 @@ public class CloudStorageFileSystemProviderTest {
 
   @Rule public final ExpectedException thrown = ExpectedException.none();
 
+  private Storage storage;
+
   @Before
   public void before() {
-    CloudStorageFileSystemProvider.setGCloudOptions(LocalStorageHelper.options());
+    StorageOptions options = LocalStorageHelper.options();
+    CloudStorageFileSystemProvider.setGCloudOptions(options);
+    storage = options.service();
   }
 
   @Test
@@ -644,6 +652,81 @@ public class CloudStorageFileSystemProviderTest {
     assertThat(path1.getFileSystem().provider()).isNotEqualTo(path3.getFileSystem().provider());
   }
 
+  @Test
+  public void testMetadataCache_disabledByDefault() throws IOException {
+    Path path = Paths.get(URI.create("gs://bucket/wat"));
+    Files.write(path, SINGULARITY.getBytes(UTF_8));
+    assertThat(Files.exists(path)).isTrue();
+    storage.delete(BlobId.of("bucket", "wat"));
+    assertThat(Files.exists(path)).isFalse();
+  }
+
+  @Test
+  public void testMetadataCache_servesCachedAttributes() throws IOException {
+    try (CloudStorageFileSystem fs = forBucket("bucket", metadataCacheSize(100))) {
+      Path path = fs.getPath("wat");
+      byte[] bytes = SINGULARITY.getBytes(UTF_8);
+      Files.write(path, bytes);
+      assertThat(Files.size(path)).isEqualTo(bytes.length);
+      storage.delete(BlobId.of("bucket", "wat"));
+      assertThat(Files.exists(path)).isTrue();
+      assertThat(Files.size(path)).isEqualTo(bytes.length);
+    }
+  }
+
+  @Test
+  public void testMetadataCache_writeInvalidates() throws IOException {
+    try (CloudStorageFileSystem fs = forBucket("bucket", metadataCacheSize(100))) {
+      Path path = fs.getPath("wat");
+      Files.write(path, SINGULARITY.getBytes(UTF_8));
+      assertThat(Files.size(path)).isEqualTo(SINGULARITY.getBytes(UTF_8).length);
+      Files.write(path, FILE_CONTENTS, UTF_8);
+      assertThat(Files.readAllLines(path, UTF_8)).isEqualTo(FILE_CONTENTS);
+    }
+  }
+
+  @Test
+  public void testMetadataCache_deleteInvalidates() throws IOException {
+    try (CloudStorageFileSystem fs = forBucket("bucket", metadataCacheSize(100))) {
+      Path path = fs.getPath("wat");
+      Files.write(path, SINGULARITY.getBytes(UTF_8));
+      assertThat(Files.exists(path)).isTrue();
+      Files.delete(path);
+      assertThat(Files.exists(path)).isFalse();
+    }
+  }
+
+  @Test
+  public void testMetadataCache_copyInvalidatesTarget() throws IOException {
+    try (CloudStorageFileSystem fs = forBucket("bucket", metadataCacheSize(100))) {
+      Path source = fs.getPath("source");
+      Path target = fs.getPath("target");
+      Files.write(source, FILE_CONTENTS, UTF_8);
+      Files.write(target, SINGULARITY.getBytes(UTF_8));
+      assertThat(Files.size(target)).isEqualTo(SINGULARITY.getBytes(UTF_8).length);
+      Files.copy(source, target, REPLACE_EXISTING);
+      assertThat(Files.size(target)).isEqualTo(Files.size(source));
+    }
+  }
+
+  @Test
+  public void testMetadataCache_populatedByDirectoryListing() throws IOException {
+    try (CloudStorageFileSystem fs = forBucket("bucket", metadataCacheSize(100))) {
+      Path path = fs.getPath("dir/wat");
+      byte[] bytes = SINGULARITY.getBytes(UTF_8);
+      Files.write(path, bytes);
+      try (DirectoryStream<Path> stream = Files.newDirectoryStream(fs.getPath("dir/"))) {
+        assertThat(stream).containsExactly(path);
+      }
+      storage.delete(BlobId.of("bucket", "dir/wat"));
+      assertThat(Files.size(path)).isEqualTo(bytes.length);
+    }
+  }
+
+  private static CloudStorageConfiguration metadataCacheSize(int value) {
+    return CloudStorageConfiguration.builder().metadataCacheSize(value).build();
+  }
+
   private static CloudStorageConfiguration permitEmptyPathComponents(boolean value) {
     return CloudStorageConfiguration.builder().permitEmptyPathComponents(value).build();
   }
@@ -26,6 +26,7 @@ import com.google.cloud.storage.spi.StorageRpc;
 import java.io.IOException;
 import java.io.InputStream;
 import java.math.BigInteger;
+import java.nio.ByteBuffer;
 import java.nio.file.FileAlreadyExistsException;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -260,6 +261,15 @@ class FakeStorageRpc implements StorageRpc {
     return Tuple.of("etag-goes-here", ret);
   }
 
+  @Override
+  public StorageObject read(
+      StorageObject from, Map<Option, ?> options, long zposition, ByteBuffer buffer)
+      throws StorageException {
+    Tuple<String, byte[]> result = read(from, options, zposition, buffer.remaining());
+    buffer.put(result.y());
+    return new StorageObject().setEtag(result.x());
+  }
+
   @Override
   public String open(StorageObject object, Map<Option, ?> options) throws StorageException {
     String key = fullname(object);
@@ -301,6 +311,13 @@ class FakeStorageRpc implements StorageRpc {
     }
   }
 
+  @Override
+  public void write(String uploadId, byte[] toWrite, int toWriteOffset, long destOffset,
+                    int length, boolean last, String crc32c, String md5) throws StorageException {
+    // checksums are not validated
+    write(uploadId, toWrite, toWriteOffset, destOffset, length, last);
+  }
+
   @Override
   public RewriteResponse openRewrite(RewriteRequest rewriteRequest) throws StorageException {
     String sourceKey = fullname(rewriteRequest.source);
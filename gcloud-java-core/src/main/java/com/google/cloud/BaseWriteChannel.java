@@ -17,14 +17,23 @@
 package com.google.cloud;
 
 import com.google.cloud.BaseWriteChannel.BaseState;
+import com.google.cloud.RetryHelper.RetryInterruptedException;
 import com.google.common.base.MoreObjects;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
 import java.io.IOException;
 import java.io.Serializable;
 import java.nio.ByteBuffer;
 import java.nio.channels.ClosedChannelException;
+import java.util.ArrayDeque;
 import java.util.Arrays;
+import java.util.Deque;
 import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Base implementation for a {@link WriteChannel}.
@@ -42,11 +51,16 @@ public abstract class BaseWriteChannel<
   private final ServiceOptionsT options;
   private final EntityT entity;
   private final String uploadId;
+  private final BufferPool bufferPool;
   private int position;
   private byte[] buffer = new byte[0];
   private int limit;
   private boolean isOpen = true;
   private int chunkSize = defaultChunkSize();
+  private int writeBehind;
+  private final Deque<Future<?>> pendingUploads = new ArrayDeque<>();
+  private RuntimeException uploadFailure;
+  private ThreadPoolExecutor uploader;
 
   protected int minChunkSize() {
     return MIN_CHUNK_SIZE;
@@ -64,6 +78,24 @@ public abstract class BaseWriteChannel<
    */
   protected abstract void flushBuffer(int length, boolean last);
 
+  /**
+   * Writes the first {@code length} bytes of {@code buffer} to the {@link #uploadId()} URL, at
+   * offset {@code position}. This method is used for write-behind uploads: it is called by a
+   * background thread while the channel keeps filling a different buffer, so implementations must
+   * not rely on {@link #buffer()} or {@link #position()}. Subclasses that support write-behind must
+   * override this method, the default implementation throws
+   * {@link UnsupportedOperationException}.
+   *
+   * @param buffer the data to write
+   * @param position the offset in the resumable session at which {@code buffer} starts
+   * @param length the number of bytes to write from {@code buffer}
+   * @param last if {@code true} the resumable session is closed
+   * @see #writeBehind(int)
+   */
+  protected void flushBuffer(byte[] buffer, int position, int length, boolean last) {
+    throw new UnsupportedOperationException("Write-behind is not supported");
+  }
+
   protected ServiceOptionsT options() {
     return options;
   }
@@ -92,34 +124,145 @@ public abstract class BaseWriteChannel<
     return chunkSize;
   }
 
+  protected int writeBehind() {
+    return writeBehind;
+  }
+
   @Override
   public final void chunkSize(int chunkSize) {
     chunkSize = (chunkSize / minChunkSize()) * minChunkSize();
     this.chunkSize = Math.max(minChunkSize(), chunkSize);
   }
 
+  /**
+   * Sets the number of full chunks that can be queued for upload while the caller keeps writing.
+   * If {@code chunks} is greater than 0, chunks are uploaded in order by a background thread using
+   * {@link #flushBuffer(byte[], int, int, boolean)}, and {@code write} only blocks when
+   * {@code chunks} uploads are already pending. Subclasses that support write-behind can expose
+   * this method by implementing {@link WriteBehindChannel}.
+   */
+  protected void writeBehind(int chunks) {
+    this.writeBehind = Math.max(chunks, 0);
+  }
+
   protected BaseWriteChannel(ServiceOptionsT options, EntityT entity, String uploadId) {
     this.options = options;
     this.entity = entity;
     this.uploadId = uploadId;
+    this.bufferPool = options != null ? options.bufferPool() : BufferPool.defaultPool();
   }
 
   private void flush() {
     if (limit >= chunkSize) {
       final int length = limit - limit % minChunkSize();
-      flushBuffer(length, false);
+      if (writeBehind > 0) {
+        // the uploader owns the flushed buffer, remaining data is moved to a new one
+        byte[] temp = bufferPool.acquire(chunkSize);
+        System.arraycopy(buffer, length, temp, 0, limit - length);
+        uploadAsync(buffer, position, length);
+        buffer = temp;
+      } else {
+        flushBuffer(length, false);
+        if (buffer.length == chunkSize) {
+          System.arraycopy(buffer, length, buffer, 0, limit - length);
+        } else {
+          byte[] temp = bufferPool.acquire(chunkSize);
+          System.arraycopy(buffer, length, temp, 0, limit - length);
+          releaseBuffer(buffer, chunkSize);
+          buffer = temp;
+        }
+      }
       position += length;
       limit -= length;
-      byte[] temp = new byte[chunkSize];
-      System.arraycopy(buffer, length, temp, 0, limit);
-      buffer = temp;
     }
   }
 
+  /**
+   * Queues {@code length} bytes of {@code chunk} for upload. The background uploader runs on a
+   * single thread so chunks reach the resumable session in order. Blocks if {@link #writeBehind()}
+   * uploads are already pending.
+   */
+  private void uploadAsync(final byte[] chunk, final int chunkPosition, final int length) {
+    while (pendingUploads.size() >= writeBehind) {
+      awaitUpload(pendingUploads.peek());
+      pendingUploads.poll();
+    }
+    final int pooledSize = chunkSize;
+    pendingUploads.add(uploader().submit(new Runnable() {
+      @Override
+      public void run() {
+        try {
+          flushBuffer(chunk, chunkPosition, length, false);
+        } finally {
+          releaseBuffer(chunk, pooledSize);
+        }
+      }
+    }));
+  }
+
+  /**
+   * Returns {@code buffer} to the pool if it is {@code chunkSize} bytes long. Larger arrays, only
+   * allocated when a write does not fit in the current buffer, are hardly ever requested again and
+   * are left to the garbage collector rather than held by the pool.
+   */
+  private void releaseBuffer(byte[] buffer, int chunkSize) {
+    if (buffer != null && buffer.length == chunkSize) {
+      bufferPool.release(buffer);
+    }
+  }
+
+  private void awaitUpload(Future<?> upload) {
+    try {
+      upload.get();
+    } catch (InterruptedException e) {
+      RetryInterruptedException.propagate();
+    } catch (ExecutionException e) {
+      for (Future<?> pendingUpload : pendingUploads) {
+        pendingUpload.cancel(true);
+      }
+      pendingUploads.clear();
+      Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException) {
+        uploadFailure = (RuntimeException) cause;
+      } else if (cause instanceof Error) {
+        throw (Error) cause;
+      } else {
+        uploadFailure = new IllegalStateException(cause);
+      }
+      throw uploadFailure;
+    }
+  }
+
+  /**
+   * Waits for all pending uploads to complete.
+   */
+  private void awaitUploads() {
+    if (uploadFailure != null) {
+      throw uploadFailure;
+    }
+    while (!pendingUploads.isEmpty()) {
+      awaitUpload(pendingUploads.peek());
+      pendingUploads.poll();
+    }
+  }
+
+  private ThreadPoolExecutor uploader() {
+    if (uploader == null) {
+      uploader = new ThreadPoolExecutor(1, 1, 5, TimeUnit.SECONDS,
+          new LinkedBlockingQueue<Runnable>(),
+          new ThreadFactoryBuilder().setDaemon(true).setNameFormat("write-behind-%d").build());
+      uploader.allowCoreThreadTimeOut(true);
+    }
+    return uploader;
+  }
+
   private void validateOpen() throws ClosedChannelException {
     if (!isOpen) {
       throw new ClosedChannelException();
     }
+    if (uploadFailure != null) {
+      throw uploadFailure;
+    }
   }
 
   @Override
@@ -130,7 +273,11 @@ public abstract class BaseWriteChannel<
     if (spaceInBuffer >= toWrite) {
       byteBuffer.get(buffer, limit, toWrite);
     } else {
-      buffer = Arrays.copyOf(buffer, Math.max(chunkSize, buffer.length + toWrite - spaceInBuffer));
+      byte[] temp =
+          bufferPool.acquire(Math.max(chunkSize, buffer.length + toWrite - spaceInBuffer));
+      System.arraycopy(buffer, 0, temp, 0, limit);
+      releaseBuffer(buffer, chunkSize);
+      buffer = temp;
       byteBuffer.get(buffer, limit, toWrite);
     }
     limit += toWrite;
@@ -146,10 +293,19 @@ public abstract class BaseWriteChannel<
   @Override
   public final void close() throws IOException {
     if (isOpen) {
-      flushBuffer(limit, true);
-      position += buffer.length;
-      isOpen = false;
-      buffer = null;
+      try {
+        awaitUploads();
+        flushBuffer(limit, true);
+        position += buffer.length;
+      } finally {
+        isOpen = false;
+        releaseBuffer(buffer, chunkSize);
+        buffer = null;
+        if (uploader != null) {
+          uploader.shutdown();
+          uploader = null;
+        }
+      }
     }
   }
 
@@ -163,6 +319,7 @@ public abstract class BaseWriteChannel<
     byte[] bufferToSave = null;
     if (isOpen) {
       flush();
+      awaitUploads();
       bufferToSave = Arrays.copyOf(buffer, limit);
     }
     return stateBuilder()
@@ -170,6 +327,7 @@ public abstract class BaseWriteChannel<
         .buffer(bufferToSave)
         .isOpen(isOpen)
         .chunkSize(chunkSize)
+        .writeBehind(writeBehind)
         .build();
   }
 
@@ -184,6 +342,7 @@ public abstract class BaseWriteChannel<
     this.position = state.position;
     this.isOpen = state.isOpen;
     this.chunkSize = state.chunkSize;
+    this.writeBehind = state.writeBehind;
   }
 
   protected abstract static class BaseState<
@@ -199,6 +358,7 @@ public abstract class BaseWriteChannel<
     protected final byte[] buffer;
     protected final boolean isOpen;
     protected final int chunkSize;
+    protected final int writeBehind;
 
     protected BaseState(Builder<ServiceOptionsT, EntityT> builder) {
       this.serviceOptions = builder.serviceOptions;
@@ -208,6 +368,7 @@ public abstract class BaseWriteChannel<
       this.buffer = builder.buffer;
       this.isOpen = builder.isOpen;
       this.chunkSize = builder.chunkSize;
+      this.writeBehind = builder.writeBehind;
     }
 
     /**
@@ -228,6 +389,7 @@ public abstract class BaseWriteChannel<
       private byte[] buffer;
       private boolean isOpen;
       private int chunkSize;
+      private int writeBehind;
 
       protected Builder(ServiceOptionsT options, EntityT entity, String uploadId) {
         this.serviceOptions = options;
@@ -255,13 +417,18 @@ public abstract class BaseWriteChannel<
         return this;
       }
 
+      public Builder<ServiceOptionsT, EntityT> writeBehind(int writeBehind) {
+        this.writeBehind = writeBehind;
+        return this;
+      }
+
       public abstract RestorableState<WriteChannel> build();
     }
 
     @Override
     public int hashCode() {
       return Objects.hash(serviceOptions, entity, uploadId, position, isOpen, chunkSize,
-          Arrays.hashCode(buffer));
+          writeBehind, Arrays.hashCode(buffer));
     }
 
     @Override
@@ -279,7 +446,8 @@ public abstract class BaseWriteChannel<
           && Objects.deepEquals(this.buffer, other.buffer)
           && this.position == other.position
           && this.isOpen == other.isOpen
-          && this.chunkSize == other.chunkSize;
+          && this.chunkSize == other.chunkSize
+          && this.writeBehind == other.writeBehind;
     }
 
     @Override
@@ -0,0 +1,149 @@
+/*
+ * Copyright 2016 Google Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A pool of byte arrays used by write channels to buffer data before sending it. A pool can be
+ * shared among all channels created by a service by setting it with
+ * {@link ServiceOptions.Builder#bufferPool(BufferPool)}, so that chunk buffers are recycled once
+ * they have been sent instead of being reallocated for every chunk. {@link #allocations()} and
+ * {@link #allocatedBytes()} report how many arrays the pool had to allocate.
+ *
+ * <p>Implementations must be thread-safe. Arrays returned by {@link #acquire(int)} may contain
+ * data previously written by another user of the pool.
+ */
+public abstract class BufferPool {
+
+  private static final BufferPool DEFAULT_POOL = new AllocatingBufferPool();
+  private static final byte[] EMPTY = new byte[0];
+
+  private final AtomicLong allocations = new AtomicLong();
+  private final AtomicLong allocatedBytes = new AtomicLong();
+
+  /**
+   * Returns an array of exactly {@code size} bytes.
+   */
+  public abstract byte[] acquire(int size);
+
+  /**
+   * Returns an array to the pool. The caller must not use {@code buffer} after releasing it.
+   */
+  public abstract void release(byte[] buffer);
+
+  /**
+   * Allocates a new array of {@code size} bytes and records the allocation.
+   */
+  protected final byte[] allocate(int size) {
+    if (size == 0) {
+      return EMPTY;
+    }
+    allocations.incrementAndGet();
+    allocatedBytes.addAndGet(size);
+    return new byte[size];
+  }
+
+  /**
+   * Returns the number of arrays allocated by this pool.
+   */
+  public long allocations() {
+    return allocations.get();
+  }
+
+  /**
+   * Returns the total number of bytes allocated by this pool.
+   */
+  public long allocatedBytes() {
+    return allocatedBytes.get();
+  }
+
+  /**
+   * Returns the default buffer pool. The default pool does not retain released arrays, every call
+   * to {@link #acquire(int)} allocates a new one.
+   */
+  public static BufferPool defaultPool() {
+    return DEFAULT_POOL;
+  }
+
+  /**
+   * Creates a buffer pool that retains released arrays for reuse, up to a total of
+   * {@code maxPooledBytes} bytes. Arrays released once the limit is reached are discarded.
+   */
+  public static BufferPool create(long maxPooledBytes) {
+    return new RecyclingBufferPool(maxPooledBytes);
+  }
+
+  private static class AllocatingBufferPool extends BufferPool {
+
+    @Override
+    public byte[] acquire(int size) {
+      return allocate(size);
+    }
+
+    @Override
+    public void release(byte[] buffer) {
+      // released arrays are left to the garbage collector
+    }
+  }
+
+  private static class RecyclingBufferPool extends BufferPool {
+
+    private final long maxPooledBytes;
+    private final AtomicLong pooledBytes = new AtomicLong();
+    private final ConcurrentMap<Integer, Queue<byte[]>> buffers = new ConcurrentHashMap<>();
+
+    RecyclingBufferPool(long maxPooledBytes) {
+      this.maxPooledBytes = maxPooledBytes;
+    }
+
+    @Override
+    public byte[] acquire(int size) {
+      Queue<byte[]> queue = buffers.get(size);
+      byte[] buffer = queue != null ? queue.poll() : null;
+      if (buffer == null) {
+        return allocate(size);
+      }
+      pooledBytes.addAndGet(-size);
+      return buffer;
+    }
+
+    @Override
+    public void release(byte[] buffer) {
+      if (buffer == null || buffer.length == 0) {
+        return;
+      }
+      if (pooledBytes.addAndGet(buffer.length) > maxPooledBytes) {
+        pooledBytes.addAndGet(-buffer.length);
+        return;
+      }
+      Queue<byte[]> queue = buffers.get(buffer.length);
+      if (queue == null) {
+        Queue<byte[]> newQueue = new ConcurrentLinkedQueue<>();
+        queue = buffers.putIfAbsent(buffer.length, newQueue);
+        if (queue == null) {
+          queue = newQueue;
+        }
+      }
+      queue.offer(buffer);
+    }
+  }
+}
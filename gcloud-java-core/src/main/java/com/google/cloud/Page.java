@@ -55,6 +55,27 @@ public interface Page<T> {
    */
   Iterator<T> iterateAll();
 
+  /**
+   * Returns an iterator for all values, possibly also in the next pages. Next pages are fetched in
+   * background: as soon as a page is received the following one is requested, so that iterating
+   * does not wait for a service call at each page boundary. At most {@code prefetchPages} pages are
+   * fetched ahead of the iterator.
+   *
+   * <p>Example of iterating with prefetching:
+   * <pre> {@code
+   * Page<T> page = ...; // get a Page<T> instance
+   * Iterator<T> iterator = page.iterateAll(2);
+   * while (iterator.hasNext()) {
+   *   T value = iterator.next();
+   *   // do something with value
+   * }}</pre>
+   *
+   * @param prefetchPages the maximum number of pages fetched ahead of the iterator. If not
+   *     positive, pages are fetched only once the current page's values are traversed, as in
+   *     {@link #iterateAll()}
+   */
+  Iterator<T> iterateAll(int prefetchPages);
+
   /**
    * Returns the cursor for the nextPage or {@code null} if no more results.
    */
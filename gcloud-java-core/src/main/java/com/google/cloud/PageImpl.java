@@ -90,6 +90,14 @@ public class PageImpl<T> implements Page<T>, Serializable {
     return new PageIterator<>(this);
   }
 
+  @Override
+  public Iterator<T> iterateAll(int prefetchPages) {
+    if (prefetchPages <= 0) {
+      return iterateAll();
+    }
+    return new PrefetchingPageIterator<>(this, prefetchPages);
+  }
+
   @Override
   public String nextPageCursor() {
     return cursor;
@@ -0,0 +1,140 @@
+/*
+ * Copyright 2016 Google Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud;
+
+import com.google.cloud.RetryHelper.RetryInterruptedException;
+import com.google.common.base.Throwables;
+import com.google.common.collect.AbstractIterator;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
+/**
+ * An iterator over all values of a paginated result that fetches next pages in background. As soon
+ * as a page is received, the following one is requested, unless {@code prefetchPages} pages are
+ * already buffered. Fetching resumes as the iterator consumes buffered pages. At most one page
+ * request is in flight at any time, so an abandoned iterator does not hold any thread.
+ *
+ * @param <T> the value type that the pages hold
+ */
+class PrefetchingPageIterator<T> extends AbstractIterator<T> {
+
+  private static final Executor FETCH_EXECUTOR = Executors.newCachedThreadPool(
+      new ThreadFactoryBuilder().setDaemon(true).setNameFormat("page-prefetch-%d").build());
+
+  private final int prefetchPages;
+  private final Executor executor;
+  private final Deque<Page<T>> fetchedPages = new ArrayDeque<>();
+  private Iterator<T> currentPageIterator;
+  private Page<T> lastFetchedPage;
+  private boolean fetching;
+  private boolean lastPageFetched;
+  private Throwable failure;
+
+  PrefetchingPageIterator(Page<T> firstPage, int prefetchPages) {
+    this(firstPage, prefetchPages, FETCH_EXECUTOR);
+  }
+
+  PrefetchingPageIterator(Page<T> firstPage, int prefetchPages, Executor executor) {
+    this.prefetchPages = prefetchPages;
+    this.executor = executor;
+    this.currentPageIterator = firstPage.values().iterator();
+    this.lastFetchedPage = firstPage;
+    this.lastPageFetched = firstPage.nextPageCursor() == null;
+    synchronized (this) {
+      fetchNextPage();
+    }
+  }
+
+  @Override
+  protected T computeNext() {
+    while (!currentPageIterator.hasNext()) {
+      Page<T> page = takePage();
+      if (page == null) {
+        return endOfData();
+      }
+      currentPageIterator = page.values().iterator();
+    }
+    return currentPageIterator.next();
+  }
+
+  /**
+   * Returns the next fetched page, waiting for it if needed, or {@code null} if the last page was
+   * reached.
+   */
+  private synchronized Page<T> takePage() {
+    while (fetchedPages.isEmpty() && !lastPageFetched && failure == null) {
+      fetchNextPage();
+      try {
+        wait();
+      } catch (InterruptedException ex) {
+        RetryInterruptedException.propagate();
+      }
+    }
+    Page<T> page = fetchedPages.poll();
+    if (page != null) {
+      fetchNextPage();
+      return page;
+    }
+    if (failure != null) {
+      throw Throwables.propagate(failure);
+    }
+    return null;
+  }
+
+  /**
+   * Requests the page that follows the last fetched one, if no request is in flight and the
+   * buffer is not full. Must be called while holding this iterator's lock.
+   */
+  private void fetchNextPage() {
+    if (fetching || lastPageFetched || failure != null || fetchedPages.size() >= prefetchPages) {
+      return;
+    }
+    fetching = true;
+    final Page<T> page = lastFetchedPage;
+    executor.execute(new Runnable() {
+      @Override
+      public void run() {
+        Page<T> nextPage = null;
+        Throwable error = null;
+        try {
+          nextPage = page.nextPage();
+        } catch (Throwable ex) {
+          error = ex;
+        }
+        synchronized (PrefetchingPageIterator.this) {
+          fetching = false;
+          if (error != null) {
+            failure = error;
+          } else if (nextPage == null) {
+            lastPageFetched = true;
+          } else {
+            fetchedPages.add(nextPage);
+            lastFetchedPage = nextPage;
+            lastPageFetched = nextPage.nextPageCursor() == null;
+            fetchNextPage();
+          }
+          PrefetchingPageIterator.this.notifyAll();
+        }
+      }
+    });
+  }
+}
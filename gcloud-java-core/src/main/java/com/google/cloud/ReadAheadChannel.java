@@ -0,0 +1,38 @@
+/*
+ * Copyright 2016 Google Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud;
+
+/**
+ * A {@link ReadChannel} that can read data ahead of the current position. Read channels returned by
+ * services implement this interface if they support read-ahead, for instance:
+ * <pre> {@code
+ * ReadChannel reader = storage.reader(blobId);
+ * if (reader instanceof ReadAheadChannel) {
+ *   ((ReadAheadChannel) reader).readAhead(4);
+ * }
+ * }</pre>
+ */
+public interface ReadAheadChannel extends ReadChannel {
+
+  /**
+   * Sets the number of chunks that are read ahead of the current position. If {@code chunks} is
+   * greater than 0, up to {@code chunks + 1} ranged reads of {@link #chunkSize(int)} bytes each are
+   * kept in flight concurrently and their data is handed to the caller in order. Read-ahead is
+   * disabled by default.
+   */
+  void readAhead(int chunks);
+}
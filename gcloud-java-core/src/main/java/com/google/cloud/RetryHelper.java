@@ -25,10 +25,18 @@ import static java.lang.StrictMath.random;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.MoreObjects;
 import com.google.common.base.MoreObjects.ToStringHelper;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.SettableFuture;
 
 import java.io.InterruptedIOException;
 import java.nio.channels.ClosedByInterruptException;
 import java.util.concurrent.Callable;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -246,4 +254,127 @@ public class RetryHelper<V> {
       setContext(previousContext);
     }
   }
+
+  /**
+   * Runs the asynchronous operation returned by {@code callable}, retrying it according to
+   * {@code params} and {@code exceptionHandler} when the returned future fails. Retries are
+   * scheduled on {@code scheduler}: no thread is blocked while waiting for the next attempt. The
+   * returned future fails with a {@link RetryHelperException} if the operation does not succeed.
+   * Cancelling the returned future cancels the running attempt and prevents further retries.
+   */
+  public static <V> ListenableFuture<V> runWithRetriesAsync(
+      Callable<ListenableFuture<V>> callable, RetryParams params,
+      ExceptionHandler exceptionHandler, Clock clock, ScheduledExecutorService scheduler) {
+    AsyncRetry<V> retry = new AsyncRetry<>(callable, params, exceptionHandler, clock, scheduler);
+    retry.attempt();
+    return retry.result;
+  }
+
+  private static final class AsyncRetry<V> implements FutureCallback<V> {
+
+    private final Callable<ListenableFuture<V>> callable;
+    private final RetryParams params;
+    private final ExceptionHandler exceptionHandler;
+    private final Clock clock;
+    private final ScheduledExecutorService scheduler;
+    private final SettableFuture<V> result = SettableFuture.create();
+    private final long start;
+    private volatile int attemptNumber;
+    private volatile ListenableFuture<V> currentAttempt;
+
+    AsyncRetry(Callable<ListenableFuture<V>> callable, RetryParams params,
+        ExceptionHandler exceptionHandler, Clock clock, ScheduledExecutorService scheduler) {
+      this.callable = checkNotNull(callable);
+      this.params = checkNotNull(params);
+      this.exceptionHandler = checkNotNull(exceptionHandler);
+      this.clock = checkNotNull(clock);
+      this.scheduler = checkNotNull(scheduler);
+      this.start = clock.millis();
+      result.addListener(new Runnable() {
+        @Override
+        public void run() {
+          ListenableFuture<V> attempt = currentAttempt;
+          if (result.isCancelled() && attempt != null) {
+            attempt.cancel(true);
+          }
+        }
+      }, MoreExecutors.directExecutor());
+    }
+
+    void attempt() {
+      if (result.isDone()) {
+        return;
+      }
+      attemptNumber++;
+      ListenableFuture<V> attempt;
+      try {
+        attempt = checkNotNull(callable.call());
+      } catch (Exception e) {
+        onFailure(e);
+        return;
+      }
+      currentAttempt = attempt;
+      if (result.isCancelled()) {
+        attempt.cancel(true);
+      }
+      Futures.addCallback(attempt, this, MoreExecutors.directExecutor());
+    }
+
+    @Override
+    public void onSuccess(V value) {
+      if (attemptNumber > 1 && log.isLoggable(Level.FINE)) {
+        log.fine(this + ": attempt #" + attemptNumber + " succeeded");
+      }
+      result.set(value);
+    }
+
+    @Override
+    public void onFailure(Throwable throwable) {
+      if (result.isDone()) {
+        return;
+      }
+      if (!(throwable instanceof Exception)) {
+        result.setException(throwable);
+        return;
+      }
+      Exception exception = (Exception) throwable;
+      if (!exceptionHandler.shouldRetry(exception)) {
+        result.setException(new NonRetriableException(exception));
+        return;
+      }
+      if (attemptNumber >= params.retryMaxAttempts()
+          || attemptNumber >= params.retryMinAttempts()
+          && clock.millis() - start >= params.totalRetryPeriodMillis()) {
+        result.setException(
+            new RetriesExhaustedException(this + ": Too many failures, giving up", exception));
+        return;
+      }
+      long sleepDurationMillis = getSleepDuration(params, attemptNumber);
+      if (log.isLoggable(Level.FINE)) {
+        log.fine(this + ": Attempt #" + attemptNumber + " failed [" + exception
+            + "], retrying in " + sleepDurationMillis + " ms");
+      }
+      try {
+        scheduler.schedule(new Runnable() {
+          @Override
+          public void run() {
+            attempt();
+          }
+        }, sleepDurationMillis, TimeUnit.MILLISECONDS);
+      } catch (RejectedExecutionException e) {
+        result.setException(new NonRetriableException(exception));
+      }
+    }
+
+    @Override
+    public String toString() {
+      return MoreObjects.toStringHelper(this)
+          .add("params", params)
+          .add("clock", clock)
+          .add("attemptNumber", attemptNumber)
+          .add("callable", callable)
+          .add("exceptionHandler", exceptionHandler)
+          .toString();
+    }
+  }
 }
@@ -83,6 +83,7 @@ public abstract class ServiceOptions<ServiceT extends Service<OptionsT>, Service
   private final Clock clock;
 
   private transient AuthCredentials authCredentials;
+  private transient BufferPool bufferPool;
   private transient ServiceRpcFactory<ServiceRpcT, OptionsT> serviceRpcFactory;
   private transient ServiceFactory<ServiceT, OptionsT> serviceFactory;
   private transient ServiceT service;
@@ -107,6 +108,7 @@ public abstract class ServiceOptions<ServiceT extends Service<OptionsT>, Service
     private ServiceFactory<ServiceT, OptionsT> serviceFactory;
     private ServiceRpcFactory<ServiceRpcT, OptionsT> serviceRpcFactory;
     private Clock clock;
+    private BufferPool bufferPool;
 
     protected Builder() {}
 
@@ -118,6 +120,7 @@ public abstract class ServiceOptions<ServiceT extends Service<OptionsT>, Service
       serviceFactory = options.serviceFactory;
       serviceRpcFactory = options.serviceRpcFactory;
       clock = options.clock;
+      bufferPool = options.bufferPool;
     }
 
     protected abstract ServiceOptions<ServiceT, ServiceRpcT, OptionsT> build();
@@ -147,6 +150,18 @@ public abstract class ServiceOptions<ServiceT extends Service<OptionsT>, Service
       return self();
     }
 
+    /**
+     * Sets the pool used by the service's write channels to allocate their buffers. Setting the
+     * same {@link BufferPool} on several options objects shares it among all their channels. If
+     * not set, {@link BufferPool#defaultPool()} is used.
+     *
+     * @return the builder
+     */
+    public B bufferPool(BufferPool bufferPool) {
+      this.bufferPool = bufferPool;
+      return self();
+    }
+
     /**
      * Sets project id.
      *
@@ -222,6 +237,7 @@ public abstract class ServiceOptions<ServiceT extends Service<OptionsT>, Service
         getFromServiceLoader(rpcFactoryClass, defaultRpcFactory()));
     serviceRpcFactoryClassName = serviceRpcFactory.getClass().getName();
     clock = firstNonNull(builder.clock, Clock.defaultClock());
+    bufferPool = firstNonNull(builder.bufferPool, BufferPool.defaultPool());
   }
 
   /**
@@ -434,6 +450,14 @@ public abstract class ServiceOptions<ServiceT extends Service<OptionsT>, Service
     return clock;
   }
 
+  /**
+   * Returns the pool used by the service's write channels to allocate their buffers. The buffer
+   * pool is not serialized, deserialized options use {@link BufferPool#defaultPool()}.
+   */
+  public BufferPool bufferPool() {
+    return bufferPool;
+  }
+
   /**
    * Returns the application's name as a string in the format {@code gcloud-java/[version]}.
    */
@@ -475,6 +499,7 @@ public abstract class ServiceOptions<ServiceT extends Service<OptionsT>, Service
     serviceFactory = newInstance(serviceFactoryClassName);
     serviceRpcFactory = newInstance(serviceRpcFactoryClassName);
     authCredentials = authCredentialsState != null ? authCredentialsState.restore() : null;
+    bufferPool = BufferPool.defaultPool();
   }
 
   @SuppressWarnings("unchecked")
@@ -0,0 +1,40 @@
+/*
+ * Copyright 2016 Google Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud;
+
+/**
+ * A {@link WriteChannel} that can upload data in the background while the caller keeps writing.
+ * Write channels returned by services implement this interface if they support write-behind, for
+ * instance:
+ * <pre> {@code
+ * WriteChannel writer = storage.writer(blobInfo);
+ * if (writer instanceof WriteBehindChannel) {
+ *   ((WriteBehindChannel) writer).writeBehind(2);
+ * }
+ * }</pre>
+ */
+public interface WriteBehindChannel extends WriteChannel {
+
+  /**
+   * Sets the number of full chunks that can be queued for upload while the caller keeps writing.
+   * If {@code chunks} is greater than 0, chunks are uploaded in order by a background thread and
+   * {@code write} only blocks when {@code chunks} uploads are already pending. Upload failures are
+   * reported by the next call to {@code write}, {@link #capture()} or {@link #close()}.
+   * Write-behind is disabled by default.
+   */
+  void writeBehind(int chunks);
+}
@@ -21,9 +21,13 @@ import static junit.framework.TestCase.assertTrue;
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
 
 import com.google.cloud.spi.ServiceRpcFactory;
+import com.google.common.collect.ImmutableList;
 
+import org.easymock.EasyMock;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
@@ -33,7 +37,10 @@ import java.io.IOException;
 import java.io.Serializable;
 import java.nio.ByteBuffer;
 import java.nio.channels.ClosedChannelException;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.Random;
 
 public class BaseWriteChannelTest {
@@ -131,9 +138,146 @@ public class BaseWriteChannelTest {
     channel.write(content);
     assertEquals(DEFAULT_CHUNK_SIZE, channel.position());
     assertEquals(1, channel.limit());
-    byte[] newContent = new byte[DEFAULT_CHUNK_SIZE];
-    newContent[0] = content.get(DEFAULT_CHUNK_SIZE);
-    assertArrayEquals(newContent, channel.buffer());
+    assertEquals(DEFAULT_CHUNK_SIZE, channel.buffer().length);
+    assertEquals(content.get(DEFAULT_CHUNK_SIZE), channel.buffer()[0]);
+  }
+
+  @Test
+  public void testWriteBehind() throws IOException {
+    final List<Integer> flushedPositions = Collections.synchronizedList(new ArrayList<Integer>());
+    BaseWriteChannel<CustomServiceOptions, Serializable> writeBehindChannel =
+        new BaseWriteChannel<CustomServiceOptions, Serializable>(null, ENTITY, UPLOAD_ID) {
+          @Override
+          public RestorableState<WriteChannel> capture() {
+            return null;
+          }
+
+          @Override
+          protected void flushBuffer(int length, boolean last) {
+            flushedPositions.add(position());
+          }
+
+          @Override
+          protected void flushBuffer(byte[] buffer, int position, int length, boolean last) {
+            flushedPositions.add(position);
+          }
+
+          @Override
+          protected BaseState.Builder<CustomServiceOptions, Serializable> stateBuilder() {
+            return null;
+          }
+        };
+    writeBehindChannel.writeBehind(2);
+    assertEquals(2, writeBehindChannel.writeBehind());
+    for (int i = 0; i < 3; i++) {
+      writeBehindChannel.write(randomBuffer(DEFAULT_CHUNK_SIZE));
+    }
+    assertEquals(3 * DEFAULT_CHUNK_SIZE, writeBehindChannel.position());
+    writeBehindChannel.close();
+    assertEquals(ImmutableList.of(0, DEFAULT_CHUNK_SIZE, 2 * DEFAULT_CHUNK_SIZE,
+        3 * DEFAULT_CHUNK_SIZE), flushedPositions);
+  }
+
+  @Test
+  public void testWriteBehindFailure() throws IOException {
+    final IllegalStateException failure = new IllegalStateException("upload failed");
+    BaseWriteChannel<CustomServiceOptions, Serializable> writeBehindChannel =
+        new BaseWriteChannel<CustomServiceOptions, Serializable>(null, ENTITY, UPLOAD_ID) {
+          @Override
+          public RestorableState<WriteChannel> capture() {
+            return null;
+          }
+
+          @Override
+          protected void flushBuffer(int length, boolean last) {
+            throw failure;
+          }
+
+          @Override
+          protected void flushBuffer(byte[] buffer, int position, int length, boolean last) {
+            throw failure;
+          }
+
+          @Override
+          protected BaseState.Builder<CustomServiceOptions, Serializable> stateBuilder() {
+            return null;
+          }
+        };
+    writeBehindChannel.writeBehind(1);
+    writeBehindChannel.write(randomBuffer(DEFAULT_CHUNK_SIZE));
+    thrown.expect(IllegalStateException.class);
+    thrown.expectMessage("upload failed");
+    writeBehindChannel.close();
+  }
+
+  @Test
+  public void testCloseFailure() throws IOException {
+    final IllegalStateException failure = new IllegalStateException("upload failed");
+    BaseWriteChannel<CustomServiceOptions, Serializable> failingChannel =
+        new BaseWriteChannel<CustomServiceOptions, Serializable>(null, ENTITY, UPLOAD_ID) {
+          @Override
+          public RestorableState<WriteChannel> capture() {
+            return null;
+          }
+
+          @Override
+          protected void flushBuffer(int length, boolean last) {
+            throw failure;
+          }
+
+          @Override
+          protected BaseState.Builder<CustomServiceOptions, Serializable> stateBuilder() {
+            return null;
+          }
+        };
+    failingChannel.write(randomBuffer(MIN_CHUNK_SIZE));
+    try {
+      failingChannel.close();
+      fail("Expected close to fail");
+    } catch (IllegalStateException ex) {
+      assertSame(failure, ex);
+    }
+    assertFalse(failingChannel.isOpen());
+    assertNull(failingChannel.buffer());
+  }
+
+  @Test
+  public void testOnlyChunkSizedBuffersArePooled() throws IOException {
+    final List<Integer> releasedSizes = new ArrayList<>();
+    BufferPool bufferPool = new BufferPool() {
+      @Override
+      public byte[] acquire(int size) {
+        return allocate(size);
+      }
+
+      @Override
+      public void release(byte[] buffer) {
+        releasedSizes.add(buffer.length);
+      }
+    };
+    CustomServiceOptions options = EasyMock.createMock(CustomServiceOptions.class);
+    EasyMock.expect(options.bufferPool()).andReturn(bufferPool);
+    EasyMock.replay(options);
+    BaseWriteChannel<CustomServiceOptions, Serializable> pooledChannel =
+        new BaseWriteChannel<CustomServiceOptions, Serializable>(options, ENTITY, UPLOAD_ID) {
+          @Override
+          public RestorableState<WriteChannel> capture() {
+            return null;
+          }
+
+          @Override
+          protected void flushBuffer(int length, boolean last) {}
+
+          @Override
+          protected BaseState.Builder<CustomServiceOptions, Serializable> stateBuilder() {
+            return null;
+          }
+        };
+    // the first write does not fit in a chunk, its oversized buffer must not be pooled
+    pooledChannel.write(randomBuffer(DEFAULT_CHUNK_SIZE + 1));
+    pooledChannel.close();
+    assertEquals(ImmutableList.of(DEFAULT_CHUNK_SIZE), releasedSizes);
+    EasyMock.verify(options);
   }
 
   private static ByteBuffer randomBuffer(int size) {
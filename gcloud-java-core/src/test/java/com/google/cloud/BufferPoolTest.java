@@ -0,0 +1,75 @@
+/*
+ * Copyright 2016 Google Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+
+public class BufferPoolTest {
+
+  private static final int SIZE = 1024;
+
+  @Test
+  public void testDefaultPool() {
+    BufferPool pool = BufferPool.defaultPool();
+    long allocations = pool.allocations();
+    long allocatedBytes = pool.allocatedBytes();
+    byte[] buffer = pool.acquire(SIZE);
+    assertEquals(SIZE, buffer.length);
+    pool.release(buffer);
+    assertNotSame(buffer, pool.acquire(SIZE));
+    assertEquals(allocations + 2, pool.allocations());
+    assertEquals(allocatedBytes + 2 * SIZE, pool.allocatedBytes());
+  }
+
+  @Test
+  public void testCreate() {
+    BufferPool pool = BufferPool.create(SIZE);
+    byte[] buffer = pool.acquire(SIZE);
+    assertEquals(SIZE, buffer.length);
+    pool.release(buffer);
+    assertSame(buffer, pool.acquire(SIZE));
+    assertEquals(1, pool.allocations());
+    assertEquals(SIZE, pool.allocatedBytes());
+    byte[] otherBuffer = pool.acquire(2 * SIZE);
+    assertEquals(2 * SIZE, otherBuffer.length);
+    assertEquals(2, pool.allocations());
+    assertEquals(3 * SIZE, pool.allocatedBytes());
+  }
+
+  @Test
+  public void testCreateMaxPooledBytes() {
+    BufferPool pool = BufferPool.create(SIZE);
+    byte[] firstBuffer = pool.acquire(SIZE);
+    byte[] secondBuffer = pool.acquire(SIZE);
+    pool.release(firstBuffer);
+    pool.release(secondBuffer);
+    assertSame(firstBuffer, pool.acquire(SIZE));
+    assertNotSame(secondBuffer, pool.acquire(SIZE));
+    assertEquals(3, pool.allocations());
+  }
+
+  @Test
+  public void testAcquireEmpty() {
+    BufferPool pool = BufferPool.create(SIZE);
+    assertEquals(0, pool.acquire(0).length);
+    assertEquals(0, pool.allocations());
+  }
+}
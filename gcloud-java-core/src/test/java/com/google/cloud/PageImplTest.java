@@ -17,11 +17,15 @@
 package com.google.cloud;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
 
 import com.google.common.collect.ImmutableList;
 
 import org.junit.Test;
 
+import java.util.Iterator;
+
 public class PageImplTest {
 
   private static final ImmutableList<String> VALUES = ImmutableList.of("1", "2");
@@ -60,4 +64,52 @@ public class PageImplTest {
     PageImpl<String> result = new PageImpl<>(fetcher, "c", VALUES);
     assertEquals(ALL_VALUES, ImmutableList.copyOf(result.iterateAll()));
   }
+
+  @Test
+  public void testIterateAllWithPrefetch() {
+    final PageImpl<String> lastResult = new PageImpl<>(null, null, ImmutableList.of("5"));
+    PageImpl.NextPageFetcher<String> lastFetcher = new PageImpl.NextPageFetcher<String>() {
+      @Override
+      public PageImpl<String> nextPage() {
+        return lastResult;
+      }
+    };
+    final PageImpl<String> nextResult = new PageImpl<>(lastFetcher, "c2", NEXT_VALUES);
+    PageImpl.NextPageFetcher<String> fetcher = new PageImpl.NextPageFetcher<String>() {
+      @Override
+      public PageImpl<String> nextPage() {
+        return nextResult;
+      }
+    };
+    PageImpl<String> result = new PageImpl<>(fetcher, "c1", VALUES);
+    assertEquals(ImmutableList.builder().addAll(ALL_VALUES).add("5").build(),
+        ImmutableList.copyOf(result.iterateAll(1)));
+    assertEquals(ALL_VALUES, ImmutableList.copyOf(new PageImpl<>(
+        new PageImpl.NextPageFetcher<String>() {
+          @Override
+          public PageImpl<String> nextPage() {
+            return new PageImpl<>(null, null, NEXT_VALUES);
+          }
+        }, "c", VALUES).iterateAll(0)));
+  }
+
+  @Test
+  public void testIterateAllWithPrefetchFailure() {
+    final RuntimeException exception = new RuntimeException("error");
+    PageImpl.NextPageFetcher<String> fetcher = new PageImpl.NextPageFetcher<String>() {
+      @Override
+      public PageImpl<String> nextPage() {
+        throw exception;
+      }
+    };
+    Iterator<String> iterator = new PageImpl<>(fetcher, "c", VALUES).iterateAll(2);
+    assertEquals("1", iterator.next());
+    assertEquals("2", iterator.next());
+    try {
+      iterator.next();
+      fail("RuntimeException expected");
+    } catch (RuntimeException ex) {
+      assertSame(exception, ex);
+    }
+  }
 }
@@ -24,6 +24,8 @@ import static org.junit.Assert.fail;
 
 import com.google.cloud.RetryHelper.NonRetriableException;
 import com.google.cloud.RetryHelper.RetriesExhaustedException;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
 
 import org.junit.Test;
 
@@ -31,6 +33,9 @@ import java.io.IOException;
 import java.util.Arrays;
 import java.util.Iterator;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
@@ -258,4 +263,57 @@ public class RetryHelperTest {
     });
   }
 
+  @Test
+  public void testRunWithRetriesAsync() throws Exception {
+    RetryParams params = RetryParams.builder().initialRetryDelayMillis(0)
+        .totalRetryPeriodMillis(60000)
+        .retryMinAttempts(0)
+        .retryMaxAttempts(3)
+        .build();
+    final AtomicInteger timesCalled = new AtomicInteger(0);
+    ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+    try {
+      ListenableFuture<Integer> future = RetryHelper.runWithRetriesAsync(
+          new Callable<ListenableFuture<Integer>>() {
+            @Override
+            public ListenableFuture<Integer> call() {
+              if (timesCalled.incrementAndGet() < 3) {
+                return Futures.immediateFailedFuture(new IOException());
+              }
+              return Futures.immediateFuture(42);
+            }
+          }, params, ExceptionHandler.builder().retryOn(IOException.class).build(),
+          Clock.defaultClock(), scheduler);
+      assertEquals(42, (int) future.get());
+      assertEquals(3, timesCalled.get());
+    } finally {
+      scheduler.shutdown();
+    }
+  }
+
+  @Test
+  public void testRunWithRetriesAsyncNonRetriable() throws Exception {
+    final AtomicInteger timesCalled = new AtomicInteger(0);
+    ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+    try {
+      ListenableFuture<Integer> future = RetryHelper.runWithRetriesAsync(
+          new Callable<ListenableFuture<Integer>>() {
+            @Override
+            public ListenableFuture<Integer> call() {
+              timesCalled.incrementAndGet();
+              return Futures.immediateFailedFuture(new E1Exception());
+            }
+          }, RetryParams.defaultInstance(),
+          ExceptionHandler.builder().abortOn(E1Exception.class).build(), Clock.defaultClock(),
+          scheduler);
+      future.get();
+      fail("Expected NonRetriableException");
+    } catch (ExecutionException expected) {
+      assertTrue(expected.getCause() instanceof NonRetriableException);
+      assertTrue(expected.getCause().getCause() instanceof E1Exception);
+      assertEquals(1, timesCalled.get());
+    } finally {
+      scheduler.shutdown();
+    }
+  }
 }
@@ -60,6 +60,7 @@ public abstract class BaseDatastoreBatchWriter implements DatastoreBatchWriter {
         toAddAutoId.add((FullEntity<IncompleteKey>) entity);
       }
     }
+    onWrite();
   }
 
   private void addInternal(FullEntity<Key> entity) {
@@ -110,6 +111,7 @@ public abstract class BaseDatastoreBatchWriter implements DatastoreBatchWriter {
         answer.add(entityWithAllocatedId);
       }
     }
+    onWrite();
     return answer;
   }
 
@@ -129,6 +131,7 @@ public abstract class BaseDatastoreBatchWriter implements DatastoreBatchWriter {
         toUpdate.put(key, entity);
       }
     }
+    onWrite();
   }
 
   private void putInternal(FullEntity<Key> entity) {
@@ -157,6 +160,7 @@ public abstract class BaseDatastoreBatchWriter implements DatastoreBatchWriter {
         toAddAutoId.add((FullEntity<IncompleteKey>) entity);
       }
     }
+    onWrite();
   }
 
   @SuppressWarnings("unchecked")
@@ -189,6 +193,7 @@ public abstract class BaseDatastoreBatchWriter implements DatastoreBatchWriter {
         answer.add(entityWithAllocatedId);
       }
     }
+    onWrite();
     return answer;
   }
 
@@ -201,6 +206,7 @@ public abstract class BaseDatastoreBatchWriter implements DatastoreBatchWriter {
       toPut.remove(key);
       toDelete.add(key);
     }
+    onWrite();
   }
 
   @Override
@@ -232,6 +238,13 @@ public abstract class BaseDatastoreBatchWriter implements DatastoreBatchWriter {
     return toDelete;
   }
 
+  /**
+   * Called after each write operation is applied to this writer. The default implementation does
+   * nothing.
+   */
+  protected void onWrite() {
+  }
+
   protected void deactivate() {
     active = false;
   }
@@ -0,0 +1,69 @@
+/*
+ * Copyright 2016 Google Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.datastore;
+
+import com.google.common.util.concurrent.ListenableFuture;
+
+/**
+ * A write-behind writer for bulk loading or modifying large numbers of entities. Write operations
+ * applied to a bulk writer are buffered, and mutations for the same key are combined as in a
+ * {@link Batch}. Buffered mutations are sent to the Datastore in non-transactional commits of at
+ * most 500 mutations, several of which can be in flight at the same time. Each commit is retried
+ * according to the Datastore's {@link com.google.cloud.RetryParams}. Commits are throttled,
+ * starting at 500 mutations per second and increasing the rate by 50% every 5 minutes, so that the
+ * Datastore can gradually scale up. Mutations of a key are never in flight in two commits at the
+ * same time.
+ *
+ * <p>Write operations are applied in the calling thread, which may block while waiting for
+ * throttling or for in-flight commits. A bulk writer must not be used by multiple threads at the
+ * same time.
+ *
+ * <p>A usage example:
+ * <pre> {@code
+ * BulkWriter writer = datastore.newBulkWriter();
+ * for (Entity entity : entities) {
+ *   writer.put(entity);
+ * }
+ * writer.close();
+ * } </pre>
+ */
+public interface BulkWriter extends DatastoreBatchWriter, AutoCloseable {
+
+  /**
+   * Sends all buffered mutations to the Datastore. The returned future completes when all the
+   * mutations sent so far have been committed and fails with a {@link DatastoreException} if any
+   * of them could not be committed, including commits that failed before this call and after the
+   * previous flush.
+   *
+   * @throws DatastoreException if the writer is no longer active
+   */
+  ListenableFuture<Void> flush();
+
+  /**
+   * Sends all buffered mutations to the Datastore, waits for them to be committed and deactivates
+   * the writer.
+   *
+   * @throws DatastoreException if any mutation could not be committed
+   */
+  @Override
+  void close();
+
+  /**
+   * Returns the bulk writer associated {@link Datastore}.
+   */
+  Datastore datastore();
+}
@@ -0,0 +1,221 @@
+/*
+ * Copyright 2016 Google Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.datastore;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Function;
+import com.google.common.base.Throwables;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.RateLimiter;
+import com.google.common.util.concurrent.SettableFuture;
+import com.google.common.util.concurrent.Uninterruptibles;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+class BulkWriterImpl extends BaseDatastoreBatchWriter implements BulkWriter {
+
+  // Maximum number of mutations the service accepts in a commit
+  private static final int MAX_BATCH_SIZE = 500;
+  private static final int MAX_CONCURRENT_REQUESTS = 10;
+  private static final double INITIAL_MUTATIONS_PER_SECOND = 500;
+  private static final double RAMP_UP_FACTOR = 1.5;
+  private static final long RAMP_UP_PERIOD_MILLIS = TimeUnit.MINUTES.toMillis(5);
+
+  private final DatastoreImpl datastore;
+  private final int maxBatchSize;
+  private final double initialMutationsPerSecond;
+  private final Semaphore requests;
+  private final RateLimiter rateLimiter;
+  private final long startMillis;
+  // Commits sent and not yet completed
+  private final Set<ListenableFuture<com.google.datastore.v1beta3.CommitResponse>> pending =
+      Collections.newSetFromMap(
+          new ConcurrentHashMap<ListenableFuture<com.google.datastore.v1beta3.CommitResponse>,
+              Boolean>());
+  // Commits that failed since the last flush, reported by the next flush
+  private final Set<ListenableFuture<com.google.datastore.v1beta3.CommitResponse>> failed =
+      Collections.newSetFromMap(
+          new ConcurrentHashMap<ListenableFuture<com.google.datastore.v1beta3.CommitResponse>,
+              Boolean>());
+  // Keys with a mutation in flight, mapped to a future that completes with their commit
+  private final ConcurrentMap<Key, ListenableFuture<Void>> inFlightKeys =
+      new ConcurrentHashMap<>();
+  private int buffered;
+
+  BulkWriterImpl(DatastoreImpl datastore) {
+    this(datastore, MAX_BATCH_SIZE, MAX_CONCURRENT_REQUESTS, INITIAL_MUTATIONS_PER_SECOND);
+  }
+
+  @VisibleForTesting
+  BulkWriterImpl(DatastoreImpl datastore, int maxBatchSize, int maxConcurrentRequests,
+      double initialMutationsPerSecond) {
+    super("bulk writer");
+    this.datastore = datastore;
+    this.maxBatchSize = maxBatchSize;
+    this.initialMutationsPerSecond = initialMutationsPerSecond;
+    this.requests = new Semaphore(maxConcurrentRequests);
+    this.rateLimiter = RateLimiter.create(initialMutationsPerSecond);
+    this.startMillis = datastore.options().clock().millis();
+  }
+
+  @Override
+  protected void onWrite() {
+    buffered = toAddAutoId().size() + toAdd().size() + toUpdate().size() + toPut().size()
+        + toDelete().size();
+    if (buffered >= maxBatchSize) {
+      sendBuffered();
+    }
+  }
+
+  /**
+   * Sends all buffered mutations in commits of at most {@code maxBatchSize} mutations.
+   */
+  private void sendBuffered() {
+    if (buffered == 0) {
+      return;
+    }
+    List<com.google.datastore.v1beta3.Mutation> mutationsPb = toMutationPbList();
+    // keys in the same order as mutations, null for entities with incomplete keys
+    List<Key> keys = new ArrayList<>(mutationsPb.size());
+    keys.addAll(Collections.<Key>nCopies(toAddAutoId().size(), null));
+    keys.addAll(toAdd().keySet());
+    keys.addAll(toUpdate().keySet());
+    keys.addAll(toPut().keySet());
+    keys.addAll(toDelete());
+    toAddAutoId().clear();
+    toAdd().clear();
+    toUpdate().clear();
+    toPut().clear();
+    toDelete().clear();
+    buffered = 0;
+    for (int from = 0; from < mutationsPb.size(); from += maxBatchSize) {
+      int to = Math.min(from + maxBatchSize, mutationsPb.size());
+      send(mutationsPb.subList(from, to), keys.subList(from, to));
+    }
+  }
+
+  private void send(List<com.google.datastore.v1beta3.Mutation> mutationsPb, List<Key> keys) {
+    // wait for in-flight mutations of the same keys, so that mutations are applied in order
+    for (Key key : keys) {
+      ListenableFuture<Void> inFlight = key != null ? inFlightKeys.get(key) : null;
+      if (inFlight != null) {
+        Futures.getUnchecked(inFlight);
+      }
+    }
+    requests.acquireUninterruptibly();
+    rateLimiter.acquire(mutationsPb.size());
+    updateRate();
+    final SettableFuture<Void> committed = SettableFuture.create();
+    final List<Key> committedKeys = new ArrayList<>(keys.size());
+    for (Key key : keys) {
+      if (key != null) {
+        inFlightKeys.put(key, committed);
+        committedKeys.add(key);
+      }
+    }
+    final ListenableFuture<com.google.datastore.v1beta3.CommitResponse> future =
+        datastore.commitAsync(DatastoreImpl.commitRequest(mutationsPb));
+    pending.add(future);
+    Futures.addCallback(future,
+        new FutureCallback<com.google.datastore.v1beta3.CommitResponse>() {
+          @Override
+          public void onSuccess(com.google.datastore.v1beta3.CommitResponse responsePb) {
+            completed();
+          }
+
+          @Override
+          public void onFailure(Throwable throwable) {
+            // keep the failed commit before it leaves pending so that flush always sees it
+            failed.add(future);
+            completed();
+          }
+
+          private void completed() {
+            for (Key key : committedKeys) {
+              inFlightKeys.remove(key, committed);
+            }
+            pending.remove(future);
+            requests.release();
+            committed.set(null);
+          }
+        }, MoreExecutors.directExecutor());
+  }
+
+  /**
+   * Increases the rate of mutations by {@code RAMP_UP_FACTOR} every
+   * {@code RAMP_UP_PERIOD_MILLIS}.
+   */
+  private void updateRate() {
+    long elapsedMillis = datastore.options().clock().millis() - startMillis;
+    double rate = initialMutationsPerSecond
+        * Math.pow(RAMP_UP_FACTOR, elapsedMillis / RAMP_UP_PERIOD_MILLIS);
+    if (rate != rateLimiter.getRate()) {
+      rateLimiter.setRate(rate);
+    }
+  }
+
+  @Override
+  public ListenableFuture<Void> flush() {
+    validateActive();
+    sendBuffered();
+    List<ListenableFuture<com.google.datastore.v1beta3.CommitResponse>> commits =
+        new ArrayList<>(pending);
+    for (Iterator<ListenableFuture<com.google.datastore.v1beta3.CommitResponse>> iterator =
+        failed.iterator(); iterator.hasNext();) {
+      commits.add(iterator.next());
+      iterator.remove();
+    }
+    return Futures.transform(Futures.allAsList(commits),
+        new Function<List<com.google.datastore.v1beta3.CommitResponse>, Void>() {
+          @Override
+          public Void apply(List<com.google.datastore.v1beta3.CommitResponse> responses) {
+            return null;
+          }
+        }, MoreExecutors.directExecutor());
+  }
+
+  @Override
+  public void close() {
+    if (!active()) {
+      return;
+    }
+    ListenableFuture<Void> flushed = flush();
+    deactivate();
+    try {
+      Uninterruptibles.getUninterruptibly(flushed);
+    } catch (ExecutionException ex) {
+      throw Throwables.propagate(ex.getCause());
+    }
+  }
+
+  @Override
+  public Datastore datastore() {
+    return datastore;
+  }
+}
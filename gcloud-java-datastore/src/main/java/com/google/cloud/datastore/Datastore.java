@@ -17,6 +17,7 @@
 package com.google.cloud.datastore;
 
 import com.google.cloud.Service;
+import com.google.common.util.concurrent.ListenableFuture;
 
 import java.util.Iterator;
 import java.util.List;
@@ -62,6 +63,12 @@ public interface Datastore extends Service<DatastoreOptions>, DatastoreReaderWri
    */
   Batch newBatch();
 
+  /**
+   * Returns a new {@link BulkWriter} for writing large numbers of entities with concurrent,
+   * throttled, non-transactional commits.
+   */
+  BulkWriter newBulkWriter();
+
   /**
    * Allocate a unique id for the given key.
    * The returned key will have the same information (projectId, kind, namespace and ancestors)
@@ -79,6 +86,23 @@ public interface Datastore extends Service<DatastoreOptions>, DatastoreReaderWri
    */
   List<Key> allocateId(IncompleteKey... keys);
 
+  /**
+   * Sends a request to allocate a unique id for the given key and returns a future for the key
+   * with the newly assigned id. The future fails with a {@link DatastoreException} upon failure.
+   *
+   * @see #allocateId(IncompleteKey)
+   */
+  ListenableFuture<Key> allocateIdAsync(IncompleteKey key);
+
+  /**
+   * Sends a request to allocate unique ids for the given keys and returns a future for the list of
+   * keys using the allocated ids, ordered by the input. The future fails with a
+   * {@link DatastoreException} upon failure.
+   *
+   * @see #allocateId(IncompleteKey...)
+   */
+  ListenableFuture<List<Key>> allocateIdAsync(IncompleteKey... keys);
+
   /**
    * {@inheritDoc}
    * @throws DatastoreException upon failure
@@ -100,6 +124,23 @@ public interface Datastore extends Service<DatastoreOptions>, DatastoreReaderWri
   @Override
   List<Entity> put(FullEntity<?>... entities);
 
+  /**
+   * Sends a request to put the given entity and returns a future for the stored entity. The future
+   * fails with a {@link DatastoreException} upon failure.
+   *
+   * @see #put(FullEntity)
+   */
+  ListenableFuture<Entity> putAsync(FullEntity<?> entity);
+
+  /**
+   * Sends a request to put the given entities and returns a future for the list of stored
+   * entities, ordered by the input. The future fails with a {@link DatastoreException} upon
+   * failure.
+   *
+   * @see #put(FullEntity...)
+   */
+  ListenableFuture<List<Entity>> putAsync(FullEntity<?>... entities);
+
   /**
    * {@inheritDoc}
    * @throws DatastoreException upon failure
@@ -139,6 +180,26 @@ public interface Datastore extends Service<DatastoreOptions>, DatastoreReaderWri
    */
   List<Entity> fetch(Iterable<Key> keys, ReadOption... options);
 
+  /**
+   * Sends a lookup request for the given key and returns a future for its {@link Entity}, or for
+   * {@code null} if it doesn't exist. Deferred keys are looked up without blocking the calling
+   * thread. The future fails with a {@link DatastoreException} upon failure. {@link ReadOption}s
+   * can be specified if desired.
+   *
+   * @see #get(Key, ReadOption...)
+   */
+  ListenableFuture<Entity> getAsync(Key key, ReadOption... options);
+
+  /**
+   * Sends a lookup request for the given keys and returns a future for a list with a value for
+   * each given key (ordered by input). {@code null} values are returned for nonexistent keys.
+   * Deferred keys are looked up without blocking the calling thread. The future fails with a
+   * {@link DatastoreException} upon failure. {@link ReadOption}s can be specified if desired.
+   *
+   * @see #fetch(Iterable, ReadOption...)
+   */
+  ListenableFuture<List<Entity>> fetchAsync(Iterable<Key> keys, ReadOption... options);
+
   /**
    * Submits a {@link Query} and returns its result. {@link ReadOption}s can be specified if
    * desired.
@@ -146,4 +207,48 @@ public interface Datastore extends Service<DatastoreOptions>, DatastoreReaderWri
    * @throws DatastoreException upon failure
    */
   <T> QueryResults<T> run(Query<T> query, ReadOption... options);
+
+  /**
+   * Submits a {@link Query} and returns a future for its result. The future completes when the
+   * first batch of results is received, further batches are requested while iterating the
+   * results. The future fails with a {@link DatastoreException} upon failure. {@link ReadOption}s
+   * can be specified if desired.
+   *
+   * @see #run(Query, ReadOption...)
+   */
+  <T> ListenableFuture<QueryResults<T>> runAsync(Query<T> query, ReadOption... options);
+
+  /**
+   * Splits {@code query} into at most {@code numSplits} queries over disjoint ranges of keys. The
+   * results of the returned queries, together, are the results of {@code query}. Split keys are
+   * chosen from a random sample of the keys of the query's kind, read using the
+   * {@code __scatter__} property. Fewer queries are returned if the kind has too few keys.
+   * The returned queries can be run in parallel, for instance by
+   * {@link #runConcurrently(Iterable, ReadOption...)}. {@link ReadOption}s, used to read the
+   * sample, can be specified if desired.
+   *
+   * <p>{@code query} must have a kind and must not have inequality filters, sort orders,
+   * distinct on properties, an offset, a limit or cursors.
+   *
+   * @throws IllegalArgumentException if {@code query} can not be split
+   * @throws DatastoreException upon failure
+   */
+  <T> List<StructuredQuery<T>> splitQuery(StructuredQuery<T> query, int numSplits,
+      ReadOption... options);
+
+  /**
+   * Runs {@code queries} concurrently and returns an iterator over their merged results. Results
+   * are returned in the order their batches are received, the next batch of a query is requested
+   * when its previous batch is iterated. {@link ReadOption}s can be specified if desired.
+   *
+   * <p>Example of scanning a kind in parallel:
+   * <pre> {@code
+   * EntityQuery query = Query.entityQueryBuilder().kind("Task").build();
+   * Iterator<Entity> entities = datastore.runConcurrently(datastore.splitQuery(query, 32));
+   * }</pre>
+   *
+   * @throws DatastoreException upon failure
+   * @see #splitQuery(StructuredQuery, int, ReadOption...)
+   */
+  <T> Iterator<T> runConcurrently(Iterable<? extends Query<T>> queries, ReadOption... options);
 }
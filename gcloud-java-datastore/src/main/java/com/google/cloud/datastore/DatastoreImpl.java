@@ -20,14 +20,28 @@ import com.google.cloud.BaseService;
 import com.google.cloud.RetryHelper;
 import com.google.cloud.RetryHelper.RetryHelperException;
 import com.google.cloud.RetryParams;
+import com.google.cloud.datastore.Query.ResultType;
+import com.google.cloud.datastore.ReadOption.BulkLookup;
 import com.google.cloud.datastore.ReadOption.EventualConsistency;
+import com.google.cloud.datastore.ReadOption.Prefetch;
 import com.google.cloud.datastore.spi.DatastoreRpc;
+import com.google.common.base.Function;
 import com.google.common.base.MoreObjects;
 import com.google.common.base.Preconditions;
+import com.google.common.base.Throwables;
 import com.google.common.collect.AbstractIterator;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.AsyncFunction;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.common.util.concurrent.Uninterruptibles;
+import com.google.datastore.v1beta3.QueryResultBatch.MoreResultsType;
 import com.google.datastore.v1beta3.ReadOptions.ReadConsistency;
 import com.google.protobuf.ByteString;
 
@@ -39,14 +53,33 @@ import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
 
 final class DatastoreImpl extends BaseService<DatastoreOptions> implements Datastore {
 
   private final DatastoreRpc datastoreRpc;
   private final RetryParams retryParams;
 
+  /**
+   * Holds the scheduler used to retry asynchronous requests. Retries only send a new asynchronous
+   * request, a single thread is shared by all instances.
+   */
+  private static final class RetryScheduler {
+
+    private static final ScheduledExecutorService INSTANCE =
+        Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+            .setDaemon(true)
+            .setNameFormat("datastore-retry-%d")
+            .build());
+  }
+
   DatastoreImpl(DatastoreOptions options) {
     super(options);
     this.datastoreRpc = options.rpc();
@@ -58,6 +91,11 @@ final class DatastoreImpl extends BaseService<DatastoreOptions> implements Datas
     return new BatchImpl(this);
   }
 
+  @Override
+  public BulkWriter newBulkWriter() {
+    return new BulkWriterImpl(this);
+  }
+
   @Override
   public Transaction newTransaction() {
     return new TransactionImpl(this);
@@ -75,13 +113,147 @@ final class DatastoreImpl extends BaseService<DatastoreOptions> implements Datas
 
   @Override
   public <T> QueryResults<T> run(Query<T> query, ReadOption... options) {
-    return run(toReadOptionsPb(options), query);
+    return new QueryResultsImpl<>(this, toReadOptionsPb(options), query, prefetch(options));
   }
 
   <T> QueryResults<T> run(com.google.datastore.v1beta3.ReadOptions readOptionsPb, Query<T> query) {
     return new QueryResultsImpl<>(this, readOptionsPb, query);
   }
 
+  @Override
+  public <T> ListenableFuture<QueryResults<T>> runAsync(Query<T> query, ReadOption... options) {
+    return QueryResultsImpl.runAsync(this, toReadOptionsPb(options), query, prefetch(options));
+  }
+
+  @Override
+  public <T> List<StructuredQuery<T>> splitQuery(StructuredQuery<T> query, int numSplits,
+      ReadOption... options) {
+    return QuerySplitter.split(this, query, numSplits, options);
+  }
+
+  @Override
+  public <T> Iterator<T> runConcurrently(Iterable<? extends Query<T>> queries,
+      ReadOption... options) {
+    return new ConcurrentResultsIterator<>(toReadOptionsPb(options), queries);
+  }
+
+  /**
+   * A batch of results of a query.
+   */
+  private static final class QueryBatch<T> {
+
+    private final Query<T> query;
+    private final com.google.datastore.v1beta3.RunQueryResponse responsePb;
+
+    QueryBatch(Query<T> query, com.google.datastore.v1beta3.RunQueryResponse responsePb) {
+      this.query = query;
+      this.responsePb = responsePb;
+    }
+  }
+
+  /**
+   * An iterator over the merged results of queries run concurrently. The next batch of results of
+   * a query is requested as soon as its previous batch is taken for iteration, so that at most one
+   * batch per query is buffered. Results are returned in the order batches are received.
+   */
+  final class ConcurrentResultsIterator<T> extends AbstractIterator<T> {
+
+    // Marks the end of the results in the queue
+    private final Object endOfResults = new Object();
+    // Batches of results or query failures, in the order they are received
+    private final BlockingQueue<Object> responses = new LinkedBlockingQueue<>();
+    private final AtomicInteger pendingQueries = new AtomicInteger();
+    private final com.google.datastore.v1beta3.ReadOptions readOptionsPb;
+    private ResultType<?> resultType;
+    private Iterator<com.google.datastore.v1beta3.EntityResult> iter =
+        Collections.emptyIterator();
+
+    ConcurrentResultsIterator(com.google.datastore.v1beta3.ReadOptions readOptionsPb,
+        Iterable<? extends Query<T>> queries) {
+      this.readOptionsPb = readOptionsPb;
+      List<Query<T>> queryList = ImmutableList.copyOf(queries);
+      // count all queries first, so that the end of results is not reached before all are sent
+      pendingQueries.set(queryList.size());
+      if (queryList.isEmpty()) {
+        responses.add(endOfResults);
+      }
+      for (Query<T> query : queryList) {
+        send(query);
+      }
+    }
+
+    private void send(final Query<T> query) {
+      com.google.datastore.v1beta3.RunQueryRequest requestPb = QueryResultsImpl.requestPb(
+          readOptionsPb, QueryResultsImpl.partitionIdPb(options(), query), query);
+      Futures.addCallback(runQueryAsync(requestPb),
+          new FutureCallback<com.google.datastore.v1beta3.RunQueryResponse>() {
+            @Override
+            public void onSuccess(com.google.datastore.v1beta3.RunQueryResponse responsePb) {
+              responses.add(new QueryBatch<>(query, responsePb));
+              if (responsePb.getBatch().getMoreResults() != MoreResultsType.NOT_FINISHED) {
+                completed();
+              }
+            }
+
+            @Override
+            public void onFailure(Throwable throwable) {
+              responses.add(throwable);
+              completed();
+            }
+          }, MoreExecutors.directExecutor());
+    }
+
+    private void completed() {
+      if (pendingQueries.decrementAndGet() == 0) {
+        responses.add(endOfResults);
+      }
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    protected T computeNext() {
+      while (!iter.hasNext()) {
+        Object response = Uninterruptibles.takeUninterruptibly(responses);
+        if (response == endOfResults) {
+          return endOfData();
+        }
+        if (response instanceof Throwable) {
+          throw Throwables.propagate((Throwable) response);
+        }
+        QueryBatch<T> batch = (QueryBatch<T>) response;
+        com.google.datastore.v1beta3.QueryResultBatch batchPb = batch.responsePb.getBatch();
+        if (batchPb.getMoreResults() == MoreResultsType.NOT_FINISHED) {
+          send(batch.query.nextQuery(batch.responsePb));
+        }
+        resultType = ResultType.fromPb(batchPb.getEntityResultType());
+        if (Objects.equals(batch.query.type(), ResultType.PROJECTION_ENTITY)) {
+          // projection entity can represent all type of results
+          resultType = ResultType.PROJECTION_ENTITY;
+        }
+        Preconditions.checkState(batch.query.type().isAssignableFrom(resultType),
+            "Unexpected result type " + resultType + " vs " + batch.query.type());
+        iter = batchPb.getEntityResultsList().iterator();
+      }
+      return (T) resultType.convert(iter.next().getEntity());
+    }
+  }
+
+  /**
+   * Runs the asynchronous request returned by {@code callable} with retries. The returned future
+   * fails with a {@link DatastoreException} if the request does not succeed.
+   */
+  private <V> ListenableFuture<V> runWithRetriesAsync(Callable<ListenableFuture<V>> callable) {
+    ListenableFuture<V> future = RetryHelper.runWithRetriesAsync(callable, retryParams,
+        EXCEPTION_HANDLER, options().clock(), RetryScheduler.INSTANCE);
+    return Futures.catching(future, RetryHelperException.class,
+        new Function<RetryHelperException, V>() {
+          @Override
+          public V apply(RetryHelperException exception) {
+            throw DatastoreException.translateAndThrow(exception);
+          }
+        }, MoreExecutors.directExecutor());
+  }
+
   com.google.datastore.v1beta3.RunQueryResponse runQuery(
       final com.google.datastore.v1beta3.RunQueryRequest requestPb) {
     try {
@@ -98,6 +270,17 @@ final class DatastoreImpl extends BaseService<DatastoreOptions> implements Datas
     }
   }
 
+  ListenableFuture<com.google.datastore.v1beta3.RunQueryResponse> runQueryAsync(
+      final com.google.datastore.v1beta3.RunQueryRequest requestPb) {
+    return runWithRetriesAsync(
+        new Callable<ListenableFuture<com.google.datastore.v1beta3.RunQueryResponse>>() {
+          @Override
+          public ListenableFuture<com.google.datastore.v1beta3.RunQueryResponse> call() {
+            return datastoreRpc.runQueryAsync(requestPb);
+          }
+        });
+  }
+
   @Override
   public Key allocateId(IncompleteKey key) {
     return DatastoreHelper.allocateId(this, key);
@@ -108,12 +291,45 @@ final class DatastoreImpl extends BaseService<DatastoreOptions> implements Datas
     if (keys.length == 0) {
       return Collections.emptyList();
     }
+    return toKeys(allocateIds(allocateIdsRequest(keys)));
+  }
+
+  @Override
+  public ListenableFuture<Key> allocateIdAsync(IncompleteKey key) {
+    return Futures.transform(allocateIdAsync(new IncompleteKey[]{key}),
+        new Function<List<Key>, Key>() {
+          @Override
+          public Key apply(List<Key> keys) {
+            return keys.get(0);
+          }
+        }, MoreExecutors.directExecutor());
+  }
+
+  @Override
+  public ListenableFuture<List<Key>> allocateIdAsync(IncompleteKey... keys) {
+    if (keys.length == 0) {
+      return Futures.immediateFuture(Collections.<Key>emptyList());
+    }
+    return Futures.transform(allocateIdsAsync(allocateIdsRequest(keys)),
+        new Function<com.google.datastore.v1beta3.AllocateIdsResponse, List<Key>>() {
+          @Override
+          public List<Key> apply(com.google.datastore.v1beta3.AllocateIdsResponse responsePb) {
+            return toKeys(responsePb);
+          }
+        }, MoreExecutors.directExecutor());
+  }
+
+  private com.google.datastore.v1beta3.AllocateIdsRequest allocateIdsRequest(
+      IncompleteKey... keys) {
     com.google.datastore.v1beta3.AllocateIdsRequest.Builder requestPb =
         com.google.datastore.v1beta3.AllocateIdsRequest.newBuilder();
     for (IncompleteKey key : keys) {
       requestPb.addKeys(trimNameOrId(key).toPb());
     }
-    com.google.datastore.v1beta3.AllocateIdsResponse responsePb = allocateIds(requestPb.build());
+    return requestPb.build();
+  }
+
+  private static List<Key> toKeys(com.google.datastore.v1beta3.AllocateIdsResponse responsePb) {
     ImmutableList.Builder<Key> keyList = ImmutableList.builder();
     for (com.google.datastore.v1beta3.Key keyPb : responsePb.getKeysList()) {
       keyList.add(Key.fromPb(keyPb));
@@ -137,6 +353,17 @@ final class DatastoreImpl extends BaseService<DatastoreOptions> implements Datas
     }
   }
 
+  ListenableFuture<com.google.datastore.v1beta3.AllocateIdsResponse> allocateIdsAsync(
+      final com.google.datastore.v1beta3.AllocateIdsRequest requestPb) {
+    return runWithRetriesAsync(
+        new Callable<ListenableFuture<com.google.datastore.v1beta3.AllocateIdsResponse>>() {
+          @Override
+          public ListenableFuture<com.google.datastore.v1beta3.AllocateIdsResponse> call() {
+            return datastoreRpc.allocateIdsAsync(requestPb);
+          }
+        });
+  }
+
   private IncompleteKey trimNameOrId(IncompleteKey key) {
     if (key instanceof Key) {
       return IncompleteKey.builder(key).build();
@@ -207,7 +434,21 @@ final class DatastoreImpl extends BaseService<DatastoreOptions> implements Datas
 
   @Override
   public Iterator<Entity> get(Iterable<Key> keys, ReadOption... options) {
-    return get(toReadOptionsPb(options), Iterables.toArray(keys, Key.class));
+    Key[] keysArray = Iterables.toArray(keys, Key.class);
+    BulkLookup bulkLookup = bulkLookup(options);
+    if (bulkLookup != null && keysArray.length > 0) {
+      return new BulkResultsIterator(toReadOptionsPb(options), bulkLookup.chunkSize(), keysArray);
+    }
+    return get(toReadOptionsPb(options), keysArray);
+  }
+
+  private static boolean prefetch(ReadOption... options) {
+    return options != null && ReadOption.asImmutableMap(options).containsKey(Prefetch.class);
+  }
+
+  private static BulkLookup bulkLookup(ReadOption... options) {
+    return options != null
+        ? (BulkLookup) ReadOption.asImmutableMap(options).get(BulkLookup.class) : null;
   }
 
   private static com.google.datastore.v1beta3.ReadOptions toReadOptionsPb(ReadOption... options) {
@@ -231,10 +472,76 @@ final class DatastoreImpl extends BaseService<DatastoreOptions> implements Datas
     return DatastoreHelper.fetch(this, Iterables.toArray(keys, Key.class), options);
   }
 
+  @Override
+  public ListenableFuture<Entity> getAsync(Key key, ReadOption... options) {
+    return Futures.transform(fetchAsync(Collections.singletonList(key), options),
+        new Function<List<Entity>, Entity>() {
+          @Override
+          public Entity apply(List<Entity> entities) {
+            return entities.get(0);
+          }
+        }, MoreExecutors.directExecutor());
+  }
+
+  @Override
+  public ListenableFuture<List<Entity>> fetchAsync(Iterable<Key> keys, ReadOption... options) {
+    final Key[] keysArray = Iterables.toArray(keys, Key.class);
+    if (keysArray.length == 0) {
+      return Futures.immediateFuture(Collections.<Entity>emptyList());
+    }
+    com.google.datastore.v1beta3.ReadOptions readOptionsPb = toReadOptionsPb(options);
+    BulkLookup bulkLookup = bulkLookup(options);
+    List<Key> uniqueKeys = new ArrayList<>(Sets.newLinkedHashSet(Arrays.asList(keysArray)));
+    int chunkSize = bulkLookup != null ? bulkLookup.chunkSize() : uniqueKeys.size();
+    List<ListenableFuture<List<Entity>>> chunks = new ArrayList<>();
+    for (List<Key> chunk : Lists.partition(uniqueKeys, chunkSize)) {
+      chunks.add(lookupAllAsync(lookupRequest(readOptionsPb, chunk.toArray(new Key[0])),
+          new ArrayList<Entity>()));
+    }
+    return Futures.transform(Futures.allAsList(chunks),
+        new Function<List<List<Entity>>, List<Entity>>() {
+          @Override
+          public List<Entity> apply(List<List<Entity>> entities) {
+            return DatastoreHelper.compileEntities(
+                keysArray, Iterables.concat(entities).iterator());
+          }
+        }, MoreExecutors.directExecutor());
+  }
+
+  /**
+   * Sends the provided lookup request and, asynchronously, a new request for deferred keys until
+   * all keys are looked up. Found entities are added to {@code found}.
+   */
+  private ListenableFuture<List<Entity>> lookupAllAsync(
+      final com.google.datastore.v1beta3.LookupRequest.Builder requestPb,
+      final List<Entity> found) {
+    return Futures.transformAsync(lookupAsync(requestPb.build()),
+        new AsyncFunction<com.google.datastore.v1beta3.LookupResponse, List<Entity>>() {
+          @Override
+          public ListenableFuture<List<Entity>> apply(
+              com.google.datastore.v1beta3.LookupResponse responsePb) {
+            for (com.google.datastore.v1beta3.EntityResult resultPb : responsePb.getFoundList()) {
+              found.add(Entity.fromPb(resultPb.getEntity()));
+            }
+            if (responsePb.getDeferredCount() == 0) {
+              return Futures.immediateFuture(found);
+            }
+            requestPb.clearKeys();
+            requestPb.addAllKeys(responsePb.getDeferredList());
+            return lookupAllAsync(requestPb, found);
+          }
+        }, MoreExecutors.directExecutor());
+  }
+
   Iterator<Entity> get(com.google.datastore.v1beta3.ReadOptions readOptionsPb, final Key... keys) {
     if (keys.length == 0) {
       return Collections.emptyIterator();
     }
+    return new ResultsIterator(lookupRequest(readOptionsPb, keys));
+  }
+
+  private static com.google.datastore.v1beta3.LookupRequest.Builder lookupRequest(
+      com.google.datastore.v1beta3.ReadOptions readOptionsPb, Key... keys) {
     com.google.datastore.v1beta3.LookupRequest.Builder requestPb =
         com.google.datastore.v1beta3.LookupRequest.newBuilder();
     if (readOptionsPb != null) {
@@ -243,7 +550,7 @@ final class DatastoreImpl extends BaseService<DatastoreOptions> implements Datas
     for (Key k : Sets.newLinkedHashSet(Arrays.asList(keys))) {
       requestPb.addKeys(k.toPb());
     }
-    return new ResultsIterator(requestPb);
+    return requestPb;
   }
 
   final class ResultsIterator extends AbstractIterator<Entity> {
@@ -278,6 +585,79 @@ final class DatastoreImpl extends BaseService<DatastoreOptions> implements Datas
     }
   }
 
+  /**
+   * An iterator over the entities returned by concurrent lookup requests, each for a chunk of the
+   * requested keys. A request for deferred keys is sent as soon as a response is received.
+   * Entities are returned in the order responses are received.
+   */
+  final class BulkResultsIterator extends AbstractIterator<Entity> {
+
+    // Marks the end of the results in the queue
+    private final Object endOfResults = new Object();
+    // Lists of entity results or lookup failures, in the order they are received
+    private final BlockingQueue<Object> responses = new LinkedBlockingQueue<>();
+    private final AtomicInteger pendingRequests = new AtomicInteger();
+    private Iterator<com.google.datastore.v1beta3.EntityResult> iter =
+        Collections.emptyIterator();
+
+    BulkResultsIterator(com.google.datastore.v1beta3.ReadOptions readOptionsPb, int chunkSize,
+        Key... keys) {
+      List<Key> uniqueKeys = new ArrayList<>(Sets.newLinkedHashSet(Arrays.asList(keys)));
+      List<List<Key>> chunks = Lists.partition(uniqueKeys, chunkSize);
+      // count all chunks first, so that the end of results is not reached before all are sent
+      pendingRequests.set(chunks.size());
+      for (List<Key> chunk : chunks) {
+        send(lookupRequest(readOptionsPb, chunk.toArray(new Key[0])).build());
+      }
+    }
+
+    private void send(final com.google.datastore.v1beta3.LookupRequest requestPb) {
+      Futures.addCallback(lookupAsync(requestPb),
+          new FutureCallback<com.google.datastore.v1beta3.LookupResponse>() {
+            @Override
+            public void onSuccess(com.google.datastore.v1beta3.LookupResponse responsePb) {
+              responses.add(responsePb.getFoundList());
+              if (responsePb.getDeferredCount() > 0) {
+                pendingRequests.incrementAndGet();
+                send(requestPb.toBuilder()
+                    .clearKeys()
+                    .addAllKeys(responsePb.getDeferredList())
+                    .build());
+              }
+              completed();
+            }
+
+            @Override
+            public void onFailure(Throwable throwable) {
+              responses.add(throwable);
+              completed();
+            }
+          }, MoreExecutors.directExecutor());
+    }
+
+    private void completed() {
+      if (pendingRequests.decrementAndGet() == 0) {
+        responses.add(endOfResults);
+      }
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    protected Entity computeNext() {
+      while (!iter.hasNext()) {
+        Object response = Uninterruptibles.takeUninterruptibly(responses);
+        if (response == endOfResults) {
+          return endOfData();
+        }
+        if (response instanceof Throwable) {
+          throw Throwables.propagate((Throwable) response);
+        }
+        iter = ((List<com.google.datastore.v1beta3.EntityResult>) response).iterator();
+      }
+      return Entity.fromPb(iter.next().getEntity());
+    }
+  }
+
   com.google.datastore.v1beta3.LookupResponse lookup(
       final com.google.datastore.v1beta3.LookupRequest requestPb) {
     try {
@@ -294,6 +674,17 @@ final class DatastoreImpl extends BaseService<DatastoreOptions> implements Datas
     }
   }
 
+  ListenableFuture<com.google.datastore.v1beta3.LookupResponse> lookupAsync(
+      final com.google.datastore.v1beta3.LookupRequest requestPb) {
+    return runWithRetriesAsync(
+        new Callable<ListenableFuture<com.google.datastore.v1beta3.LookupResponse>>() {
+          @Override
+          public ListenableFuture<com.google.datastore.v1beta3.LookupResponse> call() {
+            return datastoreRpc.lookupAsync(requestPb);
+          }
+        });
+  }
+
   @Override
   public void update(Entity... entities) {
     if (entities.length > 0) {
@@ -316,14 +707,53 @@ final class DatastoreImpl extends BaseService<DatastoreOptions> implements Datas
     return DatastoreHelper.put(this, entity);
   }
 
-  @SuppressWarnings("unchecked")
   @Override
   public List<Entity> put(FullEntity<?>... entities) {
     if (entities.length == 0) {
       return Collections.emptyList();
     }
-    List<com.google.datastore.v1beta3.Mutation> mutationsPb = new ArrayList<>();
     Map<Key, Entity> dedupEntities = new LinkedHashMap<>();
+    List<com.google.datastore.v1beta3.Mutation> mutationsPb =
+        putMutations(dedupEntities, entities);
+    return putResults(dedupEntities, commitMutation(mutationsPb), entities);
+  }
+
+  @Override
+  public ListenableFuture<Entity> putAsync(FullEntity<?> entity) {
+    return Futures.transform(putAsync(new FullEntity<?>[] {entity}),
+        new Function<List<Entity>, Entity>() {
+          @Override
+          public Entity apply(List<Entity> entities) {
+            return entities.get(0);
+          }
+        }, MoreExecutors.directExecutor());
+  }
+
+  @Override
+  public ListenableFuture<List<Entity>> putAsync(final FullEntity<?>... entities) {
+    if (entities.length == 0) {
+      return Futures.immediateFuture(Collections.<Entity>emptyList());
+    }
+    final Map<Key, Entity> dedupEntities = new LinkedHashMap<>();
+    List<com.google.datastore.v1beta3.Mutation> mutationsPb =
+        putMutations(dedupEntities, entities);
+    return Futures.transform(commitAsync(commitRequest(mutationsPb)),
+        new Function<com.google.datastore.v1beta3.CommitResponse, List<Entity>>() {
+          @Override
+          public List<Entity> apply(com.google.datastore.v1beta3.CommitResponse commitResponse) {
+            return putResults(dedupEntities, commitResponse, entities);
+          }
+        }, MoreExecutors.directExecutor());
+  }
+
+  /**
+   * Returns the upsert mutations for the provided entities. Complete entities are deduplicated by
+   * key and added to {@code dedupEntities}.
+   */
+  @SuppressWarnings("unchecked")
+  private static List<com.google.datastore.v1beta3.Mutation> putMutations(
+      Map<Key, Entity> dedupEntities, FullEntity<?>... entities) {
+    List<com.google.datastore.v1beta3.Mutation> mutationsPb = new ArrayList<>();
     for (FullEntity<?> entity : entities) {
       Preconditions.checkArgument(entity.hasKey(), "Entity %s is missing a key", entity);
       if (entity.key() instanceof Key) {
@@ -338,7 +768,11 @@ final class DatastoreImpl extends BaseService<DatastoreOptions> implements Datas
       mutationsPb.add(
           com.google.datastore.v1beta3.Mutation.newBuilder().setUpsert(entity.toPb()).build());
     }
-    com.google.datastore.v1beta3.CommitResponse commitResponse = commitMutation(mutationsPb);
+    return mutationsPb;
+  }
+
+  private static List<Entity> putResults(Map<Key, Entity> dedupEntities,
+      com.google.datastore.v1beta3.CommitResponse commitResponse, FullEntity<?>... entities) {
     Iterator<com.google.datastore.v1beta3.MutationResult> mutationResults =
         commitResponse.getMutationResultsList().iterator();
     ImmutableList.Builder<Entity> responseBuilder = ImmutableList.builder();
@@ -374,11 +808,16 @@ final class DatastoreImpl extends BaseService<DatastoreOptions> implements Datas
 
   private com.google.datastore.v1beta3.CommitResponse commitMutation(
       List<com.google.datastore.v1beta3.Mutation> mutationsPb) {
+    return commit(commitRequest(mutationsPb));
+  }
+
+  static com.google.datastore.v1beta3.CommitRequest commitRequest(
+      List<com.google.datastore.v1beta3.Mutation> mutationsPb) {
     com.google.datastore.v1beta3.CommitRequest.Builder requestPb =
         com.google.datastore.v1beta3.CommitRequest.newBuilder();
     requestPb.setMode(com.google.datastore.v1beta3.CommitRequest.Mode.NON_TRANSACTIONAL);
     requestPb.addAllMutations(mutationsPb);
-    return commit(requestPb.build());
+    return requestPb.build();
   }
 
   com.google.datastore.v1beta3.CommitResponse commit(
@@ -398,6 +837,17 @@ final class DatastoreImpl extends BaseService<DatastoreOptions> implements Datas
     }
   }
 
+  ListenableFuture<com.google.datastore.v1beta3.CommitResponse> commitAsync(
+      final com.google.datastore.v1beta3.CommitRequest requestPb) {
+    return runWithRetriesAsync(
+        new Callable<ListenableFuture<com.google.datastore.v1beta3.CommitResponse>>() {
+          @Override
+          public ListenableFuture<com.google.datastore.v1beta3.CommitResponse> call() {
+            return datastoreRpc.commitAsync(requestPb);
+          }
+        });
+  }
+
   ByteString requestTransactionId(
       com.google.datastore.v1beta3.BeginTransactionRequest.Builder requestPb) {
     return beginTransaction(requestPb.build()).getTransaction();
@@ -17,13 +17,20 @@
 package com.google.cloud.datastore;
 
 import com.google.cloud.datastore.Query.ResultType;
+import com.google.common.base.Function;
 import com.google.common.base.Preconditions;
+import com.google.common.base.Throwables;
 import com.google.common.collect.AbstractIterator;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.Uninterruptibles;
 import com.google.datastore.v1beta3.QueryResultBatch.MoreResultsType;
 import com.google.protobuf.ByteString;
 
 import java.util.Iterator;
 import java.util.Objects;
+import java.util.concurrent.ExecutionException;
 
 class QueryResultsImpl<T> extends AbstractIterator<T> implements QueryResults<T> {
 
@@ -31,6 +38,7 @@ class QueryResultsImpl<T> extends AbstractIterator<T> implements QueryResults<T>
   private final com.google.datastore.v1beta3.ReadOptions readOptionsPb;
   private final com.google.datastore.v1beta3.PartitionId partitionIdPb;
   private final ResultType<T> queryResultType;
+  private final boolean prefetch;
   private Query<T> query;
   private ResultType<?> actualResultType;
   private com.google.datastore.v1beta3.RunQueryResponse runQueryResponsePb;
@@ -38,31 +46,88 @@ class QueryResultsImpl<T> extends AbstractIterator<T> implements QueryResults<T>
   private boolean lastBatch;
   private Iterator<com.google.datastore.v1beta3.EntityResult> entityResultPbIter;
   private ByteString cursor;
+  // The next batch of results, requested while the current one is consumed if prefetch is enabled
+  private Query<T> nextQuery;
+  private com.google.datastore.v1beta3.RunQueryRequest nextRequestPb;
+  private ListenableFuture<com.google.datastore.v1beta3.RunQueryResponse> nextResponsePb;
 
   QueryResultsImpl(DatastoreImpl datastore, com.google.datastore.v1beta3.ReadOptions readOptionsPb,
                    Query<T> query) {
+    this(datastore, readOptionsPb, query, false);
+  }
+
+  QueryResultsImpl(DatastoreImpl datastore, com.google.datastore.v1beta3.ReadOptions readOptionsPb,
+      Query<T> query, boolean prefetch) {
+    this(datastore, readOptionsPb, partitionIdPb(datastore.options(), query), query, prefetch,
+        null);
+  }
+
+  /**
+   * Creates query results whose first batch is {@code runQueryResponsePb}. If
+   * {@code runQueryResponsePb} is {@code null} the first batch is requested. If {@code prefetch}
+   * is {@code true} each batch of results is requested while the previous one is consumed.
+   */
+  private QueryResultsImpl(DatastoreImpl datastore,
+      com.google.datastore.v1beta3.ReadOptions readOptionsPb,
+      com.google.datastore.v1beta3.PartitionId partitionIdPb, Query<T> query, boolean prefetch,
+      com.google.datastore.v1beta3.RunQueryResponse runQueryResponsePb) {
     this.datastore = datastore;
     this.readOptionsPb = readOptionsPb;
+    this.partitionIdPb = partitionIdPb;
+    this.prefetch = prefetch;
     this.query = query;
     queryResultType = query.type();
+    if (runQueryResponsePb == null) {
+      sendRequest();
+    } else {
+      setResponse(requestPb(), runQueryResponsePb);
+    }
+    if (this.runQueryResponsePb.getBatch().getSkippedResults() > 0) {
+      cursor = this.runQueryResponsePb.getBatch().getSkippedCursor();
+    } else {
+      cursor = mostRecentQueryPb.getStartCursor();
+    }
+  }
+
+  /**
+   * Sends the request for the first batch of results asynchronously. The returned future
+   * completes when the first batch is received, further batches are requested as the results are
+   * iterated.
+   */
+  static <T> ListenableFuture<QueryResults<T>> runAsync(final DatastoreImpl datastore,
+      final com.google.datastore.v1beta3.ReadOptions readOptionsPb, final Query<T> query,
+      final boolean prefetch) {
+    final com.google.datastore.v1beta3.PartitionId partitionIdPb =
+        partitionIdPb(datastore.options(), query);
+    com.google.datastore.v1beta3.RunQueryRequest requestPb =
+        requestPb(readOptionsPb, partitionIdPb, query);
+    return Futures.transform(datastore.runQueryAsync(requestPb),
+        new Function<com.google.datastore.v1beta3.RunQueryResponse, QueryResults<T>>() {
+          @Override
+          public QueryResults<T> apply(
+              com.google.datastore.v1beta3.RunQueryResponse runQueryResponsePb) {
+            return new QueryResultsImpl<>(
+                datastore, readOptionsPb, partitionIdPb, query, prefetch, runQueryResponsePb);
+          }
+        }, MoreExecutors.directExecutor());
+  }
+
+  static com.google.datastore.v1beta3.PartitionId partitionIdPb(DatastoreOptions options,
+      Query<?> query) {
     com.google.datastore.v1beta3.PartitionId.Builder pbBuilder =
         com.google.datastore.v1beta3.PartitionId.newBuilder();
-    pbBuilder.setProjectId(datastore.options().projectId());
+    pbBuilder.setProjectId(options.projectId());
     if (query.namespace() != null) {
       pbBuilder.setNamespaceId(query.namespace());
-    } else if (datastore.options().namespace() != null) {
-      pbBuilder.setNamespaceId(datastore.options().namespace());
-    }
-    partitionIdPb = pbBuilder.build();
-    sendRequest();
-    if (runQueryResponsePb.getBatch().getSkippedResults() > 0) {
-      cursor = runQueryResponsePb.getBatch().getSkippedCursor();
-    } else {
-      cursor = mostRecentQueryPb.getStartCursor();
+    } else if (options.namespace() != null) {
+      pbBuilder.setNamespaceId(options.namespace());
     }
+    return pbBuilder.build();
   }
 
-  private void sendRequest() {
+  static com.google.datastore.v1beta3.RunQueryRequest requestPb(
+      com.google.datastore.v1beta3.ReadOptions readOptionsPb,
+      com.google.datastore.v1beta3.PartitionId partitionIdPb, Query<?> query) {
     com.google.datastore.v1beta3.RunQueryRequest.Builder requestPb =
         com.google.datastore.v1beta3.RunQueryRequest.newBuilder();
     if (readOptionsPb != null) {
@@ -70,7 +135,21 @@ class QueryResultsImpl<T> extends AbstractIterator<T> implements QueryResults<T>
     }
     requestPb.setPartitionId(partitionIdPb);
     query.populatePb(requestPb);
-    runQueryResponsePb = datastore.runQuery(requestPb.build());
+    return requestPb.build();
+  }
+
+  private com.google.datastore.v1beta3.RunQueryRequest requestPb() {
+    return requestPb(readOptionsPb, partitionIdPb, query);
+  }
+
+  private void sendRequest() {
+    com.google.datastore.v1beta3.RunQueryRequest requestPb = requestPb();
+    setResponse(requestPb, datastore.runQuery(requestPb));
+  }
+
+  private void setResponse(com.google.datastore.v1beta3.RunQueryRequest requestPb,
+      com.google.datastore.v1beta3.RunQueryResponse runQueryResponsePb) {
+    this.runQueryResponsePb = runQueryResponsePb;
     mostRecentQueryPb = runQueryResponsePb.getQuery();
     if (mostRecentQueryPb == null) {
       mostRecentQueryPb = requestPb.getQuery();
@@ -84,13 +163,34 @@ class QueryResultsImpl<T> extends AbstractIterator<T> implements QueryResults<T>
     }
     Preconditions.checkState(queryResultType.isAssignableFrom(actualResultType),
         "Unexpected result type " + actualResultType + " vs " + queryResultType);
+    if (prefetch && !lastBatch) {
+      nextQuery = query.nextQuery(runQueryResponsePb);
+      nextRequestPb = requestPb(readOptionsPb, partitionIdPb, nextQuery);
+      nextResponsePb = datastore.runQueryAsync(nextRequestPb);
+    }
+  }
+
+  private void receivePrefetchedResponse() {
+    ListenableFuture<com.google.datastore.v1beta3.RunQueryResponse> responseFuture =
+        nextResponsePb;
+    nextResponsePb = null;
+    query = nextQuery;
+    try {
+      setResponse(nextRequestPb, Uninterruptibles.getUninterruptibly(responseFuture));
+    } catch (ExecutionException ex) {
+      throw Throwables.propagate(ex.getCause());
+    }
   }
 
   @Override
   protected T computeNext() {
     while (!entityResultPbIter.hasNext() && !lastBatch) {
-      query = query.nextQuery(runQueryResponsePb);
-      sendRequest();
+      if (nextResponsePb != null) {
+        receivePrefetchedResponse();
+      } else {
+        query = query.nextQuery(runQueryResponsePb);
+        sendRequest();
+      }
     }
     if (!entityResultPbIter.hasNext()) {
       cursor = runQueryResponsePb.getBatch().getEndCursor();
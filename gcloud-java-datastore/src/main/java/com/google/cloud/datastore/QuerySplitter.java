@@ -0,0 +1,203 @@
+/*
+ * Copyright 2016 Google Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.datastore;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import com.google.cloud.datastore.StructuredQuery.CompositeFilter;
+import com.google.cloud.datastore.StructuredQuery.Filter;
+import com.google.cloud.datastore.StructuredQuery.OrderBy;
+import com.google.cloud.datastore.StructuredQuery.PropertyFilter;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterators;
+import com.google.common.primitives.UnsignedBytes;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+/**
+ * Splits a {@link StructuredQuery} over a kind into queries over disjoint ranges of keys. Split
+ * keys are chosen from a random sample of the keys of the kind, obtained by a keys only query
+ * ordered by the {@code __scatter__} property.
+ */
+class QuerySplitter {
+
+  static final String SCATTER_PROPERTY_NAME = "__scatter__";
+  // Number of keys sampled for each split, more keys give splits of more even size
+  static final int KEYS_PER_SPLIT = 32;
+
+  /**
+   * Orders keys as the service does: by path elements, comparing kinds first and then ids or
+   * names. Ids come before names and a key comes before its descendants.
+   */
+  static final Comparator<Key> KEY_COMPARATOR = new Comparator<Key>() {
+    @Override
+    public int compare(Key first, Key second) {
+      Iterator<PathElement> firstPath = path(first).iterator();
+      Iterator<PathElement> secondPath = path(second).iterator();
+      while (firstPath.hasNext() && secondPath.hasNext()) {
+        int result = compare(firstPath.next(), secondPath.next());
+        if (result != 0) {
+          return result;
+        }
+      }
+      return Boolean.compare(firstPath.hasNext(), secondPath.hasNext());
+    }
+
+    private int compare(PathElement first, PathElement second) {
+      int result = compareStrings(first.kind(), second.kind());
+      if (result != 0) {
+        return result;
+      }
+      if (first.hasId() != second.hasId()) {
+        return first.hasId() ? -1 : 1;
+      }
+      return first.hasId()
+          ? Long.compare(first.id(), second.id()) : compareStrings(first.name(), second.name());
+    }
+
+    private int compareStrings(String first, String second) {
+      return UnsignedBytes.lexicographicalComparator().compare(
+          first.getBytes(StandardCharsets.UTF_8), second.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private List<PathElement> path(Key key) {
+      return ImmutableList.<PathElement>builder()
+          .addAll(key.ancestors())
+          .add(key.hasId() ? PathElement.of(key.kind(), key.id())
+              : PathElement.of(key.kind(), key.name()))
+          .build();
+    }
+  };
+
+  private QuerySplitter() {
+  }
+
+  /**
+   * Returns at most {@code numSplits} queries whose results, together, are the results of
+   * {@code query}. Fewer queries are returned if the kind does not have enough keys.
+   *
+   * @throws IllegalArgumentException if {@code query} can not be split
+   */
+  static <V> List<StructuredQuery<V>> split(Datastore datastore, StructuredQuery<V> query,
+      int numSplits, ReadOption... options) {
+    checkArgument(numSplits > 0, "numSplits must be positive");
+    validate(query);
+    if (numSplits == 1) {
+      return ImmutableList.of(query);
+    }
+    SortedSet<Key> sample = new TreeSet<>(KEY_COMPARATOR);
+    Iterators.addAll(sample, datastore.run(scatterQuery(query, numSplits), options));
+    List<Key> splitKeys = splitKeys(new ArrayList<>(sample), numSplits);
+    ImmutableList.Builder<StructuredQuery<V>> queries = ImmutableList.builder();
+    Key lowerBound = null;
+    for (Key upperBound : splitKeys) {
+      queries.add(rangeQuery(query, lowerBound, upperBound));
+      lowerBound = upperBound;
+    }
+    queries.add(rangeQuery(query, lowerBound, null));
+    return queries.build();
+  }
+
+  private static void validate(StructuredQuery<?> query) {
+    checkArgument(query.kind() != null, "query must have a kind");
+    checkArgument(query.orderBy().isEmpty(), "query must not have sort orders");
+    checkArgument(query.distinctOn().isEmpty(), "query must not have distinct on properties");
+    checkArgument(query.offset() == 0 && query.limit() == null,
+        "query must not have an offset or a limit");
+    checkArgument(query.startCursor() == null && query.endCursor() == null,
+        "query must not have cursors");
+    checkArgument(query.filter() == null || !hasInequality(query.filter().toPb()),
+        "query must not have inequality filters");
+  }
+
+  private static boolean hasInequality(com.google.datastore.v1beta3.Filter filterPb) {
+    switch (filterPb.getFilterTypeCase()) {
+      case COMPOSITE_FILTER:
+        for (com.google.datastore.v1beta3.Filter subFilterPb
+            : filterPb.getCompositeFilter().getFiltersList()) {
+          if (hasInequality(subFilterPb)) {
+            return true;
+          }
+        }
+        return false;
+      case PROPERTY_FILTER:
+        switch (filterPb.getPropertyFilter().getOp()) {
+          case EQUAL:
+          case HAS_ANCESTOR:
+            return false;
+          default:
+            return true;
+        }
+      default:
+        return false;
+    }
+  }
+
+  private static KeyQuery scatterQuery(StructuredQuery<?> query, int numSplits) {
+    return Query.keyQueryBuilder()
+        .namespace(query.namespace())
+        .kind(query.kind())
+        .orderBy(OrderBy.asc(SCATTER_PROPERTY_NAME))
+        .limit((numSplits - 1) * KEYS_PER_SPLIT)
+        .build();
+  }
+
+  /**
+   * Picks at most {@code numSplits - 1} evenly spaced keys from the sorted {@code sample}.
+   */
+  static List<Key> splitKeys(List<Key> sample, int numSplits) {
+    if (sample.size() < numSplits) {
+      return sample;
+    }
+    List<Key> splitKeys = new ArrayList<>(numSplits - 1);
+    double step = (double) sample.size() / numSplits;
+    for (int i = 1; i < numSplits; i++) {
+      splitKeys.add(sample.get((int) Math.round(i * step)));
+    }
+    return splitKeys;
+  }
+
+  /**
+   * Restricts {@code query} to keys greater than or equal to {@code lowerBound} and less than
+   * {@code upperBound}. A {@code null} bound leaves the range open on that side.
+   */
+  private static <V> StructuredQuery<V> rangeQuery(StructuredQuery<V> query, Key lowerBound,
+      Key upperBound) {
+    List<Filter> filters = new ArrayList<>(3);
+    if (query.filter() != null) {
+      filters.add(query.filter());
+    }
+    if (lowerBound != null) {
+      filters.add(PropertyFilter.ge(StructuredQuery.KEY_PROPERTY_NAME, lowerBound));
+    }
+    if (upperBound != null) {
+      filters.add(PropertyFilter.lt(StructuredQuery.KEY_PROPERTY_NAME, upperBound));
+    }
+    if (filters.isEmpty()) {
+      return query;
+    }
+    Filter filter = filters.size() == 1 ? filters.get(0) : CompositeFilter.and(filters.get(0),
+        filters.subList(1, filters.size()).toArray(new Filter[filters.size() - 1]));
+    return query.toBuilder().filter(filter).build();
+  }
+}
@@ -16,6 +16,8 @@
 
 package com.google.cloud.datastore;
 
+import static com.google.common.base.Preconditions.checkArgument;
+
 import com.google.common.collect.ImmutableMap;
 
 import java.io.Serializable;
@@ -48,6 +50,40 @@ public abstract class ReadOption implements Serializable {
     }
   }
 
+  /**
+   * Specifies that lookups of many keys are split into requests of at most {@code chunkSize} keys
+   * that are sent concurrently. Deferred keys are requested as soon as a response is received and
+   * entities are returned as responses arrive.
+   */
+  public static final class BulkLookup extends ReadOption {
+
+    private static final long serialVersionUID = 3127451478539434924L;
+
+    private final int chunkSize;
+
+    private BulkLookup(int chunkSize) {
+      this.chunkSize = chunkSize;
+    }
+
+    public int chunkSize() {
+      return chunkSize;
+    }
+  }
+
+  /**
+   * Specifies that, when running a query, the next batch of results is requested while the
+   * current batch is being consumed.
+   */
+  public static final class Prefetch extends ReadOption {
+
+    private static final long serialVersionUID = -5325436447839526519L;
+
+    private Prefetch() {}
+  }
+
+  // Maximum number of keys the service accepts in a lookup request
+  private static final int MAX_LOOKUP_KEYS = 1000;
+
   private ReadOption() {}
 
   /**
@@ -58,6 +94,34 @@ public abstract class ReadOption implements Serializable {
     return new EventualConsistency(true);
   }
 
+  /**
+   * Returns a {@code ReadOption} that splits gets and fetches into concurrent lookup requests of
+   * at most 1000 keys each. Entities returned by {@link Datastore#get(Iterable, ReadOption...)} are
+   * not in any particular order.
+   */
+  public static BulkLookup bulkLookup() {
+    return new BulkLookup(MAX_LOOKUP_KEYS);
+  }
+
+  /**
+   * Returns a {@code ReadOption} that splits gets and fetches into concurrent lookup requests of
+   * at most {@code chunkSize} keys each. Entities returned by
+   * {@link Datastore#get(Iterable, ReadOption...)} are not in any particular order.
+   */
+  public static BulkLookup bulkLookup(int chunkSize) {
+    checkArgument(chunkSize > 0, "chunkSize must be positive");
+    return new BulkLookup(chunkSize);
+  }
+
+  /**
+   * Returns a {@code ReadOption} that makes query results request the next batch of results in the
+   * background while the current batch is being iterated. This option is ignored by gets and
+   * fetches.
+   */
+  public static Prefetch prefetch() {
+    return new Prefetch();
+  }
+
   static Map<Class<? extends ReadOption>, ReadOption> asImmutableMap(ReadOption... options) {
     ImmutableMap.Builder<Class<? extends ReadOption>, ReadOption> builder = ImmutableMap.builder();
     for (ReadOption option : options) {
@@ -17,6 +17,7 @@
 package com.google.cloud.datastore.spi;
 
 import com.google.cloud.datastore.DatastoreException;
+import com.google.common.util.concurrent.ListenableFuture;
 import com.google.datastore.v1beta3.AllocateIdsRequest;
 import com.google.datastore.v1beta3.AllocateIdsResponse;
 import com.google.datastore.v1beta3.BeginTransactionRequest;
@@ -77,4 +78,47 @@ public interface DatastoreRpc {
    * @throws DatastoreException upon failure
    */
   RunQueryResponse runQuery(RunQueryRequest request);
+
+  /**
+   * Sends an allocate IDs request asynchronously.
+   *
+   * @return a future that fails with a {@link DatastoreException} upon failure
+   */
+  ListenableFuture<AllocateIdsResponse> allocateIdsAsync(AllocateIdsRequest request);
+
+  /**
+   * Sends a begin transaction request asynchronously.
+   *
+   * @return a future that fails with a {@link DatastoreException} upon failure
+   */
+  ListenableFuture<BeginTransactionResponse> beginTransactionAsync(
+      BeginTransactionRequest request);
+
+  /**
+   * Sends a commit request asynchronously.
+   *
+   * @return a future that fails with a {@link DatastoreException} upon failure
+   */
+  ListenableFuture<CommitResponse> commitAsync(CommitRequest request);
+
+  /**
+   * Sends a lookup request asynchronously.
+   *
+   * @return a future that fails with a {@link DatastoreException} upon failure
+   */
+  ListenableFuture<LookupResponse> lookupAsync(LookupRequest request);
+
+  /**
+   * Sends a rollback request asynchronously.
+   *
+   * @return a future that fails with a {@link DatastoreException} upon failure
+   */
+  ListenableFuture<RollbackResponse> rollbackAsync(RollbackRequest request);
+
+  /**
+   * Sends a request to run a query asynchronously.
+   *
+   * @return a future that fails with a {@link DatastoreException} upon failure
+   */
+  ListenableFuture<RunQueryResponse> runQueryAsync(RunQueryRequest request);
 }
@@ -19,6 +19,10 @@ package com.google.cloud.datastore.spi;
 import com.google.api.client.http.HttpTransport;
 import com.google.cloud.datastore.DatastoreException;
 import com.google.cloud.datastore.DatastoreOptions;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.google.datastore.v1beta3.AllocateIdsRequest;
 import com.google.datastore.v1beta3.AllocateIdsResponse;
 import com.google.datastore.v1beta3.BeginTransactionRequest;
@@ -35,9 +39,19 @@ import com.google.datastore.v1beta3.RunQueryResponse;
 import java.io.IOException;
 import java.net.InetAddress;
 import java.net.URL;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
 
 public class DefaultDatastoreRpc implements DatastoreRpc {
 
+  // The HTTP client is blocking, asynchronous requests are sent from a shared pool of threads
+  private static final int ASYNC_THREADS = 4 * Runtime.getRuntime().availableProcessors();
+  private static final ListeningExecutorService ASYNC_EXECUTOR = MoreExecutors.listeningDecorator(
+      Executors.newFixedThreadPool(ASYNC_THREADS, new ThreadFactoryBuilder()
+          .setDaemon(true)
+          .setNameFormat("datastore-rpc-%d")
+          .build()));
+
   private final com.google.datastore.v1beta3.client.Datastore client;
 
   public DefaultDatastoreRpc(DatastoreOptions options) {
@@ -160,4 +174,65 @@ public class DefaultDatastoreRpc implements DatastoreRpc {
       throw translate(ex);
     }
   }
+
+  @Override
+  public ListenableFuture<AllocateIdsResponse> allocateIdsAsync(final AllocateIdsRequest request) {
+    return ASYNC_EXECUTOR.submit(new Callable<AllocateIdsResponse>() {
+      @Override
+      public AllocateIdsResponse call() {
+        return allocateIds(request);
+      }
+    });
+  }
+
+  @Override
+  public ListenableFuture<BeginTransactionResponse> beginTransactionAsync(
+      final BeginTransactionRequest request) {
+    return ASYNC_EXECUTOR.submit(new Callable<BeginTransactionResponse>() {
+      @Override
+      public BeginTransactionResponse call() {
+        return beginTransaction(request);
+      }
+    });
+  }
+
+  @Override
+  public ListenableFuture<CommitResponse> commitAsync(final CommitRequest request) {
+    return ASYNC_EXECUTOR.submit(new Callable<CommitResponse>() {
+      @Override
+      public CommitResponse call() {
+        return commit(request);
+      }
+    });
+  }
+
+  @Override
+  public ListenableFuture<LookupResponse> lookupAsync(final LookupRequest request) {
+    return ASYNC_EXECUTOR.submit(new Callable<LookupResponse>() {
+      @Override
+      public LookupResponse call() {
+        return lookup(request);
+      }
+    });
+  }
+
+  @Override
+  public ListenableFuture<RollbackResponse> rollbackAsync(final RollbackRequest request) {
+    return ASYNC_EXECUTOR.submit(new Callable<RollbackResponse>() {
+      @Override
+      public RollbackResponse call() {
+        return rollback(request);
+      }
+    });
+  }
+
+  @Override
+  public ListenableFuture<RunQueryResponse> runQueryAsync(final RunQueryRequest request) {
+    return ASYNC_EXECUTOR.submit(new Callable<RunQueryResponse>() {
+      @Override
+      public RunQueryResponse call() {
+        return runQuery(request);
+      }
+    });
+  }
 }
@@ -33,8 +33,12 @@ import com.google.cloud.datastore.spi.DatastoreRpc;
 import com.google.cloud.datastore.spi.DatastoreRpcFactory;
 import com.google.cloud.datastore.testing.LocalDatastoreHelper;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterators;
 import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.Futures;
+import com.google.datastore.v1beta3.CommitRequest;
+import com.google.datastore.v1beta3.CommitResponse;
 import com.google.datastore.v1beta3.EntityResult;
 import com.google.datastore.v1beta3.LookupRequest;
 import com.google.datastore.v1beta3.LookupResponse;
@@ -63,6 +67,8 @@ import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 
 @RunWith(JUnit4.class)
 public class DatastoreTest {
@@ -299,6 +305,97 @@ public class DatastoreTest {
     }
   }
 
+  @Test
+  public void testNewBulkWriter() throws Exception {
+    BulkWriter writer = new BulkWriterImpl((DatastoreImpl) datastore, 2, 2, 1000);
+    Entity entity1 = Entity.builder(ENTITY1).clear().build();
+    Entity entity4 = Entity.builder(KEY4).set("value", StringValue.of("value")).build();
+    Entity entity5 = Entity.builder(KEY5).set("value", "value").build();
+    writer.put(entity1);
+    writer.put(ENTITY3, entity4, entity5);
+    writer.delete(KEY2);
+    writer.putWithDeferredIdAllocation(PARTIAL_ENTITY3);
+    writer.delete(entity5.key());
+    writer.flush().get();
+    List<Entity> entities = datastore.fetch(KEY1, KEY2, KEY3, KEY4, KEY5);
+    assertEquals(entity1, entities.get(0));
+    assertNull(entities.get(1));
+    assertEquals(ENTITY3, entities.get(2));
+    assertEquals(entity4, entities.get(3));
+    assertNull(entities.get(4));
+    writer.update(ENTITY1);
+    writer.close();
+    assertEquals(ENTITY1, datastore.get(KEY1));
+    assertFalse(writer.active());
+    try {
+      writer.put(ENTITY2);
+      fail("Expecting a failure");
+    } catch (DatastoreException ex) {
+      // expected to fail
+    }
+  }
+
+  @Test
+  public void testBulkWriterCommitFailure() throws Exception {
+    EasyMock.expect(rpcMock.commitAsync(EasyMock.anyObject(CommitRequest.class)))
+        .andReturn(Futures.<CommitResponse>immediateFailedFuture(new DatastoreException(
+            DatastoreException.UNKNOWN_CODE, "denied", "PERMISSION_DENIED")));
+    EasyMock.replay(rpcFactoryMock, rpcMock);
+    DatastoreImpl datastore = (DatastoreImpl) rpcMockOptions.service();
+    BulkWriter writer = new BulkWriterImpl(datastore, 1, 1, 1000);
+    // the commit is sent and fails before the writer is closed
+    writer.put(ENTITY1);
+    thrown.expect(DatastoreException.class);
+    thrown.expectMessage("denied");
+    try {
+      writer.close();
+    } finally {
+      assertFalse(writer.active());
+      EasyMock.verify(rpcFactoryMock, rpcMock);
+    }
+  }
+
+  @Test
+  public void testBulkWriterFlushReportsFailure() throws Exception {
+    EasyMock.expect(rpcMock.commitAsync(EasyMock.anyObject(CommitRequest.class)))
+        .andReturn(Futures.<CommitResponse>immediateFailedFuture(new DatastoreException(
+            DatastoreException.UNKNOWN_CODE, "denied", "PERMISSION_DENIED")))
+        .andReturn(Futures.immediateFuture(CommitResponse.getDefaultInstance()));
+    EasyMock.replay(rpcFactoryMock, rpcMock);
+    DatastoreImpl datastore = (DatastoreImpl) rpcMockOptions.service();
+    BulkWriter writer = new BulkWriterImpl(datastore, 1, 1, 1000);
+    writer.put(ENTITY1);
+    try {
+      writer.flush().get();
+      fail("Expected DatastoreException");
+    } catch (ExecutionException expected) {
+      assertTrue(expected.getCause() instanceof DatastoreException);
+      assertEquals("denied", expected.getCause().getMessage());
+    }
+    // a failure is reported only by the first flush after it happened
+    writer.put(ENTITY2);
+    writer.close();
+    EasyMock.verify(rpcFactoryMock, rpcMock);
+  }
+
+  @Test
+  public void testBulkWriterThrottling() throws Exception {
+    EasyMock.expect(rpcMock.commitAsync(EasyMock.anyObject(CommitRequest.class)))
+        .andReturn(Futures.immediateFuture(CommitResponse.getDefaultInstance()))
+        .times(5);
+    EasyMock.replay(rpcFactoryMock, rpcMock);
+    DatastoreImpl datastore = (DatastoreImpl) rpcMockOptions.service();
+    BulkWriter writer = new BulkWriterImpl(datastore, 1, 1, 10);
+    long start = System.nanoTime();
+    for (int i = 0; i < 5; i++) {
+      writer.put(Entity.builder(datastore.newKeyFactory().kind(KIND1).newKey(i + 1)).build());
+    }
+    writer.close();
+    // at 10 mutations per second the first commit is sent right away, the others every 100ms
+    assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(350));
+    EasyMock.verify(rpcFactoryMock, rpcMock);
+  }
+
   @Test
   public void testNewBatch() {
     Batch batch = datastore.newBatch();
@@ -512,6 +609,73 @@ public class DatastoreTest {
     EasyMock.verify(rpcFactoryMock, rpcMock);
   }
 
+  @Test
+  public void testStructuredQueryPaginationWithPrefetch() throws DatastoreException {
+    List<RunQueryResponse> responses = buildResponsesForQueryPagination();
+    EasyMock.expect(rpcMock.runQuery(EasyMock.anyObject(RunQueryRequest.class)))
+        .andReturn(responses.get(0));
+    for (int i = 1; i < responses.size(); i++) {
+      EasyMock.expect(rpcMock.runQueryAsync(EasyMock.anyObject(RunQueryRequest.class)))
+          .andReturn(Futures.immediateFuture(responses.get(i)));
+    }
+    EasyMock.replay(rpcFactoryMock, rpcMock);
+    Datastore datastore = rpcMockOptions.service();
+    QueryResults<Key> results =
+        datastore.run(Query.keyQueryBuilder().build(), ReadOption.prefetch());
+    int count = 0;
+    while (results.hasNext()) {
+      count += 1;
+      results.next();
+    }
+    assertEquals(count, 5);
+    EasyMock.verify(rpcFactoryMock, rpcMock);
+  }
+
+  @Test
+  public void testRunWithPrefetch() {
+    Entity entity4 = Entity.builder(KEY4).set("value", StringValue.of("value")).build();
+    datastore.add(ENTITY3, entity4);
+    Query<Key> query = Query.keyQueryBuilder().limit(1).build();
+    Set<Key> keys = new HashSet<>();
+    Iterators.addAll(keys, datastore.run(query, ReadOption.prefetch()));
+    assertEquals(1, keys.size());
+    query = Query.keyQueryBuilder().build();
+    keys.clear();
+    Iterators.addAll(keys, datastore.run(query, ReadOption.prefetch()));
+    assertEquals(ImmutableSet.of(KEY1, KEY2, KEY3, KEY4), keys);
+  }
+
+  @Test
+  public void testRunConcurrently() {
+    Entity entity4 = Entity.builder(KEY4).set("value", StringValue.of("value")).build();
+    datastore.add(ENTITY3, entity4);
+    KeyQuery query = Query.keyQueryBuilder().kind(KIND2).build();
+    List<KeyQuery> queries = ImmutableList.of(
+        query.toBuilder().filter(PropertyFilter.lt(StructuredQuery.KEY_PROPERTY_NAME, KEY3))
+            .build(),
+        query.toBuilder().filter(PropertyFilter.ge(StructuredQuery.KEY_PROPERTY_NAME, KEY3))
+            .build());
+    Set<Key> keys = new HashSet<>();
+    Iterators.addAll(keys, datastore.runConcurrently(queries));
+    assertEquals(ImmutableSet.of(KEY2, KEY3, KEY4), keys);
+    assertFalse(datastore.runConcurrently(ImmutableList.<Query<Key>>of()).hasNext());
+  }
+
+  @Test
+  public void testRunConcurrentlyPagination() {
+    List<RunQueryResponse> responses = buildResponsesForQueryPagination();
+    for (RunQueryResponse response : responses) {
+      EasyMock.expect(rpcMock.runQueryAsync(EasyMock.anyObject(RunQueryRequest.class)))
+          .andReturn(Futures.immediateFuture(response));
+    }
+    EasyMock.replay(rpcFactoryMock, rpcMock);
+    Datastore datastore = rpcMockOptions.service();
+    Iterator<Key> results =
+        datastore.runConcurrently(ImmutableList.of(Query.keyQueryBuilder().build()));
+    assertEquals(5, Iterators.size(results));
+    EasyMock.verify(rpcFactoryMock, rpcMock);
+  }
+
   private List<RunQueryResponse> buildResponsesForQueryPagination() {
     Entity entity4 = Entity.builder(KEY4).set("value", StringValue.of("value")).build();
     Entity entity5 = Entity.builder(KEY5).set("value", "value").build();
@@ -732,6 +896,120 @@ public class DatastoreTest {
     assertFalse(entity.contains("bla"));
   }
 
+  @Test
+  public void testGetAsync() throws Exception {
+    assertNull(datastore.getAsync(KEY3).get());
+    assertEquals(ENTITY1, datastore.getAsync(KEY1).get());
+    List<Entity> entities =
+        datastore.fetchAsync(ImmutableList.of(KEY2, KEY3, KEY1), ReadOption.eventualConsistency())
+            .get();
+    assertEquals(3, entities.size());
+    assertEquals(ENTITY2, entities.get(0));
+    assertNull(entities.get(1));
+    assertEquals(ENTITY1, entities.get(2));
+  }
+
+  @Test
+  public void testPutAsync() throws Exception {
+    Entity updatedEntity = Entity.builder(ENTITY1).set("new_property", 42L).build();
+    assertEquals(updatedEntity, datastore.putAsync(updatedEntity).get());
+    assertEquals(updatedEntity, datastore.get(updatedEntity.key()));
+    List<Entity> entities = datastore.putAsync(ENTITY3, PARTIAL_ENTITY1).get();
+    assertEquals(ENTITY3, entities.get(0));
+    assertEquals(PARTIAL_ENTITY1.properties(), entities.get(1).properties());
+    assertEquals(ENTITY3, datastore.get(ENTITY3.key()));
+    assertEquals(entities.get(1), datastore.get(entities.get(1).key()));
+  }
+
+  @Test
+  public void testRunAsync() throws Exception {
+    Query<Entity> query = Query.entityQueryBuilder().kind(KIND1).build();
+    QueryResults<Entity> results = datastore.runAsync(query).get();
+    assertTrue(results.hasNext());
+    assertEquals(ENTITY1, results.next());
+    assertFalse(results.hasNext());
+  }
+
+  @Test
+  public void testAllocateIdAsync() throws Exception {
+    KeyFactory keyFactory = datastore.newKeyFactory().kind(KIND1);
+    IncompleteKey pk1 = keyFactory.newKey();
+    Key key1 = datastore.allocateIdAsync(pk1).get();
+    assertEquals(Key.builder(pk1, key1.id()).build(), key1);
+    List<Key> keys = datastore.allocateIdAsync(pk1, key1).get();
+    assertEquals(2, keys.size());
+    assertNotEquals(key1, keys.get(0));
+    assertEquals(Key.builder(pk1, keys.get(0).id()).build(), keys.get(0));
+    assertEquals(Key.builder(pk1, keys.get(1).id()).build(), keys.get(1));
+  }
+
+  @Test
+  public void testFetchAsyncDeferredResults() throws Exception {
+    List<com.google.datastore.v1beta3.Key> keysPb = ImmutableList.of(KEY1.toPb(), KEY2.toPb());
+    EasyMock.expect(rpcMock.lookupAsync(LookupRequest.newBuilder().addAllKeys(keysPb).build()))
+        .andReturn(Futures.immediateFuture(LookupResponse.newBuilder()
+            .addFound(EntityResult.newBuilder().setEntity(ENTITY1.toPb()))
+            .addDeferred(keysPb.get(1))
+            .build()));
+    EasyMock.expect(rpcMock.lookupAsync(LookupRequest.newBuilder().addKeys(keysPb.get(1)).build()))
+        .andReturn(Futures.immediateFuture(LookupResponse.newBuilder()
+            .addFound(EntityResult.newBuilder().setEntity(ENTITY2.toPb()))
+            .build()));
+    EasyMock.replay(rpcFactoryMock, rpcMock);
+    Datastore datastore = rpcMockOptions.service();
+    assertEquals(ImmutableList.of(ENTITY2, ENTITY1),
+        datastore.fetchAsync(ImmutableList.of(KEY2, KEY1)).get());
+    EasyMock.verify(rpcFactoryMock, rpcMock);
+  }
+
+  @Test
+  public void testGetBulkLookup() {
+    datastore.put(ENTITY3);
+    Iterator<Entity> result = datastore.get(ImmutableList.of(KEY1, KEY3, KEY2, KEY4, KEY1),
+        ReadOption.bulkLookup(2));
+    Set<Entity> entities = new HashSet<>();
+    Iterators.addAll(entities, result);
+    assertEquals(ImmutableSet.of(ENTITY1, ENTITY2, ENTITY3), entities);
+    List<Entity> fetched = datastore.fetch(ImmutableList.of(KEY1, KEY4, KEY3, KEY2),
+        ReadOption.bulkLookup(1), ReadOption.eventualConsistency());
+    assertEquals(Lists.newArrayList(ENTITY1, null, ENTITY3, ENTITY2), fetched);
+  }
+
+  @Test
+  public void testFetchAsyncBulkLookup() throws Exception {
+    datastore.put(ENTITY3);
+    List<Entity> fetched = datastore.fetchAsync(ImmutableList.of(KEY3, KEY4, KEY1, KEY2),
+        ReadOption.bulkLookup(1)).get();
+    assertEquals(Lists.newArrayList(ENTITY3, null, ENTITY1, ENTITY2), fetched);
+  }
+
+  @Test
+  public void testGetBulkLookupDeferredResults() {
+    LookupRequest chunk1 =
+        LookupRequest.newBuilder().addKeys(KEY1.toPb()).addKeys(KEY2.toPb()).build();
+    LookupRequest deferred = LookupRequest.newBuilder().addKeys(KEY2.toPb()).build();
+    LookupRequest chunk2 = LookupRequest.newBuilder().addKeys(KEY3.toPb()).build();
+    EasyMock.expect(rpcMock.lookupAsync(chunk1))
+        .andReturn(Futures.immediateFuture(LookupResponse.newBuilder()
+            .addFound(EntityResult.newBuilder().setEntity(ENTITY1.toPb()))
+            .addDeferred(KEY2.toPb())
+            .build()));
+    EasyMock.expect(rpcMock.lookupAsync(deferred))
+        .andReturn(Futures.immediateFuture(LookupResponse.newBuilder()
+            .addFound(EntityResult.newBuilder().setEntity(ENTITY2.toPb()))
+            .build()));
+    EasyMock.expect(rpcMock.lookupAsync(chunk2))
+        .andReturn(Futures.immediateFuture(LookupResponse.newBuilder()
+            .addFound(EntityResult.newBuilder().setEntity(ENTITY3.toPb()))
+            .build()));
+    EasyMock.replay(rpcFactoryMock, rpcMock);
+    Datastore datastore = rpcMockOptions.service();
+    Iterator<Entity> result =
+        datastore.get(ImmutableList.of(KEY1, KEY2, KEY3), ReadOption.bulkLookup(2));
+    assertEquals(ImmutableList.of(ENTITY1, ENTITY2, ENTITY3), ImmutableList.copyOf(result));
+    EasyMock.verify(rpcFactoryMock, rpcMock);
+  }
+
   @Test
   public void testLookupEventualConsistency() {
     ReadOptions readOption =
@@ -991,4 +1269,38 @@ public class DatastoreTest {
     datastore.get(KEY1);
     EasyMock.verify(rpcFactoryMock, rpcMock);
   }
+
+  @Test
+  public void testRetryableExceptionAsync() throws Exception {
+    LookupRequest requestPb = LookupRequest.newBuilder().addKeys(KEY1.toPb()).build();
+    LookupResponse responsePb = LookupResponse.newBuilder()
+        .addFound(EntityResult.newBuilder().setEntity(ENTITY1.toPb()))
+        .build();
+    EasyMock.expect(rpcMock.lookupAsync(requestPb))
+        .andReturn(Futures.<LookupResponse>immediateFailedFuture(
+            new DatastoreException(14, "UNAVAILABLE", "UNAVAILABLE", null)))
+        .andReturn(Futures.immediateFuture(responsePb));
+    EasyMock.replay(rpcFactoryMock, rpcMock);
+    Datastore datastore = rpcMockOptions.service();
+    assertEquals(ENTITY1, datastore.getAsync(KEY1).get());
+    EasyMock.verify(rpcFactoryMock, rpcMock);
+  }
+
+  @Test
+  public void testNonRetryableExceptionAsync() throws Exception {
+    LookupRequest requestPb = LookupRequest.newBuilder().addKeys(KEY1.toPb()).build();
+    EasyMock.expect(rpcMock.lookupAsync(requestPb))
+        .andReturn(Futures.<LookupResponse>immediateFailedFuture(new DatastoreException(
+            DatastoreException.UNKNOWN_CODE, "denied", "PERMISSION_DENIED")));
+    EasyMock.replay(rpcFactoryMock, rpcMock);
+    Datastore datastore = rpcMockOptions.service();
+    try {
+      datastore.getAsync(KEY1).get();
+      fail("Expected DatastoreException");
+    } catch (ExecutionException expected) {
+      assertTrue(expected.getCause() instanceof DatastoreException);
+      assertEquals("denied", expected.getCause().getMessage());
+    }
+    EasyMock.verify(rpcFactoryMock, rpcMock);
+  }
 }
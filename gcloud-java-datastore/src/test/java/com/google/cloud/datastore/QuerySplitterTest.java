@@ -0,0 +1,181 @@
+/*
+ * Copyright 2016 Google Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.datastore;
+
+import static org.easymock.EasyMock.createStrictMock;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.replay;
+import static org.easymock.EasyMock.verify;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import com.google.cloud.datastore.StructuredQuery.CompositeFilter;
+import com.google.cloud.datastore.StructuredQuery.OrderBy;
+import com.google.cloud.datastore.StructuredQuery.PropertyFilter;
+import com.google.common.collect.ImmutableList;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+public class QuerySplitterTest {
+
+  private static final String KIND = "kind";
+  private static final Key KEY1 = Key.builder("ds", KIND, 1).build();
+  private static final Key KEY2 = Key.builder("ds", KIND, 2).build();
+  private static final Key KEY3 = Key.builder("ds", KIND, "a").build();
+  private static final Key KEY4 = Key.builder("ds", KIND, "b").build();
+  private static final Key KEY5 = Key.builder(KEY1, "child", 1).build();
+  private static final Key KEY6 = Key.builder("ds", "other", 1).build();
+  private static final EntityQuery QUERY = Query.entityQueryBuilder().kind(KIND).build();
+
+  @Rule
+  public ExpectedException thrown = ExpectedException.none();
+
+  private static QueryResults<Key> queryResults(List<Key> keys) {
+    final Iterator<Key> iterator = keys.iterator();
+    return new QueryResults<Key>() {
+      @Override
+      public boolean hasNext() {
+        return iterator.hasNext();
+      }
+
+      @Override
+      public Key next() {
+        return iterator.next();
+      }
+
+      @Override
+      public void remove() {
+        throw new UnsupportedOperationException();
+      }
+
+      @Override
+      public Class<?> resultClass() {
+        return Key.class;
+      }
+
+      @Override
+      public Cursor cursorAfter() {
+        return null;
+      }
+    };
+  }
+
+  private static KeyQuery scatterQuery(int limit) {
+    return Query.keyQueryBuilder()
+        .kind(KIND)
+        .orderBy(OrderBy.asc(QuerySplitter.SCATTER_PROPERTY_NAME))
+        .limit(limit)
+        .build();
+  }
+
+  @Test
+  public void testKeyComparator() {
+    List<Key> keys = new ArrayList<>(ImmutableList.of(KEY6, KEY4, KEY5, KEY3, KEY2, KEY1));
+    Collections.sort(keys, QuerySplitter.KEY_COMPARATOR);
+    assertEquals(ImmutableList.of(KEY1, KEY5, KEY2, KEY3, KEY4, KEY6), keys);
+  }
+
+  @Test
+  public void testSplitKeys() {
+    List<Key> sample = ImmutableList.of(KEY1, KEY2, KEY3, KEY4);
+    assertEquals(ImmutableList.of(KEY2, KEY4), QuerySplitter.splitKeys(sample, 3));
+    assertEquals(ImmutableList.of(KEY3), QuerySplitter.splitKeys(sample, 2));
+    assertEquals(sample, QuerySplitter.splitKeys(sample, 10));
+  }
+
+  @Test
+  public void testSplit() {
+    Datastore datastore = createStrictMock(Datastore.class);
+    expect(datastore.run(scatterQuery(2 * QuerySplitter.KEYS_PER_SPLIT), new ReadOption[0]))
+        .andReturn(queryResults(ImmutableList.of(KEY4, KEY2, KEY1, KEY3)));
+    replay(datastore);
+    List<StructuredQuery<Entity>> queries = QuerySplitter.split(datastore, QUERY, 3);
+    assertEquals(3, queries.size());
+    assertEquals(PropertyFilter.lt(StructuredQuery.KEY_PROPERTY_NAME, KEY2),
+        queries.get(0).filter());
+    assertEquals(CompositeFilter.and(PropertyFilter.ge(StructuredQuery.KEY_PROPERTY_NAME, KEY2),
+        PropertyFilter.lt(StructuredQuery.KEY_PROPERTY_NAME, KEY4)), queries.get(1).filter());
+    assertEquals(PropertyFilter.ge(StructuredQuery.KEY_PROPERTY_NAME, KEY4),
+        queries.get(2).filter());
+    for (StructuredQuery<Entity> query : queries) {
+      assertTrue(query instanceof EntityQuery);
+      assertEquals(KIND, query.kind());
+    }
+    verify(datastore);
+  }
+
+  @Test
+  public void testSplitWithFilter() {
+    PropertyFilter filter = PropertyFilter.eq("p", "v");
+    KeyQuery query = Query.keyQueryBuilder().kind(KIND).filter(filter).build();
+    Datastore datastore = createStrictMock(Datastore.class);
+    expect(datastore.run(scatterQuery(QuerySplitter.KEYS_PER_SPLIT), new ReadOption[0]))
+        .andReturn(queryResults(ImmutableList.of(KEY1)));
+    replay(datastore);
+    List<StructuredQuery<Key>> queries = QuerySplitter.split(datastore, query, 2);
+    assertEquals(2, queries.size());
+    assertEquals(CompositeFilter.and(filter, PropertyFilter.lt(StructuredQuery.KEY_PROPERTY_NAME,
+        KEY1)), queries.get(0).filter());
+    assertEquals(CompositeFilter.and(filter, PropertyFilter.ge(StructuredQuery.KEY_PROPERTY_NAME,
+        KEY1)), queries.get(1).filter());
+    verify(datastore);
+  }
+
+  @Test
+  public void testSplitEmptyKind() {
+    Datastore datastore = createStrictMock(Datastore.class);
+    expect(datastore.run(scatterQuery(QuerySplitter.KEYS_PER_SPLIT), new ReadOption[0]))
+        .andReturn(queryResults(ImmutableList.<Key>of()));
+    replay(datastore);
+    assertEquals(ImmutableList.of(QUERY), QuerySplitter.split(datastore, QUERY, 2));
+    verify(datastore);
+  }
+
+  @Test
+  public void testSplitSingle() {
+    Datastore datastore = createStrictMock(Datastore.class);
+    replay(datastore);
+    assertSame(QUERY, QuerySplitter.split(datastore, QUERY, 1).get(0));
+    verify(datastore);
+  }
+
+  @Test
+  public void testSplitWithInequalityFilter() {
+    Datastore datastore = createStrictMock(Datastore.class);
+    EntityQuery query = QUERY.toBuilder().filter(PropertyFilter.gt("p", 1)).build();
+    thrown.expect(IllegalArgumentException.class);
+    thrown.expectMessage("query must not have inequality filters");
+    QuerySplitter.split(datastore, query, 2);
+  }
+
+  @Test
+  public void testSplitWithOrderBy() {
+    Datastore datastore = createStrictMock(Datastore.class);
+    EntityQuery query = QUERY.toBuilder().orderBy(OrderBy.asc("p")).build();
+    thrown.expect(IllegalArgumentException.class);
+    thrown.expectMessage("query must not have sort orders");
+    QuerySplitter.split(datastore, query, 2);
+  }
+}
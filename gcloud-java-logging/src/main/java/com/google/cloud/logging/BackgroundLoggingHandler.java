@@ -0,0 +1,441 @@
+/*
+ * Copyright 2016 Google Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.logging;
+
+import com.google.cloud.MonitoredResource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.ErrorManager;
+import java.util.logging.Filter;
+import java.util.logging.Formatter;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+import java.util.logging.SimpleFormatter;
+
+/**
+ * A logging handler that outputs logs generated with {@link java.util.logging.Logger} to
+ * Stackdriver Logging without blocking the logging thread. Published records are added to a
+ * bounded queue and a background flusher thread writes them to Stackdriver Logging in batches.
+ * A batch is written as soon as it reaches the maximum number of entries or the maximum number of
+ * bytes, when a record with the flush level is published or, at the latest, after the batch delay
+ * has elapsed. When the queue is full, published records are handled according to the handler's
+ * {@link OverflowPolicy}.
+ *
+ * <p>Java logging levels (see {@link java.util.logging.Level}) are mapped to Stackdriver Logging
+ * severities as described in {@link LoggingHandler}.
+ *
+ * <p><b>Configuration</b>: By default each {@code BackgroundLoggingHandler} is initialized using
+ * the {@code LogManager} configuration properties supported by {@link LoggingHandler} (with the
+ * {@code com.google.cloud.logging.BackgroundLoggingHandler} prefix, {@code flushSize} is ignored)
+ * and the following additional properties. If properties are not defined (or have invalid values)
+ * then the specified default values are used.
+ * <ul>
+ * <li>{@code com.google.cloud.logging.BackgroundLoggingHandler.queueSize} specifies the maximum
+ *     number of log entries waiting to be written (defaults to 10000).
+ * <li>{@code com.google.cloud.logging.BackgroundLoggingHandler.batchSize} specifies the maximum
+ *     number of log entries written in a single request (defaults to 1000).
+ * <li>{@code com.google.cloud.logging.BackgroundLoggingHandler.batchBytes} specifies the maximum
+ *     estimated size, in bytes, of the log entries written in a single request (defaults to
+ *     5242880).
+ * <li>{@code com.google.cloud.logging.BackgroundLoggingHandler.batchDelayMillis} specifies the
+ *     maximum time, in milliseconds, a log entry waits in the queue before being written (defaults
+ *     to 1000).
+ * <li>{@code com.google.cloud.logging.BackgroundLoggingHandler.overflowPolicy} specifies the name
+ *     of the {@link OverflowPolicy} applied when the queue is full (defaults to
+ *     {@link OverflowPolicy#DROP_NEWEST}).
+ * </ul>
+ *
+ * <p>To add a {@code LoggingHandler} to an existing {@link Logger} and be sure to avoid infinite
+ * recursion when logging, use the {@link #addHandler(Logger, LoggingHandler)} method. Alternatively
+ * you can add the handler via {@code logging.properties}. For example using the following line:
+ * <pre>
+ * {@code com.example.mypackage.handlers=com.google.cloud.logging.BackgroundLoggingHandler}
+ * </pre>
+ *
+ * <p>{@link Filter} and {@link Formatter} (defaults to {@link SimpleFormatter}) are applied in the
+ * logging thread, when records are published.
+ */
+public class BackgroundLoggingHandler extends LoggingHandler {
+
+  private static final int DEFAULT_QUEUE_SIZE = 10000;
+  private static final int DEFAULT_BATCH_SIZE = 1000;
+  private static final long DEFAULT_BATCH_BYTES = 5 * 1024 * 1024;
+  private static final long DEFAULT_BATCH_DELAY_MILLIS = 1000;
+  // Rough estimate of the bytes taken by a log entry besides its payload and labels
+  private static final long ENTRY_OVERHEAD_BYTES = 64;
+  private static final long BLOCK_WAIT_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+  private final Queue<PendingEntry> queue = new ConcurrentLinkedQueue<>();
+  private final AtomicInteger queued = new AtomicInteger();
+  private final Object drainLock = new Object();
+  private final AtomicLong droppedEntries = new AtomicLong();
+  private final AtomicLong writtenEntries = new AtomicLong();
+  private final AtomicLong totalLatencyNanos = new AtomicLong();
+  private final AtomicLong maxLatencyNanos = new AtomicLong();
+  private final Thread flusher;
+  private volatile int queueSize;
+  private volatile int batchSize;
+  private volatile long batchBytes;
+  private volatile long batchDelayMillis;
+  private volatile OverflowPolicy overflowPolicy;
+  private volatile boolean drainRequested;
+  private volatile boolean closed;
+
+  /**
+   * Policies that determine what happens to a published record when the handler's queue is full.
+   */
+  public enum OverflowPolicy {
+    /**
+     * The published record is dropped.
+     */
+    DROP_NEWEST,
+
+    /**
+     * The oldest queued record is dropped to make room for the published record.
+     */
+    DROP_OLDEST,
+
+    /**
+     * The logging thread waits until there is room in the queue for the published record. Records
+     * published by a thread that is writing queued entries (for instance by the Logging client
+     * while the flusher writes a batch) are dropped rather than waiting.
+     */
+    BLOCK
+  }
+
+  /**
+   * A formatted record waiting to be written. The corresponding {@link LogEntry} is only built by
+   * the flusher, so that records that are dropped are never converted.
+   */
+  private static final class PendingEntry {
+
+    private final String payload;
+    private final Level level;
+    private final long enqueueNanos;
+
+    PendingEntry(String payload, Level level, long enqueueNanos) {
+      this.payload = payload;
+      this.level = level;
+      this.enqueueNanos = enqueueNanos;
+    }
+
+    long estimatedSize() {
+      return ENTRY_OVERHEAD_BYTES + payload.length() + levelMapping(level).labelsLength;
+    }
+  }
+
+  public BackgroundLoggingHandler() {
+    this(null);
+  }
+
+  public BackgroundLoggingHandler(String logName) {
+    this(logName, null);
+  }
+
+  public BackgroundLoggingHandler(String logName, LoggingOptions options) {
+    this(logName, options, null);
+  }
+
+  public BackgroundLoggingHandler(String logName, LoggingOptions options,
+      MonitoredResource resource) {
+    super(logName, options, resource);
+    LogConfigHelper helper = new LogConfigHelper();
+    String className = getClass().getName();
+    this.queueSize =
+        (int) helper.getLongProperty(className + ".queueSize", DEFAULT_QUEUE_SIZE);
+    this.batchSize =
+        (int) helper.getLongProperty(className + ".batchSize", DEFAULT_BATCH_SIZE);
+    this.batchBytes = helper.getLongProperty(className + ".batchBytes", DEFAULT_BATCH_BYTES);
+    this.batchDelayMillis =
+        helper.getLongProperty(className + ".batchDelayMillis", DEFAULT_BATCH_DELAY_MILLIS);
+    this.overflowPolicy = overflowPolicy(
+        helper.getProperty(className + ".overflowPolicy", OverflowPolicy.DROP_NEWEST.name()));
+    this.flusher = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        long lastDrainNanos = System.nanoTime();
+        while (!closed) {
+          // the batch delay is read at every wake up, setting it wakes the flusher
+          long waitNanos = lastDrainNanos + TimeUnit.MILLISECONDS.toNanos(batchDelayMillis)
+              - System.nanoTime();
+          if (waitNanos > 0 && !drainRequested) {
+            LockSupport.parkNanos(BackgroundLoggingHandler.this, waitNanos);
+            continue;
+          }
+          drainRequested = false;
+          drain();
+          lastDrainNanos = System.nanoTime();
+        }
+      }
+    }, "logging-handler-flusher");
+    this.flusher.setDaemon(true);
+    this.flusher.start();
+  }
+
+  private static OverflowPolicy overflowPolicy(String name) {
+    try {
+      return OverflowPolicy.valueOf(name);
+    } catch (IllegalArgumentException ex) {
+      // If we cannot parse the policy we fall back to default value
+      return OverflowPolicy.DROP_NEWEST;
+    }
+  }
+
+  @Override
+  public void publish(LogRecord record) {
+    // check that the log record should be logged
+    if (closed || !isLoggable(record)) {
+      return;
+    }
+    if (!reserve()) {
+      droppedEntries.incrementAndGet();
+      return;
+    }
+    String payload = format(record);
+    if (payload == null) {
+      queued.decrementAndGet();
+      return;
+    }
+    PendingEntry entry = new PendingEntry(payload, record.getLevel(), System.nanoTime());
+    queue.add(entry);
+    if (closed && queue.remove(entry)) {
+      // the handler was closed while publishing and the entry could be left in the queue
+      queued.decrementAndGet();
+      droppedEntries.incrementAndGet();
+      return;
+    }
+    if (queued.get() >= batchSize || record.getLevel().intValue() >= flushLevel().intValue()) {
+      requestDrain();
+    }
+  }
+
+  /**
+   * Wakes up the flusher to write queued entries without waiting for the batch delay.
+   */
+  private void requestDrain() {
+    drainRequested = true;
+    LockSupport.unpark(flusher);
+  }
+
+  /**
+   * Reserves room in the queue for a log entry, applying the overflow policy if the queue is full.
+   * Returns {@code false} if the entry should be dropped.
+   */
+  private boolean reserve() {
+    while (true) {
+      int current = queued.get();
+      if (current < queueSize) {
+        if (queued.compareAndSet(current, current + 1)) {
+          return true;
+        }
+        continue;
+      }
+      switch (overflowPolicy) {
+        case DROP_OLDEST:
+          if (queue.poll() != null) {
+            queued.decrementAndGet();
+            droppedEntries.incrementAndGet();
+          }
+          break;
+        case BLOCK:
+          if (Thread.currentThread() == flusher || Thread.holdsLock(drainLock)) {
+            // The record was logged while writing entries, for instance by the Logging client.
+            // Waiting would block the thread that drains the queue, the record is dropped instead.
+            return false;
+          }
+          requestDrain();
+          LockSupport.parkNanos(this, BLOCK_WAIT_NANOS);
+          if (closed) {
+            return false;
+          }
+          break;
+        default:
+          return false;
+      }
+    }
+  }
+
+  /**
+   * Writes all queued entries to Stackdriver Logging, in batches.
+   */
+  private void drain() {
+    synchronized (drainLock) {
+      List<PendingEntry> batch = new ArrayList<>();
+      long bytes = 0;
+      PendingEntry pending;
+      while ((pending = queue.poll()) != null) {
+        queued.decrementAndGet();
+        long entryBytes = pending.estimatedSize();
+        if (!batch.isEmpty() && bytes + entryBytes > batchBytes) {
+          writeBatch(batch);
+          batch.clear();
+          bytes = 0;
+        }
+        batch.add(pending);
+        bytes += entryBytes;
+        if (batch.size() >= batchSize) {
+          writeBatch(batch);
+          batch.clear();
+          bytes = 0;
+        }
+      }
+      if (!batch.isEmpty()) {
+        writeBatch(batch);
+      }
+    }
+  }
+
+  private void writeBatch(List<PendingEntry> batch) {
+    List<LogEntry> entries = new ArrayList<>(batch.size());
+    for (PendingEntry pending : batch) {
+      entries.add(entryFor(pending.payload, pending.level));
+    }
+    try {
+      write(entries, writeOptions());
+    } catch (Exception ex) {
+      // writing can fail but we should not throw an exception, we report the error instead
+      reportError(null, ex, ErrorManager.WRITE_FAILURE);
+      droppedEntries.addAndGet(batch.size());
+      return;
+    }
+    long now = System.nanoTime();
+    for (PendingEntry pending : batch) {
+      long latency = now - pending.enqueueNanos;
+      totalLatencyNanos.addAndGet(latency);
+      long max = maxLatencyNanos.get();
+      while (latency > max && !maxLatencyNanos.compareAndSet(max, latency)) {
+        max = maxLatencyNanos.get();
+      }
+    }
+    writtenEntries.addAndGet(batch.size());
+  }
+
+  /**
+   * Writes all queued log entries to Stackdriver Logging, blocking until they are written.
+   */
+  @Override
+  public void flush() {
+    drain();
+  }
+
+  /**
+   * Stops the background flusher, writes all queued log entries and closes the associated
+   * {@link Logging} object. Records published after the handler is closed are ignored.
+   */
+  @Override
+  public void close() throws SecurityException {
+    closed = true;
+    LockSupport.unpark(flusher);
+    try {
+      flusher.join();
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+    }
+    // write entries published before the handler was closed
+    drain();
+    super.close();
+  }
+
+  /**
+   * Sets the maximum number of log entries waiting to be written. If not set, 10000 is used.
+   */
+  public int setQueueSize(int queueSize) {
+    this.queueSize = queueSize;
+    return queueSize;
+  }
+
+  /**
+   * Sets the maximum number of log entries written in a single request. When the queue holds at
+   * least this number of entries they are transmitted to the Stackdriver Logging service. If not
+   * set, 1000 is used.
+   */
+  public int setBatchSize(int batchSize) {
+    this.batchSize = batchSize;
+    if (queued.get() >= batchSize) {
+      requestDrain();
+    }
+    return batchSize;
+  }
+
+  /**
+   * Sets the maximum estimated size, in bytes, of the log entries written in a single request. If
+   * not set, 5242880 is used.
+   */
+  public long setBatchBytes(long batchBytes) {
+    this.batchBytes = batchBytes;
+    return batchBytes;
+  }
+
+  /**
+   * Sets the maximum time, in milliseconds, a log entry waits in the queue before being
+   * transmitted to the Stackdriver Logging service. If not set, 1000 is used.
+   */
+  public long setBatchDelayMillis(long batchDelayMillis) {
+    this.batchDelayMillis = batchDelayMillis;
+    LockSupport.unpark(flusher);
+    return batchDelayMillis;
+  }
+
+  /**
+   * Sets the policy applied to published records when the queue is full. If not set,
+   * {@link OverflowPolicy#DROP_NEWEST} is used.
+   */
+  public OverflowPolicy setOverflowPolicy(OverflowPolicy overflowPolicy) {
+    this.overflowPolicy = overflowPolicy;
+    return overflowPolicy;
+  }
+
+  /**
+   * Returns the number of log entries that were dropped, either because the queue was full or
+   * because they could not be written.
+   */
+  public long droppedEntries() {
+    return droppedEntries.get();
+  }
+
+  /**
+   * Returns the number of log entries successfully written to Stackdriver Logging.
+   */
+  public long writtenEntries() {
+    return writtenEntries.get();
+  }
+
+  /**
+   * Returns the average time, in milliseconds, elapsed between publishing a record and writing the
+   * corresponding log entry to Stackdriver Logging.
+   */
+  public double averageLatencyMillis() {
+    long written = writtenEntries.get();
+    return written == 0 ? 0 : totalLatencyNanos.get() / (written * 1e6);
+  }
+
+  /**
+   * Returns the maximum time, in milliseconds, elapsed between publishing a record and writing the
+   * corresponding log entry to Stackdriver Logging.
+   */
+  public long maxLatencyMillis() {
+    return TimeUnit.NANOSECONDS.toMillis(maxLatencyNanos.get());
+  }
+}
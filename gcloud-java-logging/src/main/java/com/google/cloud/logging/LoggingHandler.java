@@ -23,11 +23,13 @@ import com.google.cloud.logging.Logging.WriteOption;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.MapMaker;
 
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
 import java.util.logging.ErrorManager;
 import java.util.logging.Filter;
 import java.util.logging.Formatter;
@@ -96,12 +98,16 @@ public class LoggingHandler extends Handler {
   private static final String[] NO_HANDLERS = new String[0];
   private static final Set<String> EXCLUDED_LOGGERS = ImmutableSet.of("io.grpc", "io.netty",
       "com.google.api.client.http", "sun.net.www.protocol.http");
+  // Levels are compared by value, custom levels can share a value with a different name. Weak keys
+  // are compared by identity and let custom levels be garbage collected.
+  private static final ConcurrentMap<Level, LevelMapping> LEVEL_MAPPINGS =
+      new MapMaker().weakKeys().makeMap();
 
   private final LoggingOptions options;
   private final List<LogEntry> buffer = new LinkedList<>();
   private final WriteOption[] writeOptions;
   private Logging logging;
-  private Level flushLevel;
+  private volatile Level flushLevel;
   private long flushSize;
 
   /**
@@ -211,7 +217,7 @@ public class LoggingHandler extends Handler {
     return MonitoredResource.of("global", ImmutableMap.of("project_id", options.projectId()));
   }
 
-  private static class LogConfigHelper {
+  static class LogConfigHelper {
 
     private final LogManager manager = LogManager.getLogManager();
 
@@ -293,25 +299,76 @@ public class LoggingHandler extends Handler {
     }
   }
 
-  private LogEntry entryFor(LogRecord record) {
-    String payload;
+  /**
+   * Returns the log entry for the provided record, or {@code null} if the record could not be
+   * formatted.
+   */
+  LogEntry entryFor(LogRecord record) {
+    String payload = format(record);
+    return payload != null ? entryFor(payload, record.getLevel()) : null;
+  }
+
+  /**
+   * Returns the formatted payload for the provided record, or {@code null} if the record could not
+   * be formatted.
+   */
+  String format(LogRecord record) {
     try {
-      payload = getFormatter().format(record);
+      return getFormatter().format(record);
     } catch (Exception ex) {
       // Formatting can fail but we should not throw an exception, we report the error instead
       reportError(null, ex, ErrorManager.FORMAT_FAILURE);
       return null;
     }
-    Level level = record.getLevel();
-    Map<String, String> labels = ImmutableMap.of(
-        "levelName", level.getName(),
-        "levelValue", String.valueOf(level.intValue()));
+  }
+
+  /**
+   * Returns the log entry for the provided formatted payload and level.
+   */
+  static LogEntry entryFor(String payload, Level level) {
+    LevelMapping mapping = levelMapping(level);
     return LogEntry.builder(Payload.StringPayload.of(payload))
-        .labels(labels)
-        .severity(severityFor(level))
+        .labels(mapping.labels)
+        .severity(mapping.severity)
         .build();
   }
 
+  /**
+   * Returns the labels and severity of log entries with the provided level.
+   */
+  static LevelMapping levelMapping(Level level) {
+    LevelMapping mapping = LEVEL_MAPPINGS.get(level);
+    if (mapping == null) {
+      mapping = new LevelMapping(level);
+      LevelMapping previous = LEVEL_MAPPINGS.putIfAbsent(level, mapping);
+      if (previous != null) {
+        mapping = previous;
+      }
+    }
+    return mapping;
+  }
+
+  /**
+   * Labels and severity of the log entries for a Java logging level.
+   */
+  static final class LevelMapping {
+
+    final Map<String, String> labels;
+    final Severity severity;
+    final int labelsLength;
+
+    private LevelMapping(Level level) {
+      String levelValue = String.valueOf(level.intValue());
+      labels = ImmutableMap.of("levelName", level.getName(), "levelValue", levelValue);
+      severity = severityFor(level);
+      int length = 0;
+      for (Map.Entry<String, String> label : labels.entrySet()) {
+        length += label.getKey().length() + label.getValue().length();
+      }
+      labelsLength = length;
+    }
+  }
+
   private static Severity severityFor(Level level) {
     if (level instanceof LoggingLevel) {
       return ((LoggingLevel) level).severity();
@@ -343,6 +400,20 @@ public class LoggingHandler extends Handler {
     }
   }
 
+  /**
+   * Returns the options used to write log entries (log name and monitored resource).
+   */
+  WriteOption[] writeOptions() {
+    return writeOptions;
+  }
+
+  /**
+   * Returns the flush log level.
+   */
+  Level flushLevel() {
+    return flushLevel;
+  }
+
   /**
    * Writes the provided list of log entries to Stackdriver Logging. Override this method to change
    * how entries should be written.
@@ -0,0 +1,303 @@
+/*
+ * Copyright 2016 Google Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.logging;
+
+import static com.google.cloud.logging.LoggingHandlerTest.TestFormatter;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.google.cloud.MonitoredResource;
+import com.google.cloud.logging.BackgroundLoggingHandler.OverflowPolicy;
+import com.google.cloud.logging.Logging.WriteOption;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
+import org.easymock.EasyMock;
+import org.easymock.IAnswer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+public class BackgroundLoggingHandlerTest {
+
+  private static final String LOG_NAME = "java.log";
+  private static final String MESSAGE = "message";
+  private static final String PROJECT = "project";
+  private static final MonitoredResource DEFAULT_RESOURCE =
+      MonitoredResource.of("global", ImmutableMap.of("project_id", PROJECT));
+  private static final WriteOption[] WRITE_OPTIONS =
+      {WriteOption.logName(LOG_NAME), WriteOption.resource(DEFAULT_RESOURCE)};
+
+  private Logging logging;
+  private LoggingOptions options;
+
+  @Before
+  public void setUp() {
+    logging = EasyMock.createStrictMock(Logging.class);
+    options = EasyMock.createStrictMock(LoggingOptions.class);
+  }
+
+  @After
+  public void afterClass() {
+    EasyMock.verify(logging, options);
+  }
+
+  private static LogEntry entry(String message) {
+    return LogEntry.builder(Payload.StringPayload.of(message))
+        .severity(Severity.DEBUG)
+        .addLabel("levelName", "FINEST")
+        .addLabel("levelValue", String.valueOf(Level.FINEST.intValue()))
+        .build();
+  }
+
+  private static IAnswer<Void> countDown(final CountDownLatch latch) {
+    return new IAnswer<Void>() {
+      @Override
+      public Void answer() throws Throwable {
+        latch.countDown();
+        return null;
+      }
+    };
+  }
+
+  private BackgroundLoggingHandler handler() {
+    BackgroundLoggingHandler handler = new BackgroundLoggingHandler(LOG_NAME, options);
+    handler.setLevel(Level.ALL);
+    handler.setFormatter(new TestFormatter());
+    return handler;
+  }
+
+  @Test
+  public void testPublish() throws InterruptedException {
+    CountDownLatch written = new CountDownLatch(1);
+    EasyMock.expect(options.projectId()).andReturn(PROJECT).anyTimes();
+    EasyMock.expect(options.service()).andReturn(logging);
+    logging.write(ImmutableList.of(entry(MESSAGE)), WRITE_OPTIONS);
+    EasyMock.expectLastCall().andAnswer(countDown(written));
+    logging.close();
+    EasyMock.expectLastCall();
+    EasyMock.replay(options, logging);
+    BackgroundLoggingHandler handler = handler();
+    handler.setBatchDelayMillis(10);
+    handler.publish(new LogRecord(Level.FINEST, MESSAGE));
+    assertTrue(written.await(10, TimeUnit.SECONDS));
+    handler.close();
+    assertEquals(1, handler.writtenEntries());
+    assertEquals(0, handler.droppedEntries());
+  }
+
+  @Test
+  public void testPublishBatch() throws InterruptedException {
+    CountDownLatch written = new CountDownLatch(1);
+    EasyMock.expect(options.projectId()).andReturn(PROJECT).anyTimes();
+    EasyMock.expect(options.service()).andReturn(logging);
+    logging.write(ImmutableList.of(entry(MESSAGE), entry(MESSAGE)), WRITE_OPTIONS);
+    EasyMock.expectLastCall().andAnswer(countDown(written));
+    logging.close();
+    EasyMock.expectLastCall();
+    EasyMock.replay(options, logging);
+    BackgroundLoggingHandler handler = handler();
+    handler.setBatchDelayMillis(TimeUnit.MINUTES.toMillis(1));
+    handler.setBatchSize(2);
+    handler.publish(new LogRecord(Level.FINEST, MESSAGE));
+    handler.publish(new LogRecord(Level.FINEST, MESSAGE));
+    assertTrue(written.await(10, TimeUnit.SECONDS));
+    handler.close();
+    assertEquals(2, handler.writtenEntries());
+  }
+
+  @Test
+  public void testFlushAndClose() {
+    EasyMock.expect(options.projectId()).andReturn(PROJECT).anyTimes();
+    EasyMock.expect(options.service()).andReturn(logging);
+    logging.write(ImmutableList.of(entry(MESSAGE), entry(MESSAGE)), WRITE_OPTIONS);
+    EasyMock.expectLastCall();
+    logging.write(ImmutableList.of(entry(MESSAGE)), WRITE_OPTIONS);
+    EasyMock.expectLastCall();
+    logging.close();
+    EasyMock.expectLastCall();
+    EasyMock.replay(options, logging);
+    BackgroundLoggingHandler handler = handler();
+    handler.setBatchDelayMillis(TimeUnit.MINUTES.toMillis(1));
+    handler.publish(new LogRecord(Level.FINEST, MESSAGE));
+    handler.publish(new LogRecord(Level.FINEST, MESSAGE));
+    handler.flush();
+    handler.publish(new LogRecord(Level.FINEST, MESSAGE));
+    handler.close();
+    handler.publish(new LogRecord(Level.FINEST, MESSAGE));
+    assertEquals(3, handler.writtenEntries());
+  }
+
+  @Test
+  public void testOverflowDropNewest() throws InterruptedException {
+    final CountDownLatch writing = new CountDownLatch(1);
+    final CountDownLatch release = new CountDownLatch(1);
+    EasyMock.expect(options.projectId()).andReturn(PROJECT).anyTimes();
+    EasyMock.expect(options.service()).andReturn(logging);
+    logging.write(ImmutableList.of(entry("first")), WRITE_OPTIONS);
+    EasyMock.expectLastCall().andAnswer(new IAnswer<Void>() {
+      @Override
+      public Void answer() throws Throwable {
+        writing.countDown();
+        release.await();
+        return null;
+      }
+    });
+    logging.write(ImmutableList.of(entry("second")), WRITE_OPTIONS);
+    EasyMock.expectLastCall();
+    logging.close();
+    EasyMock.expectLastCall();
+    EasyMock.replay(options, logging);
+    BackgroundLoggingHandler handler = handler();
+    handler.setBatchDelayMillis(TimeUnit.MINUTES.toMillis(1));
+    handler.setQueueSize(1);
+    handler.setBatchSize(1);
+    handler.publish(new LogRecord(Level.FINEST, "first"));
+    assertTrue(writing.await(10, TimeUnit.SECONDS));
+    handler.publish(new LogRecord(Level.FINEST, "second"));
+    handler.publish(new LogRecord(Level.FINEST, "third"));
+    assertEquals(1, handler.droppedEntries());
+    release.countDown();
+    handler.close();
+    assertEquals(2, handler.writtenEntries());
+  }
+
+  @Test
+  public void testOverflowDropOldest() throws InterruptedException {
+    final CountDownLatch writing = new CountDownLatch(1);
+    final CountDownLatch release = new CountDownLatch(1);
+    EasyMock.expect(options.projectId()).andReturn(PROJECT).anyTimes();
+    EasyMock.expect(options.service()).andReturn(logging);
+    logging.write(ImmutableList.of(entry("first")), WRITE_OPTIONS);
+    EasyMock.expectLastCall().andAnswer(new IAnswer<Void>() {
+      @Override
+      public Void answer() throws Throwable {
+        writing.countDown();
+        release.await();
+        return null;
+      }
+    });
+    logging.write(ImmutableList.of(entry("third")), WRITE_OPTIONS);
+    EasyMock.expectLastCall();
+    logging.close();
+    EasyMock.expectLastCall();
+    EasyMock.replay(options, logging);
+    BackgroundLoggingHandler handler = handler();
+    handler.setBatchDelayMillis(TimeUnit.MINUTES.toMillis(1));
+    handler.setQueueSize(1);
+    handler.setBatchSize(1);
+    handler.setOverflowPolicy(OverflowPolicy.DROP_OLDEST);
+    handler.publish(new LogRecord(Level.FINEST, "first"));
+    assertTrue(writing.await(10, TimeUnit.SECONDS));
+    handler.publish(new LogRecord(Level.FINEST, "second"));
+    handler.publish(new LogRecord(Level.FINEST, "third"));
+    assertEquals(1, handler.droppedEntries());
+    release.countDown();
+    handler.close();
+    assertEquals(2, handler.writtenEntries());
+  }
+
+  @Test
+  public void testOverflowBlock() throws InterruptedException {
+    final CountDownLatch writing = new CountDownLatch(1);
+    final CountDownLatch release = new CountDownLatch(1);
+    EasyMock.expect(options.projectId()).andReturn(PROJECT).anyTimes();
+    EasyMock.expect(options.service()).andReturn(logging);
+    logging.write(ImmutableList.of(entry("first")), WRITE_OPTIONS);
+    EasyMock.expectLastCall().andAnswer(new IAnswer<Void>() {
+      @Override
+      public Void answer() throws Throwable {
+        writing.countDown();
+        release.await();
+        return null;
+      }
+    });
+    logging.write(ImmutableList.of(entry("second")), WRITE_OPTIONS);
+    EasyMock.expectLastCall();
+    logging.write(ImmutableList.of(entry("third")), WRITE_OPTIONS);
+    EasyMock.expectLastCall();
+    logging.close();
+    EasyMock.expectLastCall();
+    EasyMock.replay(options, logging);
+    final BackgroundLoggingHandler handler = handler();
+    handler.setBatchDelayMillis(TimeUnit.MINUTES.toMillis(1));
+    handler.setQueueSize(1);
+    handler.setBatchSize(1);
+    handler.setOverflowPolicy(OverflowPolicy.BLOCK);
+    handler.publish(new LogRecord(Level.FINEST, "first"));
+    assertTrue(writing.await(10, TimeUnit.SECONDS));
+    handler.publish(new LogRecord(Level.FINEST, "second"));
+    Thread publisher = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        handler.publish(new LogRecord(Level.FINEST, "third"));
+      }
+    });
+    publisher.start();
+    // the queue is full, the publisher waits for the flusher
+    publisher.join(100);
+    assertTrue(publisher.isAlive());
+    release.countDown();
+    publisher.join(10_000);
+    assertFalse(publisher.isAlive());
+    handler.close();
+    assertEquals(3, handler.writtenEntries());
+    assertEquals(0, handler.droppedEntries());
+  }
+
+  @Test
+  public void testOverflowBlockWhileWriting() throws InterruptedException {
+    final AtomicReference<BackgroundLoggingHandler> handlerReference = new AtomicReference<>();
+    final CountDownLatch written = new CountDownLatch(1);
+    EasyMock.expect(options.projectId()).andReturn(PROJECT).anyTimes();
+    EasyMock.expect(options.service()).andReturn(logging);
+    logging.write(ImmutableList.of(entry("first")), WRITE_OPTIONS);
+    EasyMock.expectLastCall().andAnswer(new IAnswer<Void>() {
+      @Override
+      public Void answer() throws Throwable {
+        // records logged by the flusher while writing, e.g. by the Logging client
+        handlerReference.get().publish(new LogRecord(Level.FINEST, "second"));
+        handlerReference.get().publish(new LogRecord(Level.FINEST, "third"));
+        written.countDown();
+        return null;
+      }
+    });
+    logging.write(ImmutableList.of(entry("second")), WRITE_OPTIONS);
+    EasyMock.expectLastCall();
+    logging.close();
+    EasyMock.expectLastCall();
+    EasyMock.replay(options, logging);
+    BackgroundLoggingHandler handler = handler();
+    handlerReference.set(handler);
+    handler.setBatchDelayMillis(TimeUnit.MINUTES.toMillis(1));
+    handler.setQueueSize(1);
+    handler.setBatchSize(1);
+    handler.setOverflowPolicy(OverflowPolicy.BLOCK);
+    handler.publish(new LogRecord(Level.FINEST, "first"));
+    assertTrue(written.await(10, TimeUnit.SECONDS));
+    handler.close();
+    assertEquals(2, handler.writtenEntries());
+    assertEquals(1, handler.droppedEntries());
+  }
+}
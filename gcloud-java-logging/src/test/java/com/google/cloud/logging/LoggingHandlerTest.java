@@ -346,4 +346,19 @@ public class LoggingHandlerTest {
     handler.close();
     handler.close();
   }
+
+  @Test
+  public void testEntryFor() {
+    EasyMock.replay(options, logging);
+    Level customDebug = new Level("CUSTOM", LoggingLevel.DEBUG.intValue()) {};
+    assertSame(LoggingHandler.levelMapping(LoggingLevel.DEBUG),
+        LoggingHandler.levelMapping(LoggingLevel.DEBUG));
+    LogEntry entry = LoggingHandler.entryFor(MESSAGE, customDebug);
+    assertEquals(StringPayload.of(MESSAGE), entry.payload());
+    assertEquals(Severity.DEFAULT, entry.severity());
+    assertEquals(ImmutableMap.of("levelName", "CUSTOM", "levelValue", "250"), entry.labels());
+    entry = LoggingHandler.entryFor(MESSAGE, LoggingLevel.DEBUG);
+    assertEquals(Severity.DEBUG, entry.severity());
+    assertEquals(ImmutableMap.of("levelName", "DEBUG", "levelValue", "250"), entry.labels());
+  }
 }
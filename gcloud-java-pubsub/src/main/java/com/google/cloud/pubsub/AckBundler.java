@@ -0,0 +1,167 @@
+/*
+ * Copyright 2016 Google Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.pubsub;
+
+import com.google.cloud.pubsub.spi.PubSubRpc;
+import com.google.cloud.pubsub.spi.v1.SubscriberApi;
+import com.google.pubsub.v1.AcknowledgeRequest;
+import com.google.pubsub.v1.ModifyAckDeadlineRequest;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Class for a client-side acknowledge bundler. An acknowledge bundler accumulates the ack ids of
+ * messages acked (via {@link #ack(String, String)}) or nacked (via {@link #nack(String, String)})
+ * for the same subscription and sends them in a single acknowledge or modify ack deadline request
+ * once one of the thresholds in {@link AckBundlingSettings} is reached. Ack ids are removed from
+ * the ack deadline renewer only when their request is sent, so that their deadline keeps being
+ * renewed while they wait in a bundle.
+ */
+class AckBundler extends Bundler<AckBundler.Key, AckBundler.Bundle> {
+
+  private final PubSubRpc rpc;
+  private final String projectId;
+  private final AckDeadlineRenewer deadlineRenewer;
+  private final AckBundlingSettings settings;
+
+  /**
+   * Identifies the bundle of ack ids of a subscription, either to be acked or nacked.
+   */
+  static final class Key {
+
+    private final String subscription;
+    private final boolean nack;
+
+    Key(String subscription, boolean nack) {
+      this.subscription = subscription;
+      this.nack = nack;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (obj == this) {
+        return true;
+      }
+      if (!(obj instanceof Key)) {
+        return false;
+      }
+      Key other = (Key) obj;
+      return subscription.equals(other.subscription) && nack == other.nack;
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(subscription, nack);
+    }
+  }
+
+  /**
+   * This class holds the ack ids bundled for a subscription, either to be acked or nacked.
+   */
+  static final class Bundle extends Bundler.Bundle<Key> {
+
+    private final List<String> ackIds = new ArrayList<>();
+
+    Bundle(Key key) {
+      super(key);
+    }
+  }
+
+  AckBundler(PubSubOptions options, AckBundlingSettings settings,
+      AckDeadlineRenewer deadlineRenewer) {
+    super(options, settings.delayThresholdMillis());
+    this.rpc = options.rpc();
+    this.projectId = options.projectId();
+    this.deadlineRenewer = deadlineRenewer;
+    this.settings = settings;
+  }
+
+  /**
+   * Adds an ack id to the bundle of ack ids to be acknowledged for the provided subscription.
+   */
+  void ack(String subscription, String ackId) {
+    add(new Key(subscription, false), ackId);
+  }
+
+  /**
+   * Adds an ack id to the bundle of ack ids to be nacked (i.e. whose ack deadline is set to 0) for
+   * the provided subscription.
+   */
+  void nack(String subscription, String ackId) {
+    add(new Key(subscription, true), ackId);
+  }
+
+  private void add(Key key, String ackId) {
+    Bundle bundleToSend = null;
+    synchronized (lock) {
+      Bundle bundle = bundle(key);
+      bundle.ackIds.add(ackId);
+      if (closed() || bundle.ackIds.size() >= settings.maxAckIds()) {
+        bundleToSend = removeBundle(key);
+      }
+    }
+    if (bundleToSend != null) {
+      send(bundleToSend);
+    }
+  }
+
+  /**
+   * Sends all pending acks and nacks for the provided subscription.
+   */
+  void flush(String subscription) {
+    List<Bundle> bundlesToSend = new LinkedList<>();
+    synchronized (lock) {
+      for (boolean nack : new boolean[] {false, true}) {
+        Bundle bundle = removeBundle(new Key(subscription, nack));
+        if (bundle != null) {
+          bundlesToSend.add(bundle);
+        }
+      }
+    }
+    sendAll(bundlesToSend);
+  }
+
+  @Override
+  Bundle newBundle(Key key) {
+    return new Bundle(key);
+  }
+
+  @Override
+  void send(Bundle bundle) {
+    String subscription = bundle.key().subscription;
+    for (String ackId : bundle.ackIds) {
+      deadlineRenewer.remove(subscription, ackId);
+    }
+    String subscriptionName = SubscriberApi.formatSubscriptionName(projectId, subscription);
+    // As for single acks and nacks, failures are ignored: messages will be redelivered
+    if (bundle.key().nack) {
+      rpc.modify(ModifyAckDeadlineRequest.newBuilder()
+          .setSubscription(subscriptionName)
+          .setAckDeadlineSeconds(0)
+          .addAllAckIds(bundle.ackIds)
+          .build());
+    } else {
+      rpc.acknowledge(AcknowledgeRequest.newBuilder()
+          .setSubscription(subscriptionName)
+          .addAllAckIds(bundle.ackIds)
+          .build());
+    }
+  }
+}
@@ -0,0 +1,155 @@
+/*
+ * Copyright 2016 Google Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.pubsub;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import com.google.common.base.MoreObjects;
+
+import java.io.Serializable;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Settings for client-side bundling of acks and nacks sent by message consumers. When bundling is
+ * enabled (see {@link PubSubOptions.Builder#ackBundlingSettings(AckBundlingSettings)}), the ack
+ * ids of messages acked or nacked by the consumers returned by
+ * {@link PubSub#pullAsync(String, PubSub.MessageProcessor, PubSub.PullOption...)} are accumulated
+ * per subscription and sent in a single request as soon as one of the following thresholds is
+ * reached: the number of bundled ack ids reaches {@link #maxAckIds()} or
+ * {@link #delayThresholdMillis()} milliseconds have elapsed since the first ack id was bundled.
+ */
+public final class AckBundlingSettings implements Serializable {
+
+  private static final long serialVersionUID = 4873602715493217381L;
+  private static final int DEFAULT_MAX_ACK_IDS = 1000;
+  private static final long DEFAULT_DELAY_THRESHOLD_MILLIS = 100;
+
+  private final int maxAckIds;
+  private final long delayThresholdMillis;
+
+  /**
+   * Builder for {@code AckBundlingSettings} objects.
+   */
+  public static final class Builder {
+
+    private int maxAckIds = DEFAULT_MAX_ACK_IDS;
+    private long delayThresholdMillis = DEFAULT_DELAY_THRESHOLD_MILLIS;
+
+    private Builder() {
+    }
+
+    private Builder(AckBundlingSettings settings) {
+      maxAckIds = settings.maxAckIds;
+      delayThresholdMillis = settings.delayThresholdMillis;
+    }
+
+    /**
+     * Sets the maximum number of ack ids sent in a single request. The default value is
+     * {@code 1000}.
+     */
+    public Builder maxAckIds(int maxAckIds) {
+      checkArgument(maxAckIds > 0, "maxAckIds must be > 0");
+      this.maxAckIds = maxAckIds;
+      return this;
+    }
+
+    /**
+     * Sets the maximum time an ack id is held in a bundle before the bundle is sent. The default
+     * value is 100 milliseconds.
+     */
+    public Builder delayThreshold(long delay, TimeUnit unit) {
+      checkArgument(delay >= 0, "delay must be >= 0");
+      this.delayThresholdMillis = unit.toMillis(delay);
+      return this;
+    }
+
+    /**
+     * Creates an {@code AckBundlingSettings} object.
+     */
+    public AckBundlingSettings build() {
+      return new AckBundlingSettings(this);
+    }
+  }
+
+  private AckBundlingSettings(Builder builder) {
+    maxAckIds = builder.maxAckIds;
+    delayThresholdMillis = builder.delayThresholdMillis;
+  }
+
+  /**
+   * Returns the maximum number of ack ids sent in a single request.
+   */
+  public int maxAckIds() {
+    return maxAckIds;
+  }
+
+  /**
+   * Returns the maximum time, in milliseconds, an ack id is held in a bundle before the bundle is
+   * sent.
+   */
+  public long delayThresholdMillis() {
+    return delayThresholdMillis;
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (obj == this) {
+      return true;
+    }
+    if (!(obj instanceof AckBundlingSettings)) {
+      return false;
+    }
+    AckBundlingSettings other = (AckBundlingSettings) obj;
+    return maxAckIds == other.maxAckIds && delayThresholdMillis == other.delayThresholdMillis;
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(maxAckIds, delayThresholdMillis);
+  }
+
+  @Override
+  public String toString() {
+    return MoreObjects.toStringHelper(this)
+        .add("maxAckIds", maxAckIds)
+        .add("delayThresholdMillis", delayThresholdMillis)
+        .toString();
+  }
+
+  /**
+   * Returns a builder for {@code AckBundlingSettings} objects.
+   */
+  public Builder toBuilder() {
+    return new Builder(this);
+  }
+
+  /**
+   * Returns a builder for {@code AckBundlingSettings} objects, initialized with the default
+   * settings.
+   */
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  /**
+   * Returns an {@code AckBundlingSettings} object with the default settings.
+   */
+  public static AckBundlingSettings defaultInstance() {
+    return builder().build();
+  }
+}
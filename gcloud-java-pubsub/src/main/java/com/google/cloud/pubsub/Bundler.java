@@ -0,0 +1,183 @@
+/*
+ * Copyright 2016 Google Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.pubsub;
+
+import com.google.cloud.GrpcServiceOptions.ExecutorFactory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Base class for client-side bundlers. A bundler accumulates elements in bundles, one for each key,
+ * and sends a bundle either when the subclass decides a threshold is reached or once
+ * {@code delayThresholdMillis} have passed since the bundle was created. Bundles are created,
+ * removed and inspected holding {@link #lock} and sent without holding it.
+ *
+ * @param <K> the type of the keys bundles are associated to
+ * @param <B> the type of the bundles
+ */
+abstract class Bundler<K, B extends Bundler.Bundle<K>> implements AutoCloseable {
+
+  final Object lock = new Object();
+  final ScheduledExecutorService executor;
+  private final ExecutorFactory<ScheduledExecutorService> executorFactory;
+  private final long delayThresholdMillis;
+  private final Map<K, B> bundles = new HashMap<>();
+  private boolean closed;
+
+  /**
+   * This class holds the elements bundled for a key.
+   */
+  abstract static class Bundle<K> {
+
+    private final K key;
+    private Future<?> flushFuture;
+
+    Bundle(K key) {
+      this.key = key;
+    }
+
+    K key() {
+      return key;
+    }
+
+    void flushScheduled(Future<?> flushFuture) {
+      this.flushFuture = flushFuture;
+    }
+
+    void cancelFlush() {
+      if (flushFuture != null) {
+        flushFuture.cancel(false);
+      }
+    }
+  }
+
+  Bundler(PubSubOptions options, long delayThresholdMillis) {
+    this.delayThresholdMillis = delayThresholdMillis;
+    this.executorFactory = options.executorFactory();
+    this.executor = executorFactory.get();
+  }
+
+  /**
+   * Creates an empty bundle for the provided key.
+   */
+  abstract B newBundle(K key);
+
+  /**
+   * Sends a bundle. Called without holding {@link #lock}.
+   */
+  abstract void send(B bundle);
+
+  /**
+   * Returns the bundle for the provided key, creating it and scheduling its flush if needed. Must
+   * be called holding {@link #lock}.
+   */
+  B bundle(K key) {
+    B bundle = bundles.get(key);
+    if (bundle == null) {
+      bundle = newBundle(key);
+      bundles.put(key, bundle);
+      if (!closed) {
+        scheduleFlush(bundle);
+      }
+    }
+    return bundle;
+  }
+
+  /**
+   * Removes the bundle for the provided key and cancels its scheduled flush. Returns {@code null}
+   * if there is no bundle for the key. Must be called holding {@link #lock}.
+   */
+  B removeBundle(K key) {
+    B bundle = bundles.remove(key);
+    if (bundle != null) {
+      bundle.cancelFlush();
+    }
+    return bundle;
+  }
+
+  /**
+   * Returns whether this bundler was closed, in which case elements should be sent without
+   * bundling. Must be called holding {@link #lock}.
+   */
+  boolean closed() {
+    return closed;
+  }
+
+  private void scheduleFlush(final B bundle) {
+    Future<?> flushFuture = executor.schedule(new Runnable() {
+      @Override
+      public void run() {
+        B bundleToSend = null;
+        synchronized (lock) {
+          // The bundle might have already been sent because a threshold was reached
+          if (bundles.get(bundle.key()) == bundle) {
+            bundleToSend = bundles.remove(bundle.key());
+          }
+        }
+        if (bundleToSend != null) {
+          send(bundleToSend);
+        }
+      }
+    }, delayThresholdMillis, TimeUnit.MILLISECONDS);
+    bundle.flushScheduled(flushFuture);
+  }
+
+  /**
+   * Sends the provided bundles. Must be called without holding {@link #lock}.
+   */
+  void sendAll(List<B> bundlesToSend) {
+    for (B bundle : bundlesToSend) {
+      send(bundle);
+    }
+  }
+
+  /**
+   * Sends all pending bundles, regardless of their thresholds.
+   */
+  void flush() {
+    List<B> bundlesToSend;
+    synchronized (lock) {
+      bundlesToSend = new ArrayList<>(bundles.size());
+      for (K key : new ArrayList<>(bundles.keySet())) {
+        bundlesToSend.add(removeBundle(key));
+      }
+    }
+    sendAll(bundlesToSend);
+  }
+
+  /**
+   * Sends all pending bundles and releases the resources held by this bundler. Elements added
+   * after this method is called are sent immediately, without bundling.
+   */
+  @Override
+  public void close() throws Exception {
+    synchronized (lock) {
+      if (closed) {
+        return;
+      }
+      closed = true;
+    }
+    flush();
+    executorFactory.release(executor);
+  }
+}
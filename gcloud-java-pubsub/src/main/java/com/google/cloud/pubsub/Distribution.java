@@ -0,0 +1,73 @@
+/*
+ * Copyright 2016 Google Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.pubsub;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Thread-safe distribution of non-negative integer values, with one bucket per value in
+ * {@code [0, maxValue)}. Values greater than or equal to {@code maxValue} are counted in the last
+ * bucket. Recording a value is lock-free.
+ */
+class Distribution {
+
+  private final AtomicLongArray bucketCounts;
+  private final AtomicLong count = new AtomicLong();
+
+  Distribution(int maxValue) {
+    checkArgument(maxValue > 0, "maxValue must be > 0");
+    bucketCounts = new AtomicLongArray(maxValue);
+  }
+
+  /**
+   * Records a value in the distribution.
+   */
+  void record(int value) {
+    checkArgument(value >= 0, "value must be >= 0");
+    bucketCounts.incrementAndGet(Math.min(value, bucketCounts.length() - 1));
+    count.incrementAndGet();
+  }
+
+  /**
+   * Returns the number of values recorded in the distribution.
+   */
+  long count() {
+    return count.get();
+  }
+
+  /**
+   * Returns the smallest value such that at least {@code percentile} percent of the recorded
+   * values are lower than or equal to it, or {@code 0} if no value was recorded.
+   *
+   * @param percentile a percentile in {@code (0, 100]}
+   */
+  int percentile(double percentile) {
+    checkArgument(percentile > 0 && percentile <= 100, "percentile must be in (0, 100]");
+    long threshold = (long) Math.ceil(count.get() * percentile / 100);
+    long seen = 0;
+    for (int i = 0; i < bucketCounts.length(); i++) {
+      seen += bucketCounts.get(i);
+      if (seen >= threshold) {
+        return i;
+      }
+    }
+    return bucketCounts.length() - 1;
+  }
+}
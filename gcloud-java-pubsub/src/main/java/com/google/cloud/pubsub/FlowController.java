@@ -0,0 +1,133 @@
+/*
+ * Copyright 2016 Google Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.pubsub;
+
+import com.google.cloud.pubsub.PublishFlowControlSettings.LimitExceededBehavior;
+
+import io.grpc.Status.Code;
+
+/**
+ * Class for bounding the number and the size of outstanding messages. Messages are reserved via
+ * {@link #reserve(int, long)} before being handed over and released via
+ * {@link #release(int, long)} once they are no longer outstanding. A reservation is always granted
+ * when no message is outstanding, so that messages larger than the limits can still make progress.
+ */
+class FlowController {
+
+  private final Integer maxOutstandingMessages;
+  private final Long maxOutstandingBytes;
+  private final LimitExceededBehavior limitExceededBehavior;
+  private final Object lock = new Object();
+  private int outstandingMessages;
+  private long outstandingBytes;
+
+  FlowController(Integer maxOutstandingMessages, Long maxOutstandingBytes,
+      LimitExceededBehavior limitExceededBehavior) {
+    this.maxOutstandingMessages = maxOutstandingMessages;
+    this.maxOutstandingBytes = maxOutstandingBytes;
+    this.limitExceededBehavior = limitExceededBehavior;
+  }
+
+  FlowController(PublishFlowControlSettings settings) {
+    this(settings.maxOutstandingMessages(), settings.maxOutstandingBytes(),
+        settings.limitExceededBehavior());
+  }
+
+  private boolean fits(int messages, long bytes) {
+    if (outstandingMessages == 0 && outstandingBytes == 0) {
+      return true;
+    }
+    return (maxOutstandingMessages == null
+        || outstandingMessages + messages <= maxOutstandingMessages)
+        && (maxOutstandingBytes == null || outstandingBytes + bytes <= maxOutstandingBytes);
+  }
+
+  /**
+   * Reserves room for the provided number of messages and bytes. If the reservation would exceed
+   * the limits this method blocks, throws a {@link PubSubException} or returns {@code false},
+   * according to the configured {@link LimitExceededBehavior}.
+   *
+   * @return {@code true} if the reservation was granted, {@code false} if the messages should be
+   *     dropped
+   * @throws PubSubException if limits are exceeded and the configured behavior is
+   *     {@link LimitExceededBehavior#THROW_EXCEPTION}
+   */
+  boolean reserve(int messages, long bytes) {
+    boolean interrupted = false;
+    try {
+      synchronized (lock) {
+        while (!fits(messages, bytes)) {
+          switch (limitExceededBehavior) {
+            case THROW_EXCEPTION:
+              throw limitExceededException();
+            case DROP:
+              return false;
+            case BLOCK:
+            default:
+              try {
+                lock.wait();
+              } catch (InterruptedException ex) {
+                interrupted = true;
+              }
+          }
+        }
+        outstandingMessages += messages;
+        outstandingBytes += bytes;
+        return true;
+      }
+    } finally {
+      if (interrupted) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  /**
+   * Releases the provided number of messages and bytes, unblocking pending reservations.
+   */
+  void release(int messages, long bytes) {
+    synchronized (lock) {
+      outstandingMessages -= messages;
+      outstandingBytes -= bytes;
+      lock.notifyAll();
+    }
+  }
+
+  /**
+   * Returns the number of outstanding messages.
+   */
+  int outstandingMessages() {
+    synchronized (lock) {
+      return outstandingMessages;
+    }
+  }
+
+  /**
+   * Returns the serialized size, in bytes, of outstanding messages.
+   */
+  long outstandingBytes() {
+    synchronized (lock) {
+      return outstandingBytes;
+    }
+  }
+
+  static PubSubException limitExceededException() {
+    return new PubSubException(Code.RESOURCE_EXHAUSTED.value(),
+        "Flow control limits on outstanding published messages exceeded",
+        Code.RESOURCE_EXHAUSTED.name(), false);
+  }
+}
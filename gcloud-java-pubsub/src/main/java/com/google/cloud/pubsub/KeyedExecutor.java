@@ -0,0 +1,111 @@
+/*
+ * Copyright 2016 Google Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.pubsub;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+
+/**
+ * Executor that runs tasks sharing the same key one at a time and in submission order, while tasks
+ * with different keys can run in parallel on a delegate executor. Keys are hashed to a fixed number
+ * of lanes, each lane running its tasks sequentially: tasks with different keys might share a lane
+ * and run sequentially too. Tasks with a {@code null} key are executed directly by the delegate
+ * executor, with no ordering guarantee.
+ */
+class KeyedExecutor {
+
+  private final Executor delegate;
+  private final Lane[] lanes;
+
+  /**
+   * This class holds the tasks of a lane. At most one task of a lane is submitted to the delegate
+   * executor at any time, the next one is submitted once it completes.
+   */
+  private final class Lane implements Runnable {
+
+    private final Queue<Runnable> tasks = new ArrayDeque<>();
+    private boolean running;
+
+    void execute(Runnable task) {
+      synchronized (tasks) {
+        tasks.add(task);
+        if (running) {
+          return;
+        }
+        running = true;
+      }
+      submit();
+    }
+
+    private void submit() {
+      try {
+        delegate.execute(this);
+      } catch (RuntimeException ex) {
+        synchronized (tasks) {
+          tasks.clear();
+          running = false;
+        }
+        throw ex;
+      }
+    }
+
+    @Override
+    public void run() {
+      Runnable task;
+      synchronized (tasks) {
+        task = tasks.poll();
+      }
+      try {
+        task.run();
+      } finally {
+        boolean hasNext;
+        synchronized (tasks) {
+          hasNext = !tasks.isEmpty();
+          running = hasNext;
+        }
+        // The next task is submitted rather than run in this thread, so that lanes share threads
+        if (hasNext) {
+          submit();
+        }
+      }
+    }
+  }
+
+  KeyedExecutor(Executor delegate, int lanes) {
+    checkArgument(lanes > 0, "lanes must be > 0");
+    this.delegate = delegate;
+    this.lanes = new Lane[lanes];
+    for (int i = 0; i < lanes; i++) {
+      this.lanes[i] = new Lane();
+    }
+  }
+
+  /**
+   * Executes a task after all previously submitted tasks with the same key have completed. If
+   * {@code key} is {@code null} the task is executed by the delegate executor right away.
+   */
+  void execute(String key, Runnable task) {
+    if (key == null) {
+      delegate.execute(task);
+    } else {
+      lanes[(key.hashCode() & Integer.MAX_VALUE) % lanes.length].execute(task);
+    }
+  }
+}
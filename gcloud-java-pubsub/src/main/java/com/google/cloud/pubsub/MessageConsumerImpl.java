@@ -25,17 +25,26 @@ import com.google.cloud.pubsub.PubSub.MessageProcessor;
 import com.google.cloud.pubsub.spi.PubSubRpc;
 import com.google.cloud.pubsub.spi.PubSubRpc.PullCallback;
 import com.google.cloud.pubsub.spi.PubSubRpc.PullFuture;
+import com.google.common.base.Stopwatch;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.google.pubsub.v1.PullRequest;
 import com.google.pubsub.v1.PullResponse;
 
 import io.grpc.internal.SharedResourceHolder;
 
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.concurrent.CancellationException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Default implementation for a message consumer.
@@ -43,12 +52,22 @@ import java.util.concurrent.atomic.AtomicInteger;
 final class MessageConsumerImpl implements MessageConsumer {
 
   private static final int MAX_QUEUED_CALLBACKS = 100;
-  // shared scheduled executor, used to schedule pulls
+  private static final int MAX_CONCURRENT_PULLS = 1;
+  private static final int PROCESSORS = Runtime.getRuntime().availableProcessors();
+  // number of lanes per processing thread, when processing messages in order of key
+  private static final int LANES_PER_THREAD = 4;
+  private static final int CONSUMER_THREADS = Math.max(2, PROCESSORS);
+  // shared executor, used to schedule pulls of all consumers
   private static final SharedResourceHolder.Resource<ExecutorService> CONSUMER_EXECUTOR =
       new SharedResourceHolder.Resource<ExecutorService>() {
         @Override
         public ExecutorService create() {
-          return Executors.newSingleThreadExecutor();
+          ThreadPoolExecutor executor = new ThreadPoolExecutor(CONSUMER_THREADS, CONSUMER_THREADS,
+              5, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+              new ThreadFactoryBuilder().setDaemon(true).setNameFormat("pubsub-consumer-%d")
+                  .build());
+          executor.allowCoreThreadTimeOut(true);
+          return executor;
         }
 
         @Override
@@ -61,55 +80,81 @@ final class MessageConsumerImpl implements MessageConsumer {
   private final PubSubRpc pubsubRpc;
   private final PubSub pubsub;
   private final AckDeadlineRenewer deadlineRenewer;
+  private final AckBundler ackBundler;
   private final String subscription;
   private final MessageProcessor messageProcessor;
   private final ExecutorService consumerExecutor;
   private final ExecutorFactory<ExecutorService> executorFactory;
   private final ExecutorService executor;
+  private final String orderingKeyAttribute;
+  private final KeyedExecutor keyedExecutor;
   private final AtomicInteger queuedCallbacks;
   private final int maxQueuedCallbacks;
+  private final AtomicLong queuedBytes;
+  private final Long maxQueuedBytes;
+  private final int maxConcurrentPulls;
+  private final int pullSize;
+  private final boolean adaptiveAckDeadline;
   private final Object futureLock = new Object();
-  private final Runnable consumerRunnable;
+  private final Set<Future<?>> pullFutures = new HashSet<>();
   private final NextPullPolicy pullPolicy;
   private boolean closed;
-  private Future<?> scheduledFuture;
-  private PullFuture pullerFuture;
+  // number of pulls either scheduled or in flight
+  private int activePulls;
+  // number of messages requested by pulls in flight
+  private int requestedMessages;
+  // moving average of the size of pulled messages, 0 if no message was pulled yet
+  private long averageMessageBytes;
 
   /**
    * Interface for policies according to which the consumer should pull messages.
    */
   interface NextPullPolicy {
 
-    boolean shouldPull(int queuedCallbacks);
+    boolean shouldPull(int queuedCallbacks, long queuedBytes);
   }
 
   /**
    * Default pull policy. The consumer will pull again once {@code nextPullThreshold} messages out
-   * of {@code maxQueuedCallbacks} have been processed.
+   * of {@code maxQueuedCallbacks} have been processed and, if {@code maxQueuedBytes} is not
+   * {@code null}, once at least half of {@code maxQueuedBytes} is available.
    */
   static class DefaultNextPullPolicy implements NextPullPolicy {
 
     final int maxQueuedCallbacks;
     final int nextPullThreshold;
+    final Long maxQueuedBytes;
 
-    DefaultNextPullPolicy(int maxQueuedCallbacks, int nextPullThreshold) {
+    DefaultNextPullPolicy(int maxQueuedCallbacks, int nextPullThreshold, Long maxQueuedBytes) {
       this.maxQueuedCallbacks = maxQueuedCallbacks;
       this.nextPullThreshold = nextPullThreshold;
+      this.maxQueuedBytes = maxQueuedBytes;
     }
 
     @Override
-    public boolean shouldPull(int queuedCallbacks) {
-      return (maxQueuedCallbacks - queuedCallbacks) >= nextPullThreshold;
+    public boolean shouldPull(int queuedCallbacks, long queuedBytes) {
+      return (maxQueuedCallbacks - queuedCallbacks) >= nextPullThreshold
+          && (maxQueuedBytes == null || (maxQueuedBytes - queuedBytes) >= maxQueuedBytes / 2);
     }
   }
 
   /**
    * Default executor factory for the message processor executor. By default a single-threaded
-   * executor is used.
+   * executor is used. If messages are processed in order of key, a thread per available processor
+   * is used.
    */
   static class DefaultExecutorFactory implements ExecutorFactory<ExecutorService> {
 
-    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final ExecutorService executor;
+
+    DefaultExecutorFactory() {
+      this(1);
+    }
+
+    DefaultExecutorFactory(int threads) {
+      executor = threads == 1 ? Executors.newSingleThreadExecutor()
+          : Executors.newFixedThreadPool(threads);
+    }
 
     @Override
     public ExecutorService get() {
@@ -124,54 +169,80 @@ final class MessageConsumerImpl implements MessageConsumer {
 
   class ConsumerRunnable implements Runnable {
 
+    private Future<?> scheduledFuture;
+
     @Override
     public void run() {
-      if (closed) {
-        return;
+      final PullFuture pullFuture;
+      final int maxMessages;
+      synchronized (futureLock) {
+        pullFutures.remove(scheduledFuture);
+        if (closed) {
+          return;
+        }
+        // Pulls in flight may have already requested all available room
+        maxMessages = Math.min(pullSize, availableMessages());
+        if (maxMessages <= 0) {
+          activePulls--;
+          return;
+        }
+        requestedMessages += maxMessages;
+        pullFuture = pubsubRpc.pull(createPullRequest(maxMessages));
+        pullFutures.add(pullFuture);
       }
-      pullerFuture = pubsubRpc.pull(createPullRequest());
-      pullerFuture.addCallback(new PullCallback() {
+      pullFuture.addCallback(new PullCallback() {
         @Override
         public void success(PullResponse response) {
           List<com.google.pubsub.v1.ReceivedMessage> messages = response.getReceivedMessagesList();
+          int[] sizes = new int[messages.size()];
+          long bytes = 0;
+          for (int i = 0; i < sizes.length; i++) {
+            sizes[i] = messages.get(i).getMessage().getSerializedSize();
+            bytes += sizes[i];
+          }
           queuedCallbacks.addAndGet(messages.size());
-          for (com.google.pubsub.v1.ReceivedMessage message : messages) {
+          queuedBytes.addAndGet(bytes);
+          updateAverageMessageBytes(messages.size(), bytes);
+          for (int i = 0; i < sizes.length; i++) {
+            com.google.pubsub.v1.ReceivedMessage message = messages.get(i);
             deadlineRenewer.add(subscription, message.getAckId());
             ReceivedMessage receivedMessage = ReceivedMessage.fromPb(pubsub, subscription, message);
-            executor.execute(ackingRunnable(receivedMessage));
+            execute(receivedMessage, ackingRunnable(receivedMessage, sizes[i]));
           }
-          nextPull();
+          nextPull(pullFuture, maxMessages, true);
         }
 
         @Override
         public void failure(Throwable error) {
-          if (!(error instanceof CancellationException)) {
-            nextPull();
-          }
+          nextPull(pullFuture, maxMessages, !(error instanceof CancellationException));
         }
       });
     }
 
-    private PullRequest createPullRequest() {
+    private PullRequest createPullRequest(int maxMessages) {
       return PullRequest.newBuilder()
           .setSubscription(formatSubscriptionName(pubsubOptions.projectId(), subscription))
-          .setMaxMessages(maxQueuedCallbacks - queuedCallbacks.get())
+          .setMaxMessages(maxMessages)
           .setReturnImmediately(false)
           .build();
     }
 
-    private Runnable ackingRunnable(final ReceivedMessage receivedMessage) {
+    private Runnable ackingRunnable(final ReceivedMessage receivedMessage, final int size) {
       return new Runnable() {
         @Override
         public void run() {
           try {
-            messageProcessor.process(receivedMessage);
-            pubsub.ackAsync(receivedMessage.subscription(), receivedMessage.ackId());
+            process(receivedMessage);
+            ack(receivedMessage);
           } catch (Exception ex) {
-            pubsub.nackAsync(receivedMessage.subscription(), receivedMessage.ackId());
+            nack(receivedMessage);
           } finally {
-            deadlineRenewer.remove(receivedMessage.subscription(), receivedMessage.ackId());
+            if (ackBundler == null) {
+              // The ack bundler removes ack ids from the renewer once they are sent
+              deadlineRenewer.remove(receivedMessage.subscription(), receivedMessage.ackId());
+            }
             queuedCallbacks.decrementAndGet();
+            queuedBytes.addAndGet(-size);
             // We can now pull more messages, according to the next pull policy.
             pullIfNeeded();
           }
@@ -180,6 +251,43 @@ final class MessageConsumerImpl implements MessageConsumer {
     }
   }
 
+  private void execute(ReceivedMessage receivedMessage, Runnable runnable) {
+    if (keyedExecutor != null) {
+      keyedExecutor.execute(receivedMessage.attributes().get(orderingKeyAttribute), runnable);
+    } else {
+      executor.execute(runnable);
+    }
+  }
+
+  private void process(ReceivedMessage receivedMessage) throws Exception {
+    if (!adaptiveAckDeadline) {
+      messageProcessor.process(receivedMessage);
+      return;
+    }
+    Stopwatch stopwatch = Stopwatch.createStarted();
+    try {
+      messageProcessor.process(receivedMessage);
+    } finally {
+      deadlineRenewer.recordProcessingTime(subscription, stopwatch.elapsed(TimeUnit.MILLISECONDS));
+    }
+  }
+
+  private void ack(ReceivedMessage receivedMessage) {
+    if (ackBundler != null) {
+      ackBundler.ack(receivedMessage.subscription(), receivedMessage.ackId());
+    } else {
+      pubsub.ackAsync(receivedMessage.subscription(), receivedMessage.ackId());
+    }
+  }
+
+  private void nack(ReceivedMessage receivedMessage) {
+    if (ackBundler != null) {
+      ackBundler.nack(receivedMessage.subscription(), receivedMessage.ackId());
+    } else {
+      pubsub.nackAsync(receivedMessage.subscription(), receivedMessage.ackId());
+    }
+  }
+
   private MessageConsumerImpl(Builder builder) {
     this.pubsubOptions = builder.pubsubOptions;
     this.subscription = builder.subscription;
@@ -187,54 +295,139 @@ final class MessageConsumerImpl implements MessageConsumer {
     this.pubsubRpc = pubsubOptions.rpc();
     this.pubsub = pubsubOptions.service();
     this.deadlineRenewer = builder.deadlineRenewer;
+    this.ackBundler = builder.ackBundler;
     this.queuedCallbacks = new AtomicInteger();
+    this.queuedBytes = new AtomicLong();
     this.consumerExecutor = SharedResourceHolder.get(CONSUMER_EXECUTOR);
-    this.executorFactory =
-        builder.executorFactory != null ? builder.executorFactory : new DefaultExecutorFactory();
+    this.orderingKeyAttribute = builder.orderingKeyAttribute;
+    if (builder.executorFactory != null) {
+      this.executorFactory = builder.executorFactory;
+    } else {
+      // Messages with different keys are processed in parallel
+      int threads = orderingKeyAttribute != null ? PROCESSORS : 1;
+      this.executorFactory = new DefaultExecutorFactory(threads);
+    }
     this.executor = executorFactory.get();
+    this.keyedExecutor = orderingKeyAttribute != null
+        ? new KeyedExecutor(executor, LANES_PER_THREAD * PROCESSORS) : null;
     this.maxQueuedCallbacks = firstNonNull(builder.maxQueuedCallbacks, MAX_QUEUED_CALLBACKS);
-    this.consumerRunnable = new ConsumerRunnable();
+    this.maxConcurrentPulls = firstNonNull(builder.maxConcurrentPulls, MAX_CONCURRENT_PULLS);
+    // Room for queued callbacks is split evenly among concurrent pulls
+    this.pullSize = (maxQueuedCallbacks + maxConcurrentPulls - 1) / maxConcurrentPulls;
+    this.adaptiveAckDeadline = firstNonNull(builder.adaptiveAckDeadline, false);
     int nextPullThreshold = builder.nextPullThreshold != null ? builder.nextPullThreshold
         : this.maxQueuedCallbacks / 2;
-    this.pullPolicy = new DefaultNextPullPolicy(maxQueuedCallbacks, nextPullThreshold);
-    nextPull();
+    this.maxQueuedBytes = builder.maxQueuedBytes;
+    this.pullPolicy =
+        new DefaultNextPullPolicy(maxQueuedCallbacks, nextPullThreshold, maxQueuedBytes);
+    synchronized (futureLock) {
+      schedulePulls(true);
+    }
   }
 
-  private void pullIfNeeded() {
-    synchronized (futureLock) {
-      if (closed || scheduledFuture != null || !pullPolicy.shouldPull(queuedCallbacks.get())) {
+  /**
+   * Schedules pulls until {@code maxConcurrentPulls} pulls are active or there is no more room for
+   * queued callbacks. If no pull is active, a pull is scheduled only if {@code afterPull} is
+   * {@code true} or the next pull policy allows it. Additional concurrent pulls are scheduled only
+   * if there is room for a full share of messages. Must be called holding {@code futureLock}.
+   */
+  private void schedulePulls(boolean afterPull) {
+    while (!closed && activePulls < maxConcurrentPulls) {
+      int available = availableMessages();
+      if (available <= 0) {
+        return;
+      }
+      // If no pull is active no message is requested
+      if (activePulls == 0 ? !afterPull && !pullPolicy.shouldPull(queuedCallbacks.get(),
+          queuedBytes.get()) : available < pullSize) {
         return;
       }
-      scheduledFuture = consumerExecutor.submit(consumerRunnable);
+      ConsumerRunnable consumerRunnable = new ConsumerRunnable();
+      activePulls++;
+      consumerRunnable.scheduledFuture = consumerExecutor.submit(consumerRunnable);
+      pullFutures.add(consumerRunnable.scheduledFuture);
+      afterPull = false;
+    }
+  }
+
+  /**
+   * Returns the number of messages that can be requested without exceeding
+   * {@code maxQueuedCallbacks} and, if set, {@code maxQueuedBytes}. The number of messages that fit
+   * in the available bytes is estimated using the average size of pulled messages. Until a message
+   * is pulled the size of messages is unknown and at most one message is requested. A message is
+   * always allowed if no message is queued or requested, regardless of its size. Must be called
+   * holding {@code futureLock}.
+   */
+  private int availableMessages() {
+    int queued = queuedCallbacks.get() + requestedMessages;
+    int available = maxQueuedCallbacks - queued;
+    if (maxQueuedBytes == null || available <= 0) {
+      return available;
+    }
+    long availableBytes = maxQueuedBytes - queuedBytes.get();
+    int fitting;
+    if (averageMessageBytes == 0) {
+      fitting = requestedMessages == 0 && availableBytes > 0 ? 1 : 0;
+    } else {
+      availableBytes -= requestedMessages * averageMessageBytes;
+      fitting =
+          (int) Math.min(Integer.MAX_VALUE, Math.max(0, availableBytes / averageMessageBytes));
+    }
+    if (queued == 0) {
+      fitting = Math.max(fitting, 1);
     }
+    return Math.min(available, fitting);
   }
 
-  private void nextPull() {
+  private void updateAverageMessageBytes(int messages, long bytes) {
+    if (messages == 0) {
+      return;
+    }
     synchronized (futureLock) {
-      if (closed || queuedCallbacks.get() == maxQueuedCallbacks) {
-        scheduledFuture = null;
-        return;
+      long average = Math.max(1, bytes / messages);
+      // Exponential moving average, weighting the last pull 1/4
+      averageMessageBytes =
+          averageMessageBytes == 0 ? average : (3 * averageMessageBytes + average) / 4;
+    }
+  }
+
+  private void pullIfNeeded() {
+    synchronized (futureLock) {
+      schedulePulls(false);
+    }
+  }
+
+  private void nextPull(PullFuture pullFuture, int maxMessages, boolean pullAgain) {
+    synchronized (futureLock) {
+      pullFutures.remove(pullFuture);
+      activePulls--;
+      requestedMessages -= maxMessages;
+      if (pullAgain) {
+        schedulePulls(true);
       }
-      scheduledFuture = consumerExecutor.submit(consumerRunnable);
     }
   }
 
   @Override
   public void close() {
+    List<Future<?>> futuresToCancel;
     synchronized (futureLock) {
       if (closed) {
         return;
       }
       closed = true;
-      if (scheduledFuture != null) {
-        scheduledFuture.cancel(true);
-      }
-      if (pullerFuture != null) {
-        pullerFuture.cancel(true);
-      }
+      futuresToCancel = new ArrayList<>(pullFutures);
+      pullFutures.clear();
+    }
+    // Cancelled pulls complete their callbacks synchronously, which acquire futureLock
+    for (Future<?> future : futuresToCancel) {
+      future.cancel(true);
     }
     SharedResourceHolder.release(CONSUMER_EXECUTOR, consumerExecutor);
     executorFactory.release(executor);
+    if (ackBundler != null) {
+      ackBundler.flush(subscription);
+    }
   }
 
   static final class Builder {
@@ -242,7 +435,12 @@ final class MessageConsumerImpl implements MessageConsumer {
     private final String subscription;
     private final AckDeadlineRenewer deadlineRenewer;
     private final MessageProcessor messageProcessor;
+    private AckBundler ackBundler;
     private Integer maxQueuedCallbacks;
+    private Long maxQueuedBytes;
+    private Integer maxConcurrentPulls;
+    private Boolean adaptiveAckDeadline;
+    private String orderingKeyAttribute;
     private ExecutorFactory<ExecutorService> executorFactory;
     private Integer nextPullThreshold;
 
@@ -262,6 +460,51 @@ final class MessageConsumerImpl implements MessageConsumer {
       return this;
     }
 
+    /**
+     * Sets the maximum serialized size, in bytes, of the messages either being processed or
+     * waiting to be processed. If {@code null}, only the number of queued messages is limited.
+     */
+    Builder maxQueuedBytes(Long maxQueuedBytes) {
+      this.maxQueuedBytes = maxQueuedBytes;
+      return this;
+    }
+
+    /**
+     * Sets the maximum number of pull requests in flight at any time.
+     */
+    Builder maxConcurrentPulls(Integer maxConcurrentPulls) {
+      this.maxConcurrentPulls = maxConcurrentPulls;
+      return this;
+    }
+
+    /**
+     * Sets whether processing times should be recorded in the ack deadline renewer, so that ack
+     * deadlines are extended according to the observed processing times.
+     */
+    Builder adaptiveAckDeadline(Boolean adaptiveAckDeadline) {
+      this.adaptiveAckDeadline = adaptiveAckDeadline;
+      return this;
+    }
+
+    /**
+     * Sets the name of the message attribute whose value is used as ordering key. If set, messages
+     * with the same ordering key are processed one at a time and in the order they were pulled,
+     * while messages with different ordering keys can be processed in parallel.
+     */
+    Builder orderingKeyAttribute(String orderingKeyAttribute) {
+      this.orderingKeyAttribute = orderingKeyAttribute;
+      return this;
+    }
+
+    /**
+     * Sets the acknowledge bundler, used to send acks and nacks in bundles. If not set, each
+     * processed message is acked or nacked with a separate request.
+     */
+    Builder ackBundler(AckBundler ackBundler) {
+      this.ackBundler = ackBundler;
+      return this;
+    }
+
     /**
      * Sets the executor factory, used to manage the executor that will run message processor
      * callbacks message consumer.
@@ -16,6 +16,9 @@
 
 package com.google.cloud.pubsub;
 
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
 import com.google.cloud.AsyncPage;
 import com.google.cloud.GrpcServiceOptions.ExecutorFactory;
 import com.google.cloud.Page;
@@ -87,7 +90,11 @@ public interface PubSub extends AutoCloseable, Service<PubSubOptions> {
 
     enum OptionType implements Option.OptionType {
       EXECUTOR_FACTORY,
-      MAX_QUEUED_CALLBACKS;
+      MAX_QUEUED_CALLBACKS,
+      MAX_QUEUED_BYTES,
+      MAX_CONCURRENT_PULLS,
+      ADAPTIVE_ACK_DEADLINE,
+      ORDERING_KEY_ATTRIBUTE;
 
       @SuppressWarnings("unchecked")
       <T> T get(Map<Option.OptionType, ?> options) {
@@ -98,6 +105,18 @@ public interface PubSub extends AutoCloseable, Service<PubSubOptions> {
         return get(options);
       }
 
+      Long getLong(Map<Option.OptionType, ?> options) {
+        return get(options);
+      }
+
+      Boolean getBoolean(Map<Option.OptionType, ?> options) {
+        return get(options);
+      }
+
+      String getString(Map<Option.OptionType, ?> options) {
+        return get(options);
+      }
+
       ExecutorFactory<ExecutorService> getExecutorFactory(Map<Option.OptionType, ?> options) {
         return get(options);
       }
@@ -118,6 +137,65 @@ public interface PubSub extends AutoCloseable, Service<PubSubOptions> {
       return new PullOption(OptionType.MAX_QUEUED_CALLBACKS, maxQueuedCallbacks);
     }
 
+    /**
+     * Returns an option to specify the maximum serialized size, in bytes, of the messages that can
+     * be queued in the message consumer at any time. This limit applies in addition to the one on
+     * the number of queued messages (see {@link #maxQueuedCallbacks(int)}). As the size of
+     * messages is only known once they are pulled, the number of messages requested by each pull
+     * is estimated from the average size of previously pulled messages, and no pull is sent while
+     * the limit is exceeded. A single message larger than the limit is still pulled when no other
+     * message is queued. If not provided, only the number of queued messages is limited.
+     */
+    public static PullOption maxQueuedBytes(long maxQueuedBytes) {
+      checkArgument(maxQueuedBytes > 0, "maxQueuedBytes must be > 0");
+      return new PullOption(OptionType.MAX_QUEUED_BYTES, maxQueuedBytes);
+    }
+
+    /**
+     * Returns an option to specify the maximum number of pull requests the message consumer can
+     * have in flight at any time. Room for queued messages (see
+     * {@link #maxQueuedCallbacks(int)}) is split evenly among concurrent pulls. Using more than one
+     * concurrent pull increases throughput when the pull round trip, rather than message
+     * processing, is the bottleneck. If not provided, at most one pull request is in flight.
+     */
+    public static PullOption maxConcurrentPulls(int maxConcurrentPulls) {
+      checkArgument(maxConcurrentPulls > 0, "maxConcurrentPulls must be > 0");
+      return new PullOption(OptionType.MAX_CONCURRENT_PULLS, maxConcurrentPulls);
+    }
+
+    /**
+     * Returns an option to specify whether ack deadlines of pulled messages should be extended
+     * according to the observed processing time. If {@code true}, the message consumer records the
+     * time taken by {@link MessageProcessor#process(Message)} and the acknowledge deadline of
+     * messages being processed is extended by the 99th percentile of the recorded times (up to 10
+     * minutes) rather than by 10 seconds, which reduces the number of ack deadline renewal requests
+     * for long-running processors. If not provided, ack deadlines are extended by 10 seconds.
+     *
+     * @see PubSub#savedAckDeadlineRenewals()
+     */
+    public static PullOption adaptiveAckDeadline(boolean adaptiveAckDeadline) {
+      return new PullOption(OptionType.ADAPTIVE_ACK_DEADLINE, adaptiveAckDeadline);
+    }
+
+    /**
+     * Returns an option to specify the name of a message attribute whose value is used as
+     * ordering key. Messages with the same ordering key are processed one at a time and in the
+     * order they were pulled, while messages with different ordering keys can be processed in
+     * parallel by the executor (see {@link #executorFactory(ExecutorFactory)}). Messages that do
+     * not have the attribute are processed with no ordering guarantee. If this option is provided
+     * and no executor is provided, message processor callbacks are executed by a thread pool with
+     * a thread per available processor.
+     *
+     * <p>Ordering only applies to the messages pulled by the same message consumer, in the order
+     * they were delivered. Messages that are nacked or whose ack deadline expires can be
+     * redelivered out of order.
+     *
+     * @param attribute the name of the attribute holding the ordering key
+     */
+    public static PullOption orderingKeyAttribute(String attribute) {
+      return new PullOption(OptionType.ORDERING_KEY_ATTRIBUTE, checkNotNull(attribute));
+    }
+
     /**
      * Returns an option to specify the executor used to execute message processor callbacks. The
      * executor determines the number of messages that can be processed at the same time. If not
@@ -301,6 +379,32 @@ public interface PubSub extends AutoCloseable, Service<PubSubOptions> {
    */
   Future<List<String>> publishAsync(String topic, Iterable<Message> messages);
 
+  /**
+   * Returns the number of published messages whose publish request has not completed yet,
+   * including messages held in a client-side bundle.
+   *
+   * @see PubSubOptions.Builder#publishFlowControlSettings(PublishFlowControlSettings)
+   */
+  int outstandingPublishedMessages();
+
+  /**
+   * Returns the serialized size, in bytes, of published messages whose publish request has not
+   * completed yet, including messages held in a client-side bundle.
+   *
+   * @see PubSubOptions.Builder#publishFlowControlSettings(PublishFlowControlSettings)
+   */
+  long outstandingPublishedBytes();
+
+  /**
+   * Returns an upper-bound estimate of the number of ack deadline renewal requests saved by
+   * extending ack deadlines according to the observed processing time, with respect to extending
+   * them by 10 seconds at every renewal. Savings are counted at renewal time, as if messages were
+   * acknowledged only at their extended deadline.
+   *
+   * @see PullOption#adaptiveAckDeadline(boolean)
+   */
+  long savedAckDeadlineRenewals();
+
   /**
    * Creates a new subscription.
    *
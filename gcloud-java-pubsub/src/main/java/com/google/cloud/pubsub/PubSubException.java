@@ -20,6 +20,7 @@ import com.google.api.gax.grpc.ApiException;
 import com.google.cloud.BaseServiceException;
 
 import java.io.IOException;
+import java.util.Collections;
 import java.util.Set;
 
 /**
@@ -39,8 +40,12 @@ public final class PubSubException extends BaseServiceException {
     super(apiException, idempotent);
   }
 
+  public PubSubException(int code, String message, String reason, boolean idempotent) {
+    super(code, message, reason, idempotent);
+  }
+
   @Override
   protected Set<Error> retryableErrors() {
-    return null;
+    return Collections.emptySet();
   }
 }
@@ -18,8 +18,12 @@ package com.google.cloud.pubsub;
 
 import static com.google.cloud.pubsub.PubSub.ListOption.OptionType.PAGE_SIZE;
 import static com.google.cloud.pubsub.PubSub.ListOption.OptionType.PAGE_TOKEN;
+import static com.google.cloud.pubsub.PubSub.PullOption.OptionType.ADAPTIVE_ACK_DEADLINE;
 import static com.google.cloud.pubsub.PubSub.PullOption.OptionType.EXECUTOR_FACTORY;
+import static com.google.cloud.pubsub.PubSub.PullOption.OptionType.MAX_CONCURRENT_PULLS;
+import static com.google.cloud.pubsub.PubSub.PullOption.OptionType.MAX_QUEUED_BYTES;
 import static com.google.cloud.pubsub.PubSub.PullOption.OptionType.MAX_QUEUED_CALLBACKS;
+import static com.google.cloud.pubsub.PubSub.PullOption.OptionType.ORDERING_KEY_ATTRIBUTE;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.util.concurrent.Futures.lazyTransform;
 
@@ -40,6 +44,10 @@ import com.google.common.collect.Iterables;
 import com.google.common.collect.Iterators;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.JdkFutureAdapters;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
 import com.google.common.util.concurrent.Uninterruptibles;
 import com.google.protobuf.Empty;
 import com.google.pubsub.v1.AcknowledgeRequest;
@@ -57,9 +65,11 @@ import com.google.pubsub.v1.ModifyAckDeadlineRequest;
 import com.google.pubsub.v1.ModifyPushConfigRequest;
 import com.google.pubsub.v1.PublishRequest;
 import com.google.pubsub.v1.PublishResponse;
+import com.google.pubsub.v1.PubsubMessage;
 import com.google.pubsub.v1.PullRequest;
 import com.google.pubsub.v1.PullResponse;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
@@ -72,6 +82,9 @@ class PubSubImpl extends BaseService<PubSubOptions> implements PubSub {
 
   private final PubSubRpc rpc;
   private final AckDeadlineRenewer ackDeadlineRenewer;
+  private final AckBundler ackBundler;
+  private final FlowController publishFlowController;
+  private final PublishBundler publishBundler;
   private boolean closed;
 
   private static final Function<Empty, Void> EMPTY_TO_VOID_FUNCTION = new Function<Empty, Void>() {
@@ -99,13 +112,44 @@ class PubSubImpl extends BaseService<PubSubOptions> implements PubSub {
     super(options);
     rpc = options.rpc();
     ackDeadlineRenewer = new AckDeadlineRenewer(this);
+    ackBundler = ackBundler(options, ackDeadlineRenewer);
+    publishFlowController = publishFlowController(options);
+    publishBundler = publishBundler(options, publishFlowController);
   }
 
   @VisibleForTesting
   PubSubImpl(PubSubOptions options, AckDeadlineRenewer ackDeadlineRenewer) {
+    this(options, ackDeadlineRenewer, null);
+  }
+
+  @VisibleForTesting
+  PubSubImpl(PubSubOptions options, AckDeadlineRenewer ackDeadlineRenewer,
+      AckBundler ackBundler) {
     super(options);
     rpc = options.rpc();
     this.ackDeadlineRenewer = ackDeadlineRenewer;
+    this.ackBundler = ackBundler;
+    publishFlowController = publishFlowController(options);
+    publishBundler = publishBundler(options, publishFlowController);
+  }
+
+  private static FlowController publishFlowController(PubSubOptions options) {
+    PublishFlowControlSettings settings = options.publishFlowControlSettings();
+    // Outstanding messages are counted even if no limit is set
+    return settings != null ? new FlowController(settings)
+        : new FlowController(null, null, PublishFlowControlSettings.LimitExceededBehavior.BLOCK);
+  }
+
+  private static AckBundler ackBundler(PubSubOptions options,
+      AckDeadlineRenewer ackDeadlineRenewer) {
+    AckBundlingSettings settings = options.ackBundlingSettings();
+    return settings != null ? new AckBundler(options, settings, ackDeadlineRenewer) : null;
+  }
+
+  private static PublishBundler publishBundler(PubSubOptions options,
+      FlowController flowController) {
+    PublishBundlingSettings settings = options.publishBundlingSettings();
+    return settings != null ? new PublishBundler(options, settings, flowController) : null;
   }
 
   private abstract static class BasePageFetcher<T> implements AsyncPageImpl.NextPageFetcher<T> {
@@ -279,10 +323,39 @@ class PubSubImpl extends BaseService<PubSubOptions> implements PubSub {
     return builder.build();
   }
 
+  private Future<PublishResponse> publish(PublishRequest request) {
+    final int messageCount = request.getMessagesCount();
+    long size = 0;
+    for (PubsubMessage message : request.getMessagesList()) {
+      size += message.getSerializedSize();
+    }
+    final long bytes = size;
+    if (!publishFlowController.reserve(messageCount, bytes)) {
+      return Futures.immediateFailedFuture(FlowController.limitExceededException());
+    }
+    ListenableFuture<PublishResponse> response;
+    try {
+      response = JdkFutureAdapters.listenInPoolThread(rpc.publish(request));
+    } catch (RuntimeException ex) {
+      publishFlowController.release(messageCount, bytes);
+      throw ex;
+    }
+    response.addListener(new Runnable() {
+      @Override
+      public void run() {
+        publishFlowController.release(messageCount, bytes);
+      }
+    }, MoreExecutors.directExecutor());
+    return response;
+  }
+
   @Override
   public Future<String> publishAsync(String topic, Message message) {
+    if (publishBundler != null) {
+      return publishBundler.publish(topic, message);
+    }
     return lazyTransform(
-        rpc.publish(publishRequest(options(), topic, Collections.singletonList(message))),
+        publish(publishRequest(options(), topic, Collections.singletonList(message))),
         new Function<PublishResponse, String>() {
           @Override
           public String apply(PublishResponse publishResponse) {
@@ -308,7 +381,14 @@ class PubSubImpl extends BaseService<PubSubOptions> implements PubSub {
 
   @Override
   public Future<List<String>> publishAsync(String topic, Iterable<Message> messages) {
-    return lazyTransform(rpc.publish(publishRequest(options(), topic, messages)),
+    if (publishBundler != null) {
+      List<ListenableFuture<String>> messageIds = new ArrayList<>();
+      for (Message message : messages) {
+        messageIds.add(publishBundler.publish(topic, message));
+      }
+      return Futures.allAsList(messageIds);
+    }
+    return lazyTransform(publish(publishRequest(options(), topic, messages)),
         new Function<PublishResponse, List<String>>() {
           @Override
           public List<String> apply(PublishResponse publishResponse) {
@@ -317,6 +397,21 @@ class PubSubImpl extends BaseService<PubSubOptions> implements PubSub {
         });
   }
 
+  @Override
+  public int outstandingPublishedMessages() {
+    return publishFlowController.outstandingMessages();
+  }
+
+  @Override
+  public long outstandingPublishedBytes() {
+    return publishFlowController.outstandingBytes();
+  }
+
+  @Override
+  public long savedAckDeadlineRenewals() {
+    return ackDeadlineRenewer.savedRenewals();
+  }
+
   @Override
   public Subscription create(SubscriptionInfo subscription) {
     return get(createAsync(subscription));
@@ -515,7 +610,12 @@ class PubSubImpl extends BaseService<PubSubOptions> implements PubSub {
     Map<Option.OptionType, ?> optionMap = optionMap(options);
     return MessageConsumerImpl.builder(options(), subscription, ackDeadlineRenewer, callback)
         .maxQueuedCallbacks(MAX_QUEUED_CALLBACKS.getInteger(optionMap))
+        .maxQueuedBytes(MAX_QUEUED_BYTES.getLong(optionMap))
+        .maxConcurrentPulls(MAX_CONCURRENT_PULLS.getInteger(optionMap))
+        .adaptiveAckDeadline(ADAPTIVE_ACK_DEADLINE.getBoolean(optionMap))
+        .orderingKeyAttribute(ORDERING_KEY_ATTRIBUTE.getString(optionMap))
         .executorFactory(EXECUTOR_FACTORY.getExecutorFactory(optionMap))
+        .ackBundler(ackBundler)
         .build();
   }
 
@@ -607,6 +707,12 @@ class PubSubImpl extends BaseService<PubSubOptions> implements PubSub {
       return;
     }
     closed = true;
+    if (publishBundler != null) {
+      publishBundler.close();
+    }
+    if (ackBundler != null) {
+      ackBundler.close();
+    }
     rpc.close();
     if (ackDeadlineRenewer != null) {
       ackDeadlineRenewer.close();
@@ -23,6 +23,7 @@ import com.google.cloud.pubsub.spi.PubSubRpcFactory;
 import com.google.common.collect.ImmutableSet;
 
 import java.io.IOException;
+import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.ScheduledExecutorService;
 
@@ -33,6 +34,10 @@ public class PubSubOptions extends GrpcServiceOptions<PubSub, PubSubRpc, PubSubO
   private static final Set<String> SCOPES = ImmutableSet.of(PUBSUB_SCOPE);
   private static final String DEFAULT_HOST = "pubsub.googleapis.com";
 
+  private final PublishBundlingSettings publishBundlingSettings;
+  private final PublishFlowControlSettings publishFlowControlSettings;
+  private final AckBundlingSettings ackBundlingSettings;
+
   public static class DefaultPubSubFactory implements PubSubFactory {
     private static final PubSubFactory INSTANCE = new DefaultPubSubFactory();
 
@@ -70,10 +75,53 @@ public class PubSubOptions extends GrpcServiceOptions<PubSub, PubSubRpc, PubSubO
   public static class Builder extends
       GrpcServiceOptions.Builder<PubSub, PubSubRpc, PubSubOptions, Builder> {
 
+    private PublishBundlingSettings publishBundlingSettings;
+    private PublishFlowControlSettings publishFlowControlSettings;
+    private AckBundlingSettings ackBundlingSettings;
+
     private Builder() {}
 
     private Builder(PubSubOptions options) {
       super(options);
+      publishBundlingSettings = options.publishBundlingSettings;
+      publishFlowControlSettings = options.publishFlowControlSettings;
+      ackBundlingSettings = options.ackBundlingSettings;
+    }
+
+    /**
+     * Enables client-side bundling of published messages, with the provided settings. By default
+     * bundling is disabled and every call to {@link PubSub#publishAsync(String, Message)} sends a
+     * publish request.
+     *
+     * @see PublishBundlingSettings
+     */
+    public Builder publishBundlingSettings(PublishBundlingSettings publishBundlingSettings) {
+      this.publishBundlingSettings = publishBundlingSettings;
+      return this;
+    }
+
+    /**
+     * Enables flow control of published messages, with the provided settings. By default the
+     * number and the size of outstanding published messages are not limited.
+     *
+     * @see PublishFlowControlSettings
+     */
+    public Builder publishFlowControlSettings(
+        PublishFlowControlSettings publishFlowControlSettings) {
+      this.publishFlowControlSettings = publishFlowControlSettings;
+      return this;
+    }
+
+    /**
+     * Enables client-side bundling of the acks and nacks sent by message consumers, with the
+     * provided settings. By default bundling is disabled and message consumers send an ack or nack
+     * request as soon as a message is processed.
+     *
+     * @see AckBundlingSettings
+     */
+    public Builder ackBundlingSettings(AckBundlingSettings ackBundlingSettings) {
+      this.ackBundlingSettings = ackBundlingSettings;
+      return this;
     }
 
     @Override
@@ -84,6 +132,33 @@ public class PubSubOptions extends GrpcServiceOptions<PubSub, PubSubRpc, PubSubO
 
   protected PubSubOptions(Builder builder) {
     super(PubSubFactory.class, PubSubRpcFactory.class, builder);
+    publishBundlingSettings = builder.publishBundlingSettings;
+    publishFlowControlSettings = builder.publishFlowControlSettings;
+    ackBundlingSettings = builder.ackBundlingSettings;
+  }
+
+  /**
+   * Returns the settings for client-side bundling of published messages or {@code null} if
+   * bundling is disabled.
+   */
+  public PublishBundlingSettings publishBundlingSettings() {
+    return publishBundlingSettings;
+  }
+
+  /**
+   * Returns the settings for flow control of published messages or {@code null} if flow control
+   * is disabled.
+   */
+  public PublishFlowControlSettings publishFlowControlSettings() {
+    return publishFlowControlSettings;
+  }
+
+  /**
+   * Returns the settings for client-side bundling of the acks and nacks sent by message consumers
+   * or {@code null} if bundling is disabled.
+   */
+  public AckBundlingSettings ackBundlingSettings() {
+    return ackBundlingSettings;
   }
 
   @Override
@@ -108,12 +183,20 @@ public class PubSubOptions extends GrpcServiceOptions<PubSub, PubSubRpc, PubSubO
 
   @Override
   public boolean equals(Object obj) {
-    return obj instanceof PubSubOptions && baseEquals((PubSubOptions) obj);
+    if (!(obj instanceof PubSubOptions)) {
+      return false;
+    }
+    PubSubOptions other = (PubSubOptions) obj;
+    return baseEquals(other)
+        && Objects.equals(publishBundlingSettings, other.publishBundlingSettings)
+        && Objects.equals(publishFlowControlSettings, other.publishFlowControlSettings)
+        && Objects.equals(ackBundlingSettings, other.ackBundlingSettings);
   }
 
   @Override
   public int hashCode() {
-    return baseHashCode();
+    return Objects.hash(baseHashCode(), publishBundlingSettings, publishFlowControlSettings,
+        ackBundlingSettings);
   }
 
   @Override
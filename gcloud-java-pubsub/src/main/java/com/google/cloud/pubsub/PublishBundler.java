@@ -0,0 +1,157 @@
+/*
+ * Copyright 2016 Google Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.pubsub;
+
+import com.google.cloud.pubsub.spi.PubSubRpc;
+import com.google.cloud.pubsub.spi.v1.PublisherApi;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.JdkFutureAdapters;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import com.google.pubsub.v1.PublishRequest;
+import com.google.pubsub.v1.PublishResponse;
+import com.google.pubsub.v1.PubsubMessage;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.Future;
+
+/**
+ * Class for a client-side publish bundler. A publish bundler accumulates messages published to the
+ * same topic (via {@link #publish(String, Message)}) and sends them in a single publish request
+ * once one of the thresholds in {@link PublishBundlingSettings} is reached. Message ids returned
+ * by the service are then dispatched to the future of each bundled message.
+ */
+class PublishBundler extends Bundler<String, PublishBundler.Bundle> {
+
+  private final PubSubRpc rpc;
+  private final String projectId;
+  private final PublishBundlingSettings settings;
+  private final FlowController flowController;
+
+  /**
+   * This class holds the messages bundled for a topic and their futures.
+   */
+  static final class Bundle extends Bundler.Bundle<String> {
+
+    private final List<PubsubMessage> messages = new ArrayList<>();
+    private final List<SettableFuture<String>> futures = new ArrayList<>();
+    private long bytes;
+
+    Bundle(String topic) {
+      super(topic);
+    }
+
+    void add(PubsubMessage message, int size, SettableFuture<String> future) {
+      messages.add(message);
+      futures.add(future);
+      bytes += size;
+    }
+  }
+
+  PublishBundler(PubSubOptions options, PublishBundlingSettings settings,
+      FlowController flowController) {
+    super(options, settings.delayThresholdMillis());
+    this.rpc = options.rpc();
+    this.projectId = options.projectId();
+    this.settings = settings;
+    this.flowController = flowController;
+  }
+
+  /**
+   * Adds a message to the bundle of the provided topic. The returned future completes with the
+   * message id once the bundle has been published. The message is reserved in the flow controller
+   * before being bundled and released once its bundle's publish request completes.
+   *
+   * @param topic the topic where the message should be published
+   * @param message the message to publish
+   */
+  ListenableFuture<String> publish(String topic, Message message) {
+    PubsubMessage pb = message.toPb();
+    int size = pb.getSerializedSize();
+    if (!flowController.reserve(1, size)) {
+      return Futures.immediateFailedFuture(FlowController.limitExceededException());
+    }
+    SettableFuture<String> future = SettableFuture.create();
+    List<Bundle> bundlesToSend = new LinkedList<>();
+    synchronized (lock) {
+      Bundle bundle = bundle(topic);
+      if (!bundle.messages.isEmpty() && bundle.bytes + size > settings.maxBytes()) {
+        // The message does not fit the current bundle, which is sent right away
+        bundlesToSend.add(removeBundle(topic));
+        bundle = bundle(topic);
+      }
+      bundle.add(pb, size, future);
+      if (closed() || bundle.messages.size() >= settings.maxMessages()
+          || bundle.bytes >= settings.maxBytes()) {
+        bundlesToSend.add(removeBundle(topic));
+      }
+    }
+    sendAll(bundlesToSend);
+    return future;
+  }
+
+  @Override
+  Bundle newBundle(String topic) {
+    return new Bundle(topic);
+  }
+
+  @Override
+  void send(final Bundle bundle) {
+    PublishRequest request = PublishRequest.newBuilder()
+        .setTopic(PublisherApi.formatTopicName(projectId, bundle.key()))
+        .addAllMessages(bundle.messages)
+        .build();
+    Future<PublishResponse> response;
+    try {
+      response = rpc.publish(request);
+    } catch (RuntimeException ex) {
+      flowController.release(bundle.messages.size(), bundle.bytes);
+      for (SettableFuture<String> future : bundle.futures) {
+        future.setException(ex);
+      }
+      return;
+    }
+    Futures.addCallback(JdkFutureAdapters.listenInPoolThread(response, executor),
+        new FutureCallback<PublishResponse>() {
+          @Override
+          public void onSuccess(PublishResponse result) {
+            flowController.release(bundle.messages.size(), bundle.bytes);
+            List<String> messageIds = result.getMessageIdsList();
+            for (int i = 0; i < bundle.futures.size(); i++) {
+              if (i < messageIds.size()) {
+                bundle.futures.get(i).set(messageIds.get(i));
+              } else {
+                bundle.futures.get(i).setException(new IllegalStateException(
+                    "Publish response contains " + messageIds.size() + " message ids, expected "
+                        + bundle.futures.size()));
+              }
+            }
+          }
+
+          @Override
+          public void onFailure(Throwable error) {
+            flowController.release(bundle.messages.size(), bundle.bytes);
+            for (SettableFuture<String> future : bundle.futures) {
+              future.setException(error);
+            }
+          }
+        });
+  }
+}
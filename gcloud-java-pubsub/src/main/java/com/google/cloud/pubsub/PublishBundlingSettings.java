@@ -0,0 +1,188 @@
+/*
+ * Copyright 2016 Google Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.pubsub;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import com.google.common.base.MoreObjects;
+
+import java.io.Serializable;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Settings for client-side bundling of published messages. When bundling is enabled (see
+ * {@link PubSubOptions.Builder#publishBundlingSettings(PublishBundlingSettings)}), messages
+ * published via {@link PubSub#publishAsync(String, Message)} and
+ * {@link PubSub#publishAsync(String, Iterable)} are accumulated per topic and sent in a single
+ * publish request as soon as one of the following thresholds is reached: the number of bundled
+ * messages reaches {@link #maxMessages()}, their serialized size reaches {@link #maxBytes()} or
+ * {@link #delayThresholdMillis()} milliseconds have elapsed since the first message was bundled.
+ */
+public final class PublishBundlingSettings implements Serializable {
+
+  private static final long serialVersionUID = -2962462542924513652L;
+
+  /**
+   * The maximum number of messages the Pub/Sub service accepts in a single publish request.
+   */
+  public static final int MAX_MESSAGES_LIMIT = 1000;
+  private static final int DEFAULT_MAX_MESSAGES = 800;
+  private static final long DEFAULT_MAX_BYTES = 8 * 1024 * 1024;
+  private static final long DEFAULT_DELAY_THRESHOLD_MILLIS = 100;
+
+  private final int maxMessages;
+  private final long maxBytes;
+  private final long delayThresholdMillis;
+
+  /**
+   * Builder for {@code PublishBundlingSettings} objects.
+   */
+  public static final class Builder {
+
+    private int maxMessages = DEFAULT_MAX_MESSAGES;
+    private long maxBytes = DEFAULT_MAX_BYTES;
+    private long delayThresholdMillis = DEFAULT_DELAY_THRESHOLD_MILLIS;
+
+    private Builder() {
+    }
+
+    private Builder(PublishBundlingSettings settings) {
+      maxMessages = settings.maxMessages;
+      maxBytes = settings.maxBytes;
+      delayThresholdMillis = settings.delayThresholdMillis;
+    }
+
+    /**
+     * Sets the maximum number of messages sent in a single publish request. This value must be
+     * between 1 and {@link PublishBundlingSettings#MAX_MESSAGES_LIMIT}. The default value is
+     * {@code 800}.
+     */
+    public Builder maxMessages(int maxMessages) {
+      checkArgument(maxMessages > 0 && maxMessages <= MAX_MESSAGES_LIMIT,
+          "maxMessages must be between 1 and %s", MAX_MESSAGES_LIMIT);
+      this.maxMessages = maxMessages;
+      return this;
+    }
+
+    /**
+     * Sets the serialized size, in bytes, of the bundled messages that triggers a publish request.
+     * The default value is 8 MiB.
+     */
+    public Builder maxBytes(long maxBytes) {
+      checkArgument(maxBytes > 0, "maxBytes must be > 0");
+      this.maxBytes = maxBytes;
+      return this;
+    }
+
+    /**
+     * Sets the maximum time a message is held in a bundle before the bundle is sent. The default
+     * value is 100 milliseconds.
+     */
+    public Builder delayThreshold(long delay, TimeUnit unit) {
+      checkArgument(delay >= 0, "delay must be >= 0");
+      this.delayThresholdMillis = unit.toMillis(delay);
+      return this;
+    }
+
+    /**
+     * Creates a {@code PublishBundlingSettings} object.
+     */
+    public PublishBundlingSettings build() {
+      return new PublishBundlingSettings(this);
+    }
+  }
+
+  private PublishBundlingSettings(Builder builder) {
+    maxMessages = builder.maxMessages;
+    maxBytes = builder.maxBytes;
+    delayThresholdMillis = builder.delayThresholdMillis;
+  }
+
+  /**
+   * Returns the maximum number of messages sent in a single publish request.
+   */
+  public int maxMessages() {
+    return maxMessages;
+  }
+
+  /**
+   * Returns the serialized size, in bytes, of the bundled messages that triggers a publish
+   * request.
+   */
+  public long maxBytes() {
+    return maxBytes;
+  }
+
+  /**
+   * Returns the maximum time, in milliseconds, a message is held in a bundle before the bundle is
+   * sent.
+   */
+  public long delayThresholdMillis() {
+    return delayThresholdMillis;
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (obj == this) {
+      return true;
+    }
+    if (!(obj instanceof PublishBundlingSettings)) {
+      return false;
+    }
+    PublishBundlingSettings other = (PublishBundlingSettings) obj;
+    return maxMessages == other.maxMessages
+        && maxBytes == other.maxBytes
+        && delayThresholdMillis == other.delayThresholdMillis;
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(maxMessages, maxBytes, delayThresholdMillis);
+  }
+
+  @Override
+  public String toString() {
+    return MoreObjects.toStringHelper(this)
+        .add("maxMessages", maxMessages)
+        .add("maxBytes", maxBytes)
+        .add("delayThresholdMillis", delayThresholdMillis)
+        .toString();
+  }
+
+  /**
+   * Returns a builder for {@code PublishBundlingSettings} objects.
+   */
+  public Builder toBuilder() {
+    return new Builder(this);
+  }
+
+  /**
+   * Returns a builder for {@code PublishBundlingSettings} objects, initialized with the default
+   * settings.
+   */
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  /**
+   * Returns a {@code PublishBundlingSettings} object with the default settings.
+   */
+  public static PublishBundlingSettings defaultInstance() {
+    return builder().build();
+  }
+}
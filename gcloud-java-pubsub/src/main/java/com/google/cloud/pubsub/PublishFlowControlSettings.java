@@ -0,0 +1,191 @@
+/*
+ * Copyright 2016 Google Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.pubsub;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.base.MoreObjects;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * Settings for flow control of published messages. When flow control is enabled (see
+ * {@link PubSubOptions.Builder#publishFlowControlSettings(PublishFlowControlSettings)}), the
+ * number and the serialized size of messages that have been published but whose publish request
+ * has not completed yet are bounded by {@link #maxOutstandingMessages()} and
+ * {@link #maxOutstandingBytes()}. {@link #limitExceededBehavior()} determines what happens to a
+ * message whose publication would exceed those limits.
+ */
+public final class PublishFlowControlSettings implements Serializable {
+
+  private static final long serialVersionUID = 2317049312406432398L;
+
+  private final Integer maxOutstandingMessages;
+  private final Long maxOutstandingBytes;
+  private final LimitExceededBehavior limitExceededBehavior;
+
+  /**
+   * The behavior of a publish call when the flow control limits are exceeded.
+   */
+  public enum LimitExceededBehavior {
+    /**
+     * Blocks the publish call until enough outstanding messages have been published.
+     */
+    BLOCK,
+
+    /**
+     * Throws a {@link PubSubException} from the publish call.
+     */
+    THROW_EXCEPTION,
+
+    /**
+     * Drops the message without sending it. The {@code Future} returned by the publish call fails
+     * with a {@link PubSubException}.
+     */
+    DROP
+  }
+
+  /**
+   * Builder for {@code PublishFlowControlSettings} objects.
+   */
+  public static final class Builder {
+
+    private Integer maxOutstandingMessages;
+    private Long maxOutstandingBytes;
+    private LimitExceededBehavior limitExceededBehavior = LimitExceededBehavior.BLOCK;
+
+    private Builder() {
+    }
+
+    private Builder(PublishFlowControlSettings settings) {
+      maxOutstandingMessages = settings.maxOutstandingMessages;
+      maxOutstandingBytes = settings.maxOutstandingBytes;
+      limitExceededBehavior = settings.limitExceededBehavior;
+    }
+
+    /**
+     * Sets the maximum number of outstanding published messages. If not set, the number of
+     * outstanding messages is not limited.
+     */
+    public Builder maxOutstandingMessages(Integer maxOutstandingMessages) {
+      checkArgument(maxOutstandingMessages == null || maxOutstandingMessages > 0,
+          "maxOutstandingMessages must be > 0");
+      this.maxOutstandingMessages = maxOutstandingMessages;
+      return this;
+    }
+
+    /**
+     * Sets the maximum serialized size, in bytes, of outstanding published messages. If not set,
+     * the size of outstanding messages is not limited.
+     */
+    public Builder maxOutstandingBytes(Long maxOutstandingBytes) {
+      checkArgument(maxOutstandingBytes == null || maxOutstandingBytes > 0,
+          "maxOutstandingBytes must be > 0");
+      this.maxOutstandingBytes = maxOutstandingBytes;
+      return this;
+    }
+
+    /**
+     * Sets the behavior of a publish call when the flow control limits are exceeded. The default
+     * value is {@link LimitExceededBehavior#BLOCK}.
+     */
+    public Builder limitExceededBehavior(LimitExceededBehavior limitExceededBehavior) {
+      this.limitExceededBehavior = checkNotNull(limitExceededBehavior);
+      return this;
+    }
+
+    /**
+     * Creates a {@code PublishFlowControlSettings} object.
+     */
+    public PublishFlowControlSettings build() {
+      return new PublishFlowControlSettings(this);
+    }
+  }
+
+  private PublishFlowControlSettings(Builder builder) {
+    maxOutstandingMessages = builder.maxOutstandingMessages;
+    maxOutstandingBytes = builder.maxOutstandingBytes;
+    limitExceededBehavior = builder.limitExceededBehavior;
+  }
+
+  /**
+   * Returns the maximum number of outstanding published messages or {@code null} if not limited.
+   */
+  public Integer maxOutstandingMessages() {
+    return maxOutstandingMessages;
+  }
+
+  /**
+   * Returns the maximum serialized size, in bytes, of outstanding published messages or
+   * {@code null} if not limited.
+   */
+  public Long maxOutstandingBytes() {
+    return maxOutstandingBytes;
+  }
+
+  /**
+   * Returns the behavior of a publish call when the flow control limits are exceeded.
+   */
+  public LimitExceededBehavior limitExceededBehavior() {
+    return limitExceededBehavior;
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (obj == this) {
+      return true;
+    }
+    if (!(obj instanceof PublishFlowControlSettings)) {
+      return false;
+    }
+    PublishFlowControlSettings other = (PublishFlowControlSettings) obj;
+    return Objects.equals(maxOutstandingMessages, other.maxOutstandingMessages)
+        && Objects.equals(maxOutstandingBytes, other.maxOutstandingBytes)
+        && limitExceededBehavior == other.limitExceededBehavior;
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(maxOutstandingMessages, maxOutstandingBytes, limitExceededBehavior);
+  }
+
+  @Override
+  public String toString() {
+    return MoreObjects.toStringHelper(this)
+        .add("maxOutstandingMessages", maxOutstandingMessages)
+        .add("maxOutstandingBytes", maxOutstandingBytes)
+        .add("limitExceededBehavior", limitExceededBehavior)
+        .toString();
+  }
+
+  /**
+   * Returns a builder for {@code PublishFlowControlSettings} objects.
+   */
+  public Builder toBuilder() {
+    return new Builder(this);
+  }
+
+  /**
+   * Returns a builder for {@code PublishFlowControlSettings} objects. By default no limit is set
+   * and publish calls block when limits are exceeded.
+   */
+  public static Builder builder() {
+    return new Builder();
+  }
+}
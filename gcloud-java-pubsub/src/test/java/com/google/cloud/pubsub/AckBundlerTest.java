@@ -0,0 +1,184 @@
+/*
+ * Copyright 2016 Google Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.pubsub;
+
+import com.google.cloud.pubsub.spi.PubSubRpc;
+import com.google.cloud.pubsub.spi.PubSubRpcFactory;
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.Futures;
+import com.google.protobuf.Empty;
+import com.google.pubsub.v1.AcknowledgeRequest;
+import com.google.pubsub.v1.ModifyAckDeadlineRequest;
+
+import org.easymock.EasyMock;
+import org.easymock.IAnswer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+public class AckBundlerTest {
+
+  private static final String PROJECT = "project";
+  private static final String SUBSCRIPTION1 = "subscription1";
+  private static final String SUBSCRIPTION2 = "subscription2";
+  private static final String SUBSCRIPTION_NAME_PB1 =
+      "projects/project/subscriptions/subscription1";
+  private static final String SUBSCRIPTION_NAME_PB2 =
+      "projects/project/subscriptions/subscription2";
+  private static final String ACK_ID1 = "ack-id1";
+  private static final String ACK_ID2 = "ack-id2";
+  private static final String ACK_ID3 = "ack-id3";
+  private static final Future<Empty> EMPTY_RESPONSE =
+      Futures.immediateFuture(Empty.getDefaultInstance());
+
+  private PubSubRpcFactory rpcFactoryMock;
+  private PubSubRpc pubsubRpcMock;
+  private AckDeadlineRenewer renewerMock;
+  private AckBundler bundler;
+
+  @Rule
+  public Timeout globalTimeout = Timeout.seconds(60);
+
+  @Before
+  public void setUp() {
+    rpcFactoryMock = EasyMock.createMock(PubSubRpcFactory.class);
+    pubsubRpcMock = EasyMock.createStrictMock(PubSubRpc.class);
+    renewerMock = EasyMock.createMock(AckDeadlineRenewer.class);
+    EasyMock.expect(rpcFactoryMock.create(EasyMock.<PubSubOptions>anyObject()))
+        .andReturn(pubsubRpcMock);
+    EasyMock.replay(rpcFactoryMock);
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    if (bundler != null) {
+      bundler.close();
+    }
+    EasyMock.verify(rpcFactoryMock, pubsubRpcMock, renewerMock);
+  }
+
+  private AckBundler bundler(int maxAckIds, long delayThresholdMillis) {
+    PubSubOptions options = PubSubOptions.builder()
+        .projectId(PROJECT)
+        .serviceRpcFactory(rpcFactoryMock)
+        .build();
+    AckBundlingSettings settings = AckBundlingSettings.builder()
+        .maxAckIds(maxAckIds)
+        .delayThreshold(delayThresholdMillis, TimeUnit.MILLISECONDS)
+        .build();
+    return new AckBundler(options, settings, renewerMock);
+  }
+
+  private static AcknowledgeRequest ackRequest(String subscriptionName, String... ackIds) {
+    return AcknowledgeRequest.newBuilder()
+        .setSubscription(subscriptionName)
+        .addAllAckIds(ImmutableList.copyOf(ackIds))
+        .build();
+  }
+
+  private static ModifyAckDeadlineRequest nackRequest(String subscriptionName, String... ackIds) {
+    return ModifyAckDeadlineRequest.newBuilder()
+        .setSubscription(subscriptionName)
+        .setAckDeadlineSeconds(0)
+        .addAllAckIds(ImmutableList.copyOf(ackIds))
+        .build();
+  }
+
+  @Test
+  public void testAckMaxAckIds() {
+    renewerMock.remove(SUBSCRIPTION1, ACK_ID1);
+    renewerMock.remove(SUBSCRIPTION1, ACK_ID2);
+    EasyMock.expect(pubsubRpcMock.acknowledge(ackRequest(SUBSCRIPTION_NAME_PB1, ACK_ID1, ACK_ID2)))
+        .andReturn(EMPTY_RESPONSE);
+    EasyMock.replay(pubsubRpcMock, renewerMock);
+    bundler = bundler(2, 60_000);
+    bundler.ack(SUBSCRIPTION1, ACK_ID1);
+    bundler.ack(SUBSCRIPTION1, ACK_ID2);
+    EasyMock.verify(pubsubRpcMock, renewerMock);
+  }
+
+  @Test
+  public void testNackMaxAckIds() {
+    renewerMock.remove(SUBSCRIPTION1, ACK_ID1);
+    renewerMock.remove(SUBSCRIPTION1, ACK_ID2);
+    EasyMock.expect(pubsubRpcMock.modify(nackRequest(SUBSCRIPTION_NAME_PB1, ACK_ID1, ACK_ID2)))
+        .andReturn(EMPTY_RESPONSE);
+    EasyMock.replay(pubsubRpcMock, renewerMock);
+    bundler = bundler(2, 60_000);
+    bundler.nack(SUBSCRIPTION1, ACK_ID1);
+    bundler.nack(SUBSCRIPTION1, ACK_ID2);
+    EasyMock.verify(pubsubRpcMock, renewerMock);
+  }
+
+  @Test
+  public void testAckDelayThreshold() throws InterruptedException {
+    final CountDownLatch latch = new CountDownLatch(1);
+    renewerMock.remove(SUBSCRIPTION1, ACK_ID1);
+    renewerMock.remove(SUBSCRIPTION1, ACK_ID2);
+    EasyMock.expect(pubsubRpcMock.acknowledge(ackRequest(SUBSCRIPTION_NAME_PB1, ACK_ID1, ACK_ID2)))
+        .andAnswer(new IAnswer<Future<Empty>>() {
+          @Override
+          public Future<Empty> answer() throws Throwable {
+            latch.countDown();
+            return EMPTY_RESPONSE;
+          }
+        });
+    EasyMock.replay(pubsubRpcMock, renewerMock);
+    bundler = bundler(100, 10);
+    bundler.ack(SUBSCRIPTION1, ACK_ID1);
+    bundler.ack(SUBSCRIPTION1, ACK_ID2);
+    latch.await();
+  }
+
+  @Test
+  public void testFlushSubscription() {
+    renewerMock.remove(SUBSCRIPTION1, ACK_ID1);
+    renewerMock.remove(SUBSCRIPTION1, ACK_ID2);
+    renewerMock.remove(SUBSCRIPTION2, ACK_ID3);
+    EasyMock.expect(pubsubRpcMock.acknowledge(ackRequest(SUBSCRIPTION_NAME_PB1, ACK_ID1)))
+        .andReturn(EMPTY_RESPONSE);
+    EasyMock.expect(pubsubRpcMock.modify(nackRequest(SUBSCRIPTION_NAME_PB1, ACK_ID2)))
+        .andReturn(EMPTY_RESPONSE);
+    EasyMock.expect(pubsubRpcMock.acknowledge(ackRequest(SUBSCRIPTION_NAME_PB2, ACK_ID3)))
+        .andReturn(EMPTY_RESPONSE);
+    EasyMock.replay(pubsubRpcMock, renewerMock);
+    bundler = bundler(100, 60_000);
+    bundler.ack(SUBSCRIPTION1, ACK_ID1);
+    bundler.nack(SUBSCRIPTION1, ACK_ID2);
+    bundler.ack(SUBSCRIPTION2, ACK_ID3);
+    bundler.flush(SUBSCRIPTION1);
+    // pending acks for other subscriptions are sent on close
+  }
+
+  @Test
+  public void testAckAfterClose() throws Exception {
+    renewerMock.remove(SUBSCRIPTION1, ACK_ID1);
+    EasyMock.expect(pubsubRpcMock.acknowledge(ackRequest(SUBSCRIPTION_NAME_PB1, ACK_ID1)))
+        .andReturn(EMPTY_RESPONSE);
+    EasyMock.replay(pubsubRpcMock, renewerMock);
+    bundler = bundler(100, 60_000);
+    bundler.close();
+    bundler.ack(SUBSCRIPTION1, ACK_ID1);
+    EasyMock.verify(pubsubRpcMock, renewerMock);
+  }
+}
@@ -16,11 +16,17 @@
 
 package com.google.cloud.pubsub;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
+import com.google.cloud.Clock;
 import com.google.cloud.GrpcServiceOptions.ExecutorFactory;
 import com.google.common.collect.ImmutableList;
 
+import org.easymock.Capture;
 import org.easymock.EasyMock;
 import org.easymock.IAnswer;
 import org.junit.After;
@@ -69,6 +75,21 @@ public class AckDeadlineRenewerTest {
     ackDeadlineRenewer.close();
   }
 
+  private static class FakeClock extends Clock {
+
+    private final AtomicLong millis = new AtomicLong();
+
+    // Advances the clock value by {@code time} in {@code timeUnit}.
+    void advance(long time, TimeUnit timeUnit) {
+      millis.addAndGet(timeUnit.toMillis(time));
+    }
+
+    @Override
+    public long millis() {
+      return millis.get();
+    }
+  }
+
   private static IAnswer<Future<Void>> createAnswer(final CountDownLatch latch,
       final AtomicLong renewal) {
     return new IAnswer<Future<Void>>() {
@@ -239,6 +260,183 @@ public class AckDeadlineRenewerTest {
     assertTrue(secondRenewalSub2.get() < (firstRenewalSub2.get() + MIN_DEADLINE_MILLIS));
   }
 
+  @Test
+  public void testAdaptiveDeadline() throws InterruptedException {
+    EasyMock.reset(pubsub);
+    final CountDownLatch latch = new CountDownLatch(1);
+    final AtomicLong renewal = new AtomicLong();
+    EasyMock.expect(pubsub.modifyAckDeadlineAsync(SUBSCRIPTION1, 31_000, TimeUnit.MILLISECONDS,
+        ImmutableList.of(ACK_ID1)))
+            .andAnswer(createAnswer(latch, renewal));
+    EasyMock.replay(pubsub);
+    ackDeadlineRenewer.recordProcessingTime(SUBSCRIPTION1, 30_000);
+    long addTime = System.currentTimeMillis();
+    ackDeadlineRenewer.add(SUBSCRIPTION1, ACK_ID1);
+    latch.await();
+    assertTrue(renewal.get() < (addTime + MIN_DEADLINE_MILLIS));
+    assertEquals(2, ackDeadlineRenewer.savedRenewals());
+  }
+
+  @Test
+  public void testAddMessageWhileExtendedRenewalIsScheduled() throws InterruptedException {
+    EasyMock.reset(pubsub);
+    final CountDownLatch firstLatch = new CountDownLatch(1);
+    final CountDownLatch secondLatch = new CountDownLatch(1);
+    final AtomicLong firstRenewal = new AtomicLong();
+    final AtomicLong secondRenewal = new AtomicLong();
+    EasyMock.expect(pubsub.modifyAckDeadlineAsync(SUBSCRIPTION1, 31_000, TimeUnit.MILLISECONDS,
+        ImmutableList.of(ACK_ID1)))
+            .andAnswer(createAnswer(firstLatch, firstRenewal));
+    EasyMock.expect(pubsub.modifyAckDeadlineAsync(SUBSCRIPTION2, MIN_DEADLINE_MILLIS,
+        TimeUnit.MILLISECONDS, ImmutableList.of(ACK_ID2)))
+            .andAnswer(createAnswer(secondLatch, secondRenewal));
+    EasyMock.replay(pubsub);
+    ackDeadlineRenewer.recordProcessingTime(SUBSCRIPTION1, 30_000);
+    ackDeadlineRenewer.add(SUBSCRIPTION1, ACK_ID1);
+    firstLatch.await();
+    // the next scheduled renewal is for the extended deadline of ACK_ID1, about 30 seconds away
+    long addTime = System.currentTimeMillis();
+    ackDeadlineRenewer.add(SUBSCRIPTION2, ACK_ID2);
+    secondLatch.await();
+    assertTrue(secondRenewal.get() < (addTime + MIN_DEADLINE_MILLIS));
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void testReplacedRenewalAlreadyStarted() throws Exception {
+    PubSub pubsub = EasyMock.createStrictMock(PubSub.class);
+    ScheduledExecutorService executor = EasyMock.createStrictMock(ScheduledExecutorService.class);
+    ExecutorFactory executorFactory = EasyMock.createStrictMock(ExecutorFactory.class);
+    EasyMock.expect(executorFactory.get()).andReturn(executor);
+    FakeClock clock = new FakeClock();
+    PubSubOptions options = PubSubOptions.builder()
+        .projectId("projectId")
+        .executorFactory(executorFactory)
+        .clock(clock)
+        .build();
+    EasyMock.expect(pubsub.options()).andReturn(options);
+    ScheduledFuture firstFuture = EasyMock.createStrictMock(ScheduledFuture.class);
+    ScheduledFuture secondFuture = EasyMock.createStrictMock(ScheduledFuture.class);
+    ScheduledFuture thirdFuture = EasyMock.createStrictMock(ScheduledFuture.class);
+    Capture<Runnable> firstRenewal = Capture.newInstance();
+    Capture<Runnable> secondRenewal = Capture.newInstance();
+    EasyMock.expect(executor.schedule(EasyMock.capture(firstRenewal), EasyMock.eq(8_000L),
+        EasyMock.eq(TimeUnit.MILLISECONDS))).andReturn(firstFuture);
+    EasyMock.expect(pubsub.modifyAckDeadlineAsync(SUBSCRIPTION1, 31_000, TimeUnit.MILLISECONDS,
+        ImmutableList.of(ACK_ID1))).andReturn(null);
+    EasyMock.expect(executor.schedule(EasyMock.capture(secondRenewal), EasyMock.eq(29_000L),
+        EasyMock.eq(TimeUnit.MILLISECONDS))).andReturn(secondFuture);
+    EasyMock.expect(secondFuture.cancel(false)).andReturn(true);
+    EasyMock.expect(executor.schedule(EasyMock.<Runnable>anyObject(), EasyMock.eq(8_000L),
+        EasyMock.eq(TimeUnit.MILLISECONDS))).andReturn(thirdFuture);
+    EasyMock.expect(thirdFuture.cancel(true)).andReturn(true);
+    executorFactory.release(executor);
+    EasyMock.expectLastCall();
+    EasyMock.replay(executor, executorFactory, firstFuture, secondFuture, thirdFuture, pubsub);
+    AckDeadlineRenewer ackDeadlineRenewer = new AckDeadlineRenewer(pubsub);
+    ackDeadlineRenewer.recordProcessingTime(SUBSCRIPTION1, 30_000);
+    ackDeadlineRenewer.add(SUBSCRIPTION1, ACK_ID1);
+    clock.advance(6, TimeUnit.SECONDS);
+    // ACK_ID1 is extended by 31 seconds, the next renewal is scheduled for its new deadline
+    firstRenewal.getValue().run();
+    clock.advance(1, TimeUnit.SECONDS);
+    // ACK_ID2 is due earlier, the scheduled renewal is cancelled and replaced
+    ackDeadlineRenewer.add(SUBSCRIPTION1, ACK_ID2);
+    // the cancelled renewal had already started, it must not schedule another renewal
+    secondRenewal.getValue().run();
+    ackDeadlineRenewer.close();
+    EasyMock.verify(pubsub, executor, executorFactory, firstFuture, secondFuture, thirdFuture);
+  }
+
+  @Test
+  public void testShardRenewsInOrderOfDeadline() {
+    AckDeadlineRenewer.Shard shard = ackDeadlineRenewer.shard(SUBSCRIPTION1);
+    synchronized (shard) {
+      shard.add(ACK_ID1, 1_000);
+      shard.add(ACK_ID2, 2_000);
+      shard.add(ACK_ID3, 3_000);
+      assertEquals(Long.valueOf(1_000), shard.nextDeadline());
+      assertEquals(ImmutableList.of(ACK_ID1, ACK_ID2), shard.extend(2_000, 0));
+      assertEquals(Long.valueOf(3_000), shard.nextDeadline());
+      assertEquals(ImmutableList.of(ACK_ID3), shard.extend(3_000, 0));
+      assertEquals(Long.valueOf(9_000), shard.nextDeadline());
+      assertEquals(ImmutableList.of(ACK_ID1, ACK_ID2, ACK_ID3), shard.extend(9_000, 6_000));
+    }
+  }
+
+  @Test
+  public void testShardAddExistingMessageMovesToTail() {
+    AckDeadlineRenewer.Shard shard = ackDeadlineRenewer.shard(SUBSCRIPTION1);
+    synchronized (shard) {
+      shard.add(ACK_ID1, 1_000);
+      shard.add(ACK_ID2, 2_000);
+      shard.add(ACK_ID1, 3_000);
+      assertEquals(Long.valueOf(2_000), shard.nextDeadline());
+      assertEquals(ImmutableList.of(ACK_ID2), shard.extend(2_000, 0));
+      // an extended message added again is pulled again
+      shard.add(ACK_ID2, 4_000);
+      assertEquals(ImmutableList.of(ACK_ID1, ACK_ID2), shard.extend(4_000, 0));
+      shard.remove(ACK_ID1);
+      shard.remove(ACK_ID2);
+      assertNull(shard.nextDeadline());
+    }
+  }
+
+  @Test
+  public void testShardsAreIndependent() {
+    AckDeadlineRenewer.Shard shard1 = ackDeadlineRenewer.shard(SUBSCRIPTION1);
+    AckDeadlineRenewer.Shard shard2 = ackDeadlineRenewer.shard(SUBSCRIPTION2);
+    assertNotSame(shard1, shard2);
+    assertSame(shard1, ackDeadlineRenewer.shard(SUBSCRIPTION1));
+    ackDeadlineRenewer.recordProcessingTime(SUBSCRIPTION1, 30_000);
+    synchronized (shard1) {
+      shard1.add(ACK_ID1, 1_000);
+    }
+    synchronized (shard2) {
+      shard2.add(ACK_ID1, 2_000);
+    }
+    synchronized (shard1) {
+      shard1.updateExtension();
+      assertEquals(ImmutableList.of(ACK_ID1), shard1.extend(1_000, 0));
+      assertEquals(Long.valueOf(30_000), shard1.nextDeadline());
+      shard1.remove(ACK_ID1);
+      assertNull(shard1.nextDeadline());
+    }
+    // removing a message from a subscription and its processing times do not affect others
+    synchronized (shard2) {
+      shard2.updateExtension();
+      assertEquals(Long.valueOf(2_000), shard2.nextDeadline());
+      assertEquals(ImmutableList.of(ACK_ID1), shard2.extend(2_000, 0));
+      assertEquals(Long.valueOf(9_000), shard2.nextDeadline());
+    }
+  }
+
+  @Test
+  public void testShardExtensionShrinks() {
+    AckDeadlineRenewer.Shard shard = ackDeadlineRenewer.shard(SUBSCRIPTION1);
+    ackDeadlineRenewer.recordProcessingTime(SUBSCRIPTION1, 30_000);
+    synchronized (shard) {
+      shard.add(ACK_ID1, 9_000);
+      shard.updateExtension();
+      assertEquals(ImmutableList.of(ACK_ID1), shard.extend(12_000, 6_000));
+      assertEquals(Long.valueOf(36_000), shard.nextDeadline());
+    }
+    // fast messages make the 99th percentile drop, ACK_ID2 is extended by 10 seconds only
+    for (int i = 0; i < 199; i++) {
+      ackDeadlineRenewer.recordProcessingTime(SUBSCRIPTION1, 1_000);
+    }
+    synchronized (shard) {
+      shard.add(ACK_ID2, 19_000);
+      shard.updateExtension();
+      assertEquals(ImmutableList.of(ACK_ID2), shard.extend(19_000, 16_000));
+      // ACK_ID2 is due before ACK_ID1 even though it was extended after it
+      assertEquals(Long.valueOf(25_000), shard.nextDeadline());
+      assertEquals(ImmutableList.of(ACK_ID2), shard.extend(25_000, 22_000));
+      assertEquals(Long.valueOf(31_000), shard.nextDeadline());
+      assertEquals(ImmutableList.of(ACK_ID2, ACK_ID1), shard.extend(36_000, 30_000));
+    }
+  }
+
   @Test
   @SuppressWarnings("unchecked")
   public void testClose() throws Exception {
@@ -0,0 +1,66 @@
+/*
+ * Copyright 2016 Google Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.pubsub;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+public class DistributionTest {
+
+  @Rule
+  public ExpectedException thrown = ExpectedException.none();
+
+  @Test
+  public void testPercentile() {
+    Distribution distribution = new Distribution(10);
+    assertEquals(0, distribution.percentile(99));
+    for (int i = 0; i < 99; i++) {
+      distribution.record(1);
+    }
+    distribution.record(8);
+    assertEquals(100, distribution.count());
+    assertEquals(1, distribution.percentile(50));
+    assertEquals(1, distribution.percentile(99));
+    assertEquals(8, distribution.percentile(100));
+  }
+
+  @Test
+  public void testRecordOverflow() {
+    Distribution distribution = new Distribution(10);
+    distribution.record(42);
+    assertEquals(9, distribution.percentile(100));
+  }
+
+  @Test
+  public void testRecordNegative() {
+    Distribution distribution = new Distribution(10);
+    thrown.expect(IllegalArgumentException.class);
+    thrown.expectMessage("value must be >= 0");
+    distribution.record(-1);
+  }
+
+  @Test
+  public void testInvalidPercentile() {
+    Distribution distribution = new Distribution(10);
+    thrown.expect(IllegalArgumentException.class);
+    thrown.expectMessage("percentile must be in (0, 100]");
+    distribution.percentile(0);
+  }
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright 2016 Google Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.pubsub;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.google.cloud.pubsub.PublishFlowControlSettings.LimitExceededBehavior;
+
+import io.grpc.Status.Code;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.rules.Timeout;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class FlowControllerTest {
+
+  @Rule
+  public ExpectedException thrown = ExpectedException.none();
+
+  @Rule
+  public Timeout globalTimeout = Timeout.seconds(60);
+
+  @Test
+  public void testReserveAndRelease() {
+    FlowController flowController = new FlowController(10, 100L, LimitExceededBehavior.BLOCK);
+    assertTrue(flowController.reserve(2, 20));
+    assertTrue(flowController.reserve(3, 30));
+    assertEquals(5, flowController.outstandingMessages());
+    assertEquals(50, flowController.outstandingBytes());
+    flowController.release(2, 20);
+    assertEquals(3, flowController.outstandingMessages());
+    assertEquals(30, flowController.outstandingBytes());
+  }
+
+  @Test
+  public void testReserveExceedingLimitsWhenEmpty() {
+    FlowController flowController = new FlowController(1, 10L, LimitExceededBehavior.DROP);
+    assertTrue(flowController.reserve(5, 50));
+    assertFalse(flowController.reserve(1, 1));
+  }
+
+  @Test
+  public void testReserveNoLimits() {
+    FlowController flowController = new FlowController(null, null, LimitExceededBehavior.DROP);
+    assertTrue(flowController.reserve(1000, 1000000));
+    assertTrue(flowController.reserve(1000, 1000000));
+    assertEquals(2000, flowController.outstandingMessages());
+  }
+
+  @Test
+  public void testReserveDrop() {
+    FlowController flowController = new FlowController(null, 100L, LimitExceededBehavior.DROP);
+    assertTrue(flowController.reserve(1, 60));
+    assertFalse(flowController.reserve(1, 60));
+    assertEquals(1, flowController.outstandingMessages());
+    assertEquals(60, flowController.outstandingBytes());
+  }
+
+  @Test
+  public void testReserveThrowException() {
+    FlowController flowController =
+        new FlowController(1, null, LimitExceededBehavior.THROW_EXCEPTION);
+    assertTrue(flowController.reserve(1, 10));
+    thrown.expect(PubSubException.class);
+    thrown.expectMessage("Flow control limits on outstanding published messages exceeded");
+    flowController.reserve(1, 10);
+  }
+
+  @Test
+  public void testLimitExceededException() {
+    PubSubException exception = FlowController.limitExceededException();
+    assertEquals(Code.RESOURCE_EXHAUSTED.value(), exception.code());
+    assertEquals(Code.RESOURCE_EXHAUSTED.name(), exception.reason());
+    assertFalse(exception.retryable());
+  }
+
+  @Test
+  public void testReserveBlock() throws InterruptedException {
+    final FlowController flowController =
+        new FlowController(1, null, LimitExceededBehavior.BLOCK);
+    assertTrue(flowController.reserve(1, 10));
+    final CountDownLatch reserved = new CountDownLatch(1);
+    Thread thread = new Thread() {
+      @Override
+      public void run() {
+        flowController.reserve(1, 20);
+        reserved.countDown();
+      }
+    };
+    thread.start();
+    assertFalse(reserved.await(100, TimeUnit.MILLISECONDS));
+    flowController.release(1, 10);
+    reserved.await();
+    thread.join();
+    assertEquals(1, flowController.outstandingMessages());
+    assertEquals(20, flowController.outstandingBytes());
+  }
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright 2016 Google Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.pubsub;
+
+import static org.junit.Assert.assertEquals;
+
+import com.google.common.collect.ImmutableList;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+public class KeyedExecutorTest {
+
+  // "a" and "b" are hashed to different lanes when using 2 lanes
+  private static final String KEY1 = "a";
+  private static final String KEY2 = "b";
+
+  private ExecutorService executor;
+
+  @Rule
+  public Timeout globalTimeout = Timeout.seconds(60);
+
+  @Before
+  public void setUp() {
+    executor = Executors.newFixedThreadPool(4);
+  }
+
+  @After
+  public void tearDown() {
+    executor.shutdownNow();
+  }
+
+  private static Runnable appendingRunnable(final List<Integer> list, final int value,
+      final CountDownLatch latch) {
+    return new Runnable() {
+      @Override
+      public void run() {
+        list.add(value);
+        latch.countDown();
+      }
+    };
+  }
+
+  @Test
+  public void testSameKeyInOrder() throws InterruptedException {
+    KeyedExecutor keyedExecutor = new KeyedExecutor(executor, 2);
+    List<Integer> values = Collections.synchronizedList(new ArrayList<Integer>());
+    List<Integer> expected = new ArrayList<>();
+    CountDownLatch latch = new CountDownLatch(100);
+    for (int i = 0; i < 100; i++) {
+      keyedExecutor.execute(KEY1, appendingRunnable(values, i, latch));
+      expected.add(i);
+    }
+    latch.await();
+    assertEquals(expected, values);
+  }
+
+  @Test
+  public void testDifferentKeysInParallel() throws InterruptedException {
+    KeyedExecutor keyedExecutor = new KeyedExecutor(executor, 2);
+    final CountDownLatch key2Latch = new CountDownLatch(1);
+    final CountDownLatch latch = new CountDownLatch(1);
+    keyedExecutor.execute(KEY1, new Runnable() {
+      @Override
+      public void run() {
+        try {
+          // Completes only if KEY2 tasks run while this one is running
+          key2Latch.await();
+          latch.countDown();
+        } catch (InterruptedException ex) {
+          Thread.currentThread().interrupt();
+        }
+      }
+    });
+    keyedExecutor.execute(KEY2, new Runnable() {
+      @Override
+      public void run() {
+        key2Latch.countDown();
+      }
+    });
+    latch.await();
+  }
+
+  @Test
+  public void testNullKey() throws InterruptedException {
+    KeyedExecutor keyedExecutor = new KeyedExecutor(executor, 1);
+    List<Integer> values = Collections.synchronizedList(new ArrayList<Integer>());
+    CountDownLatch latch = new CountDownLatch(1);
+    keyedExecutor.execute(null, appendingRunnable(values, 42, latch));
+    latch.await();
+    assertEquals(ImmutableList.of(42), values);
+  }
+
+  @Test
+  public void testFailingTask() throws InterruptedException {
+    KeyedExecutor keyedExecutor = new KeyedExecutor(executor, 1);
+    List<Integer> values = Collections.synchronizedList(new ArrayList<Integer>());
+    CountDownLatch latch = new CountDownLatch(1);
+    keyedExecutor.execute(KEY1, new Runnable() {
+      @Override
+      public void run() {
+        throw new RuntimeException();
+      }
+    });
+    keyedExecutor.execute(KEY1, appendingRunnable(values, 42, latch));
+    latch.await();
+    assertEquals(ImmutableList.of(42), values);
+  }
+}
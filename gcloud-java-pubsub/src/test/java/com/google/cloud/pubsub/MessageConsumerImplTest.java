@@ -25,6 +25,8 @@ import com.google.cloud.pubsub.spi.PubSubRpc.PullFuture;
 import com.google.common.util.concurrent.ForwardingListenableFuture;
 import com.google.common.util.concurrent.FutureCallback;
 import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
 import com.google.pubsub.v1.PullRequest;
 import com.google.pubsub.v1.PullResponse;
 
@@ -94,6 +96,10 @@ public class MessageConsumerImplTest {
       super(Futures.immediateFuture(response));
     }
 
+    TestPullFuture(ListenableFuture<PullResponse> delegate) {
+      super(delegate);
+    }
+
     @Override
     public void addCallback(final PullCallback callback) {
       Futures.addCallback(delegate(), new FutureCallback<PullResponse>() {
@@ -207,6 +213,164 @@ public class MessageConsumerImplTest {
     }
   }
 
+  @Test
+  public void testMessageConsumerMaxQueuedBytes() throws Exception {
+    // The first pull requests a single message as the size of messages is still unknown, the
+    // second one requests as many messages as fit in the remaining bytes
+    long maxQueuedBytes = 2L * MESSAGE1.toPb().getSerializedSize();
+    PullRequest request = pullRequest(1);
+    PullResponse response1 = PullResponse.newBuilder()
+        .addReceivedMessages(MESSAGE1_PB)
+        .build();
+    PullResponse response2 = PullResponse.newBuilder()
+        .addReceivedMessages(MESSAGE2_PB)
+        .build();
+    final CountDownLatch processLatch = new CountDownLatch(1);
+    MessageProcessor blockingProcessor = new MessageProcessor() {
+      @Override
+      public void process(Message message) throws Exception {
+        processLatch.await();
+      }
+    };
+    EasyMock.expect(options.rpc()).andReturn(pubsubRpc);
+    EasyMock.expect(options.service()).andReturn(pubsub);
+    EasyMock.expect(options.projectId()).andReturn(PROJECT).anyTimes();
+    EasyMock.expect(pubsub.options()).andReturn(options).times(2);
+    final CountDownLatch latch = new CountDownLatch(2);
+    EasyMock.expect(pubsub.ackAsync(SUBSCRIPTION, ACK_ID1)).andReturn(null);
+    EasyMock.expect(pubsub.ackAsync(SUBSCRIPTION, ACK_ID2)).andReturn(null);
+    EasyMock.replay(pubsub);
+    EasyMock.expect(pubsubRpc.pull(request)).andReturn(new TestPullFuture(response1));
+    EasyMock.expect(pubsubRpc.pull(request)).andReturn(new TestPullFuture(response2));
+    EasyMock.expect(pubsubRpc.pull(EasyMock.<PullRequest>anyObject()))
+        .andReturn(new TestPullFuture(EMPTY_RESPONSE)).anyTimes();
+    renewer.add(SUBSCRIPTION, ACK_ID1);
+    EasyMock.expectLastCall();
+    renewer.add(SUBSCRIPTION, ACK_ID2);
+    EasyMock.expectLastCall().andAnswer(new IAnswer<Void>() {
+      @Override
+      public Void answer() throws Throwable {
+        // Both messages are queued, no room is left for other messages
+        processLatch.countDown();
+        return null;
+      }
+    });
+    renewer.remove(SUBSCRIPTION, ACK_ID1);
+    EasyMock.expectLastCall().andAnswer(createAnswer(latch));
+    renewer.remove(SUBSCRIPTION, ACK_ID2);
+    EasyMock.expectLastCall().andAnswer(createAnswer(latch));
+    EasyMock.replay(pubsubRpc, options, renewer);
+    try (MessageConsumer consumer =
+        MessageConsumerImpl.builder(options, SUBSCRIPTION, renewer, blockingProcessor)
+            .maxQueuedCallbacks(MAX_QUEUED_CALLBACKS)
+            .maxQueuedBytes(maxQueuedBytes)
+            .build()) {
+      latch.await();
+    }
+  }
+
+  @Test
+  public void testMessageConsumerAdaptiveAckDeadline() throws Exception {
+    PullRequest request = pullRequest(MAX_QUEUED_CALLBACKS);
+    EasyMock.expect(options.rpc()).andReturn(pubsubRpc);
+    EasyMock.expect(options.service()).andReturn(pubsub);
+    EasyMock.expect(options.projectId()).andReturn(PROJECT).anyTimes();
+    EasyMock.expect(pubsub.options()).andReturn(options).times(2);
+    final CountDownLatch latch = new CountDownLatch(2);
+    EasyMock.expect(pubsub.ackAsync(SUBSCRIPTION, ACK_ID1)).andReturn(null);
+    EasyMock.expect(pubsub.ackAsync(SUBSCRIPTION, ACK_ID2)).andReturn(null);
+    EasyMock.replay(pubsub);
+    EasyMock.expect(pubsubRpc.pull(request)).andReturn(new TestPullFuture(PULL_RESPONSE));
+    EasyMock.expect(pubsubRpc.pull(EasyMock.<PullRequest>anyObject()))
+        .andReturn(new TestPullFuture(EMPTY_RESPONSE)).anyTimes();
+    renewer.add(SUBSCRIPTION, ACK_ID1);
+    EasyMock.expectLastCall();
+    renewer.add(SUBSCRIPTION, ACK_ID2);
+    EasyMock.expectLastCall();
+    renewer.recordProcessingTime(EasyMock.eq(SUBSCRIPTION), EasyMock.anyLong());
+    EasyMock.expectLastCall().times(2);
+    renewer.remove(SUBSCRIPTION, ACK_ID1);
+    EasyMock.expectLastCall().andAnswer(createAnswer(latch));
+    renewer.remove(SUBSCRIPTION, ACK_ID2);
+    EasyMock.expectLastCall().andAnswer(createAnswer(latch));
+    EasyMock.replay(pubsubRpc, options, renewer);
+    try (MessageConsumer consumer =
+         MessageConsumerImpl.builder(options, SUBSCRIPTION, renewer, DO_NOTHING_PROCESSOR)
+             .maxQueuedCallbacks(MAX_QUEUED_CALLBACKS)
+             .adaptiveAckDeadline(true)
+             .build()) {
+      latch.await();
+    }
+  }
+
+  @Test
+  public void testMessageConsumerAckBundler() throws Exception {
+    PullRequest request = pullRequest(MAX_QUEUED_CALLBACKS);
+    AckBundler ackBundler = EasyMock.createMock(AckBundler.class);
+    EasyMock.expect(options.rpc()).andReturn(pubsubRpc);
+    EasyMock.expect(options.service()).andReturn(pubsub);
+    EasyMock.expect(options.projectId()).andReturn(PROJECT).anyTimes();
+    EasyMock.expect(pubsub.options()).andReturn(options).times(2);
+    EasyMock.replay(pubsub);
+    final CountDownLatch latch = new CountDownLatch(2);
+    EasyMock.expect(pubsubRpc.pull(request)).andReturn(new TestPullFuture(PULL_RESPONSE));
+    EasyMock.expect(pubsubRpc.pull(EasyMock.<PullRequest>anyObject()))
+        .andReturn(new TestPullFuture(EMPTY_RESPONSE)).anyTimes();
+    renewer.add(SUBSCRIPTION, ACK_ID1);
+    EasyMock.expectLastCall();
+    renewer.add(SUBSCRIPTION, ACK_ID2);
+    EasyMock.expectLastCall();
+    ackBundler.ack(SUBSCRIPTION, ACK_ID1);
+    EasyMock.expectLastCall().andAnswer(createAnswer(latch));
+    ackBundler.ack(SUBSCRIPTION, ACK_ID2);
+    EasyMock.expectLastCall().andAnswer(createAnswer(latch));
+    ackBundler.flush(SUBSCRIPTION);
+    EasyMock.expectLastCall();
+    EasyMock.replay(pubsubRpc, options, renewer, ackBundler);
+    try (MessageConsumer consumer =
+         MessageConsumerImpl.builder(options, SUBSCRIPTION, renewer, DO_NOTHING_PROCESSOR)
+             .maxQueuedCallbacks(MAX_QUEUED_CALLBACKS)
+             .ackBundler(ackBundler)
+             .build()) {
+      latch.await();
+    }
+    EasyMock.verify(ackBundler);
+  }
+
+  @Test
+  public void testMessageConsumerNackBundler() throws Exception {
+    PullRequest request = pullRequest(MAX_QUEUED_CALLBACKS);
+    AckBundler ackBundler = EasyMock.createMock(AckBundler.class);
+    EasyMock.expect(options.rpc()).andReturn(pubsubRpc);
+    EasyMock.expect(options.service()).andReturn(pubsub);
+    EasyMock.expect(options.projectId()).andReturn(PROJECT).anyTimes();
+    EasyMock.expect(pubsub.options()).andReturn(options).times(2);
+    EasyMock.replay(pubsub);
+    final CountDownLatch latch = new CountDownLatch(2);
+    EasyMock.expect(pubsubRpc.pull(request)).andReturn(new TestPullFuture(PULL_RESPONSE));
+    EasyMock.expect(pubsubRpc.pull(EasyMock.<PullRequest>anyObject()))
+        .andReturn(new TestPullFuture(EMPTY_RESPONSE)).anyTimes();
+    renewer.add(SUBSCRIPTION, ACK_ID1);
+    EasyMock.expectLastCall();
+    renewer.add(SUBSCRIPTION, ACK_ID2);
+    EasyMock.expectLastCall();
+    ackBundler.nack(SUBSCRIPTION, ACK_ID1);
+    EasyMock.expectLastCall().andAnswer(createAnswer(latch));
+    ackBundler.nack(SUBSCRIPTION, ACK_ID2);
+    EasyMock.expectLastCall().andAnswer(createAnswer(latch));
+    ackBundler.flush(SUBSCRIPTION);
+    EasyMock.expectLastCall();
+    EasyMock.replay(pubsubRpc, options, renewer, ackBundler);
+    try (MessageConsumer consumer =
+         MessageConsumerImpl.builder(options, SUBSCRIPTION, renewer, THROW_PROCESSOR)
+             .maxQueuedCallbacks(MAX_QUEUED_CALLBACKS)
+             .ackBundler(ackBundler)
+             .build()) {
+      latch.await();
+    }
+    EasyMock.verify(ackBundler);
+  }
+
   @Test
   public void testMessageConsumerMultipleCallsAck() throws Exception {
     PullRequest request1 = pullRequest(MAX_QUEUED_CALLBACKS);
@@ -313,6 +477,33 @@ public class MessageConsumerImplTest {
     }
   }
 
+  @Test
+  public void testMessageConsumerConcurrentPulls() throws Exception {
+    PullRequest request = pullRequest(MAX_QUEUED_CALLBACKS / 2);
+    EasyMock.expect(options.rpc()).andReturn(pubsubRpc);
+    EasyMock.expect(options.service()).andReturn(pubsub);
+    EasyMock.expect(options.projectId()).andReturn(PROJECT).anyTimes();
+    EasyMock.replay(pubsub);
+    final CountDownLatch latch = new CountDownLatch(2);
+    final SettableFuture<PullResponse> pendingResponse = SettableFuture.create();
+    EasyMock.expect(pubsubRpc.pull(request)).andAnswer(new IAnswer<PullFuture>() {
+      @Override
+      public PullFuture answer() throws Throwable {
+        latch.countDown();
+        return new TestPullFuture(pendingResponse);
+      }
+    }).times(2);
+    EasyMock.replay(pubsubRpc, options, renewer);
+    try (MessageConsumer consumer =
+         MessageConsumerImpl.builder(options, SUBSCRIPTION, renewer, DO_NOTHING_PROCESSOR)
+             .maxQueuedCallbacks(MAX_QUEUED_CALLBACKS)
+             .maxConcurrentPulls(2)
+             .build()) {
+      // both pulls are in flight at the same time, each requesting half of the queue
+      latch.await();
+    }
+  }
+
   @Test
   public void testMessageConsumerMaxCallbacksAck() throws Exception {
     PullRequest request1 = pullRequest(2);
@@ -44,6 +44,7 @@ import com.google.common.collect.Iterables;
 import com.google.common.collect.Iterators;
 import com.google.common.collect.Lists;
 import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.SettableFuture;
 import com.google.protobuf.Empty;
 import com.google.pubsub.v1.AcknowledgeRequest;
 import com.google.pubsub.v1.DeleteSubscriptionRequest;
@@ -63,6 +64,8 @@ import com.google.pubsub.v1.PublishResponse;
 import com.google.pubsub.v1.PullRequest;
 import com.google.pubsub.v1.PullResponse;
 
+import io.grpc.Status.Code;
+
 import org.easymock.Capture;
 import org.easymock.EasyMock;
 import org.easymock.IAnswer;
@@ -162,6 +165,8 @@ public class PubSubImplTest {
     EasyMock.expect(options.projectId()).andReturn(PROJECT).anyTimes();
     EasyMock.expect(options.rpc()).andReturn(pubsubRpcMock).anyTimes();
     EasyMock.expect(options.retryParams()).andReturn(RetryParams.noRetries()).anyTimes();
+    EasyMock.expect(options.publishBundlingSettings()).andReturn(null).anyTimes();
+    EasyMock.expect(options.publishFlowControlSettings()).andReturn(null).anyTimes();
     EasyMock.replay(rpcFactoryMock, pubsubRpcMock, renewerMock, options);
     EasyMock.reset(pubsubRpcMock, renewerMock);
   }
@@ -598,6 +603,74 @@ public class PubSubImplTest {
     assertEquals(messageIds, pubsub.publishAsync(TOPIC, ImmutableList.of(MESSAGE, MESSAGE)).get());
   }
 
+  private void resetOptionsForFlowControl(PublishFlowControlSettings settings) {
+    EasyMock.reset(options);
+    EasyMock.expect(options.projectId()).andReturn(PROJECT).anyTimes();
+    EasyMock.expect(options.rpc()).andReturn(pubsubRpcMock).anyTimes();
+    EasyMock.expect(options.publishBundlingSettings()).andReturn(null).anyTimes();
+    EasyMock.expect(options.publishFlowControlSettings()).andReturn(settings).anyTimes();
+    EasyMock.replay(options);
+  }
+
+  @Test
+  public void testPublishFlowControlThrowException()
+      throws ExecutionException, InterruptedException {
+    resetOptionsForFlowControl(PublishFlowControlSettings.builder()
+        .maxOutstandingMessages(1)
+        .limitExceededBehavior(PublishFlowControlSettings.LimitExceededBehavior.THROW_EXCEPTION)
+        .build());
+    PublishRequest request = PublishRequest.newBuilder()
+        .setTopic(TOPIC_NAME_PB)
+        .addMessages(MESSAGE.toPb())
+        .build();
+    String messageId = "messageId";
+    SettableFuture<PublishResponse> responseFuture = SettableFuture.create();
+    EasyMock.expect(pubsubRpcMock.publish(request)).andReturn(responseFuture);
+    EasyMock.replay(pubsubRpcMock, renewerMock);
+    pubsub = new PubSubImpl(options, renewerMock);
+    Future<String> future = pubsub.publishAsync(TOPIC, MESSAGE);
+    assertEquals(1, pubsub.outstandingPublishedMessages());
+    assertEquals(MESSAGE.toPb().getSerializedSize(), pubsub.outstandingPublishedBytes());
+    try {
+      pubsub.publishAsync(TOPIC, MESSAGE);
+      fail("Expected PubSubException");
+    } catch (PubSubException ex) {
+      assertEquals(Code.RESOURCE_EXHAUSTED.value(), ex.code());
+    }
+    responseFuture.set(PublishResponse.newBuilder().addMessageIds(messageId).build());
+    assertEquals(messageId, future.get());
+    assertEquals(0, pubsub.outstandingPublishedMessages());
+    assertEquals(0, pubsub.outstandingPublishedBytes());
+  }
+
+  @Test
+  public void testPublishFlowControlDrop() throws ExecutionException, InterruptedException {
+    resetOptionsForFlowControl(PublishFlowControlSettings.builder()
+        .maxOutstandingBytes(1L)
+        .limitExceededBehavior(PublishFlowControlSettings.LimitExceededBehavior.DROP)
+        .build());
+    PublishRequest request = PublishRequest.newBuilder()
+        .setTopic(TOPIC_NAME_PB)
+        .addMessages(MESSAGE.toPb())
+        .build();
+    SettableFuture<PublishResponse> responseFuture = SettableFuture.create();
+    EasyMock.expect(pubsubRpcMock.publish(request)).andReturn(responseFuture);
+    EasyMock.replay(pubsubRpcMock, renewerMock);
+    pubsub = new PubSubImpl(options, renewerMock);
+    Future<String> future = pubsub.publishAsync(TOPIC, MESSAGE);
+    Future<List<String>> dropped = pubsub.publishAsync(TOPIC, MESSAGE1, MESSAGE2);
+    try {
+      dropped.get();
+      fail("Expected PubSubException");
+    } catch (ExecutionException ex) {
+      assertEquals(Code.RESOURCE_EXHAUSTED.value(), ((PubSubException) ex.getCause()).code());
+    }
+    assertEquals(1, pubsub.outstandingPublishedMessages());
+    responseFuture.set(PublishResponse.newBuilder().addMessageIds("messageId").build());
+    assertEquals("messageId", future.get());
+    assertEquals(0, pubsub.outstandingPublishedMessages());
+  }
+
   @Test
   public void testCreateSubscription() {
     com.google.pubsub.v1.Subscription subscriptionPb = SUBSCRIPTION_INFO.toPb(PROJECT);
@@ -51,6 +51,22 @@ public class PubSubTest {
     PullOption pullOption = PullOption.maxQueuedCallbacks(MAX_QUEUED_CALLBACKS);
     assertEquals(MAX_QUEUED_CALLBACKS, pullOption.value());
     assertEquals(PullOption.OptionType.MAX_QUEUED_CALLBACKS, pullOption.optionType());
+    // max queued bytes
+    pullOption = PullOption.maxQueuedBytes(1024L);
+    assertEquals(1024L, pullOption.value());
+    assertEquals(PullOption.OptionType.MAX_QUEUED_BYTES, pullOption.optionType());
+    // max concurrent pulls
+    pullOption = PullOption.maxConcurrentPulls(3);
+    assertEquals(3, pullOption.value());
+    assertEquals(PullOption.OptionType.MAX_CONCURRENT_PULLS, pullOption.optionType());
+    // adaptive ack deadline
+    pullOption = PullOption.adaptiveAckDeadline(true);
+    assertEquals(true, pullOption.value());
+    assertEquals(PullOption.OptionType.ADAPTIVE_ACK_DEADLINE, pullOption.optionType());
+    // ordering key attribute
+    pullOption = PullOption.orderingKeyAttribute("key");
+    assertEquals("key", pullOption.value());
+    assertEquals(PullOption.OptionType.ORDERING_KEY_ATTRIBUTE, pullOption.optionType());
     ExecutorFactory executorFactory = EasyMock.createStrictMock(ExecutorFactory.class);
     pullOption = PullOption.executorFactory(executorFactory);
     assertSame(executorFactory, pullOption.value());
@@ -0,0 +1,227 @@
+/*
+ * Copyright 2016 Google Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.pubsub;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import com.google.cloud.pubsub.PublishFlowControlSettings.LimitExceededBehavior;
+import com.google.cloud.pubsub.spi.PubSubRpc;
+import com.google.cloud.pubsub.spi.PubSubRpcFactory;
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.Futures;
+import com.google.pubsub.v1.PublishRequest;
+import com.google.pubsub.v1.PublishResponse;
+
+import io.grpc.Status.Code;
+
+import org.easymock.EasyMock;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+import java.io.IOException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+public class PublishBundlerTest {
+
+  private static final String PROJECT = "project";
+  private static final String TOPIC1 = "topic1";
+  private static final String TOPIC2 = "topic2";
+  private static final String TOPIC_NAME_PB1 = "projects/project/topics/topic1";
+  private static final String TOPIC_NAME_PB2 = "projects/project/topics/topic2";
+  private static final Message MESSAGE1 = Message.of("payload1");
+  private static final Message MESSAGE2 = Message.of("payload2");
+  private static final Message MESSAGE3 = Message.of("payload3");
+
+  private PubSubRpcFactory rpcFactoryMock;
+  private PubSubRpc pubsubRpcMock;
+  private FlowController flowController;
+  private PublishBundler bundler;
+
+  @Rule
+  public Timeout globalTimeout = Timeout.seconds(60);
+
+  @Before
+  public void setUp() {
+    rpcFactoryMock = EasyMock.createMock(PubSubRpcFactory.class);
+    pubsubRpcMock = EasyMock.createStrictMock(PubSubRpc.class);
+    EasyMock.expect(rpcFactoryMock.create(EasyMock.<PubSubOptions>anyObject()))
+        .andReturn(pubsubRpcMock);
+    EasyMock.replay(rpcFactoryMock);
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    if (bundler != null) {
+      bundler.close();
+    }
+    EasyMock.verify(rpcFactoryMock, pubsubRpcMock);
+  }
+
+  private PublishBundler bundler(PublishBundlingSettings settings) {
+    PubSubOptions options = PubSubOptions.builder()
+        .projectId(PROJECT)
+        .serviceRpcFactory(rpcFactoryMock)
+        .build();
+    flowController = new FlowController(null, null, LimitExceededBehavior.BLOCK);
+    return new PublishBundler(options, settings, flowController);
+  }
+
+  private static PublishRequest request(String topicName, Message... messages) {
+    PublishRequest.Builder builder = PublishRequest.newBuilder().setTopic(topicName);
+    for (Message message : messages) {
+      builder.addMessages(message.toPb());
+    }
+    return builder.build();
+  }
+
+  private static Future<PublishResponse> response(String... messageIds) {
+    return Futures.immediateFuture(
+        PublishResponse.newBuilder().addAllMessageIds(ImmutableList.copyOf(messageIds)).build());
+  }
+
+  @Test
+  public void testPublishMaxMessages() throws ExecutionException, InterruptedException {
+    EasyMock.expect(pubsubRpcMock.publish(request(TOPIC_NAME_PB1, MESSAGE1, MESSAGE2)))
+        .andReturn(response("id1", "id2"));
+    EasyMock.expect(pubsubRpcMock.publish(request(TOPIC_NAME_PB1, MESSAGE3)))
+        .andReturn(response("id3"));
+    EasyMock.replay(pubsubRpcMock);
+    bundler = bundler(PublishBundlingSettings.builder()
+        .maxMessages(2)
+        .delayThreshold(1, TimeUnit.HOURS)
+        .build());
+    Future<String> future1 = bundler.publish(TOPIC1, MESSAGE1);
+    Future<String> future2 = bundler.publish(TOPIC1, MESSAGE2);
+    assertEquals("id1", future1.get());
+    assertEquals("id2", future2.get());
+    assertEquals(0, flowController.outstandingMessages());
+    Future<String> future3 = bundler.publish(TOPIC1, MESSAGE3);
+    bundler.close();
+    assertEquals("id3", future3.get());
+  }
+
+  @Test
+  public void testPublishMaxBytes() throws ExecutionException, InterruptedException {
+    EasyMock.expect(pubsubRpcMock.publish(request(TOPIC_NAME_PB1, MESSAGE1)))
+        .andReturn(response("id1"));
+    EasyMock.expect(pubsubRpcMock.publish(request(TOPIC_NAME_PB1, MESSAGE2)))
+        .andReturn(response("id2"));
+    EasyMock.replay(pubsubRpcMock);
+    bundler = bundler(PublishBundlingSettings.builder()
+        .maxBytes(MESSAGE1.toPb().getSerializedSize() + 1)
+        .delayThreshold(1, TimeUnit.HOURS)
+        .build());
+    Future<String> future1 = bundler.publish(TOPIC1, MESSAGE1);
+    Future<String> future2 = bundler.publish(TOPIC1, MESSAGE2);
+    assertEquals("id1", future1.get());
+    bundler.close();
+    assertEquals("id2", future2.get());
+  }
+
+  @Test
+  public void testPublishDelayThreshold() throws ExecutionException, InterruptedException {
+    EasyMock.expect(pubsubRpcMock.publish(request(TOPIC_NAME_PB1, MESSAGE1, MESSAGE2)))
+        .andReturn(response("id1", "id2"));
+    EasyMock.replay(pubsubRpcMock);
+    bundler = bundler(PublishBundlingSettings.builder()
+        .delayThreshold(10, TimeUnit.MILLISECONDS)
+        .build());
+    Future<String> future1 = bundler.publish(TOPIC1, MESSAGE1);
+    Future<String> future2 = bundler.publish(TOPIC1, MESSAGE2);
+    assertEquals("id1", future1.get());
+    assertEquals("id2", future2.get());
+  }
+
+  @Test
+  public void testPublishBundlesPerTopic() throws ExecutionException, InterruptedException {
+    EasyMock.expect(pubsubRpcMock.publish(request(TOPIC_NAME_PB1, MESSAGE1, MESSAGE3)))
+        .andReturn(response("id1", "id3"));
+    EasyMock.expect(pubsubRpcMock.publish(request(TOPIC_NAME_PB2, MESSAGE2)))
+        .andReturn(response("id2"));
+    EasyMock.replay(pubsubRpcMock);
+    bundler = bundler(PublishBundlingSettings.builder()
+        .maxMessages(2)
+        .delayThreshold(1, TimeUnit.HOURS)
+        .build());
+    Future<String> future1 = bundler.publish(TOPIC1, MESSAGE1);
+    Future<String> future2 = bundler.publish(TOPIC2, MESSAGE2);
+    assertEquals(2, flowController.outstandingMessages());
+    Future<String> future3 = bundler.publish(TOPIC1, MESSAGE3);
+    assertEquals("id1", future1.get());
+    assertEquals("id3", future3.get());
+    bundler.flush();
+    assertEquals("id2", future2.get());
+  }
+
+  @Test
+  public void testPublishFailure() throws InterruptedException {
+    PubSubException exception = new PubSubException(new IOException("failed"), false);
+    EasyMock.expect(pubsubRpcMock.publish(request(TOPIC_NAME_PB1, MESSAGE1, MESSAGE2)))
+        .andReturn(Futures.<PublishResponse>immediateFailedFuture(exception));
+    EasyMock.replay(pubsubRpcMock);
+    bundler = bundler(PublishBundlingSettings.builder()
+        .maxMessages(2)
+        .delayThreshold(1, TimeUnit.HOURS)
+        .build());
+    Future<String> future1 = bundler.publish(TOPIC1, MESSAGE1);
+    Future<String> future2 = bundler.publish(TOPIC1, MESSAGE2);
+    for (Future<String> future : ImmutableList.of(future1, future2)) {
+      try {
+        future.get();
+        fail("Expected publish to fail");
+      } catch (ExecutionException ex) {
+        assertSame(exception, ex.getCause());
+      }
+    }
+    assertEquals(0, flowController.outstandingMessages());
+    assertEquals(0, flowController.outstandingBytes());
+  }
+
+  @Test
+  public void testPublishDropsWhenLimitExceeded() throws InterruptedException {
+    EasyMock.replay(pubsubRpcMock);
+    PubSubOptions options = PubSubOptions.builder()
+        .projectId(PROJECT)
+        .serviceRpcFactory(rpcFactoryMock)
+        .build();
+    flowController = new FlowController(1, null, LimitExceededBehavior.DROP);
+    bundler = new PublishBundler(options, PublishBundlingSettings.builder()
+        .delayThreshold(1, TimeUnit.HOURS)
+        .build(), flowController);
+    Future<String> future1 = bundler.publish(TOPIC1, MESSAGE1);
+    Future<String> future2 = bundler.publish(TOPIC1, MESSAGE2);
+    try {
+      future2.get();
+      fail("Expected publish to fail");
+    } catch (ExecutionException ex) {
+      assertEquals(Code.RESOURCE_EXHAUSTED.value(), ((PubSubException) ex.getCause()).code());
+    }
+    assertFalse(future1.isDone());
+    EasyMock.reset(pubsubRpcMock);
+    EasyMock.expect(pubsubRpcMock.publish(request(TOPIC_NAME_PB1, MESSAGE1)))
+        .andReturn(response("id1"));
+    EasyMock.replay(pubsubRpcMock);
+  }
+}
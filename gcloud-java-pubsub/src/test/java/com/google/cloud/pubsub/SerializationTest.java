@@ -53,6 +53,12 @@ public class SerializationTest extends BaseSerializationTest {
   private static final PullOption MAX_QUEUED_CALLBACKS_OPTION = PullOption.maxQueuedCallbacks(42);
   private static final PullOption EXECUTOR_FACTORY_OPTION =
       PullOption.executorFactory(new TestExecutorFactory());
+  private static final PublishBundlingSettings PUBLISH_BUNDLING_SETTINGS =
+      PublishBundlingSettings.builder().maxMessages(42).build();
+  private static final PublishFlowControlSettings PUBLISH_FLOW_CONTROL_SETTINGS =
+      PublishFlowControlSettings.builder().maxOutstandingBytes(42L).build();
+  private static final AckBundlingSettings ACK_BUNDLING_SETTINGS =
+      AckBundlingSettings.builder().maxAckIds(42).build();
 
   public static class TestExecutorFactory
       implements ExecutorFactory<ScheduledExecutorService>, Serializable {
@@ -89,10 +95,14 @@ public class SerializationTest extends BaseSerializationTest {
     PubSubOptions otherOptions = options.toBuilder()
         .projectId("p2")
         .executorFactory(new TestExecutorFactory())
+        .publishBundlingSettings(PUBLISH_BUNDLING_SETTINGS)
+        .publishFlowControlSettings(PUBLISH_FLOW_CONTROL_SETTINGS)
+        .ackBundlingSettings(ACK_BUNDLING_SETTINGS)
         .build();
-    return new Serializable[]{options, otherOptions, MESSAGE, RECEIVED_MESSAGE, SUBSCRIPTION_INFO,
-        SUBSCRIPTION, SUBSCRIPTION_ID, TOPIC_INFO, TOPIC, PAGE_TOKEN_OPTION, PAGE_SIZE_OPTION,
-        MAX_QUEUED_CALLBACKS_OPTION, EXECUTOR_FACTORY_OPTION};
+    return new Serializable[]{options, otherOptions, PUBLISH_BUNDLING_SETTINGS,
+        PUBLISH_FLOW_CONTROL_SETTINGS, ACK_BUNDLING_SETTINGS, MESSAGE, RECEIVED_MESSAGE,
+        SUBSCRIPTION_INFO, SUBSCRIPTION, SUBSCRIPTION_ID, TOPIC_INFO, TOPIC, PAGE_TOKEN_OPTION,
+        PAGE_SIZE_OPTION, MAX_QUEUED_CALLBACKS_OPTION, EXECUTOR_FACTORY_OPTION};
   }
 
   @Override
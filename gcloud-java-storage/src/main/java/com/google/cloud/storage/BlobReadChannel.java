@@ -19,25 +19,42 @@ package com.google.cloud.storage;
 import static com.google.cloud.RetryHelper.runWithRetries;
 
 import com.google.api.services.storage.model.StorageObject;
+import com.google.cloud.BaseServiceException;
+import com.google.cloud.ReadAheadChannel;
 import com.google.cloud.ReadChannel;
 import com.google.cloud.RestorableState;
 import com.google.cloud.RetryHelper;
+import com.google.cloud.RetryHelper.RetryInterruptedException;
 import com.google.cloud.storage.spi.StorageRpc;
-import com.google.cloud.storage.spi.StorageRpc.Tuple;
 import com.google.common.base.MoreObjects;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.io.BaseEncoding;
+import com.google.common.primitives.Ints;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
 import java.io.IOException;
 import java.io.Serializable;
 import java.nio.ByteBuffer;
 import java.nio.channels.ClosedChannelException;
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 /**
- * Default implementation for ReadChannel.
+ * Default implementation for ReadChannel. When a blob is read sequentially from its beginning, the
+ * CRC32C checksum of the read bytes is computed on the fly and compared with the one reported by
+ * the service once the end of the blob is reached.
  */
-class BlobReadChannel implements ReadChannel {
+class BlobReadChannel implements ReadAheadChannel {
 
   private static final int DEFAULT_CHUNK_SIZE = 2 * 1024 * 1024;
 
@@ -49,11 +66,32 @@ class BlobReadChannel implements ReadChannel {
   private boolean isOpen;
   private boolean endOfStream;
   private int chunkSize = DEFAULT_CHUNK_SIZE;
+  private int readAhead;
 
   private final StorageRpc storageRpc;
   private final StorageObject storageObject;
-  private int bufferPos;
-  private byte[] buffer;
+  private ByteBuffer buffer;
+  private final Deque<ByteBuffer> freeBuffers = new ArrayDeque<>();
+  private final Deque<PendingRead> pendingReads = new ArrayDeque<>();
+  private long nextReadPosition;
+  private ThreadPoolExecutor executor;
+  private Hasher crc32c = Hashing.crc32c().newHasher();
+  private long checksumPosition;
+  private String expectedCrc32c;
+
+  /**
+   * A ranged read scheduled ahead of the current position.
+   */
+  private static final class PendingRead {
+
+    private final ByteBuffer buffer;
+    private final Future<StorageObject> result;
+
+    PendingRead(ByteBuffer buffer, Future<StorageObject> result) {
+      this.buffer = buffer;
+      this.result = result;
+    }
+  }
 
   BlobReadChannel(StorageOptions serviceOptions, BlobId blob,
       Map<StorageRpc.Option, ?> requestOptions) {
@@ -71,9 +109,10 @@ class BlobReadChannel implements ReadChannel {
         .position(position)
         .isOpen(isOpen)
         .endOfStream(endOfStream)
-        .chunkSize(chunkSize);
+        .chunkSize(chunkSize)
+        .readAhead(readAhead);
     if (buffer != null) {
-      builder.position(position + bufferPos);
+      builder.position(position + buffer.position());
       builder.endOfStream(false);
     }
     return builder.build();
@@ -88,6 +127,12 @@ class BlobReadChannel implements ReadChannel {
   public void close() {
     if (isOpen) {
       buffer = null;
+      freeBuffers.clear();
+      cancelPendingReads();
+      if (executor != null) {
+        executor.shutdownNow();
+        executor = null;
+      }
       isOpen = false;
     }
   }
@@ -102,9 +147,9 @@ class BlobReadChannel implements ReadChannel {
   public void seek(long position) throws IOException {
     validateOpen();
     this.position = position;
-    buffer = null;
-    bufferPos = 0;
+    releaseBuffer();
     endOfStream = false;
+    cancelPendingReads();
   }
 
   @Override
@@ -112,6 +157,12 @@ class BlobReadChannel implements ReadChannel {
     this.chunkSize = chunkSize <= 0 ? DEFAULT_CHUNK_SIZE : chunkSize;
   }
 
+  @Override
+  public void readAhead(int chunks) {
+    this.readAhead = Math.max(chunks, 0);
+    cancelPendingReads();
+  }
+
   @Override
   public int read(ByteBuffer byteBuffer) throws IOException {
     validateOpen();
@@ -119,43 +170,245 @@ class BlobReadChannel implements ReadChannel {
       if (endOfStream) {
         return -1;
       }
-      final int toRead = Math.max(byteBuffer.remaining(), chunkSize);
-      try {
-        Tuple<String, byte[]> result = runWithRetries(new Callable<Tuple<String, byte[]>>() {
-          @Override
-          public Tuple<String, byte[]> call() {
-            return storageRpc.read(storageObject, requestOptions, position, toRead);
-          }
-        }, serviceOptions.retryParams(), StorageImpl.EXCEPTION_HANDLER, serviceOptions.clock());
-        if (result.y().length > 0 && lastEtag != null && !Objects.equals(result.x(), lastEtag)) {
-          StringBuilder messageBuilder = new StringBuilder();
-          messageBuilder.append("Blob ").append(blob).append(" was updated while reading");
-          throw new StorageException(0, messageBuilder.toString());
+      if (readAhead == 0 && byteBuffer.remaining() >= chunkSize) {
+        // the caller's buffer can hold a whole chunk, read straight into it
+        return readDirect(byteBuffer);
+      }
+      ByteBuffer chunk;
+      StorageObject result;
+      if (readAhead > 0) {
+        PendingRead pendingRead = nextPendingRead();
+        chunk = pendingRead.buffer;
+        result = awaitResult(pendingRead);
+      } else {
+        chunk = allocateChunk();
+        try {
+          result = readRange(position, chunk);
+        } catch (RetryHelper.RetryHelperException e) {
+          throw StorageException.translateAndThrow(e);
         }
-        lastEtag = result.x();
-        buffer = result.y();
-      } catch (RetryHelper.RetryHelperException e) {
-        throw StorageException.translateAndThrow(e);
       }
-      if (toRead > buffer.length) {
+      int toRead = chunk.limit();
+      chunk.flip();
+      validateEtag(result, chunk.remaining());
+      lastEtag = etag(result);
+      updateChecksum(result, chunk.duplicate());
+      buffer = chunk;
+      if (toRead > buffer.remaining()) {
         endOfStream = true;
-        if (buffer.length == 0) {
-          buffer = null;
+        cancelPendingReads();
+        try {
+          validateChecksum();
+        } catch (StorageException e) {
+          releaseBuffer();
+          throw e;
+        }
+        if (!buffer.hasRemaining()) {
+          releaseBuffer();
           return -1;
         }
       }
     }
-    int toWrite = Math.min(buffer.length - bufferPos, byteBuffer.remaining());
-    byteBuffer.put(buffer, bufferPos, toWrite);
-    bufferPos += toWrite;
-    if (bufferPos >= buffer.length) {
-      position += buffer.length;
-      buffer = null;
-      bufferPos = 0;
+    int toWrite = Math.min(buffer.remaining(), byteBuffer.remaining());
+    ByteBuffer source = buffer.duplicate();
+    source.limit(source.position() + toWrite);
+    byteBuffer.put(source);
+    buffer.position(buffer.position() + toWrite);
+    if (!buffer.hasRemaining()) {
+      position += buffer.limit();
+      releaseBuffer();
     }
     return toWrite;
   }
 
+  private int readDirect(ByteBuffer byteBuffer) {
+    int start = byteBuffer.position();
+    int toRead = byteBuffer.remaining();
+    StorageObject result;
+    try {
+      result = readRange(position, byteBuffer);
+    } catch (RetryHelper.RetryHelperException e) {
+      byteBuffer.position(start);
+      throw StorageException.translateAndThrow(e);
+    }
+    int read = byteBuffer.position() - start;
+    try {
+      validateEtag(result, read);
+      ByteBuffer readBytes = byteBuffer.duplicate();
+      readBytes.flip();
+      readBytes.position(start);
+      updateChecksum(result, readBytes);
+      if (toRead > read) {
+        validateChecksum();
+      }
+    } catch (StorageException e) {
+      byteBuffer.position(start);
+      throw e;
+    }
+    lastEtag = etag(result);
+    if (toRead > read) {
+      endOfStream = true;
+      if (read == 0) {
+        return -1;
+      }
+    }
+    position += read;
+    return read;
+  }
+
+  private static String etag(StorageObject result) {
+    return result != null ? result.getEtag() : null;
+  }
+
+  private void validateEtag(StorageObject result, int read) {
+    if (read > 0 && lastEtag != null && !Objects.equals(etag(result), lastEtag)) {
+      cancelPendingReads();
+      StringBuilder messageBuilder = new StringBuilder();
+      messageBuilder.append("Blob ").append(blob).append(" was updated while reading");
+      throw new StorageException(0, messageBuilder.toString());
+    }
+  }
+
+  /**
+   * Adds the bytes of a chunk read at the current position to the running checksum. Checksum
+   * validation is disabled if the chunk does not directly follow the already checksummed bytes,
+   * i.e. if the blob is not read sequentially from its beginning.
+   */
+  private void updateChecksum(StorageObject result, ByteBuffer chunk) {
+    if (crc32c == null) {
+      return;
+    }
+    if (position != checksumPosition) {
+      crc32c = null;
+      return;
+    }
+    if (result != null && result.getCrc32c() != null) {
+      expectedCrc32c = result.getCrc32c();
+    }
+    int length = chunk.remaining();
+    if (chunk.hasArray()) {
+      crc32c.putBytes(chunk.array(), chunk.arrayOffset() + chunk.position(), length);
+    } else {
+      byte[] bytes = new byte[length];
+      chunk.get(bytes);
+      crc32c.putBytes(bytes);
+    }
+    checksumPosition += length;
+  }
+
+  /**
+   * Compares the checksum of the whole blob with the one reported by the service, if both are
+   * available.
+   */
+  private void validateChecksum() {
+    if (crc32c != null && expectedCrc32c != null) {
+      String actualCrc32c = BaseEncoding.base64().encode(Ints.toByteArray(crc32c.hash().asInt()));
+      crc32c = null;
+      if (!expectedCrc32c.equals(actualCrc32c)) {
+        StringBuilder messageBuilder = new StringBuilder();
+        messageBuilder.append("Blob ").append(blob).append(" CRC32C checksum mismatch, expected ")
+            .append(expectedCrc32c).append(" but read content has ").append(actualCrc32c);
+        throw new StorageException(0, messageBuilder.toString());
+      }
+    }
+  }
+
+  private StorageObject readRange(final long readPosition, final ByteBuffer target) {
+    final int start = target.position();
+    return runWithRetries(new Callable<StorageObject>() {
+      @Override
+      public StorageObject call() {
+        // a failed attempt may have partially filled the buffer
+        target.position(start);
+        return storageRpc.read(storageObject, requestOptions, readPosition, target);
+      }
+    }, serviceOptions.retryParams(), StorageImpl.EXCEPTION_HANDLER, serviceOptions.clock());
+  }
+
+  /**
+   * Returns an empty buffer of {@code chunkSize} bytes, reusing a released one if possible.
+   */
+  private ByteBuffer allocateChunk() {
+    ByteBuffer chunk = freeBuffers.poll();
+    if (chunk == null || chunk.capacity() < chunkSize) {
+      chunk = ByteBuffer.allocate(chunkSize);
+    }
+    chunk.clear();
+    chunk.limit(chunkSize);
+    return chunk;
+  }
+
+  private void releaseBuffer() {
+    if (buffer != null && freeBuffers.size() <= readAhead) {
+      freeBuffers.add(buffer);
+    }
+    buffer = null;
+  }
+
+  /**
+   * Schedules ranged reads until {@code readAhead + 1} of them are in flight and returns the one
+   * that starts at the current position.
+   */
+  private PendingRead nextPendingRead() {
+    if (pendingReads.isEmpty()) {
+      nextReadPosition = position;
+    }
+    while (pendingReads.size() <= readAhead) {
+      final long readPosition = nextReadPosition;
+      final ByteBuffer chunk = allocateChunk();
+      Future<StorageObject> result = executor().submit(new Callable<StorageObject>() {
+        @Override
+        public StorageObject call() {
+          return readRange(readPosition, chunk);
+        }
+      });
+      pendingReads.add(new PendingRead(chunk, result));
+      nextReadPosition += chunk.limit();
+    }
+    return pendingReads.poll();
+  }
+
+  private StorageObject awaitResult(PendingRead pendingRead) {
+    try {
+      return pendingRead.result.get();
+    } catch (InterruptedException e) {
+      cancelPendingReads();
+      RetryInterruptedException.propagate();
+      return null;
+    } catch (ExecutionException e) {
+      cancelPendingReads();
+      Throwable cause = e.getCause();
+      if (cause instanceof RetryHelper.RetryHelperException) {
+        throw StorageException.translateAndThrow((RetryHelper.RetryHelperException) cause);
+      }
+      throw new StorageException(BaseServiceException.UNKNOWN_CODE, cause.getMessage(), cause);
+    }
+  }
+
+  /**
+   * Cancels all scheduled ranged reads. Their buffers are not reused as a cancelled read might
+   * still be writing to them.
+   */
+  private void cancelPendingReads() {
+    for (PendingRead pendingRead : pendingReads) {
+      pendingRead.result.cancel(true);
+    }
+    pendingReads.clear();
+  }
+
+  private ExecutorService executor() {
+    if (executor == null) {
+      executor = new ThreadPoolExecutor(readAhead + 1, readAhead + 1, 5, TimeUnit.SECONDS,
+          new LinkedBlockingQueue<Runnable>(),
+          new ThreadFactoryBuilder().setDaemon(true).setNameFormat("blob-read-ahead-%d").build());
+      executor.allowCoreThreadTimeOut(true);
+    } else if (executor.getMaximumPoolSize() < readAhead + 1) {
+      executor.setMaximumPoolSize(readAhead + 1);
+      executor.setCorePoolSize(readAhead + 1);
+    }
+    return executor;
+  }
+
   static class StateImpl implements RestorableState<ReadChannel>, Serializable {
 
     private static final long serialVersionUID = 3889420316004453706L;
@@ -168,6 +421,7 @@ class BlobReadChannel implements ReadChannel {
     private final boolean isOpen;
     private final boolean endOfStream;
     private final int chunkSize;
+    private final int readAhead;
 
     StateImpl(Builder builder) {
       this.serviceOptions = builder.serviceOptions;
@@ -178,6 +432,7 @@ class BlobReadChannel implements ReadChannel {
       this.isOpen = builder.isOpen;
       this.endOfStream = builder.endOfStream;
       this.chunkSize = builder.chunkSize;
+      this.readAhead = builder.readAhead;
     }
 
     static class Builder {
@@ -189,6 +444,7 @@ class BlobReadChannel implements ReadChannel {
       private boolean isOpen;
       private boolean endOfStream;
       private int chunkSize;
+      private int readAhead;
 
       private Builder(StorageOptions options, BlobId blob, Map<StorageRpc.Option, ?> reqOptions) {
         this.serviceOptions = options;
@@ -221,6 +477,11 @@ class BlobReadChannel implements ReadChannel {
         return this;
       }
 
+      Builder readAhead(int readAhead) {
+        this.readAhead = readAhead;
+        return this;
+      }
+
       RestorableState<ReadChannel> build() {
         return new StateImpl(this);
       }
@@ -239,13 +500,14 @@ class BlobReadChannel implements ReadChannel {
       channel.isOpen = isOpen;
       channel.endOfStream = endOfStream;
       channel.chunkSize = chunkSize;
+      channel.readAhead = readAhead;
       return channel;
     }
 
     @Override
     public int hashCode() {
       return Objects.hash(serviceOptions, blob, requestOptions, lastEtag, position, isOpen,
-          endOfStream, chunkSize);
+          endOfStream, chunkSize, readAhead);
     }
 
     @Override
@@ -264,7 +526,8 @@ class BlobReadChannel implements ReadChannel {
           && this.position == other.position
           && this.isOpen == other.isOpen
           && this.endOfStream == other.endOfStream
-          && this.chunkSize == other.chunkSize;
+          && this.chunkSize == other.chunkSize
+          && this.readAhead == other.readAhead;
     }
 
     @Override
@@ -22,15 +22,28 @@ import static java.util.concurrent.Executors.callable;
 import com.google.cloud.BaseWriteChannel;
 import com.google.cloud.RestorableState;
 import com.google.cloud.RetryHelper;
+import com.google.cloud.WriteBehindChannel;
 import com.google.cloud.WriteChannel;
 import com.google.cloud.storage.spi.StorageRpc;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.io.BaseEncoding;
+import com.google.common.primitives.Ints;
 
 import java.util.Map;
 
 /**
- * Write channel implementation to upload Google Cloud Storage blobs.
+ * Write channel implementation to upload Google Cloud Storage blobs. The CRC32C and MD5 checksums
+ * of the written bytes are computed as chunks are uploaded and sent along with the last chunk, so
+ * that the service can reject corrupted uploads. Checksums are not sent for uploads resumed from a
+ * captured state, as the bytes written before capturing are unknown to the restored channel.
  */
-class BlobWriteChannel extends BaseWriteChannel<StorageOptions, BlobInfo> {
+class BlobWriteChannel extends BaseWriteChannel<StorageOptions, BlobInfo>
+    implements WriteBehindChannel {
+
+  private Hasher crc32c = Hashing.crc32c().newHasher();
+  private Hasher md5 = Hashing.md5().newHasher();
+  private long checksumPosition;
 
   BlobWriteChannel(StorageOptions options, BlobInfo blob, Map<StorageRpc.Option, ?> optionsMap) {
     this(options, blob, options.rpc().open(blob.toPb(), optionsMap));
@@ -41,12 +54,33 @@ class BlobWriteChannel extends BaseWriteChannel<StorageOptions, BlobInfo> {
   }
 
   @Override
-  protected void flushBuffer(final int length, final boolean last) {
+  public void writeBehind(int chunks) {
+    super.writeBehind(chunks);
+  }
+
+  @Override
+  protected void flushBuffer(int length, boolean last) {
+    flushBuffer(buffer(), position(), length, last);
+  }
+
+  @Override
+  protected void flushBuffer(final byte[] buffer, final int position, final int length,
+      final boolean last) {
+    updateChecksums(buffer, position, length);
+    String crc32cChecksum = null;
+    String md5Checksum = null;
+    if (last && crc32c != null) {
+      crc32cChecksum = BaseEncoding.base64().encode(Ints.toByteArray(crc32c.hash().asInt()));
+      md5Checksum = BaseEncoding.base64().encode(md5.hash().asBytes());
+    }
+    final String crc32cHeader = crc32cChecksum;
+    final String md5Header = md5Checksum;
     try {
       runWithRetries(callable(new Runnable() {
         @Override
         public void run() {
-          options().rpc().write(uploadId(), buffer(), 0, position(), length, last);
+          options().rpc().write(uploadId(), buffer, 0, position, length, last, crc32cHeader,
+              md5Header);
         }
       }), options().retryParams(), StorageImpl.EXCEPTION_HANDLER, options().clock());
     } catch (RetryHelper.RetryHelperException e) {
@@ -54,6 +88,20 @@ class BlobWriteChannel extends BaseWriteChannel<StorageOptions, BlobInfo> {
     }
   }
 
+  private void updateChecksums(byte[] buffer, long position, int length) {
+    if (crc32c == null) {
+      return;
+    }
+    if (position != checksumPosition) {
+      crc32c = null;
+      md5 = null;
+      return;
+    }
+    crc32c.putBytes(buffer, 0, length);
+    md5.putBytes(buffer, 0, length);
+    checksumPosition += length;
+  }
+
   protected StateImpl.Builder stateBuilder() {
     return StateImpl.builder(options(), entity(), uploadId());
   }
@@ -0,0 +1,149 @@
+/*
+ * Copyright 2016 Google Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.storage;
+
+import com.google.cloud.BaseServiceException;
+import com.google.cloud.RetryHelper.RetryInterruptedException;
+import com.google.common.collect.AbstractIterator;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An iterator over the results of bulk operations. Inputs are lazily consumed and grouped into
+ * batches of at most {@link #BATCH_SIZE} operations. Up to {@code parallelism} batches are
+ * processed concurrently, ahead of the consumer. Results are returned in the same order as
+ * inputs.
+ *
+ * @param <T> the type of the operations' inputs
+ * @param <R> the type of the operations' results
+ */
+abstract class BulkResultIterator<T, R> extends AbstractIterator<R> {
+
+  static final int BATCH_SIZE = 100;
+
+  private final Storage storage;
+  private final Iterator<? extends T> inputs;
+  private final int parallelism;
+  private final Deque<SubmittedBatch> submittedBatches = new ArrayDeque<>();
+  private Iterator<StorageBatchResult<R>> currentResults;
+  private ThreadPoolExecutor executor;
+
+  private final class SubmittedBatch {
+
+    private final List<StorageBatchResult<R>> results;
+    private final Future<Void> future;
+
+    SubmittedBatch(List<StorageBatchResult<R>> results, Future<Void> future) {
+      this.results = results;
+      this.future = future;
+    }
+  }
+
+  BulkResultIterator(Storage storage, Iterator<? extends T> inputs, int parallelism) {
+    this.storage = storage;
+    this.inputs = inputs;
+    this.parallelism = parallelism;
+  }
+
+  /**
+   * Adds the operation for {@code input} to {@code batch}.
+   */
+  abstract StorageBatchResult<R> add(StorageBatch batch, T input);
+
+  /**
+   * Returns the result to yield for an operation that failed with {@code exception}.
+   */
+  abstract R errorResult(StorageException exception);
+
+  @Override
+  protected R computeNext() {
+    while (currentResults == null || !currentResults.hasNext()) {
+      submitBatches();
+      SubmittedBatch batch = submittedBatches.poll();
+      if (batch == null) {
+        if (executor != null) {
+          executor.shutdown();
+        }
+        return endOfData();
+      }
+      await(batch.future);
+      currentResults = batch.results.iterator();
+    }
+    StorageBatchResult<R> result = currentResults.next();
+    try {
+      return result.get();
+    } catch (StorageException ex) {
+      return errorResult(ex);
+    }
+  }
+
+  /**
+   * Submits batches until {@code parallelism} of them are in flight or inputs are exhausted.
+   */
+  private void submitBatches() {
+    while (submittedBatches.size() < parallelism && inputs.hasNext()) {
+      final StorageBatch batch = storage.batch();
+      List<StorageBatchResult<R>> results = new ArrayList<>(BATCH_SIZE);
+      while (results.size() < BATCH_SIZE && inputs.hasNext()) {
+        results.add(add(batch, inputs.next()));
+      }
+      Future<Void> future = executor().submit(new Callable<Void>() {
+        @Override
+        public Void call() {
+          batch.submit();
+          return null;
+        }
+      });
+      submittedBatches.add(new SubmittedBatch(results, future));
+    }
+  }
+
+  private void await(Future<Void> future) {
+    try {
+      future.get();
+    } catch (InterruptedException ex) {
+      RetryInterruptedException.propagate();
+    } catch (ExecutionException ex) {
+      Throwable cause = ex.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      throw new StorageException(BaseServiceException.UNKNOWN_CODE, cause.getMessage(), cause);
+    }
+  }
+
+  private ThreadPoolExecutor executor() {
+    if (executor == null) {
+      executor = new ThreadPoolExecutor(parallelism, parallelism, 5, TimeUnit.SECONDS,
+          new LinkedBlockingQueue<Runnable>(),
+          new ThreadFactoryBuilder().setDaemon(true).setNameFormat("storage-bulk-%d").build());
+      executor.allowCoreThreadTimeOut(true);
+    }
+    return executor;
+  }
+}
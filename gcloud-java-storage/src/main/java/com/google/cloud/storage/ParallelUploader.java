@@ -0,0 +1,349 @@
+/*
+ * Copyright 2016 Google Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.storage;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.cloud.BaseServiceException;
+import com.google.cloud.RetryHelper.RetryInterruptedException;
+import com.google.cloud.storage.Storage.BlobTargetOption;
+import com.google.cloud.storage.Storage.ComposeRequest;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Google Storage parallel composite uploader. A {@code ParallelUploader} splits the content to
+ * upload into parts, uploads the parts concurrently as temporary blobs and composes them into the
+ * target blob. As a compose request accepts at most {@value #MAX_COMPOSE_SOURCES} source blobs,
+ * parts are composed in several rounds if needed. Temporary blobs are deleted once the upload
+ * completes or fails. Content that fits in a single part is uploaded directly to the target blob.
+ *
+ * <p>At most {@link Builder#parallelism(int)} parts are uploaded at the same time, each part is
+ * held in memory while it is uploaded. The content is no longer read once a part fails to upload.
+ *
+ * <p>Example of uploading a file:
+ * <pre> {@code
+ * ParallelUploader uploader = ParallelUploader.builder(storage)
+ *     .partSize(32 * 1024 * 1024)
+ *     .parallelism(16)
+ *     .build();
+ * BlobInfo blobInfo = BlobInfo.builder("bucket", "blob_name").build();
+ * Blob blob = uploader.upload(blobInfo, Paths.get("file_name"));
+ * }</pre>
+ *
+ * <p>Blobs created by composition have no MD5 hash, their CRC32C checksum is computed by the
+ * service.
+ *
+ * @see <a href="https://cloud.google.com/storage/docs/composite-objects">Composite Objects</a>
+ */
+public final class ParallelUploader {
+
+  static final int MAX_COMPOSE_SOURCES = 32;
+  private static final int DEFAULT_PART_SIZE = 16 * 1024 * 1024;
+  private static final int DEFAULT_PARALLELISM = 8;
+
+  private final Storage storage;
+  private final int partSize;
+  private final int parallelism;
+  private final ExecutorService executor;
+
+  /**
+   * Builder for {@code ParallelUploader}.
+   */
+  public static final class Builder {
+
+    private final Storage storage;
+    private int partSize = DEFAULT_PART_SIZE;
+    private int parallelism = DEFAULT_PARALLELISM;
+    private ExecutorService executor;
+
+    private Builder(Storage storage) {
+      this.storage = storage;
+    }
+
+    /**
+     * Sets the size of the parts the content is split into, in bytes. Default value is 16 MiB.
+     *
+     * @throws IllegalArgumentException if {@code partSize} is not positive
+     */
+    public Builder partSize(int partSize) {
+      checkArgument(partSize > 0, "Part size must be > 0");
+      this.partSize = partSize;
+      return this;
+    }
+
+    /**
+     * Sets the maximum number of parts that are uploaded or composed concurrently. Default value is
+     * 8.
+     *
+     * @throws IllegalArgumentException if {@code parallelism} is not positive
+     */
+    public Builder parallelism(int parallelism) {
+      checkArgument(parallelism > 0, "Parallelism must be > 0");
+      this.parallelism = parallelism;
+      return this;
+    }
+
+    /**
+     * Sets the executor used to upload and compose parts. If not set, each upload creates its own
+     * thread pool of {@link #parallelism(int)} threads and shuts it down once done. An executor
+     * set through this method is not shut down by the uploader.
+     */
+    public Builder executor(ExecutorService executor) {
+      this.executor = executor;
+      return this;
+    }
+
+    /**
+     * Creates a {@code ParallelUploader} object.
+     */
+    public ParallelUploader build() {
+      return new ParallelUploader(this);
+    }
+  }
+
+  private ParallelUploader(Builder builder) {
+    this.storage = checkNotNull(builder.storage);
+    this.partSize = builder.partSize;
+    this.parallelism = builder.parallelism;
+    this.executor = builder.executor;
+  }
+
+  /**
+   * Returns a builder for a {@code ParallelUploader} that uploads blobs to {@code storage}.
+   */
+  public static Builder builder(Storage storage) {
+    return new Builder(storage);
+  }
+
+  /**
+   * Uploads the content of a file to the blob described by {@code blobInfo}.
+   *
+   * @param options options applied to the target blob
+   * @return the uploaded blob
+   * @throws IOException upon failure reading the file
+   * @throws StorageException upon failure uploading or composing the parts
+   */
+  public Blob upload(BlobInfo blobInfo, Path path, BlobTargetOption... options)
+      throws IOException {
+    try (ReadableByteChannel content = Files.newByteChannel(path)) {
+      return upload(blobInfo, content, options);
+    }
+  }
+
+  /**
+   * Uploads the content of an input stream to the blob described by {@code blobInfo}. The stream
+   * is read until its end but not closed.
+   *
+   * @param options options applied to the target blob
+   * @return the uploaded blob
+   * @throws IOException upon failure reading the stream
+   * @throws StorageException upon failure uploading or composing the parts
+   */
+  public Blob upload(BlobInfo blobInfo, InputStream content, BlobTargetOption... options)
+      throws IOException {
+    return upload(blobInfo, Channels.newChannel(content), options);
+  }
+
+  /**
+   * Uploads the content of a channel, for instance a {@link java.nio.channels.SeekableByteChannel},
+   * to the blob described by {@code blobInfo}. The channel is read from its current position until
+   * its end but not closed.
+   *
+   * @param options options applied to the target blob
+   * @return the uploaded blob
+   * @throws IOException upon failure reading the channel
+   * @throws StorageException upon failure uploading or composing the parts
+   */
+  public Blob upload(BlobInfo blobInfo, ReadableByteChannel content, BlobTargetOption... options)
+      throws IOException {
+    byte[] part = readPart(content);
+    byte[] nextPart = part.length == partSize ? readPart(content) : new byte[0];
+    if (nextPart.length == 0) {
+      return storage.create(blobInfo, part, options);
+    }
+    String prefix = blobInfo.name() + "." + UUID.randomUUID() + ".";
+    List<BlobId> temporaryBlobs = new ArrayList<>();
+    List<Future<Blob>> uploads = new ArrayList<>();
+    ExecutorService uploadExecutor = executor != null ? executor : newExecutor();
+    try {
+      Semaphore permits = new Semaphore(parallelism);
+      AtomicReference<RuntimeException> failure = new AtomicReference<>();
+      while (part.length > 0) {
+        acquire(permits);
+        if (failure.get() != null) {
+          // stop reading the content as soon as a part could not be uploaded
+          throw failure.get();
+        }
+        BlobInfo partInfo = BlobInfo.builder(blobInfo.bucket(), prefix + "part-" + uploads.size())
+            .build();
+        temporaryBlobs.add(partInfo.blobId());
+        uploads.add(uploadExecutor.submit(uploadPart(partInfo, part, permits, failure)));
+        part = nextPart;
+        nextPart = part.length == partSize ? readPart(content) : new byte[0];
+      }
+      List<Blob> sources = awaitAll(uploads);
+      int round = 0;
+      while (sources.size() > MAX_COMPOSE_SOURCES) {
+        List<Future<Blob>> composes = new ArrayList<>();
+        for (int i = 0; i < sources.size(); i += MAX_COMPOSE_SOURCES) {
+          List<Blob> group =
+              sources.subList(i, Math.min(i + MAX_COMPOSE_SOURCES, sources.size()));
+          BlobInfo composedInfo = BlobInfo.builder(blobInfo.bucket(),
+              prefix + "compose-" + round + "-" + composes.size()).build();
+          temporaryBlobs.add(composedInfo.blobId());
+          composes.add(uploadExecutor.submit(composePart(composeRequest(group, composedInfo))));
+        }
+        uploads.addAll(composes);
+        sources = awaitAll(composes);
+        round++;
+      }
+      return storage.compose(composeRequest(sources, blobInfo, options));
+    } finally {
+      cleanup(uploads, temporaryBlobs);
+      if (executor == null) {
+        uploadExecutor.shutdown();
+      }
+    }
+  }
+
+  private ExecutorService newExecutor() {
+    return Executors.newFixedThreadPool(parallelism,
+        new ThreadFactoryBuilder().setDaemon(true).setNameFormat("parallel-upload-%d").build());
+  }
+
+  /**
+   * Reads up to {@code partSize} bytes from {@code content}. Returns fewer bytes only if the end of
+   * the channel was reached.
+   */
+  private byte[] readPart(ReadableByteChannel content) throws IOException {
+    ByteBuffer buffer = ByteBuffer.allocate(partSize);
+    while (buffer.hasRemaining() && content.read(buffer) >= 0) {
+      // keep reading until the part is full or the content is exhausted
+    }
+    return buffer.position() == partSize
+        ? buffer.array() : Arrays.copyOf(buffer.array(), buffer.position());
+  }
+
+  /**
+   * Returns a task that uploads a part. If the upload fails, the first failure is recorded in
+   * {@code failure} before the task's permit is released.
+   */
+  private Callable<Blob> uploadPart(final BlobInfo partInfo, final byte[] content,
+      final Semaphore permits, final AtomicReference<RuntimeException> failure) {
+    return new Callable<Blob>() {
+      @Override
+      public Blob call() {
+        try {
+          return storage.create(partInfo, content);
+        } catch (RuntimeException e) {
+          failure.compareAndSet(null, e);
+          throw e;
+        } finally {
+          permits.release();
+        }
+      }
+    };
+  }
+
+  private Callable<Blob> composePart(final ComposeRequest composeRequest) {
+    return new Callable<Blob>() {
+      @Override
+      public Blob call() {
+        return storage.compose(composeRequest);
+      }
+    };
+  }
+
+  private static ComposeRequest composeRequest(List<Blob> sources, BlobInfo target,
+      BlobTargetOption... options) {
+    ComposeRequest.Builder builder = ComposeRequest.builder().target(target).targetOptions(options);
+    for (Blob source : sources) {
+      builder.addSource(source.name(), source.generation());
+    }
+    return builder.build();
+  }
+
+  private static void acquire(Semaphore permits) {
+    try {
+      permits.acquire();
+    } catch (InterruptedException e) {
+      RetryInterruptedException.propagate();
+    }
+  }
+
+  private static List<Blob> awaitAll(List<Future<Blob>> futures) {
+    List<Blob> results = new ArrayList<>(futures.size());
+    for (Future<Blob> future : futures) {
+      try {
+        results.add(future.get());
+      } catch (InterruptedException e) {
+        RetryInterruptedException.propagate();
+      } catch (ExecutionException e) {
+        Throwable cause = e.getCause();
+        if (cause instanceof RuntimeException) {
+          throw (RuntimeException) cause;
+        }
+        throw new StorageException(BaseServiceException.UNKNOWN_CODE, cause.getMessage(), cause);
+      }
+    }
+    return results;
+  }
+
+  /**
+   * Waits for pending uploads and composes, so that no temporary blob is created after cleanup,
+   * then deletes all temporary blobs.
+   */
+  private void cleanup(List<Future<Blob>> futures, List<BlobId> temporaryBlobs) {
+    for (Future<Blob> future : futures) {
+      try {
+        future.get();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        break;
+      } catch (ExecutionException e) {
+        // failures are reported by the upload itself
+      }
+    }
+    if (!temporaryBlobs.isEmpty()) {
+      try {
+        storage.delete(temporaryBlobs);
+      } catch (StorageException e) {
+        // temporary blobs are deleted on a best effort basis
+      }
+    }
+  }
+}
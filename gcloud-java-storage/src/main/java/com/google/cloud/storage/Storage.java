@@ -41,6 +41,7 @@ import java.io.Serializable;
 import java.net.URL;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
@@ -1610,4 +1611,64 @@ public interface Storage extends Service<StorageOptions> {
    * @throws StorageException upon failure
    */
   List<Boolean> delete(Iterable<BlobId> blobIds);
+
+  /**
+   * Gets the requested blobs, streaming the results. Blob identities are lazily consumed from
+   * {@code blobIds} and grouped into batch requests, up to {@code parallelism} of which are
+   * processed concurrently ahead of the returned iterator. Only the blobs of in-flight batches are
+   * held in memory.
+   *
+   * <p>Example of getting the blobs of a listing:
+   * <pre> {@code
+   * Iterator<BlobId> blobIds = Iterators.transform(storage.list("bucket").iterateAll(),
+   *     new Function<Blob, BlobId>() {
+   *       public BlobId apply(Blob blob) {
+   *         return blob.blobId();
+   *       }
+   *     });
+   * Iterator<Blob> blobs = storage.get(blobIds, 4);
+   * while (blobs.hasNext()) {
+   *   Blob blob = blobs.next();
+   *   // do something with the blob
+   * }
+   * }</pre>
+   *
+   * @param blobIds blobs to get
+   * @param parallelism the maximum number of batch requests processed concurrently
+   * @return an iterator over {@code Blob} objects, in the same order as {@code blobIds}. If a blob
+   *     does not exist or access to it has been denied the corresponding item is {@code null}.
+   * @throws IllegalArgumentException if {@code parallelism} is not positive
+   * @throws StorageException upon failure, when iterating
+   */
+  Iterator<Blob> get(Iterator<BlobId> blobIds, int parallelism);
+
+  /**
+   * Updates the requested blobs, streaming the results. Blob information is lazily consumed from
+   * {@code blobInfos} and grouped into batch requests, up to {@code parallelism} of which are
+   * processed concurrently ahead of the returned iterator. Metadata are merged as in
+   * {@link #update(Iterable)}.
+   *
+   * @param blobInfos blobs to update
+   * @param parallelism the maximum number of batch requests processed concurrently
+   * @return an iterator over {@code Blob} objects, in the same order as {@code blobInfos}. If a
+   *     blob does not exist or access to it has been denied the corresponding item is {@code null}.
+   * @throws IllegalArgumentException if {@code parallelism} is not positive
+   * @throws StorageException upon failure, when iterating
+   */
+  Iterator<Blob> update(Iterator<BlobInfo> blobInfos, int parallelism);
+
+  /**
+   * Deletes the requested blobs, streaming the results. Blob identities are lazily consumed from
+   * {@code blobIds} and grouped into batch requests, up to {@code parallelism} of which are
+   * processed concurrently ahead of the returned iterator.
+   *
+   * @param blobIds blobs to delete
+   * @param parallelism the maximum number of batch requests processed concurrently
+   * @return an iterator over booleans, in the same order as {@code blobIds}. If a blob has been
+   *     deleted the corresponding item is {@code true}. If a blob was not found, deletion failed or
+   *     access to the resource was denied the corresponding item is {@code false}.
+   * @throws IllegalArgumentException if {@code parallelism} is not positive
+   * @throws StorageException upon failure, when iterating
+   */
+  Iterator<Boolean> delete(Iterator<BlobId> blobIds, int parallelism);
 }
@@ -16,18 +16,26 @@
 
 package com.google.cloud.storage;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static java.net.HttpURLConnection.HTTP_NOT_FOUND;
 
 import com.google.api.client.googleapis.json.GoogleJsonError;
 import com.google.api.services.storage.model.StorageObject;
+import com.google.cloud.BaseServiceException;
+import com.google.cloud.RetryHelper.RetryInterruptedException;
 import com.google.cloud.storage.Storage.BlobGetOption;
 import com.google.cloud.storage.Storage.BlobSourceOption;
 import com.google.cloud.storage.Storage.BlobTargetOption;
 import com.google.cloud.storage.spi.RpcBatch;
 import com.google.cloud.storage.spi.StorageRpc;
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * A batch of operations to be submitted to Google Cloud Storage using a single RPC request.
@@ -151,6 +159,62 @@ public class StorageBatch {
     batch.submit();
   }
 
+  /**
+   * Submits this batch for processing and waits for it to complete. Large batches are split into
+   * several RPC requests: up to {@code parallelism} of them are sent concurrently. Result
+   * callbacks may be invoked concurrently from different threads.
+   *
+   * @throws IllegalArgumentException if {@code parallelism} is not positive
+   * @throws StorageException upon failure of any RPC request
+   */
+  public void submit(int parallelism) {
+    checkArgument(parallelism > 0, "Parallelism must be > 0");
+    if (parallelism == 1) {
+      submit();
+      return;
+    }
+    ExecutorService executor = Executors.newFixedThreadPool(parallelism,
+        new ThreadFactoryBuilder().setDaemon(true).setNameFormat("storage-batch-%d").build());
+    try {
+      submitAsync(executor).get();
+    } catch (InterruptedException ex) {
+      RetryInterruptedException.propagate();
+    } catch (ExecutionException ex) {
+      Throwable cause = ex.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      throw new StorageException(BaseServiceException.UNKNOWN_CODE, cause.getMessage(), cause);
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  /**
+   * Submits this batch for processing on the provided executor. Large batches are split into
+   * several RPC requests that are sent concurrently, the size of {@code executor} bounds the number
+   * of RPC requests in flight. Result callbacks may be invoked concurrently from the executor's
+   * threads. The executor is not shut down when the batch completes.
+   *
+   * <p>Example of submitting a batch asynchronously:
+   * <pre>{@code
+   * ExecutorService executor = Executors.newFixedThreadPool(8);
+   * StorageBatch batch = storage.batch();
+   * for (BlobId blobId : blobIds) {
+   *   batch.delete(blobId);
+   * }
+   * Future<Void> future = batch.submitAsync(executor);
+   * // do other work
+   * future.get();
+   * }</pre>
+   *
+   * @return a future that completes once all operations have been processed, or fails with a
+   *     {@link StorageException} if any RPC request failed
+   */
+  public ListenableFuture<Void> submitAsync(ExecutorService executor) {
+    return batch.submitAsync(executor);
+  }
+
   private RpcBatch.Callback<Void> createDeleteCallback(final StorageBatchResult<Boolean> result) {
     return new RpcBatch.Callback<Void>() {
       @Override
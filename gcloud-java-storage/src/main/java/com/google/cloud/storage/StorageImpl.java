@@ -62,6 +62,7 @@ import java.net.URLEncoder;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.EnumMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.Callable;
@@ -615,6 +616,54 @@ final class StorageImpl extends BaseService<StorageOptions> implements Storage {
     return Collections.unmodifiableList(results);
   }
 
+  @Override
+  public Iterator<Blob> get(Iterator<BlobId> blobIds, int parallelism) {
+    checkArgument(parallelism > 0, "Parallelism must be > 0");
+    return new BulkResultIterator<BlobId, Blob>(this, blobIds, parallelism) {
+      @Override
+      StorageBatchResult<Blob> add(StorageBatch batch, BlobId blobId) {
+        return batch.get(blobId);
+      }
+
+      @Override
+      Blob errorResult(StorageException exception) {
+        return null;
+      }
+    };
+  }
+
+  @Override
+  public Iterator<Blob> update(Iterator<BlobInfo> blobInfos, int parallelism) {
+    checkArgument(parallelism > 0, "Parallelism must be > 0");
+    return new BulkResultIterator<BlobInfo, Blob>(this, blobInfos, parallelism) {
+      @Override
+      StorageBatchResult<Blob> add(StorageBatch batch, BlobInfo blobInfo) {
+        return batch.update(blobInfo);
+      }
+
+      @Override
+      Blob errorResult(StorageException exception) {
+        return null;
+      }
+    };
+  }
+
+  @Override
+  public Iterator<Boolean> delete(Iterator<BlobId> blobIds, int parallelism) {
+    checkArgument(parallelism > 0, "Parallelism must be > 0");
+    return new BulkResultIterator<BlobId, Boolean>(this, blobIds, parallelism) {
+      @Override
+      StorageBatchResult<Boolean> add(StorageBatch batch, BlobId blobId) {
+        return batch.delete(blobId);
+      }
+
+      @Override
+      Boolean errorResult(StorageException exception) {
+        return Boolean.FALSE;
+      }
+    };
+  }
+
   private static <T> void addToOptionMap(StorageRpc.Option option, T defaultValue,
       Map<StorageRpc.Option, Object> map) {
     addToOptionMap(option, option, defaultValue, map);
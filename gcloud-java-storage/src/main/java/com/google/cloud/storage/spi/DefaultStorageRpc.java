@@ -65,18 +65,29 @@ import com.google.api.services.storage.model.StorageObject;
 import com.google.cloud.storage.StorageException;
 import com.google.cloud.storage.StorageOptions;
 import com.google.common.base.Function;
+import com.google.common.base.Joiner;
+import com.google.common.base.Splitter;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
 import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
 
 public class DefaultStorageRpc implements StorageRpc {
 
@@ -85,6 +96,9 @@ public class DefaultStorageRpc implements StorageRpc {
   private final Storage storage;
 
   private static final long MEGABYTE = 1024L * 1024L;
+  private static final String HASH_HEADER = "x-goog-hash";
+  private static final String GENERATION_HEADER = "x-goog-generation";
+  private static final String STORED_CONTENT_ENCODING_HEADER = "x-goog-stored-content-encoding";
 
   public DefaultStorageRpc(StorageOptions options) {
     HttpTransport transport = options.httpTransportFactory().create();
@@ -169,6 +183,31 @@ public class DefaultStorageRpc implements StorageRpc {
         throw translate(ex);
       }
     }
+
+    @Override
+    public ListenableFuture<Void> submitAsync(ExecutorService executor) {
+      ListeningExecutorService listeningExecutor = MoreExecutors.listeningDecorator(executor);
+      List<ListenableFuture<Void>> futures = new ArrayList<>(batches.size());
+      for (final BatchRequest batch : batches) {
+        futures.add(listeningExecutor.submit(new Callable<Void>() {
+          @Override
+          public Void call() {
+            try {
+              batch.execute();
+              return null;
+            } catch (IOException ex) {
+              throw translate(ex);
+            }
+          }
+        }));
+      }
+      return Futures.transform(Futures.allAsList(futures), new Function<List<Void>, Void>() {
+        @Override
+        public Void apply(List<Void> results) {
+          return null;
+        }
+      });
+    }
   }
 
   private static <T> JsonBatchCallback<T> toJsonCallback(final RpcBatch.Callback<T> callback) {
@@ -459,21 +498,27 @@ public class DefaultStorageRpc implements StorageRpc {
     return new DefaultRpcBatch(storage);
   }
 
+  private Get readRequest(StorageObject from, Map<Option, ?> options, long position, int bytes)
+      throws IOException {
+    Get req = storage.objects()
+        .get(from.getBucket(), from.getName())
+        .setGeneration(from.getGeneration())
+        .setIfMetagenerationMatch(IF_METAGENERATION_MATCH.getLong(options))
+        .setIfMetagenerationNotMatch(IF_METAGENERATION_NOT_MATCH.getLong(options))
+        .setIfGenerationMatch(IF_GENERATION_MATCH.getLong(options))
+        .setIfGenerationNotMatch(IF_GENERATION_NOT_MATCH.getLong(options));
+    checkArgument(position >= 0, "Position should be non-negative, is %d", position);
+    StringBuilder range = new StringBuilder();
+    range.append("bytes=").append(position).append("-").append(position + bytes - 1);
+    req.getRequestHeaders().setRange(range.toString());
+    return req;
+  }
+
   @Override
   public Tuple<String, byte[]> read(StorageObject from, Map<Option, ?> options, long position,
       int bytes) {
     try {
-      Get req = storage.objects()
-          .get(from.getBucket(), from.getName())
-          .setGeneration(from.getGeneration())
-          .setIfMetagenerationMatch(IF_METAGENERATION_MATCH.getLong(options))
-          .setIfMetagenerationNotMatch(IF_METAGENERATION_NOT_MATCH.getLong(options))
-          .setIfGenerationMatch(IF_GENERATION_MATCH.getLong(options))
-          .setIfGenerationNotMatch(IF_GENERATION_NOT_MATCH.getLong(options));
-      checkArgument(position >= 0, "Position should be non-negative, is %d", position);
-      StringBuilder range = new StringBuilder();
-      range.append("bytes=").append(position).append("-").append(position + bytes - 1);
-      req.getRequestHeaders().setRange(range.toString());
+      Get req = readRequest(from, options, position, bytes);
       ByteArrayOutputStream output = new ByteArrayOutputStream(bytes);
       req.executeMedia().download(output);
       String etag = req.getLastResponseHeaders().getETag();
@@ -487,9 +532,77 @@ public class DefaultStorageRpc implements StorageRpc {
     }
   }
 
+  @Override
+  public StorageObject read(StorageObject from, Map<Option, ?> options, long position,
+      ByteBuffer buffer) {
+    try {
+      Get req = readRequest(from, options, position, buffer.remaining());
+      HttpResponse response = req.executeMedia();
+      try {
+        InputStream content = response.getContent();
+        if (content != null && buffer.hasArray()) {
+          byte[] array = buffer.array();
+          int read = 0;
+          while (buffer.hasRemaining() && read >= 0) {
+            read = content.read(array, buffer.arrayOffset() + buffer.position(),
+                buffer.remaining());
+            if (read > 0) {
+              buffer.position(buffer.position() + read);
+            }
+          }
+        } else if (content != null) {
+          ReadableByteChannel channel = Channels.newChannel(content);
+          while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+            // keep reading until the buffer is full or the content is exhausted
+          }
+        }
+      } finally {
+        response.disconnect();
+      }
+      return readResponseObject(response.getHeaders());
+    } catch (IOException ex) {
+      StorageException serviceException = translate(ex);
+      if (serviceException.code() == SC_REQUESTED_RANGE_NOT_SATISFIABLE) {
+        return null;
+      }
+      throw serviceException;
+    }
+  }
+
+  /**
+   * Returns a storage object holding the etag, generation and checksums reported in the headers of
+   * a media download response. Checksums are omitted if the content was decompressed by the
+   * service, as they refer to the stored bytes rather than to the received ones.
+   */
+  private static StorageObject readResponseObject(HttpHeaders headers) {
+    StorageObject object = new StorageObject().setEtag(headers.getETag());
+    String generation = headers.getFirstHeaderStringValue(GENERATION_HEADER);
+    if (generation != null) {
+      object.setGeneration(Long.valueOf(generation));
+    }
+    if (!"gzip".equals(headers.getFirstHeaderStringValue(STORED_CONTENT_ENCODING_HEADER))) {
+      for (String value : headers.getHeaderStringValues(HASH_HEADER)) {
+        for (String hash : Splitter.on(',').trimResults().omitEmptyStrings().split(value)) {
+          if (hash.startsWith("crc32c=")) {
+            object.setCrc32c(hash.substring("crc32c=".length()));
+          } else if (hash.startsWith("md5=")) {
+            object.setMd5Hash(hash.substring("md5=".length()));
+          }
+        }
+      }
+    }
+    return object;
+  }
+
   @Override
   public void write(String uploadId, byte[] toWrite, int toWriteOffset, long destOffset, int length,
       boolean last) {
+    write(uploadId, toWrite, toWriteOffset, destOffset, length, last, null, null);
+  }
+
+  @Override
+  public void write(String uploadId, byte[] toWrite, int toWriteOffset, long destOffset, int length,
+      boolean last, String crc32c, String md5) {
     try {
       if (length == 0 && !last) {
         return;
@@ -511,6 +624,16 @@ public class DefaultStorageRpc implements StorageRpc {
         range.append('*');
       }
       httpRequest.getHeaders().setContentRange(range.toString());
+      if (last && (crc32c != null || md5 != null)) {
+        List<String> hashes = new ArrayList<>(2);
+        if (crc32c != null) {
+          hashes.add("crc32c=" + crc32c);
+        }
+        if (md5 != null) {
+          hashes.add("md5=" + md5);
+        }
+        httpRequest.getHeaders().set(HASH_HEADER, Joiner.on(',').join(hashes));
+      }
       int code;
       String message;
       IOException exception = null;
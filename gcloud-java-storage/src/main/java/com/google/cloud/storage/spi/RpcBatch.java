@@ -18,8 +18,10 @@ package com.google.cloud.storage.spi;
 
 import com.google.api.client.googleapis.json.GoogleJsonError;
 import com.google.api.services.storage.model.StorageObject;
+import com.google.common.util.concurrent.ListenableFuture;
 
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
 
 /**
  * An interface for the collection of batch operations.
@@ -67,4 +69,14 @@ public interface RpcBatch {
    * Submits a batch of requests for processing using a single RPC request to Cloud Storage.
    */
   void submit();
+
+  /**
+   * Submits a batch of requests for processing. If requests were split into several RPC requests,
+   * these are executed concurrently using {@code executor}, whose size bounds the number of RPC
+   * requests in flight. Callbacks may be invoked concurrently from the executor's threads.
+   *
+   * @return a future that completes once all requests have been processed, or fails with a
+   *     {@link com.google.cloud.storage.StorageException} if any RPC request failed
+   */
+  ListenableFuture<Void> submitAsync(ExecutorService executor);
 }
@@ -21,6 +21,7 @@ import com.google.api.services.storage.model.StorageObject;
 import com.google.cloud.storage.StorageException;
 
 import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.util.Map;
 import java.util.Objects;
 
@@ -283,6 +284,19 @@ public interface StorageRpc {
    */
   Tuple<String, byte[]> read(StorageObject from, Map<Option, ?> options, long position, int bytes);
 
+  /**
+   * Reads up to {@code buffer.remaining()} bytes from a storage object at the given position,
+   * writing them directly into {@code buffer}. Both heap and direct buffers are supported. Upon
+   * return the position of {@code buffer} is advanced by the number of bytes read, which is lower
+   * than the requested amount only if the end of the object was reached.
+   *
+   * @return the storage object's etag and generation, as well as the CRC32C and MD5 checksums of
+   *     the whole object when the service reports them, or {@code null} if {@code position} is
+   *     past the end of the object
+   * @throws StorageException upon failure
+   */
+  StorageObject read(StorageObject from, Map<Option, ?> options, long position, ByteBuffer buffer);
+
   /**
    * Opens a resumable upload channel for a given storage object.
    *
@@ -298,6 +312,17 @@ public interface StorageRpc {
   void write(String uploadId, byte[] toWrite, int toWriteOffset, long destOffset, int length,
       boolean last);
 
+  /**
+   * Writes the provided bytes to a storage object at the provided location. If {@code last} is
+   * {@code true} the base64-encoded CRC32C and MD5 checksums of the whole object are sent along
+   * with the bytes and the service rejects the upload if they do not match the received content.
+   * {@code null} checksums are not sent.
+   *
+   * @throws StorageException upon failure
+   */
+  void write(String uploadId, byte[] toWrite, int toWriteOffset, long destOffset, int length,
+      boolean last, String crc32c, String md5);
+
   /**
    * Sends a rewrite request to open a rewrite channel.
    *
@@ -18,7 +18,9 @@ package com.google.cloud.storage;
 
 import static org.easymock.EasyMock.anyObject;
 import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.eq;
 import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.getCurrentArguments;
 import static org.easymock.EasyMock.replay;
 import static org.easymock.EasyMock.verify;
 import static org.junit.Assert.assertArrayEquals;
@@ -26,13 +28,19 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
+import com.google.api.services.storage.model.StorageObject;
 import com.google.cloud.ReadChannel;
 import com.google.cloud.RestorableState;
 import com.google.cloud.RetryParams;
 import com.google.cloud.storage.spi.StorageRpc;
 import com.google.cloud.storage.spi.StorageRpcFactory;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.hash.Hashing;
+import com.google.common.io.BaseEncoding;
+import com.google.common.primitives.Ints;
 
+import org.easymock.IAnswer;
+import org.easymock.IExpectationSetters;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
@@ -90,8 +98,7 @@ public class BlobReadChannelTest {
     byte[] result = randomByteArray(DEFAULT_CHUNK_SIZE);
     ByteBuffer firstReadBuffer = ByteBuffer.allocate(42);
     ByteBuffer secondReadBuffer = ByteBuffer.allocate(42);
-    expect(storageRpcMock.read(BLOB_ID.toPb(), EMPTY_RPC_OPTIONS, 0, DEFAULT_CHUNK_SIZE))
-        .andReturn(StorageRpc.Tuple.of("etag", result));
+    expectRead(BLOB_ID, 0, DEFAULT_CHUNK_SIZE, "etag", result);
     replay(storageRpcMock);
     reader.read(firstReadBuffer);
     reader.read(secondReadBuffer);
@@ -110,11 +117,8 @@ public class BlobReadChannelTest {
     byte[] secondResult = randomByteArray(DEFAULT_CHUNK_SIZE);
     ByteBuffer firstReadBuffer = ByteBuffer.allocate(DEFAULT_CHUNK_SIZE);
     ByteBuffer secondReadBuffer = ByteBuffer.allocate(42);
-    expect(storageRpcMock.read(BLOB_ID.toPb(), EMPTY_RPC_OPTIONS, 0, DEFAULT_CHUNK_SIZE))
-        .andReturn(StorageRpc.Tuple.of("etag", firstResult));
-    expect(storageRpcMock.read(
-        BLOB_ID.toPb(), EMPTY_RPC_OPTIONS, DEFAULT_CHUNK_SIZE, CUSTOM_CHUNK_SIZE))
-            .andReturn(StorageRpc.Tuple.of("etag", secondResult));
+    expectRead(BLOB_ID, 0, DEFAULT_CHUNK_SIZE, "etag", firstResult);
+    expectRead(BLOB_ID, DEFAULT_CHUNK_SIZE, CUSTOM_CHUNK_SIZE, "etag", secondResult);
     replay(storageRpcMock);
     reader.read(firstReadBuffer);
     reader.read(secondReadBuffer);
@@ -123,14 +127,121 @@ public class BlobReadChannelTest {
         secondReadBuffer.array());
   }
 
+  @Test
+  public void testReadDirectBuffer() throws IOException {
+    reader = new BlobReadChannel(options, BLOB_ID, EMPTY_RPC_OPTIONS);
+    byte[] result = randomByteArray(DEFAULT_CHUNK_SIZE);
+    ByteBuffer readBuffer = ByteBuffer.allocateDirect(DEFAULT_CHUNK_SIZE);
+    expectRead(BLOB_ID, 0, DEFAULT_CHUNK_SIZE, "etag", result);
+    replay(storageRpcMock);
+    assertEquals(DEFAULT_CHUNK_SIZE, reader.read(readBuffer));
+    readBuffer.flip();
+    byte[] readBytes = new byte[DEFAULT_CHUNK_SIZE];
+    readBuffer.get(readBytes);
+    assertArrayEquals(result, readBytes);
+  }
+
   @Test
   public void testReadFinish() throws IOException {
     reader = new BlobReadChannel(options, BLOB_ID, EMPTY_RPC_OPTIONS);
     byte[] result = {};
     ByteBuffer readBuffer = ByteBuffer.allocate(DEFAULT_CHUNK_SIZE);
-    expect(storageRpcMock.read(BLOB_ID.toPb(), EMPTY_RPC_OPTIONS, 0, DEFAULT_CHUNK_SIZE))
-        .andReturn(StorageRpc.Tuple.of("etag", result));
+    expectRead(BLOB_ID, 0, DEFAULT_CHUNK_SIZE, "etag", result);
+    replay(storageRpcMock);
+    assertEquals(-1, reader.read(readBuffer));
+  }
+
+  @Test
+  public void testReadAhead() throws IOException {
+    reader = new BlobReadChannel(options, BLOB_ID, EMPTY_RPC_OPTIONS);
+    reader.readAhead(1);
+    byte[] firstResult = randomByteArray(DEFAULT_CHUNK_SIZE);
+    byte[] secondResult = randomByteArray(42);
+    ByteBuffer firstReadBuffer = ByteBuffer.allocate(DEFAULT_CHUNK_SIZE);
+    ByteBuffer secondReadBuffer = ByteBuffer.allocate(DEFAULT_CHUNK_SIZE);
+    expectRead(BLOB_ID, 0, DEFAULT_CHUNK_SIZE, "etag", firstResult);
+    expectRead(BLOB_ID, DEFAULT_CHUNK_SIZE, DEFAULT_CHUNK_SIZE, "etag", secondResult);
+    expectRead(BLOB_ID, 2 * DEFAULT_CHUNK_SIZE, DEFAULT_CHUNK_SIZE, "etag", new byte[0]).anyTimes();
+    replay(storageRpcMock);
+    assertEquals(DEFAULT_CHUNK_SIZE, reader.read(firstReadBuffer));
+    assertEquals(42, reader.read(secondReadBuffer));
+    assertEquals(-1, reader.read(secondReadBuffer));
+    reader.close();
+    assertArrayEquals(firstResult, firstReadBuffer.array());
+    assertArrayEquals(secondResult, Arrays.copyOf(secondReadBuffer.array(), 42));
+  }
+
+  @Test
+  public void testReadAheadGenerationChanged() throws IOException {
+    BlobId blobId = BlobId.of(BUCKET_NAME, BLOB_NAME);
+    reader = new BlobReadChannel(options, blobId, EMPTY_RPC_OPTIONS);
+    reader.readAhead(1);
+    byte[] firstResult = randomByteArray(DEFAULT_CHUNK_SIZE);
+    byte[] secondResult = randomByteArray(DEFAULT_CHUNK_SIZE);
+    ByteBuffer firstReadBuffer = ByteBuffer.allocate(DEFAULT_CHUNK_SIZE);
+    ByteBuffer secondReadBuffer = ByteBuffer.allocate(DEFAULT_CHUNK_SIZE);
+    expectRead(blobId, 0, DEFAULT_CHUNK_SIZE, "etag1", firstResult);
+    expectRead(blobId, DEFAULT_CHUNK_SIZE, DEFAULT_CHUNK_SIZE, "etag2", secondResult);
+    expectRead(blobId, 2 * DEFAULT_CHUNK_SIZE, DEFAULT_CHUNK_SIZE, "etag2", new byte[0]).anyTimes();
+    replay(storageRpcMock);
+    reader.read(firstReadBuffer);
+    try {
+      reader.read(secondReadBuffer);
+      fail("Expected ReadChannel read to throw StorageException");
+    } catch (StorageException ex) {
+      StringBuilder messageBuilder = new StringBuilder();
+      messageBuilder.append("Blob ").append(blobId).append(" was updated while reading");
+      assertEquals(messageBuilder.toString(), ex.getMessage());
+    } finally {
+      reader.close();
+    }
+  }
+
+  @Test
+  public void testReadChecksum() throws IOException {
+    reader = new BlobReadChannel(options, BLOB_ID, EMPTY_RPC_OPTIONS);
+    byte[] firstResult = randomByteArray(DEFAULT_CHUNK_SIZE);
+    byte[] secondResult = randomByteArray(42);
+    byte[] content = Arrays.copyOf(firstResult, DEFAULT_CHUNK_SIZE + 42);
+    System.arraycopy(secondResult, 0, content, DEFAULT_CHUNK_SIZE, 42);
+    ByteBuffer readBuffer = ByteBuffer.allocate(DEFAULT_CHUNK_SIZE);
+    expectRead(BLOB_ID, 0, DEFAULT_CHUNK_SIZE, "etag", crc32c(content), firstResult);
+    expectRead(BLOB_ID, DEFAULT_CHUNK_SIZE, DEFAULT_CHUNK_SIZE, "etag", crc32c(content),
+        secondResult);
+    replay(storageRpcMock);
+    assertEquals(DEFAULT_CHUNK_SIZE, reader.read(readBuffer));
+    readBuffer.clear();
+    assertEquals(42, reader.read(readBuffer));
+    assertEquals(-1, reader.read(readBuffer));
+  }
+
+  @Test
+  public void testReadChecksumMismatch() throws IOException {
+    reader = new BlobReadChannel(options, BLOB_ID, EMPTY_RPC_OPTIONS);
+    byte[] result = randomByteArray(42);
+    String crc32c = crc32c(new byte[42]);
+    expectRead(BLOB_ID, 0, DEFAULT_CHUNK_SIZE, "etag", crc32c, result);
+    replay(storageRpcMock);
+    try {
+      reader.read(ByteBuffer.allocate(42));
+      fail("Expected ReadChannel read to throw StorageException");
+    } catch (StorageException ex) {
+      StringBuilder messageBuilder = new StringBuilder();
+      messageBuilder.append("Blob ").append(BLOB_ID).append(" CRC32C checksum mismatch, expected ")
+          .append(crc32c).append(" but read content has ").append(crc32c(result));
+      assertEquals(messageBuilder.toString(), ex.getMessage());
+    }
+  }
+
+  @Test
+  public void testSeekSkipsChecksum() throws IOException {
+    reader = new BlobReadChannel(options, BLOB_ID, EMPTY_RPC_OPTIONS);
+    reader.seek(42);
+    byte[] result = randomByteArray(42);
+    ByteBuffer readBuffer = ByteBuffer.allocate(DEFAULT_CHUNK_SIZE);
+    expectRead(BLOB_ID, 42, DEFAULT_CHUNK_SIZE, "etag", crc32c(new byte[84]), result);
     replay(storageRpcMock);
+    assertEquals(42, reader.read(readBuffer));
     assertEquals(-1, reader.read(readBuffer));
   }
 
@@ -140,8 +251,7 @@ public class BlobReadChannelTest {
     reader.seek(42);
     byte[] result = randomByteArray(DEFAULT_CHUNK_SIZE);
     ByteBuffer readBuffer = ByteBuffer.allocate(DEFAULT_CHUNK_SIZE);
-    expect(storageRpcMock.read(BLOB_ID.toPb(), EMPTY_RPC_OPTIONS, 42, DEFAULT_CHUNK_SIZE))
-        .andReturn(StorageRpc.Tuple.of("etag", result));
+    expectRead(BLOB_ID, 42, DEFAULT_CHUNK_SIZE, "etag", result);
     replay(storageRpcMock);
     reader.read(readBuffer);
     assertArrayEquals(result, readBuffer.array());
@@ -178,11 +288,8 @@ public class BlobReadChannelTest {
     byte[] secondResult = randomByteArray(DEFAULT_CHUNK_SIZE);
     ByteBuffer firstReadBuffer = ByteBuffer.allocate(DEFAULT_CHUNK_SIZE);
     ByteBuffer secondReadBuffer = ByteBuffer.allocate(DEFAULT_CHUNK_SIZE);
-    expect(storageRpcMock.read(blobId.toPb(), EMPTY_RPC_OPTIONS, 0, DEFAULT_CHUNK_SIZE))
-        .andReturn(StorageRpc.Tuple.of("etag1", firstResult));
-    expect(
-        storageRpcMock.read(blobId.toPb(), EMPTY_RPC_OPTIONS, DEFAULT_CHUNK_SIZE,
-            DEFAULT_CHUNK_SIZE)).andReturn(StorageRpc.Tuple.of("etag2", secondResult));
+    expectRead(blobId, 0, DEFAULT_CHUNK_SIZE, "etag1", firstResult);
+    expectRead(blobId, DEFAULT_CHUNK_SIZE, DEFAULT_CHUNK_SIZE, "etag2", secondResult);
     replay(storageRpcMock);
     reader.read(firstReadBuffer);
     try {
@@ -201,10 +308,8 @@ public class BlobReadChannelTest {
     byte[] secondResult = randomByteArray(DEFAULT_CHUNK_SIZE);
     ByteBuffer firstReadBuffer = ByteBuffer.allocate(42);
     ByteBuffer secondReadBuffer = ByteBuffer.allocate(DEFAULT_CHUNK_SIZE);
-    expect(storageRpcMock.read(BLOB_ID.toPb(), EMPTY_RPC_OPTIONS, 0, DEFAULT_CHUNK_SIZE))
-        .andReturn(StorageRpc.Tuple.of("etag", firstResult));
-    expect(storageRpcMock.read(BLOB_ID.toPb(), EMPTY_RPC_OPTIONS, 42, DEFAULT_CHUNK_SIZE))
-        .andReturn(StorageRpc.Tuple.of("etag", secondResult));
+    expectRead(BLOB_ID, 0, DEFAULT_CHUNK_SIZE, "etag", firstResult);
+    expectRead(BLOB_ID, 42, DEFAULT_CHUNK_SIZE, "etag", secondResult);
     replay(storageRpcMock);
     reader = new BlobReadChannel(options, BLOB_ID, EMPTY_RPC_OPTIONS);
     reader.read(firstReadBuffer);
@@ -229,6 +334,31 @@ public class BlobReadChannelTest {
     assertEquals(state.toString(), secondState.toString());
   }
 
+  private IExpectationSetters<StorageObject> expectRead(BlobId blobId, long position,
+      int bytes, String etag, byte[] content) {
+    return expectRead(blobId, position, bytes, etag, null, content);
+  }
+
+  private IExpectationSetters<StorageObject> expectRead(BlobId blobId, long position,
+      final int bytes, String etag, String crc32c, final byte[] content) {
+    final StorageObject result = new StorageObject().setEtag(etag).setCrc32c(crc32c);
+    return expect(storageRpcMock.read(eq(blobId.toPb()), eq(EMPTY_RPC_OPTIONS), eq(position),
+        anyObject(ByteBuffer.class))).andAnswer(new IAnswer<StorageObject>() {
+          @Override
+          public StorageObject answer() {
+            ByteBuffer buffer = (ByteBuffer) getCurrentArguments()[3];
+            assertEquals(bytes, buffer.remaining());
+            buffer.put(content);
+            return result;
+          }
+        });
+  }
+
+  private static String crc32c(byte[] content) {
+    return BaseEncoding.base64().encode(
+        Ints.toByteArray(Hashing.crc32c().hashBytes(content).asInt()));
+  }
+
   private static byte[] randomByteArray(int size) {
     byte[] byteArray = new byte[size];
     RANDOM.nextBytes(byteArray);
@@ -16,6 +16,7 @@
 
 package com.google.cloud.storage;
 
+import static org.easymock.EasyMock.anyLong;
 import static org.easymock.EasyMock.anyObject;
 import static org.easymock.EasyMock.capture;
 import static org.easymock.EasyMock.captureLong;
@@ -30,12 +31,16 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
+import com.google.cloud.BufferPool;
 import com.google.cloud.RestorableState;
 import com.google.cloud.RetryParams;
 import com.google.cloud.WriteChannel;
 import com.google.cloud.storage.spi.StorageRpc;
 import com.google.cloud.storage.spi.StorageRpcFactory;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.hash.Hashing;
+import com.google.common.io.BaseEncoding;
+import com.google.common.primitives.Ints;
 
 import org.easymock.Capture;
 import org.easymock.CaptureType;
@@ -59,6 +64,8 @@ public class BlobWriteChannelTest {
   private static final int MIN_CHUNK_SIZE = 256 * 1024;
   private static final int DEFAULT_CHUNK_SIZE = 8 * MIN_CHUNK_SIZE;
   private static final int CUSTOM_CHUNK_SIZE = 4 * MIN_CHUNK_SIZE;
+  private static final String EMPTY_CRC32C = "AAAAAA==";
+  private static final String EMPTY_MD5 = "1B2M2Y8AsgTpgAmY7PhCfg==";
   private static final Random RANDOM = new Random();
 
   private StorageOptions options;
@@ -106,7 +113,7 @@ public class BlobWriteChannelTest {
     expect(storageRpcMock.open(BLOB_INFO.toPb(), EMPTY_RPC_OPTIONS)).andReturn(UPLOAD_ID);
     Capture<byte[]> capturedBuffer = Capture.newInstance();
     storageRpcMock.write(eq(UPLOAD_ID), capture(capturedBuffer), eq(0), eq(0L),
-        eq(CUSTOM_CHUNK_SIZE), eq(false));
+        eq(CUSTOM_CHUNK_SIZE), eq(false), eq((String) null), eq((String) null));
     replay(storageRpcMock);
     writer = new BlobWriteChannel(options, BLOB_INFO, EMPTY_RPC_OPTIONS);
     writer.chunkSize(CUSTOM_CHUNK_SIZE);
@@ -120,7 +127,7 @@ public class BlobWriteChannelTest {
     expect(storageRpcMock.open(BLOB_INFO.toPb(), EMPTY_RPC_OPTIONS)).andReturn(UPLOAD_ID);
     Capture<byte[]> capturedBuffer = Capture.newInstance();
     storageRpcMock.write(eq(UPLOAD_ID), capture(capturedBuffer), eq(0), eq(0L),
-        eq(DEFAULT_CHUNK_SIZE), eq(false));
+        eq(DEFAULT_CHUNK_SIZE), eq(false), eq((String) null), eq((String) null));
     replay(storageRpcMock);
     writer = new BlobWriteChannel(options, BLOB_INFO, EMPTY_RPC_OPTIONS);
     ByteBuffer[] buffers = new ByteBuffer[DEFAULT_CHUNK_SIZE / MIN_CHUNK_SIZE];
@@ -136,11 +143,33 @@ public class BlobWriteChannelTest {
     }
   }
 
+  @Test
+  public void testWritesWithBufferPool() throws IOException {
+    BufferPool bufferPool = BufferPool.create(DEFAULT_CHUNK_SIZE);
+    options = options.toBuilder().bufferPool(bufferPool).build();
+    expect(storageRpcMock.open(BLOB_INFO.toPb(), EMPTY_RPC_OPTIONS)).andReturn(UPLOAD_ID);
+    storageRpcMock.write(eq(UPLOAD_ID), anyObject(byte[].class), eq(0), anyLong(),
+        eq(DEFAULT_CHUNK_SIZE), eq(false), eq((String) null), eq((String) null));
+    expectLastCall().times(3);
+    storageRpcMock.write(eq(UPLOAD_ID), anyObject(byte[].class), eq(0),
+        eq(3L * DEFAULT_CHUNK_SIZE), eq(0), eq(true), anyObject(String.class),
+        anyObject(String.class));
+    replay(storageRpcMock);
+    writer = new BlobWriteChannel(options, BLOB_INFO, EMPTY_RPC_OPTIONS);
+    for (int i = 0; i < 3; i++) {
+      assertEquals(DEFAULT_CHUNK_SIZE, writer.write(randomBuffer(DEFAULT_CHUNK_SIZE)));
+    }
+    writer.close();
+    assertEquals(1, bufferPool.allocations());
+    assertEquals(DEFAULT_CHUNK_SIZE, bufferPool.allocatedBytes());
+  }
+
   @Test
   public void testCloseWithoutFlush() throws IOException {
     expect(storageRpcMock.open(BLOB_INFO.toPb(), EMPTY_RPC_OPTIONS)).andReturn(UPLOAD_ID);
     Capture<byte[]> capturedBuffer = Capture.newInstance();
-    storageRpcMock.write(eq(UPLOAD_ID), capture(capturedBuffer), eq(0), eq(0L), eq(0), eq(true));
+    storageRpcMock.write(eq(UPLOAD_ID), capture(capturedBuffer), eq(0), eq(0L), eq(0), eq(true),
+        eq(EMPTY_CRC32C), eq(EMPTY_MD5));
     replay(storageRpcMock);
     writer = new BlobWriteChannel(options, BLOB_INFO, EMPTY_RPC_OPTIONS);
     assertTrue(writer.isOpen());
@@ -155,7 +184,7 @@ public class BlobWriteChannelTest {
     Capture<byte[]> capturedBuffer = Capture.newInstance();
     ByteBuffer buffer = randomBuffer(MIN_CHUNK_SIZE);
     storageRpcMock.write(eq(UPLOAD_ID), capture(capturedBuffer), eq(0), eq(0L), eq(MIN_CHUNK_SIZE),
-        eq(true));
+        eq(true), eq(crc32c(buffer.array())), eq(md5(buffer.array())));
     replay(storageRpcMock);
     writer = new BlobWriteChannel(options, BLOB_INFO, EMPTY_RPC_OPTIONS);
     assertTrue(writer.isOpen());
@@ -170,7 +199,8 @@ public class BlobWriteChannelTest {
   public void testWriteClosed() throws IOException {
     expect(storageRpcMock.open(BLOB_INFO.toPb(), EMPTY_RPC_OPTIONS)).andReturn(UPLOAD_ID);
     Capture<byte[]> capturedBuffer = Capture.newInstance();
-    storageRpcMock.write(eq(UPLOAD_ID), capture(capturedBuffer), eq(0), eq(0L), eq(0), eq(true));
+    storageRpcMock.write(eq(UPLOAD_ID), capture(capturedBuffer), eq(0), eq(0L), eq(0), eq(true),
+        eq(EMPTY_CRC32C), eq(EMPTY_MD5));
     replay(storageRpcMock);
     writer = new BlobWriteChannel(options, BLOB_INFO, EMPTY_RPC_OPTIONS);
     writer.close();
@@ -188,7 +218,8 @@ public class BlobWriteChannelTest {
     Capture<byte[]> capturedBuffer = Capture.newInstance(CaptureType.ALL);
     Capture<Long> capturedPosition = Capture.newInstance(CaptureType.ALL);
     storageRpcMock.write(eq(UPLOAD_ID), capture(capturedBuffer), eq(0),
-        captureLong(capturedPosition), eq(DEFAULT_CHUNK_SIZE), eq(false));
+        captureLong(capturedPosition), eq(DEFAULT_CHUNK_SIZE), eq(false),
+        eq((String) null), eq((String) null));
     expectLastCall().times(2);
     replay(storageRpcMock);
     ByteBuffer buffer1 = randomBuffer(DEFAULT_CHUNK_SIZE);
@@ -204,11 +235,59 @@ public class BlobWriteChannelTest {
     assertEquals(new Long(DEFAULT_CHUNK_SIZE), capturedPosition.getValues().get(1));
   }
 
+  @Test
+  public void testRestoredWriterDoesNotSendChecksums() throws IOException {
+    expect(storageRpcMock.open(BLOB_INFO.toPb(), EMPTY_RPC_OPTIONS)).andReturn(UPLOAD_ID);
+    storageRpcMock.write(eq(UPLOAD_ID), anyObject(byte[].class), eq(0), eq(0L),
+        eq(DEFAULT_CHUNK_SIZE), eq(false), eq((String) null), eq((String) null));
+    storageRpcMock.write(eq(UPLOAD_ID), anyObject(byte[].class), eq(0),
+        eq((long) DEFAULT_CHUNK_SIZE), eq(0), eq(true), eq((String) null), eq((String) null));
+    replay(storageRpcMock);
+    writer = new BlobWriteChannel(options, BLOB_INFO, EMPTY_RPC_OPTIONS);
+    assertEquals(DEFAULT_CHUNK_SIZE, writer.write(randomBuffer(DEFAULT_CHUNK_SIZE)));
+    WriteChannel restoredWriter = writer.capture().restore();
+    restoredWriter.close();
+  }
+
+  @Test
+  public void testWriteBehindSaveAndRestore() throws IOException {
+    expect(storageRpcMock.open(BLOB_INFO.toPb(), EMPTY_RPC_OPTIONS)).andReturn(UPLOAD_ID);
+    Capture<byte[]> capturedBuffer = Capture.newInstance(CaptureType.ALL);
+    Capture<Long> capturedPosition = Capture.newInstance(CaptureType.ALL);
+    storageRpcMock.write(eq(UPLOAD_ID), capture(capturedBuffer), eq(0),
+        captureLong(capturedPosition), eq(DEFAULT_CHUNK_SIZE), eq(false),
+        eq((String) null), eq((String) null));
+    expectLastCall().times(2);
+    replay(storageRpcMock);
+    ByteBuffer buffer1 = randomBuffer(DEFAULT_CHUNK_SIZE);
+    ByteBuffer buffer2 = randomBuffer(DEFAULT_CHUNK_SIZE);
+    writer = new BlobWriteChannel(options, BLOB_INFO, EMPTY_RPC_OPTIONS);
+    writer.writeBehind(1);
+    assertEquals(DEFAULT_CHUNK_SIZE, writer.write(buffer1));
+    assertEquals(DEFAULT_CHUNK_SIZE, writer.write(buffer2));
+    // capture waits for pending uploads to complete
+    RestorableState<WriteChannel> writerState = writer.capture();
+    assertArrayEquals(buffer1.array(), capturedBuffer.getValues().get(0));
+    assertEquals(new Long(0L), capturedPosition.getValues().get(0));
+    assertArrayEquals(buffer2.array(), capturedBuffer.getValues().get(1));
+    assertEquals(new Long(DEFAULT_CHUNK_SIZE), capturedPosition.getValues().get(1));
+    RestorableState<WriteChannel> expectedWriterState =
+        BlobWriteChannel.StateImpl.builder(options, BLOB_INFO, UPLOAD_ID)
+            .buffer(new byte[0])
+            .chunkSize(DEFAULT_CHUNK_SIZE)
+            .writeBehind(1)
+            .isOpen(true)
+            .position(2 * DEFAULT_CHUNK_SIZE)
+            .build();
+    assertEquals(expectedWriterState, writerState);
+  }
+
   @Test
   public void testSaveAndRestoreClosed() throws IOException {
     expect(storageRpcMock.open(BLOB_INFO.toPb(), EMPTY_RPC_OPTIONS)).andReturn(UPLOAD_ID);
     Capture<byte[]> capturedBuffer = Capture.newInstance();
-    storageRpcMock.write(eq(UPLOAD_ID), capture(capturedBuffer), eq(0), eq(0L), eq(0), eq(true));
+    storageRpcMock.write(eq(UPLOAD_ID), capture(capturedBuffer), eq(0), eq(0L), eq(0), eq(true),
+        eq(EMPTY_CRC32C), eq(EMPTY_MD5));
     replay(storageRpcMock);
     writer = new BlobWriteChannel(options, BLOB_INFO, EMPTY_RPC_OPTIONS);
     writer.close();
@@ -240,6 +319,15 @@ public class BlobWriteChannelTest {
     assertEquals(state.toString(), state2.toString());
   }
 
+  private static String crc32c(byte[] content) {
+    return BaseEncoding.base64().encode(
+        Ints.toByteArray(Hashing.crc32c().hashBytes(content).asInt()));
+  }
+
+  private static String md5(byte[] content) {
+    return BaseEncoding.base64().encode(Hashing.md5().hashBytes(content).asBytes());
+  }
+
   private static ByteBuffer randomBuffer(int size) {
     byte[] byteArray = new byte[size];
     RANDOM.nextBytes(byteArray);
@@ -0,0 +1,233 @@
+/*
+ * Copyright 2016 Google Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.storage;
+
+import static org.easymock.EasyMock.anyObject;
+import static org.easymock.EasyMock.aryEq;
+import static org.easymock.EasyMock.capture;
+import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.eq;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.replay;
+import static org.easymock.EasyMock.verify;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import com.google.cloud.storage.Storage.BlobTargetOption;
+import com.google.cloud.storage.Storage.ComposeRequest;
+import com.google.common.collect.ImmutableList;
+
+import org.easymock.Capture;
+import org.easymock.EasyMock;
+import org.easymock.IAnswer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class ParallelUploaderTest {
+
+  private static final String BUCKET_NAME = "b";
+  private static final String BLOB_NAME = "n";
+  private static final BlobInfo BLOB_INFO = BlobInfo.builder(BUCKET_NAME, BLOB_NAME).build();
+  private static final BlobTargetOption[] TARGET_OPTIONS =
+      {BlobTargetOption.predefinedAcl(Storage.PredefinedAcl.PRIVATE)};
+
+  private Storage storageMock;
+  private Map<String, byte[]> parts;
+
+  @Before
+  public void setUp() {
+    storageMock = createMock(Storage.class);
+    parts = new ConcurrentHashMap<>();
+    expect(storageMock.options()).andReturn(null).anyTimes();
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    verify(storageMock);
+  }
+
+  private static byte[] content(int length) {
+    byte[] content = new byte[length];
+    for (int i = 0; i < length; i++) {
+      content[i] = (byte) i;
+    }
+    return content;
+  }
+
+  private Blob blob(BlobInfo info) {
+    BlobInfo withGeneration = info.toBuilder()
+        .blobId(BlobId.of(info.bucket(), info.name(), 42L))
+        .build();
+    return new Blob(storageMock, new BlobInfo.BuilderImpl(withGeneration));
+  }
+
+  private void expectPartUploads(int count) {
+    expect(storageMock.create(anyObject(BlobInfo.class), anyObject(byte[].class)))
+        .andAnswer(new IAnswer<Blob>() {
+          @Override
+          public Blob answer() throws Throwable {
+            BlobInfo info = (BlobInfo) EasyMock.getCurrentArguments()[0];
+            parts.put(info.name(), (byte[]) EasyMock.getCurrentArguments()[1]);
+            return blob(info);
+          }
+        }).times(count);
+  }
+
+  private byte[] composedContent(ComposeRequest request) {
+    List<byte[]> sources = new ArrayList<>();
+    int length = 0;
+    for (ComposeRequest.SourceBlob source : request.sourceBlobs()) {
+      byte[] part = parts.get(source.name());
+      sources.add(part);
+      length += part.length;
+    }
+    byte[] composed = new byte[length];
+    int position = 0;
+    for (byte[] source : sources) {
+      System.arraycopy(source, 0, composed, position, source.length);
+      position += source.length;
+    }
+    return composed;
+  }
+
+  private void expectComposes(int count, final Capture<ComposeRequest> lastRequest) {
+    expect(storageMock.compose(capture(lastRequest))).andAnswer(new IAnswer<Blob>() {
+      @Override
+      public Blob answer() throws Throwable {
+        ComposeRequest request = (ComposeRequest) EasyMock.getCurrentArguments()[0];
+        parts.put(request.target().name(), composedContent(request));
+        return blob(request.target());
+      }
+    }).times(count);
+  }
+
+  @Test
+  public void testUploadSinglePart() throws IOException {
+    byte[] content = content(10);
+    Blob blob = blob(BLOB_INFO);
+    expect(storageMock.create(eq(BLOB_INFO), aryEq(content), eq(TARGET_OPTIONS[0])))
+        .andReturn(blob);
+    replay(storageMock);
+    ParallelUploader uploader = ParallelUploader.builder(storageMock).partSize(10).build();
+    assertSame(blob, uploader.upload(BLOB_INFO, new ByteArrayInputStream(content),
+        TARGET_OPTIONS));
+  }
+
+  @Test
+  public void testUploadEmpty() throws IOException {
+    Blob blob = blob(BLOB_INFO);
+    expect(storageMock.create(eq(BLOB_INFO), aryEq(new byte[0]))).andReturn(blob);
+    replay(storageMock);
+    ParallelUploader uploader = ParallelUploader.builder(storageMock).partSize(10).build();
+    assertSame(blob, uploader.upload(BLOB_INFO, new ByteArrayInputStream(new byte[0])));
+  }
+
+  @Test
+  public void testUploadMultipleParts() throws IOException {
+    byte[] content = content(10);
+    Capture<ComposeRequest> request = Capture.newInstance();
+    Capture<Iterable<BlobId>> deleted = Capture.newInstance();
+    expectPartUploads(3);
+    expectComposes(1, request);
+    expect(storageMock.delete(capture(deleted))).andReturn(ImmutableList.of(true, true, true));
+    replay(storageMock);
+    ParallelUploader uploader =
+        ParallelUploader.builder(storageMock).partSize(4).parallelism(2).build();
+    Blob blob = uploader.upload(BLOB_INFO, new ByteArrayInputStream(content), TARGET_OPTIONS);
+    assertEquals(BLOB_NAME, blob.name());
+    assertEquals(BLOB_INFO, request.getValue().target());
+    assertEquals(ImmutableList.copyOf(TARGET_OPTIONS), request.getValue().targetOptions());
+    assertEquals(3, request.getValue().sourceBlobs().size());
+    assertArrayEquals(content, parts.get(BLOB_NAME));
+    assertEquals(3, ImmutableList.copyOf(deleted.getValue()).size());
+    for (BlobId blobId : deleted.getValue()) {
+      assertEquals(BUCKET_NAME, blobId.bucket());
+    }
+  }
+
+  @Test
+  public void testUploadManyParts() throws IOException {
+    int partCount = ParallelUploader.MAX_COMPOSE_SOURCES * 2 + 1;
+    byte[] content = content(partCount);
+    Capture<ComposeRequest> request = Capture.newInstance();
+    Capture<Iterable<BlobId>> deleted = Capture.newInstance();
+    expectPartUploads(partCount);
+    expectComposes(4, request);
+    expect(storageMock.delete(capture(deleted)))
+        .andReturn(Collections.nCopies(partCount + 3, true));
+    replay(storageMock);
+    ParallelUploader uploader = ParallelUploader.builder(storageMock).partSize(1).build();
+    uploader.upload(BLOB_INFO, new ByteArrayInputStream(content));
+    assertEquals(BLOB_INFO, request.getValue().target());
+    assertEquals(3, request.getValue().sourceBlobs().size());
+    assertArrayEquals(content, parts.get(BLOB_NAME));
+    assertEquals(partCount + 3, ImmutableList.copyOf(deleted.getValue()).size());
+  }
+
+  @Test
+  public void testUploadFailureDeletesParts() throws IOException {
+    StorageException exception = new StorageException(500, "error");
+    Capture<Iterable<BlobId>> deleted = Capture.newInstance();
+    expectPartUploads(1);
+    expect(storageMock.create(anyObject(BlobInfo.class), anyObject(byte[].class)))
+        .andThrow(exception);
+    expect(storageMock.delete(capture(deleted))).andReturn(ImmutableList.of(true, false));
+    replay(storageMock);
+    ParallelUploader uploader =
+        ParallelUploader.builder(storageMock).partSize(4).parallelism(1).build();
+    try {
+      uploader.upload(BLOB_INFO, new ByteArrayInputStream(content(8)));
+      fail("StorageException expected");
+    } catch (StorageException ex) {
+      assertSame(exception, ex);
+    }
+    assertEquals(2, ImmutableList.copyOf(deleted.getValue()).size());
+  }
+
+  @Test
+  public void testUploadFailureStopsReading() throws IOException {
+    StorageException exception = new StorageException(500, "error");
+    Capture<Iterable<BlobId>> deleted = Capture.newInstance();
+    expect(storageMock.create(anyObject(BlobInfo.class), anyObject(byte[].class)))
+        .andThrow(exception);
+    expect(storageMock.delete(capture(deleted))).andReturn(ImmutableList.of(false));
+    replay(storageMock);
+    ParallelUploader uploader =
+        ParallelUploader.builder(storageMock).partSize(1).parallelism(1).build();
+    ByteArrayInputStream content = new ByteArrayInputStream(content(10));
+    try {
+      uploader.upload(BLOB_INFO, content);
+      fail("StorageException expected");
+    } catch (StorageException ex) {
+      assertSame(exception, ex);
+    }
+    // only the failed part and the two parts read ahead of it were read
+    assertEquals(7, content.available());
+    assertEquals(1, ImmutableList.copyOf(deleted.getValue()).size());
+  }
+}
@@ -30,6 +30,9 @@ import com.google.cloud.storage.Storage.BlobTargetOption;
 import com.google.cloud.storage.spi.RpcBatch;
 import com.google.cloud.storage.spi.StorageRpc;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
 
 import org.easymock.Capture;
 import org.easymock.EasyMock;
@@ -38,6 +41,7 @@ import org.junit.Before;
 import org.junit.Test;
 
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
 
 public class StorageBatchTest {
 
@@ -221,4 +225,46 @@ public class StorageBatchTest {
     capturedCallback.onSuccess(BLOB_INFO.toPb());
     assertEquals(new Blob(storage, new Blob.BuilderImpl(BLOB_INFO)), batchResult.get());
   }
+
+  @Test
+  public void testSubmit() {
+    EasyMock.reset(batchMock);
+    batchMock.submit();
+    EasyMock.replay(batchMock);
+    dnsBatch.submit();
+  }
+
+  @Test
+  public void testSubmitWithParallelism() {
+    EasyMock.reset(batchMock);
+    EasyMock.expect(batchMock.submitAsync(EasyMock.anyObject(ExecutorService.class)))
+        .andReturn(Futures.<Void>immediateFuture(null));
+    EasyMock.replay(batchMock);
+    dnsBatch.submit(4);
+  }
+
+  @Test
+  public void testSubmitWithParallelismFailure() {
+    StorageException exception = new StorageException(500, "error");
+    EasyMock.reset(batchMock);
+    EasyMock.expect(batchMock.submitAsync(EasyMock.anyObject(ExecutorService.class)))
+        .andReturn(Futures.<Void>immediateFailedFuture(exception));
+    EasyMock.replay(batchMock);
+    try {
+      dnsBatch.submit(4);
+      fail("Should throw a StorageException on error.");
+    } catch (StorageException ex) {
+      assertSame(exception, ex);
+    }
+  }
+
+  @Test
+  public void testSubmitAsync() throws Exception {
+    ExecutorService executor = MoreExecutors.newDirectExecutorService();
+    ListenableFuture<Void> future = Futures.immediateFuture(null);
+    EasyMock.reset(batchMock);
+    EasyMock.expect(batchMock.submitAsync(executor)).andReturn(future);
+    EasyMock.replay(batchMock);
+    assertSame(future, dnsBatch.submitAsync(executor));
+  }
 }
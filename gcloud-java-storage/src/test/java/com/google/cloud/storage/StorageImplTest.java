@@ -44,7 +44,9 @@ import com.google.common.collect.Iterables;
 import com.google.common.io.BaseEncoding;
 
 import org.easymock.Capture;
+import org.easymock.CaptureType;
 import org.easymock.EasyMock;
+import org.easymock.IAnswer;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.BeforeClass;
@@ -69,6 +71,8 @@ import java.security.spec.EncodedKeySpec;
 import java.security.spec.InvalidKeySpecException;
 import java.security.spec.PKCS8EncodedKeySpec;
 import java.security.spec.X509EncodedKeySpec;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
@@ -83,7 +87,6 @@ public class StorageImplTest {
   private static final byte[] BLOB_CONTENT = {0xD, 0xE, 0xA, 0xD};
   private static final String CONTENT_MD5 = "O1R4G1HJSDUISJjoIYmVhQ==";
   private static final String CONTENT_CRC32C = "9N3EPQ==";
-  private static final int DEFAULT_CHUNK_SIZE = 2 * 1024 * 1024;
 
   // BucketInfo objects
   private static final BucketInfo BUCKET_INFO1 =
@@ -1007,10 +1010,9 @@ public class StorageImplTest {
 
   @Test
   public void testReaderWithOptions() throws IOException {
-    byte[] result = new byte[DEFAULT_CHUNK_SIZE];
-    EasyMock.expect(
-        storageRpcMock.read(BLOB_INFO2.toPb(), BLOB_SOURCE_OPTIONS, 0, DEFAULT_CHUNK_SIZE))
-        .andReturn(StorageRpc.Tuple.of("etag", result));
+    EasyMock.expect(storageRpcMock.read(EasyMock.eq(BLOB_INFO2.toPb()),
+        EasyMock.eq(BLOB_SOURCE_OPTIONS), EasyMock.eq(0L), EasyMock.anyObject(ByteBuffer.class)))
+        .andReturn(new StorageObject().setEtag("etag"));
     EasyMock.replay(storageRpcMock);
     initializeService();
     ReadChannel channel = storage.reader(BUCKET_NAME1, BLOB_NAME2, BLOB_SOURCE_GENERATION,
@@ -1022,10 +1024,9 @@ public class StorageImplTest {
 
   @Test
   public void testReaderWithOptionsFromBlobId() throws IOException {
-    byte[] result = new byte[DEFAULT_CHUNK_SIZE];
-    EasyMock.expect(
-        storageRpcMock.read(BLOB_INFO1.blobId().toPb(), BLOB_SOURCE_OPTIONS, 0, DEFAULT_CHUNK_SIZE))
-        .andReturn(StorageRpc.Tuple.of("etag", result));
+    EasyMock.expect(storageRpcMock.read(EasyMock.eq(BLOB_INFO1.blobId().toPb()),
+        EasyMock.eq(BLOB_SOURCE_OPTIONS), EasyMock.eq(0L), EasyMock.anyObject(ByteBuffer.class)))
+        .andReturn(new StorageObject().setEtag("etag"));
     EasyMock.replay(storageRpcMock);
     initializeService();
     ReadChannel channel = storage.reader(BLOB_INFO1.blobId(),
@@ -1284,6 +1285,109 @@ public class StorageImplTest {
     EasyMock.verify(batchMock);
   }
 
+  @Test
+  public void testGetAllIterator() {
+    BlobId blobId1 = BlobId.of(BUCKET_NAME1, BLOB_NAME1);
+    BlobId blobId2 = BlobId.of(BUCKET_NAME1, BLOB_NAME2);
+    RpcBatch batchMock = EasyMock.createMock(RpcBatch.class);
+    final Capture<RpcBatch.Callback<StorageObject>> callback1 = Capture.newInstance();
+    final Capture<RpcBatch.Callback<StorageObject>> callback2 = Capture.newInstance();
+    batchMock.addGet(EasyMock.eq(blobId1.toPb()), EasyMock.capture(callback1),
+        EasyMock.eq(ImmutableMap.<StorageRpc.Option, Object>of()));
+    batchMock.addGet(EasyMock.eq(blobId2.toPb()), EasyMock.capture(callback2),
+        EasyMock.eq(ImmutableMap.<StorageRpc.Option, Object>of()));
+    EasyMock.expect(storageRpcMock.createBatch()).andReturn(batchMock);
+    batchMock.submit();
+    EasyMock.expectLastCall().andAnswer(new IAnswer<Void>() {
+      @Override
+      public Void answer() {
+        callback1.getValue().onSuccess(BLOB_INFO1.toPb());
+        callback2.getValue().onFailure(new GoogleJsonError());
+        return null;
+      }
+    });
+    EasyMock.replay(storageRpcMock, batchMock);
+    initializeService();
+    Iterator<Blob> resultBlobs =
+        storage.get(ImmutableList.of(blobId1, blobId2).iterator(), 2);
+    assertEquals(new Blob(storage, new BlobInfo.BuilderImpl(BLOB_INFO1)), resultBlobs.next());
+    assertNull(resultBlobs.next());
+    assertFalse(resultBlobs.hasNext());
+    EasyMock.verify(batchMock);
+  }
+
+  @Test
+  public void testUpdateAllIterator() {
+    RpcBatch batchMock = EasyMock.createMock(RpcBatch.class);
+    final Capture<RpcBatch.Callback<StorageObject>> callback1 = Capture.newInstance();
+    final Capture<RpcBatch.Callback<StorageObject>> callback2 = Capture.newInstance();
+    batchMock.addPatch(EasyMock.eq(BLOB_INFO1.toPb()), EasyMock.capture(callback1),
+        EasyMock.eq(ImmutableMap.<StorageRpc.Option, Object>of()));
+    batchMock.addPatch(EasyMock.eq(BLOB_INFO2.toPb()), EasyMock.capture(callback2),
+        EasyMock.eq(ImmutableMap.<StorageRpc.Option, Object>of()));
+    EasyMock.expect(storageRpcMock.createBatch()).andReturn(batchMock);
+    batchMock.submit();
+    EasyMock.expectLastCall().andAnswer(new IAnswer<Void>() {
+      @Override
+      public Void answer() {
+        callback1.getValue().onSuccess(BLOB_INFO1.toPb());
+        callback2.getValue().onFailure(new GoogleJsonError());
+        return null;
+      }
+    });
+    EasyMock.replay(storageRpcMock, batchMock);
+    initializeService();
+    Iterator<Blob> resultBlobs =
+        storage.update(ImmutableList.of(BLOB_INFO1, BLOB_INFO2).iterator(), 2);
+    assertEquals(new Blob(storage, new BlobInfo.BuilderImpl(BLOB_INFO1)), resultBlobs.next());
+    assertNull(resultBlobs.next());
+    assertFalse(resultBlobs.hasNext());
+    EasyMock.verify(batchMock);
+  }
+
+  @Test
+  public void testDeleteAllIterator() {
+    int count = BulkResultIterator.BATCH_SIZE + 1;
+    List<BlobId> blobIds = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      blobIds.add(BlobId.of(BUCKET_NAME1, BLOB_NAME1 + i));
+    }
+    RpcBatch firstBatchMock = EasyMock.createMock(RpcBatch.class);
+    RpcBatch secondBatchMock = EasyMock.createMock(RpcBatch.class);
+    final Capture<RpcBatch.Callback<Void>> callbacks = Capture.newInstance(CaptureType.ALL);
+    firstBatchMock.addDelete(EasyMock.anyObject(StorageObject.class),
+        EasyMock.capture(callbacks), EasyMock.eq(ImmutableMap.<StorageRpc.Option, Object>of()));
+    EasyMock.expectLastCall().times(BulkResultIterator.BATCH_SIZE);
+    secondBatchMock.addDelete(EasyMock.eq(blobIds.get(count - 1).toPb()),
+        EasyMock.capture(callbacks), EasyMock.eq(ImmutableMap.<StorageRpc.Option, Object>of()));
+    EasyMock.expect(storageRpcMock.createBatch()).andReturn(firstBatchMock);
+    EasyMock.expect(storageRpcMock.createBatch()).andReturn(secondBatchMock);
+    IAnswer<Void> answer = new IAnswer<Void>() {
+      private int completed;
+
+      @Override
+      public Void answer() {
+        List<RpcBatch.Callback<Void>> added = callbacks.getValues();
+        for (; completed < added.size(); completed++) {
+          added.get(completed).onSuccess(null);
+        }
+        return null;
+      }
+    };
+    firstBatchMock.submit();
+    EasyMock.expectLastCall().andAnswer(answer);
+    secondBatchMock.submit();
+    EasyMock.expectLastCall().andAnswer(answer);
+    EasyMock.replay(storageRpcMock, firstBatchMock, secondBatchMock);
+    initializeService();
+    Iterator<Boolean> results = storage.delete(blobIds.iterator(), 1);
+    for (int i = 0; i < count; i++) {
+      assertTrue(results.next());
+    }
+    assertFalse(results.hasNext());
+    EasyMock.verify(firstBatchMock, secondBatchMock);
+  }
+
   @Test
   public void testRetryableException() {
     BlobId blob = BlobId.of(BUCKET_NAME1, BLOB_NAME1);
@@ -810,6 +810,21 @@ public class ITStorageTest {
     assertTrue(deleteResult2.get());
   }
 
+  @Test
+  public void testBatchRequestParallel() {
+    List<StorageBatchResult<Boolean>> deleteResults =
+        Lists.newArrayListWithCapacity(2 * MAX_BATCH_SIZE + 1);
+    StorageBatch batch = storage.batch();
+    for (int i = 0; i < 2 * MAX_BATCH_SIZE + 1; i++) {
+      BlobId blobId = BlobId.of(BUCKET, "test-batch-request-parallel-blob-" + i);
+      deleteResults.add(batch.delete(blobId));
+    }
+    batch.submit(3);
+    for (StorageBatchResult<Boolean> failedDeleteResult : deleteResults) {
+      assertFalse(failedDeleteResult.get());
+    }
+  }
+
   @Test
   public void testBatchRequestManyOperations() {
     List<StorageBatchResult<Boolean>> deleteResults =
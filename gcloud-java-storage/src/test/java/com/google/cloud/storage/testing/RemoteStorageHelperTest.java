@@ -111,6 +111,11 @@ public class RemoteStorageHelperTest {
       public Iterator<Blob> iterateAll() {
         return blobList.iterator();
       }
+
+      @Override
+      public Iterator<Blob> iterateAll(int prefetchPages) {
+        return blobList.iterator();
+      }
     };
   }
 